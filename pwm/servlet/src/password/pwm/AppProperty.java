@@ -28,12 +28,14 @@ public enum AppProperty {
 
     AUDIT_EVENTS_EMAILFROM                          ("audit.events.emailFrom"),
     AUDIT_VAULT_MAX_RECORDS                         ("audit.vault.maxRecords"),
+    AUDIT_VAULT_TRIM_INTERVAL_MS                    ("audit.vault.trimIntervalMS"),
     BACKUP_LOCATION                                 ("backup.path"),
     BACKUP_CONFIG_COUNT                             ("backup.config.count"),
     BACKUP_LOCALDB_COUNT                            ("backup.localdb.count"),
     CACHE_ENABLE                                    ("cache.enable"),
     CACHE_MEMORY_MAX_ITEMS                          ("cache.memory.maxItems"),
     CACHE_PWRULECHECK_LIFETIME_MS                   ("cache.pwRuleCheckLifetimeMS"),
+    CACHE_LDAP_GUID_LIFETIME_MS                     ("cache.ldapGuidLifetimeMS"),
     CLIENT_ACTIVITY_MAX_EPS_RATE                    ("client.ajax.activityMaxEpsRate"),
     CLIENT_AJAX_PW_WAIT_CHECK_SECONDS               ("client.ajax.changePasswordWaitCheckSeconds"),
     CLIENT_AJAX_TYPING_TIMEOUT                      ("client.ajax.typingTimeout"),
@@ -52,6 +54,9 @@ public enum AppProperty {
     CONFIG_EDITOR_QUERY_FILTER_TEST_LIMIT           ("configEditor.queryFilter.testLimit"),
     CONFIG_EDITOR_IDLE_TIMEOUT                      ("configEditor.idleTimeoutSeconds"),
     CONFIG_GUIDE_IDLE_TIMEOUT                       ("configGuide.idleTimeoutSeconds"),
+    DB_CONNECTIONS_MAX                              ("db.connections.max"),
+    DB_CONNECTIONS_WAIT_MS                          ("db.connections.waitMS"),
+    DB_STATEMENT_CACHE_SIZE                         ("db.statementCacheSize"),
     FORM_EMAIL_REGEX                                ("form.email.regexTest"),
     HTTP_RESOURCES_MAX_CACHE_ITEMS                  ("http.resources.maxCacheItems"),
     HTTP_RESOURCES_MAX_CACHE_BYTES                  ("http.resources.maxCacheBytes"),
@@ -112,16 +117,28 @@ public enum AppProperty {
     INTRUDER_DELAY_PER_COUNT_MS                     ("intruder.delayPerCountMS"),
     INTRUDER_DELAY_MAX_JITTER_MS                    ("intruder.delayMaxJitterMS"),
     HEALTH_MIN_CHECK_INTERVAL_SECONDS               ("health.minimumCheckIntervalSeconds"),
+    HEALTH_CHECK_TIMEOUT_SECONDS                    ("health.checkTimeoutSeconds"),
     HEALTH_CERTIFICATE_WARN_SECONDS                 ("health.certificate.warnSeconds"),
+    HEALTH_CERTIFICATE_CHECK_INTERVAL_SECONDS       ("health.certificate.checkIntervalSeconds"),
     HEALTH_LDAP_CAUTION_DURATION_MS                 ("health.ldap.cautionDurationMS"),
     HEALTH_JAVA_MAX_THREADS                         ("health.java.maxThreads"),
     HEALTH_JAVA_MIN_HEAP_BYTES                      ("health.java.minHeapBytes"),
     HELPDESK_TOKEN_VALUE                            ("helpdesk.token.value"),
+    LDAP_AUTH_SHARED_BIND_ENABLE                    ("ldap.auth.sharedBind.enable"),
+    LDAP_AUTH_SHARED_BIND_MAX_CONNECTIONS           ("ldap.auth.sharedBind.maxConnections"),
     LDAP_CHAI_SETTINGS                              ("ldap.chaiSettings"),
     LDAP_CONNECTION_TIMEOUT                         ("ldap.connection.timeoutMS"),
     LDAP_PROFILE_RETRY_DELAY                        ("ldap.profile.retryDelayMS"),
+    LDAP_PROXY_POOL_SIZE                            ("ldap.proxy.pool.size"),
+    LDAP_PROXY_POOL_MAX_ACTIVE_PER_CONNECTION       ("ldap.proxy.pool.maxActivePerConnection"),
+    LDAP_PROXY_POOL_MAX_WAIT_MS                     ("ldap.proxy.pool.maxWaitMS"),
+    LDAP_PROXY_POOL_IDLE_TIMEOUT_MS                 ("ldap.proxy.pool.idleTimeoutMS"),
+    LDAP_PROXY_POOL_DISTRIBUTE_SERVERS              ("ldap.proxy.pool.distributeServers"),
     LDAP_PROMISCUOUS_ENABLE                         ("ldap.promiscuousEnable"),
     LDAP_SEARCH_TIMEOUT                             ("ldap.search.timeoutMS"),
+    LDAP_SEARCH_PARALLEL_THREADS                    ("ldap.search.parallel.threadCount"),
+    LDAP_USER_PREFETCH_ENABLE                       ("ldap.user.prefetch.enable"),
+    LDAP_USER_PREFETCH_MAX_ATTRIBUTES               ("ldap.user.prefetch.maxAttributes"),
     LDAP_PASSWORD_REPLICA_CHECK_INIT_DELAY_MS       ("ldap.password.replicaCheck.initialDelayMS"),
     LDAP_PASSWORD_REPLICA_CHECK_CYCLE_DELAY_MS      ("ldap.password.replicaCheck.cycleDelayMS"),
     LDAP_GUID_PATTERN                               ("ldap.guid.pattern"),
@@ -159,17 +176,23 @@ public enum AppProperty {
     QUEUE_EMAIL_RETRY_TIMEOUT_MS                    ("queue.email.retryTimeoutMs"),
     QUEUE_EMAIL_MAX_AGE_MS                          ("queue.email.maxAgeMs"),
     QUEUE_EMAIL_MAX_COUNT                           ("queue.email.maxCount"),
+    QUEUE_EMAIL_WORKER_THREADS                      ("queue.email.workerThreads"),
     QUEUE_SMS_RETRY_TIMEOUT_MS                      ("queue.sms.retryTimeoutMs"),
     QUEUE_SMS_MAX_AGE_MS                            ("queue.sms.maxAgeMs"),
     QUEUE_SMS_MAX_COUNT                             ("queue.sms.maxCount"),
+    QUEUE_SMS_WORKER_THREADS                        ("queue.sms.workerThreads"),
     QUEUE_SYSLOG_RETRY_TIMEOUT_MS                   ("queue.syslog.retryTimeoutMs"),
     QUEUE_SYSLOG_MAX_AGE_MS                         ("queue.syslog.maxAgeMs"),
     QUEUE_SYSLOG_MAX_COUNT                          ("queue.syslog.maxCount"),
+    QUEUE_SYSLOG_BATCH_SIZE                         ("queue.syslog.batchSize"),
+    QUEUE_SYSLOG_MAX_SEND_ATTEMPTS                  ("queue.syslog.maxSendAttempts"),
     QUEUE_MAX_CLOSE_TIMEOUT_MS                      ("queue.maxCloseTimeoutMs"),
+    QUEUE_ITEM_ID_BLOCK_SIZE                        ("queue.itemIdBlockSize"),
     RECAPTCHA_CLIENT_JS_URL("recaptcha.clientJsUrl"),
     RECAPTCHA_CLIENT_IFRAME_URL                     ("recaptcha.clientIframeUrl"),
     RECAPTCHA_VALIDATE_URL                          ("recaptcha.validateUrl"),
     REPORTING_LDAP_SEARCH_TIMEOUT                   ("reporting.ldap.searchTimeoutMs"),
+    REPORTING_LDAP_WORKER_THREADS                   ("reporting.ldap.workerThreads"),
     SECURITY_STRIP_INLINE_JAVASCRIPT                ("security.html.stripInlineJavascript"),
     SECURITY_HTTP_STRIP_HEADER_REGEX                ("security.http.stripHeaderRegex"),
     SECURITY_RESPONSES_HASH_ITERATIONS              ("security.responses.hashIterations"),
@@ -185,6 +208,10 @@ public enum AppProperty {
     
     /** Regular expression to be used for matching URLs to be shortened by the URL Shortening Service Class. */
     URL_SHORTNER_URL_REGEX                          ("urlshortener.url.regex"),
+    WORDLIST_BLOOMFILTER_ENABLE                     ("wordlist.bloomFilter.enable"),
+    WORDLIST_BLOOMFILTER_FALSE_POSITIVE_RATE        ("wordlist.bloomFilter.falsePositiveRate"),
+    WORDLIST_SEGMENT_ENABLE                         ("wordlist.segmentFile.enable"),
+    WORDLIST_SEGMENT_RUN_WORDS                      ("wordlist.segmentFile.runWords"),
     WS_REST_CLIENT_PWRULE_HALTONERROR               ("ws.restClient.pwRule.haltOnError"),
 
     ;
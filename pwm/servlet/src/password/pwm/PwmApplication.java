@@ -92,6 +92,7 @@ public class PwmApplication {
         SMS_ITEM_COUNTER("smsQueue.itemCount"),
         EMAIL_ITEM_COUNTER("itemQueue.itemCount"),
         LOCALDB_IMPORT_STATUS("localDB.import.status"),
+        AUDIT_INDEX_VERSION("auditVault.indexVersion"),
 
         ;
 
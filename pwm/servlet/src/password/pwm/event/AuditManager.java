@@ -255,9 +255,11 @@ public class AuditManager implements PwmService {
         {
             final TimeDuration maxRecordAge = new TimeDuration(pwmApplication.getConfig().readSettingAsLong(PwmSetting.EVENTS_AUDIT_MAX_AGE) * 1000);
             final int maxRecords = Integer.parseInt(pwmApplication.getConfig().readAppProperty(AppProperty.AUDIT_VAULT_MAX_RECORDS));
+            final TimeDuration trimInterval = new TimeDuration(Long.parseLong(pwmApplication.getConfig().readAppProperty(AppProperty.AUDIT_VAULT_TRIM_INTERVAL_MS)));
             final AuditVault.Settings settings = new AuditVault.Settings(
                     maxRecords,
-                    maxRecordAge
+                    maxRecordAge,
+                    trimInterval
             );
 
             if (pwmApplication.getLocalDB() != null && pwmApplication.getApplicationMode() != PwmApplication.MODE.READ_ONLY) {
@@ -274,6 +276,9 @@ public class AuditManager implements PwmService {
         if (syslogManager != null) {
             syslogManager.close();
         }
+        if (auditVault != null) {
+            auditVault.close();
+        }
         this.status = STATUS.CLOSED;
     }
 
@@ -288,6 +293,10 @@ public class AuditManager implements PwmService {
             healthRecords.addAll(syslogManager.healthCheck());
         }
 
+        if (auditVault != null) {
+            healthRecords.addAll(auditVault.healthCheck());
+        }
+
         if (lastError != null) {
             healthRecords.add(new HealthRecord(HealthStatus.WARN, HealthTopic.Audit, lastError.toDebugStr()));
         }
@@ -299,6 +308,10 @@ public class AuditManager implements PwmService {
         return auditVault.readVault();
     }
 
+    public Iterator<AuditRecord> query(final AuditQuery auditQuery) {
+        return auditVault.query(auditQuery);
+    }
+
     public List<UserAuditRecord> readUserHistory(final PwmSession pwmSession)
             throws PwmUnrecoverableException
     {
@@ -431,67 +444,73 @@ public class AuditManager implements PwmService {
     public int outputVaultToCsv(OutputStream outputStream, final Locale locale, final boolean includeHeader)
             throws IOException
     {
-        final Configuration config = null;
-
         final CSVPrinter csvPrinter = Helper.makeCsvPrinter(outputStream);
 
         csvPrinter.printComment(" " + PwmConstants.PWM_APP_NAME + " audit record output ");
         csvPrinter.printComment(" " + PwmConstants.DEFAULT_DATETIME_FORMAT.format(new Date()));
 
         if (includeHeader) {
-            final List<String> headers = new ArrayList<>();
-            headers.add("Type");
-            headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_EventCode",config,password.pwm.i18n.Admin.class));
-            headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_Timestamp",config,password.pwm.i18n.Admin.class));
-            headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_GUID",config,password.pwm.i18n.Admin.class));
-            headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_Message",config,password.pwm.i18n.Admin.class));
-            headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_Instance",config,password.pwm.i18n.Admin.class));
-            headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_PerpetratorID",config,password.pwm.i18n.Admin.class));
-            headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_PerpetratorDN",config,password.pwm.i18n.Admin.class));
-            headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_TargetID",config,password.pwm.i18n.Admin.class));
-            headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_TargetDN",config,password.pwm.i18n.Admin.class));
-            headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_SourceAddress",config,password.pwm.i18n.Admin.class));
-            headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_SourceHost",config,password.pwm.i18n.Admin.class));
-            csvPrinter.printRecord(headers);
+            csvPrinter.printRecord(makeCsvHeader(locale));
         }
 
         int counter = 0;
         for (final Iterator<AuditRecord> recordIterator = readVault(); recordIterator.hasNext();) {
             final AuditRecord loopRecord = recordIterator.next();
             counter++;
-
-            final List<String> lineOutput = new ArrayList<>();
-            lineOutput.add(loopRecord.getEventCode().getType().toString());
-            lineOutput.add(loopRecord.getEventCode().toString());
-            lineOutput.add(PwmConstants.DEFAULT_DATETIME_FORMAT.format(loopRecord.getTimestamp()));
-            lineOutput.add(loopRecord.getGuid());
-            lineOutput.add(loopRecord.getMessage() == null ? "" : loopRecord.getMessage());
-            if (loopRecord instanceof SystemAuditRecord) {
-                lineOutput.add(((SystemAuditRecord)loopRecord).getInstance());
-            }
-            if (loopRecord instanceof UserAuditRecord) {
-                lineOutput.add(((UserAuditRecord)loopRecord).getPerpetratorID());
-                lineOutput.add(((UserAuditRecord)loopRecord).getPerpetratorDN());
-                lineOutput.add("");
-                lineOutput.add("");
-                lineOutput.add(((UserAuditRecord)loopRecord).getSourceAddress());
-                lineOutput.add(((UserAuditRecord)loopRecord).getSourceHost());
-            }
-            if (loopRecord instanceof HelpdeskAuditRecord) {
-                lineOutput.add(((HelpdeskAuditRecord)loopRecord).getPerpetratorID());
-                lineOutput.add(((HelpdeskAuditRecord)loopRecord).getPerpetratorDN());
-                lineOutput.add(((HelpdeskAuditRecord)loopRecord).getTargetID());
-                lineOutput.add(((HelpdeskAuditRecord)loopRecord).getTargetDN());
-                lineOutput.add(((HelpdeskAuditRecord)loopRecord).getSourceAddress());
-                lineOutput.add(((HelpdeskAuditRecord)loopRecord).getSourceHost());
-            }
-            csvPrinter.printRecord(lineOutput);
+            csvPrinter.printRecord(makeCsvRow(loopRecord));
         }
         csvPrinter.flush();
 
         return counter;
     }
 
+    public static List<String> makeCsvHeader(final Locale locale) {
+        final Configuration config = null;
+        final List<String> headers = new ArrayList<>();
+        headers.add("Type");
+        headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_EventCode",config,password.pwm.i18n.Admin.class));
+        headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_Timestamp",config,password.pwm.i18n.Admin.class));
+        headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_GUID",config,password.pwm.i18n.Admin.class));
+        headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_Message",config,password.pwm.i18n.Admin.class));
+        headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_Instance",config,password.pwm.i18n.Admin.class));
+        headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_PerpetratorID",config,password.pwm.i18n.Admin.class));
+        headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_PerpetratorDN",config,password.pwm.i18n.Admin.class));
+        headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_TargetID",config,password.pwm.i18n.Admin.class));
+        headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_TargetDN",config,password.pwm.i18n.Admin.class));
+        headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_SourceAddress",config,password.pwm.i18n.Admin.class));
+        headers.add(LocaleHelper.getLocalizedMessage(locale,"Field_Audit_SourceHost",config,password.pwm.i18n.Admin.class));
+        return headers;
+    }
+
+    public static List<String> makeCsvRow(final AuditRecord loopRecord) {
+        final List<String> lineOutput = new ArrayList<>();
+        lineOutput.add(loopRecord.getEventCode().getType().toString());
+        lineOutput.add(loopRecord.getEventCode().toString());
+        lineOutput.add(PwmConstants.DEFAULT_DATETIME_FORMAT.format(loopRecord.getTimestamp()));
+        lineOutput.add(loopRecord.getGuid());
+        lineOutput.add(loopRecord.getMessage() == null ? "" : loopRecord.getMessage());
+        if (loopRecord instanceof SystemAuditRecord) {
+            lineOutput.add(((SystemAuditRecord)loopRecord).getInstance());
+        }
+        if (loopRecord instanceof UserAuditRecord) {
+            lineOutput.add(((UserAuditRecord)loopRecord).getPerpetratorID());
+            lineOutput.add(((UserAuditRecord)loopRecord).getPerpetratorDN());
+            lineOutput.add("");
+            lineOutput.add("");
+            lineOutput.add(((UserAuditRecord)loopRecord).getSourceAddress());
+            lineOutput.add(((UserAuditRecord)loopRecord).getSourceHost());
+        }
+        if (loopRecord instanceof HelpdeskAuditRecord) {
+            lineOutput.add(((HelpdeskAuditRecord)loopRecord).getPerpetratorID());
+            lineOutput.add(((HelpdeskAuditRecord)loopRecord).getPerpetratorDN());
+            lineOutput.add(((HelpdeskAuditRecord)loopRecord).getTargetID());
+            lineOutput.add(((HelpdeskAuditRecord)loopRecord).getTargetDN());
+            lineOutput.add(((HelpdeskAuditRecord)loopRecord).getSourceAddress());
+            lineOutput.add(((HelpdeskAuditRecord)loopRecord).getSourceHost());
+        }
+        return lineOutput;
+    }
+
     private static class Settings {
         private List<String> systemEmailAddresses = new ArrayList<>();
         private List<String> userEmailAddresses = new ArrayList<>();
@@ -508,6 +527,10 @@ public class AuditManager implements PwmService {
         return syslogManager != null ? syslogManager.queueSize() : 0;
     }
 
+    public Date syslogEldestItem() {
+        return syslogManager != null ? syslogManager.eldestItem() : null;
+    }
+
     private static Set<AuditEvent> figurePermittedEvents(final Configuration configuration) {
         final Set<AuditEvent> eventSet = new HashSet<>();
         eventSet.addAll(configuration.readSettingAsOptionList(PwmSetting.AUDIT_SYSTEM_EVENTS,AuditEvent.class));
@@ -0,0 +1,133 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.event;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * Criteria for selecting records from an {@link AuditVault}.  All criteria are optional; records must match every
+ * criteria that is set.  Matching records are returned newest first.
+ */
+public class AuditQuery implements Serializable {
+    private Date startTime;
+    private Date endTime;
+    private String perpetratorDN;
+    private String targetDN;
+    private Set<AuditEvent> events = Collections.emptySet();
+    private int maxResults = Integer.MAX_VALUE;
+
+    public Date getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Date startTime) {
+        this.startTime = startTime;
+    }
+
+    public Date getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(Date endTime) {
+        this.endTime = endTime;
+    }
+
+    public String getPerpetratorDN() {
+        return perpetratorDN;
+    }
+
+    public void setPerpetratorDN(String perpetratorDN) {
+        this.perpetratorDN = perpetratorDN;
+    }
+
+    public String getTargetDN() {
+        return targetDN;
+    }
+
+    public void setTargetDN(String targetDN) {
+        this.targetDN = targetDN;
+    }
+
+    public Set<AuditEvent> getEvents() {
+        return events;
+    }
+
+    public void setEvents(Set<AuditEvent> events) {
+        this.events = events == null ? Collections.<AuditEvent>emptySet() : events;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public void setMaxResults(int maxResults) {
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * @return true if no criteria other than the result limit have been set
+     */
+    public boolean isUnfiltered() {
+        return startTime == null && endTime == null && !hasValue(perpetratorDN) && !hasValue(targetDN) && events.isEmpty();
+    }
+
+    public boolean matches(final AuditRecord record) {
+        if (record == null) {
+            return false;
+        }
+
+        final Date timestamp = record.getTimestamp();
+        if (startTime != null && (timestamp == null || timestamp.before(startTime))) {
+            return false;
+        }
+
+        if (endTime != null && (timestamp == null || !timestamp.before(endTime))) {
+            return false;
+        }
+
+        if (!events.isEmpty() && !events.contains(record.getEventCode())) {
+            return false;
+        }
+
+        if (hasValue(perpetratorDN)) {
+            if (!(record instanceof UserAuditRecord) || !perpetratorDN.equalsIgnoreCase(((UserAuditRecord) record).getPerpetratorDN())) {
+                return false;
+            }
+        }
+
+        if (hasValue(targetDN)) {
+            if (!(record instanceof HelpdeskAuditRecord) || !targetDN.equalsIgnoreCase(((HelpdeskAuditRecord) record).getTargetDN())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean hasValue(final String input) {
+        return input != null && input.length() > 0;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.event;
+
+import password.pwm.util.BinaryEncoding;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Binary encoding of {@link AuditRecord}s for storage in the LocalDB audit vault.
+ */
+class AuditRecordCodec {
+    private static final int VERSION = 1;
+
+    private static final int GUID_UUID = 1;
+    private static final int GUID_LITERAL = 2;
+
+    // timestamps are written relative to 2015-01-01 to keep the varint short
+    private static final long TIMESTAMP_EPOCH = 1420070400000L;
+
+    // append only, existing entries must never be changed or reordered.  events added later are written as literals.
+    private static final BinaryEncoding.Dictionary EVENT_CODES = new BinaryEncoding.Dictionary(
+            "STARTUP", "SHUTDOWN", "FATAL_EVENT", "MODIFY_CONFIGURATION", "INTRUDER_LOCK", "INTRUDER_ATTEMPT",
+            "AUTHENTICATE", "AGREEMENT_PASSED", "TOKEN_ISSUED", "TOKEN_CLAIMED", "CLEAR_RESPONSES",
+            "CHANGE_PASSWORD", "UNLOCK_PASSWORD", "RECOVER_PASSWORD", "SET_RESPONSES", "SET_OTP_SECRET",
+            "ACTIVATE_USER", "CREATE_USER", "UPDATE_PROFILE", "INTRUDER_USER",
+            "HELPDESK_SET_PASSWORD", "HELPDESK_UNLOCK_PASSWORD", "HELPDESK_CLEAR_RESPONSES", "HELPDESK_CLEAR_OTP_SECRET",
+            "HELPDESK_ACTION", "HELPDESK_DELETE_USER", "HELPDESK_VIEW_DETAIL", "HELPDESK_VERIFY_OTP"
+    );
+
+    static String encode(final AuditRecord record) {
+        final BinaryEncoding.Writer writer = new BinaryEncoding.Writer();
+        writer.writeByte(VERSION);
+        writer.writeInterned(record.getEventCode().toString(), EVENT_CODES);
+        writer.writeLong(record.getTimestamp().getTime() - TIMESTAMP_EPOCH);
+        writeGuid(writer, record.getGuid());
+        writer.writeString(record.getMessage());
+
+        if (record instanceof SystemAuditRecord) {
+            writer.writeString(((SystemAuditRecord) record).getInstance());
+        } else if (record instanceof UserAuditRecord) {
+            final UserAuditRecord userRecord = (UserAuditRecord) record;
+            writer.writeString(userRecord.getPerpetratorID());
+            writer.writeString(userRecord.getPerpetratorDN());
+            writer.writeString(userRecord.getPerpetratorLdapProfile());
+            writer.writeString(userRecord.getSourceAddress());
+            writer.writeString(userRecord.getSourceHost());
+            if (record instanceof HelpdeskAuditRecord) {
+                final HelpdeskAuditRecord helpdeskRecord = (HelpdeskAuditRecord) record;
+                writer.writeString(helpdeskRecord.getTargetID());
+                writer.writeString(helpdeskRecord.getTargetDN());
+                writer.writeString(helpdeskRecord.getTargetLdapProfile());
+            }
+        }
+        return writer.toStoredValue();
+    }
+
+    static AuditRecord decode(final String storedValue)
+            throws IOException
+    {
+        final BinaryEncoding.Reader reader = BinaryEncoding.Reader.fromStoredValue(storedValue);
+        final int version = reader.readByte();
+        if (version != VERSION) {
+            throw new IOException("unsupported audit record encoding version " + version);
+        }
+
+        final AuditEvent eventCode = AuditEvent.valueOf(reader.readInterned(EVENT_CODES));
+        final Date timestamp = new Date(reader.readLong() + TIMESTAMP_EPOCH);
+        final String guid = readGuid(reader);
+        final String message = reader.readString();
+
+        final AuditRecord record;
+        switch (eventCode.getType()) {
+            case SYSTEM:
+                record = SystemAuditRecord.create(eventCode, message, reader.readString());
+                record.timestamp = timestamp;
+                break;
+
+            case USER:
+            case HELPDESK: {
+                final String perpetratorID = reader.readString();
+                final String perpetratorDN = reader.readString();
+                final String perpetratorLdapProfile = reader.readString();
+                final String sourceAddress = reader.readString();
+                final String sourceHost = reader.readString();
+                if (eventCode.getType() == AuditEvent.Type.USER) {
+                    record = UserAuditRecord.create(timestamp, eventCode, perpetratorID, perpetratorDN,
+                            perpetratorLdapProfile, message, sourceAddress, sourceHost);
+                } else {
+                    final String targetID = reader.readString();
+                    final String targetDN = reader.readString();
+                    final String targetLdapProfile = reader.readString();
+                    record = HelpdeskAuditRecord.create(timestamp, eventCode, perpetratorID, perpetratorDN,
+                            perpetratorLdapProfile, message, targetID, targetDN, targetLdapProfile, sourceAddress,
+                            sourceHost);
+                }
+                break;
+            }
+
+            default:
+                throw new IOException("unknown audit record type: " + eventCode.getType());
+        }
+        record.guid = guid;
+        return record;
+    }
+
+    private static void writeGuid(final BinaryEncoding.Writer writer, final String guid) {
+        if (guid != null) {
+            try {
+                final UUID uuid = UUID.fromString(guid);
+                if (uuid.toString().equals(guid)) {
+                    writer.writeByte(GUID_UUID);
+                    writer.writeLong(uuid.getMostSignificantBits());
+                    writer.writeLong(uuid.getLeastSignificantBits());
+                    return;
+                }
+            } catch (IllegalArgumentException e) {
+                // not a uuid, written as a literal
+            }
+        }
+        writer.writeByte(GUID_LITERAL);
+        writer.writeString(guid);
+    }
+
+    private static String readGuid(final BinaryEncoding.Reader reader)
+            throws IOException
+    {
+        final int guidType = reader.readByte();
+        switch (guidType) {
+            case GUID_UUID:
+                return new UUID(reader.readLong(), reader.readLong()).toString();
+
+            case GUID_LITERAL:
+                return reader.readString();
+
+            default:
+                throw new IOException("unknown audit record guid type " + guidType);
+        }
+    }
+}
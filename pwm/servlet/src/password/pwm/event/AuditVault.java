@@ -22,9 +22,11 @@
 
 package password.pwm.event;
 
+import password.pwm.health.HealthRecord;
 import password.pwm.util.TimeDuration;
 
 import java.util.Iterator;
+import java.util.List;
 
 public interface AuditVault {
 
@@ -36,14 +38,25 @@ public interface AuditVault {
 
     void add(AuditRecord record);
 
+    /**
+     * Read the records matching the query, newest first.
+     */
+    Iterator<AuditRecord> query(AuditQuery auditQuery);
+
+    List<HealthRecord> healthCheck();
+
+    void close();
+
     static class Settings {
         private int maxRecordCount;
         private TimeDuration maxRecordAge;
+        private TimeDuration trimInterval;
 
 
-        public Settings(int maxRecordCount, TimeDuration maxRecordAge) {
+        public Settings(int maxRecordCount, TimeDuration maxRecordAge, TimeDuration trimInterval) {
             this.maxRecordCount = maxRecordCount;
             this.maxRecordAge = maxRecordAge;
+            this.trimInterval = trimInterval;
         }
 
         public int getMaxRecordCount() {
@@ -53,6 +66,10 @@ public interface AuditVault {
         public TimeDuration getMaxRecordAge() {
             return maxRecordAge;
         }
+
+        public TimeDuration getTrimInterval() {
+            return trimInterval;
+        }
     }
 
 }
@@ -23,25 +23,63 @@
 package password.pwm.event;
 
 import password.pwm.PwmApplication;
+import password.pwm.error.PwmUnrecoverableException;
+import password.pwm.health.HealthMessage;
+import password.pwm.health.HealthRecord;
+import password.pwm.util.Helper;
+import password.pwm.util.BinaryEncoding;
 import password.pwm.util.JsonUtil;
+import password.pwm.util.SecureHelper;
 import password.pwm.util.TimeDuration;
 import password.pwm.util.localdb.LocalDB;
 import password.pwm.util.localdb.LocalDBException;
 import password.pwm.util.localdb.LocalDBStoredQueue;
 import password.pwm.util.logging.PwmLogger;
 
-import java.util.Date;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.*;
 
 public class LocalDbAuditVault implements AuditVault {
     private static final PwmLogger LOGGER = PwmLogger.forClass(LocalDbAuditVault.class);
 
-    private static final int MAX_REMOVALS_PER_ADD = 100;
+    private static final int MAX_REMOVALS_PER_TRIM = 1000;
 
+    /*
+    Each record is indexed by a key of the form [prefix|]timestamp|position, where timestamp is the zero padded
+    record time in ms and position is the record's position in the audit queue.  The time index has no prefix and
+    its value lists the record's keys in the other indexes so they can be removed along with it.  Queries scan the
+    chosen index one time bucket at a time working backwards from the end time, so results come out newest first
+    and only the buckets needed to fill the result limit are read.
+     */
+    private static final LocalDB.DB[] INDEX_DBS = new LocalDB.DB[] {
+            LocalDB.DB.AUDIT_INDEX_TIME,
+            LocalDB.DB.AUDIT_INDEX_PERPETRATOR,
+            LocalDB.DB.AUDIT_INDEX_TARGET,
+            LocalDB.DB.AUDIT_INDEX_EVENT,
+    };
+    private static final String INDEX_VERSION_KEY = PwmApplication.AppAttribute.AUDIT_INDEX_VERSION.getKey();
+    private static final String INDEX_VERSION = "1";
+    private static final char KEY_SEPARATOR = '|';
+    /*
+    All time index keys start with a digit.  Scanning the time index with an explicit range rather than a null range
+    gets the keys back in ascending (oldest first) order from every LocalDB implementation.
+     */
+    private static final String TIME_INDEX_MIN_KEY = "0";
+    private static final String TIME_INDEX_MAX_KEY = ":";
+    private static final char VALUE_SEPARATOR = '\t';
+    private static final int TIMESTAMP_WIDTH = 13;
+    private static final int POSITION_WIDTH = 10;
+    private static final long BUCKET_MS = TimeDuration.HOUR.getTotalMilliseconds();
+    private static final long MAX_BUCKET_MS = TimeDuration.DAY.getTotalMilliseconds() * 30;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final LocalDB localDB;
     private LocalDBStoredQueue auditDB;
+    private final String threadName;
     private Settings settings;
-    private Date oldestRecord;
+    private Timer timer;
+    private volatile boolean indexReady;
+    private volatile long oldestIndexedTime = Long.MAX_VALUE;
+    private volatile int lastTrimCount;
 
     public LocalDbAuditVault(
             final PwmApplication pwmApplication,
@@ -49,11 +87,18 @@ public class LocalDbAuditVault implements AuditVault {
     )
             throws LocalDBException
     {
+        this.localDB = localDB;
+        this.threadName = Helper.makeThreadName(pwmApplication, LocalDbAuditVault.class);
         this.auditDB = LocalDBStoredQueue.createLocalDBStoredQueue(pwmApplication, localDB, LocalDB.DB.AUDIT_EVENTS);
+        initIndexes(pwmApplication);
     }
 
     public void init(final Settings settings) {
         this.settings = settings;
+        this.oldestIndexedTime = readOldestIndexedTime();
+        final long trimIntervalMs = settings.getTrimInterval().getTotalMilliseconds();
+        timer = new Timer(threadName + "-Trimmer", true);
+        timer.schedule(new TrimTask(), trimIntervalMs, trimIntervalMs);
     }
 
     @Override
@@ -65,6 +110,13 @@ public class LocalDbAuditVault implements AuditVault {
         return new IteratorWrapper(auditDB.descendingIterator());
     }
 
+    public Iterator<AuditRecord> query(final AuditQuery auditQuery) {
+        if (auditQuery.isUnfiltered() || !indexReady) {
+            return new FilteredIterator(readVault(), auditQuery);
+        }
+        return new QueryIterator(auditQuery);
+    }
+
     private static class IteratorWrapper implements Iterator<AuditRecord> {
         private Iterator<String> innerIter;
 
@@ -90,6 +142,15 @@ public class LocalDbAuditVault implements AuditVault {
     }
 
     private static AuditRecord deSerializeRecord(final String input) {
+        if (BinaryEncoding.isStoredValue(input)) {
+            try {
+                return AuditRecordCodec.decode(input);
+            } catch (Exception e) {
+                LOGGER.debug("unable to decode stored record '" + input + "', error: " + e.getMessage());
+                return null;
+            }
+        }
+
         final Map<String,String> tempMap = JsonUtil.deserializeStringMap(input);
         String errorMsg = "";
         try {
@@ -123,36 +184,527 @@ public class LocalDbAuditVault implements AuditVault {
             return;
         }
 
-        final String jsonRecord = JsonUtil.serialize(record);
-        auditDB.addLast(jsonRecord);
-        trim();
+        final String encodedRecord = AuditRecordCodec.encode(record);
+        final long position = auditDB.addLastAndGetPosition(encodedRecord);
+        try {
+            writeIndexes(Collections.singletonMap(position, record));
+        } catch (LocalDBException e) {
+            LOGGER.error("error writing audit record index entries: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Remove records older than the maximum age or beyond the maximum count from the head of the vault.  The age of
+     * the oldest records is read from the fixed width timestamp prefix of the time index keys, so no records are
+     * read or parsed.
+     *
+     * @return the number of records removed
+     */
+    synchronized int trim() {
+        int removed = 0;
+        if (indexReady) {
+            final long cutoff = System.currentTimeMillis() - settings.getMaxRecordAge().getTotalMilliseconds();
+            int expiredCount;
+            do {
+                expiredCount = countIndexedBefore(cutoff, MAX_REMOVALS_PER_TRIM);
+                removeFirst(expiredCount);
+                removed += expiredCount;
+            } while (expiredCount >= MAX_REMOVALS_PER_TRIM);
+        }
+
+        int excessCount;
+        while ((excessCount = Math.min(auditDB.size() - settings.getMaxRecordCount(), MAX_REMOVALS_PER_TRIM)) > 0) {
+            removeFirst(excessCount);
+            removed += excessCount;
+        }
+
+        oldestIndexedTime = readOldestIndexedTime();
+        return removed;
+    }
+
+    private void removeFirst(final int count) {
+        if (count > 0) {
+            auditDB.discardFirst(count);
+            purgeStaleIndexes(count);
+        }
+    }
+
+    private int countIndexedBefore(final long timestamp, final int maxCount) {
+        int count = 0;
+        try {
+            final LocalDB.LocalDBEntryIterator iterator = localDB.entryIterator(LocalDB.DB.AUDIT_INDEX_TIME,
+                    LocalDB.KeyRange.between(TIME_INDEX_MIN_KEY, padTimestamp(timestamp)));
+            try {
+                while (count < maxCount && iterator.hasNext()) {
+                    iterator.next();
+                    count++;
+                }
+            } finally {
+                iterator.close();
+            }
+        } catch (LocalDBException e) {
+            LOGGER.error("error reading audit time index: " + e.getMessage());
+        }
+        return count;
+    }
+
+    /**
+     * @return the timestamp of the oldest indexed record, or {@link Long#MAX_VALUE} if no records are indexed.
+     */
+    private long readOldestIndexedTime() {
+        try {
+            final LocalDB.LocalDBEntryIterator iterator = localDB.entryIterator(LocalDB.DB.AUDIT_INDEX_TIME, timeIndexRange());
+            try {
+                if (iterator.hasNext()) {
+                    final long[] parsedKey = parseIndexSuffix(iterator.next().getKey());
+                    if (parsedKey != null) {
+                        return parsedKey[0];
+                    }
+                }
+            } finally {
+                iterator.close();
+            }
+        } catch (LocalDBException e) {
+            LOGGER.error("error reading audit time index: " + e.getMessage());
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public List<HealthRecord> healthCheck() {
+        if (settings == null || !indexReady || oldestIndexedTime == Long.MAX_VALUE) {
+            return Collections.emptyList();
+        }
+
+        // allow two trim intervals before retention is considered behind
+        final long maxAgeMs = settings.getMaxRecordAge().getTotalMilliseconds();
+        final long lagMs = System.currentTimeMillis() - oldestIndexedTime - maxAgeMs;
+        if (lagMs > settings.getTrimInterval().getTotalMilliseconds() * 2) {
+            return Collections.singletonList(HealthRecord.forMessage(
+                    HealthMessage.Audit_TrimBehind,
+                    new TimeDuration(lagMs).asCompactString(),
+                    String.valueOf(lastTrimCount)
+            ));
+        }
+        return Collections.emptyList();
+    }
+
+    public void close() {
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+        }
+    }
+
+    private class TrimTask extends TimerTask {
+        @Override
+        public void run() {
+            final long startTime = System.currentTimeMillis();
+            try {
+                lastTrimCount = trim();
+                if (lastTrimCount > 0) {
+                    LOGGER.debug("removed " + lastTrimCount + " audit records in "
+                            + TimeDuration.fromCurrent(startTime).asCompactString() + ", " + auditDB.size() + " records remain");
+                }
+            } catch (Exception e) {
+                LOGGER.error("error while trimming audit vault: " + e.getMessage());
+            }
+        }
     }
 
-    private void trim() {
-        if (oldestRecord != null && TimeDuration.fromCurrent(oldestRecord).isLongerThan(settings.getMaxRecordAge())) {
+// -------------------------- INDEXES --------------------------
+
+    private void initIndexes(final PwmApplication pwmApplication)
+            throws LocalDBException
+    {
+        if (INDEX_VERSION.equals(localDB.get(LocalDB.DB.PWM_META, INDEX_VERSION_KEY))) {
+            indexReady = true;
             return;
         }
 
+        for (final LocalDB.DB indexDB : INDEX_DBS) {
+            localDB.truncate(indexDB);
+        }
+
         if (auditDB.isEmpty()) {
+            localDB.put(LocalDB.DB.PWM_META, INDEX_VERSION_KEY, INDEX_VERSION);
+            indexReady = true;
             return;
         }
 
-        int workActions = 0;
-        while (workActions < MAX_REMOVALS_PER_ADD && !auditDB.isEmpty()) {
-            final String stringFirstRecord = auditDB.getFirst();
-            final UserAuditRecord firstRecord = JsonUtil.deserialize(stringFirstRecord, UserAuditRecord.class);
-            oldestRecord = firstRecord.getTimestamp();
-            if (TimeDuration.fromCurrent(oldestRecord).isLongerThan(settings.getMaxRecordAge())) {
-                auditDB.removeFirst();
-                workActions++;
+        final Thread rebuildThread = new Thread(new Runnable() {
+            public void run() {
+                rebuildIndexes();
+            }
+        }, threadName + "-IndexBuilder");
+        rebuildThread.setDaemon(true);
+        rebuildThread.start();
+    }
+
+    private void rebuildIndexes() {
+        final long startTime = System.currentTimeMillis();
+        LOGGER.debug("beginning rebuild of audit vault indexes for " + auditDB.size() + " records");
+        int counter = 0;
+        try {
+            final Map<Long, AuditRecord> batch = new LinkedHashMap<>();
+            for (final Iterator<Map.Entry<Long, String>> iterator = auditDB.positionIterator(); iterator.hasNext(); ) {
+                final Map.Entry<Long, String> entry = iterator.next();
+                final AuditRecord record = entry.getValue() == null ? null : deSerializeRecord(entry.getValue());
+                if (record != null) {
+                    batch.put(entry.getKey(), record);
+                    counter++;
+                }
+                if (batch.size() >= REBUILD_BATCH_SIZE) {
+                    writeIndexes(batch);
+                    batch.clear();
+                }
+            }
+            writeIndexes(batch);
+            localDB.put(LocalDB.DB.PWM_META, INDEX_VERSION_KEY, INDEX_VERSION);
+            indexReady = true;
+            LOGGER.debug("completed rebuild of audit vault indexes for " + counter + " records in "
+                    + TimeDuration.fromCurrent(startTime).asCompactString());
+        } catch (Exception e) {
+            LOGGER.error("error rebuilding audit vault indexes, queries will scan the vault: " + e.getMessage());
+        }
+    }
+
+    private void writeIndexes(final Map<Long, AuditRecord> records)
+            throws LocalDBException
+    {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        final Map<LocalDB.DB, Map<String, String>> indexValues = new EnumMap<>(LocalDB.DB.class);
+        for (final LocalDB.DB indexDB : INDEX_DBS) {
+            indexValues.put(indexDB, new HashMap<String, String>());
+        }
+
+        for (final Map.Entry<Long, AuditRecord> entry : records.entrySet()) {
+            final AuditRecord record = entry.getValue();
+            if (record.getTimestamp() == null) {
+                continue;
+            }
+            final String suffix = indexSuffix(storedTimestamp(record), entry.getKey());
+
+            final String perpetratorKey = record instanceof UserAuditRecord
+                    ? dnKey(((UserAuditRecord) record).getPerpetratorDN(), suffix)
+                    : null;
+            final String targetKey = record instanceof HelpdeskAuditRecord
+                    ? dnKey(((HelpdeskAuditRecord) record).getTargetDN(), suffix)
+                    : null;
+            final String eventKey = record.getEventCode() == null
+                    ? null
+                    : record.getEventCode().name() + KEY_SEPARATOR + suffix;
+
+            if (perpetratorKey != null) {
+                indexValues.get(LocalDB.DB.AUDIT_INDEX_PERPETRATOR).put(perpetratorKey, "");
+            }
+            if (targetKey != null) {
+                indexValues.get(LocalDB.DB.AUDIT_INDEX_TARGET).put(targetKey, "");
+            }
+            if (eventKey != null) {
+                indexValues.get(LocalDB.DB.AUDIT_INDEX_EVENT).put(eventKey, "");
+            }
+            indexValues.get(LocalDB.DB.AUDIT_INDEX_TIME).put(suffix,
+                    nullToEmpty(perpetratorKey) + VALUE_SEPARATOR + nullToEmpty(targetKey) + VALUE_SEPARATOR + nullToEmpty(eventKey));
+        }
+
+        for (final Map.Entry<LocalDB.DB, Map<String, String>> entry : indexValues.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                localDB.putAll(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Remove time index entries (and their secondary index entries) from the start of the time index that no
+     * longer refer to a record in the vault.  Trimming always removes the oldest records, so checking as many
+     * entries as records were removed is normally enough to catch all of them; any that remain are skipped
+     * at query time.
+     */
+    private void purgeStaleIndexes(final int checkCount) {
+        try {
+            final Map<String, Long> checkEntries = new LinkedHashMap<>();
+            final Map<String, String> secondaryKeys = new HashMap<>();
+            final LocalDB.LocalDBEntryIterator iterator = localDB.entryIterator(LocalDB.DB.AUDIT_INDEX_TIME, timeIndexRange());
+            try {
+                while (iterator.hasNext() && checkEntries.size() < checkCount) {
+                    final Map.Entry<String, String> entry = iterator.next();
+                    final long[] parsedKey = parseIndexSuffix(entry.getKey());
+                    if (parsedKey != null) {
+                        checkEntries.put(entry.getKey(), parsedKey[1]);
+                        secondaryKeys.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            } finally {
+                iterator.close();
+            }
+
+            final Map<Long, String> liveRecords = auditDB.getAtPositions(checkEntries.values());
+            final List<String> timeRemovals = new ArrayList<>();
+            final Map<LocalDB.DB, List<String>> secondaryRemovals = new EnumMap<>(LocalDB.DB.class);
+            for (final Map.Entry<String, Long> entry : checkEntries.entrySet()) {
+                if (liveRecords.containsKey(entry.getValue())) {
+                    continue;
+                }
+                timeRemovals.add(entry.getKey());
+                final String[] keys = nullToEmpty(secondaryKeys.get(entry.getKey())).split(String.valueOf(VALUE_SEPARATOR), -1);
+                for (int i = 0; i < keys.length && i < INDEX_DBS.length - 1; i++) {
+                    if (keys[i].length() > 0) {
+                        final LocalDB.DB indexDB = INDEX_DBS[i + 1];
+                        if (!secondaryRemovals.containsKey(indexDB)) {
+                            secondaryRemovals.put(indexDB, new ArrayList<String>());
+                        }
+                        secondaryRemovals.get(indexDB).add(keys[i]);
+                    }
+                }
+            }
+
+            for (final Map.Entry<LocalDB.DB, List<String>> entry : secondaryRemovals.entrySet()) {
+                localDB.removeAll(entry.getKey(), entry.getValue());
+            }
+            if (!timeRemovals.isEmpty()) {
+                localDB.removeAll(LocalDB.DB.AUDIT_INDEX_TIME, timeRemovals);
+            }
+        } catch (LocalDBException e) {
+            LOGGER.error("error removing stale audit index entries: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return true if the record read from the index entry's queue position is the record the entry was written for,
+     * rather than a later record stored at a reused position.
+     */
+    private static boolean isLiveEntry(final String indexSuffix, final AuditRecord record) {
+        final long[] parsedKey = parseIndexSuffix(indexSuffix);
+        return record != null
+                && record.getTimestamp() != null
+                && parsedKey != null
+                && storedTimestamp(record) == parsedKey[0];
+    }
+
+    /**
+     * Records stored as JSON have second precision timestamps, so the index uses second precision for all records
+     * to stay consistent with records read back from the vault regardless of their encoding.
+     */
+    private static long storedTimestamp(final AuditRecord record) {
+        return record.getTimestamp().getTime() / 1000 * 1000;
+    }
+
+    private static LocalDB.KeyRange timeIndexRange() {
+        return LocalDB.KeyRange.between(TIME_INDEX_MIN_KEY, TIME_INDEX_MAX_KEY);
+    }
+
+    private static String indexSuffix(final long timestamp, final long position) {
+        return padTimestamp(timestamp) + KEY_SEPARATOR + zeroPad(Long.toHexString(position), POSITION_WIDTH);
+    }
+
+    /**
+     * @return the timestamp and position of an index key, or null if the key is not an index entry.
+     */
+    private static long[] parseIndexSuffix(final String key) {
+        final int positionSeparator = key.lastIndexOf(KEY_SEPARATOR);
+        if (positionSeparator < TIMESTAMP_WIDTH) {
+            return null;
+        }
+        try {
+            final long timestamp = Long.parseLong(key.substring(positionSeparator - TIMESTAMP_WIDTH, positionSeparator));
+            final long position = Long.parseLong(key.substring(positionSeparator + 1), 16);
+            return new long[] { timestamp, position };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String padTimestamp(final long timestamp) {
+        return zeroPad(Long.toString(Math.max(0, timestamp)), TIMESTAMP_WIDTH);
+    }
+
+    private static String zeroPad(final String value, final int width) {
+        final StringBuilder sb = new StringBuilder(width);
+        for (int i = value.length(); i < width; i++) {
+            sb.append('0');
+        }
+        return sb.append(value).toString();
+    }
+
+    private static String dnKey(final String dn, final String suffix) {
+        final String prefix = dnPrefix(dn);
+        return prefix == null ? null : prefix + suffix;
+    }
+
+    private static String dnPrefix(final String dn) {
+        if (dn == null || dn.length() < 1) {
+            return null;
+        }
+        try {
+            return SecureHelper.md5sum(dn.toLowerCase()) + KEY_SEPARATOR;
+        } catch (PwmUnrecoverableException e) {
+            throw new IllegalStateException("unable to hash dn for audit index: " + e.getMessage(), e);
+        }
+    }
+
+    private static String nullToEmpty(final String input) {
+        return input == null ? "" : input;
+    }
+
+// -------------------------- QUERIES --------------------------
+
+    private static class FilteredIterator implements Iterator<AuditRecord> {
+        private final Iterator<AuditRecord> innerIter;
+        private final AuditQuery auditQuery;
+        private AuditRecord nextRecord;
+        private int returnedCount;
+
+        private FilteredIterator(final Iterator<AuditRecord> innerIter, final AuditQuery auditQuery) {
+            this.innerIter = innerIter;
+            this.auditQuery = auditQuery;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (returnedCount >= auditQuery.getMaxResults()) {
+                return false;
+            }
+            while (nextRecord == null && innerIter.hasNext()) {
+                final AuditRecord record = innerIter.next();
+                if (auditQuery.matches(record)) {
+                    nextRecord = record;
+                }
+            }
+            return nextRecord != null;
+        }
+
+        @Override
+        public AuditRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final AuditRecord record = nextRecord;
+            nextRecord = null;
+            returnedCount++;
+            return record;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class QueryIterator implements Iterator<AuditRecord> {
+        private final AuditQuery auditQuery;
+        private final LocalDB.DB indexDB;
+        private final List<String> prefixes;
+        private final long startTime;
+        private final LinkedList<AuditRecord> buffer = new LinkedList<>();
+        private long bucketEnd;
+        private long bucketWidth = BUCKET_MS;
+        private int returnedCount;
+
+        private QueryIterator(final AuditQuery auditQuery) {
+            this.auditQuery = auditQuery;
+
+            final String perpetratorPrefix = dnPrefix(auditQuery.getPerpetratorDN());
+            final String targetPrefix = dnPrefix(auditQuery.getTargetDN());
+            if (perpetratorPrefix != null) {
+                indexDB = LocalDB.DB.AUDIT_INDEX_PERPETRATOR;
+                prefixes = Collections.singletonList(perpetratorPrefix);
+            } else if (targetPrefix != null) {
+                indexDB = LocalDB.DB.AUDIT_INDEX_TARGET;
+                prefixes = Collections.singletonList(targetPrefix);
+            } else if (!auditQuery.getEvents().isEmpty()) {
+                indexDB = LocalDB.DB.AUDIT_INDEX_EVENT;
+                prefixes = new ArrayList<>();
+                for (final AuditEvent event : auditQuery.getEvents()) {
+                    prefixes.add(event.name() + KEY_SEPARATOR);
+                }
             } else {
-                return;
+                indexDB = LocalDB.DB.AUDIT_INDEX_TIME;
+                prefixes = Collections.singletonList("");
+            }
+
+            final long oldestIndexed = readOldestIndexedTime();
+            final long queryStart = auditQuery.getStartTime() == null ? 0 : auditQuery.getStartTime().getTime();
+            startTime = Math.max(queryStart, oldestIndexed);
+            bucketEnd = auditQuery.getEndTime() == null
+                    ? System.currentTimeMillis() + TimeDuration.DAY.getTotalMilliseconds()
+                    : auditQuery.getEndTime().getTime();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (returnedCount >= auditQuery.getMaxResults()) {
+                return false;
+            }
+            while (buffer.isEmpty() && bucketEnd > startTime) {
+                readBucket();
             }
+            return !buffer.isEmpty();
         }
 
-        while (auditDB.size() > settings.getMaxRecordCount() && workActions < MAX_REMOVALS_PER_ADD) {
-            auditDB.removeFirst();
-            workActions++;
+        @Override
+        public AuditRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            returnedCount++;
+            return buffer.removeFirst();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Read the next (older) time bucket into the buffer.  Empty buckets widen the following bucket so sparse
+         * periods are crossed in a few scans.
+         */
+        private void readBucket() {
+            final long bucketStart = Math.max(startTime, bucketEnd - bucketWidth);
+            final String fromSuffix = padTimestamp(bucketStart);
+            final String toSuffix = padTimestamp(bucketEnd);
+
+            final TreeMap<String, Long> bucketEntries = new TreeMap<>(Collections.reverseOrder());
+            try {
+                for (final String prefix : prefixes) {
+                    final LocalDB.LocalDBEntryIterator iterator = localDB.entryIterator(indexDB,
+                            LocalDB.KeyRange.between(prefix + fromSuffix, prefix + toSuffix));
+                    try {
+                        while (iterator.hasNext()) {
+                            final String key = iterator.next().getKey();
+                            final long[] parsedKey = parseIndexSuffix(key);
+                            if (parsedKey != null) {
+                                bucketEntries.put(key.substring(prefix.length()), parsedKey[1]);
+                            }
+                        }
+                    } finally {
+                        iterator.close();
+                    }
+                }
+            } catch (LocalDBException e) {
+                LOGGER.error("error reading audit index " + indexDB + ": " + e.getMessage());
+                bucketEnd = startTime;
+                return;
+            }
+
+            bucketEnd = bucketStart;
+            if (bucketEntries.isEmpty()) {
+                bucketWidth = Math.min(bucketWidth * 2, MAX_BUCKET_MS);
+                return;
+            }
+            bucketWidth = BUCKET_MS;
+
+            final Map<Long, String> storedRecords = auditDB.getAtPositions(bucketEntries.values());
+            for (final Map.Entry<String, Long> entry : bucketEntries.entrySet()) {
+                final String storedRecord = storedRecords.get(entry.getValue());
+                final AuditRecord record = storedRecord == null ? null : deSerializeRecord(storedRecord);
+                if (isLiveEntry(entry.getKey(), record) && auditQuery.matches(record)) {
+                    buffer.add(record);
+                }
+            }
         }
     }
 }
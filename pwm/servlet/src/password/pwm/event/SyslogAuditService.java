@@ -22,21 +22,10 @@
 
 package password.pwm.event;
 
-import org.productivity.java.syslog4j.SyslogIF;
-import org.productivity.java.syslog4j.impl.AbstractSyslogConfigIF;
-import org.productivity.java.syslog4j.impl.AbstractSyslogWriter;
-import org.productivity.java.syslog4j.impl.backlog.NullSyslogBackLogHandler;
-import org.productivity.java.syslog4j.impl.net.AbstractNetSyslog;
-import org.productivity.java.syslog4j.impl.net.tcp.TCPNetSyslog;
-import org.productivity.java.syslog4j.impl.net.tcp.TCPNetSyslogConfig;
-import org.productivity.java.syslog4j.impl.net.tcp.ssl.SSLTCPNetSyslog;
-import org.productivity.java.syslog4j.impl.net.tcp.ssl.SSLTCPNetSyslogConfig;
-import org.productivity.java.syslog4j.impl.net.tcp.ssl.SSLTCPNetSyslogWriter;
-import org.productivity.java.syslog4j.impl.net.udp.UDPNetSyslog;
-import org.productivity.java.syslog4j.impl.net.udp.UDPNetSyslogConfig;
 import password.pwm.AppProperty;
 import password.pwm.PwmApplication;
 import password.pwm.PwmConstants;
+import password.pwm.PwmService;
 import password.pwm.config.Configuration;
 import password.pwm.config.PwmSetting;
 import password.pwm.error.ErrorInformation;
@@ -48,107 +37,75 @@ import password.pwm.health.HealthTopic;
 import password.pwm.util.Helper;
 import password.pwm.util.JsonUtil;
 import password.pwm.util.TimeDuration;
-import password.pwm.util.X509Utils;
 import password.pwm.util.localdb.LocalDB;
 import password.pwm.util.localdb.LocalDBException;
 import password.pwm.util.localdb.LocalDBStoredQueue;
 import password.pwm.util.logging.PwmLogger;
+import password.pwm.util.stats.Statistic;
 
-import javax.net.SocketFactory;
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.X509TrustManager;
+import java.io.IOException;
 import java.io.Serializable;
-import java.security.KeyManagementException;
-import java.security.NoSuchAlgorithmException;
-import java.security.cert.X509Certificate;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.text.SimpleDateFormat;
 import java.util.*;
 
 public class SyslogAuditService {
     private static final PwmLogger LOGGER = PwmLogger.forClass(SyslogAuditService.class);
 
     private static final int WARNING_WINDOW_MS = 30 * 60 * 1000;
+    private static final int IDLE_WAIT_MS = 30 * 1000;
     private static final String QUEUE_STORAGE_DELIMINATOR = "###";
-    private static final String SYSLOG_INSTANCE_NAME = "syslog-audit";
+
+    // syslog facility "user" and severity "informational"
+    private static final int SYSLOG_PRIORITY = 14;
 
     private final int MAX_QUEUE_SIZE;
     private final long MAX_AGE_MS;
     private final long RETRY_TIMEOUT_MS;
+    private final int BATCH_SIZE;
     private final LocalDBStoredQueue syslogQueue;
 
     private volatile Date lastSendError;
-    private SyslogIF syslogInstance = null;
+    private volatile boolean running;
     private ErrorInformation lastError = null;
-    private X509Certificate[] certificates = null;
+    private SyslogTransport transport;
 
+    private final PwmApplication pwmApplication;
     private final Configuration configuration;
-    private final Timer timer;
+    private final String localHostname;
+    private final Object drainSignal = new Object();
 
     public SyslogAuditService(final PwmApplication pwmApplication)
             throws LocalDBException
     {
-        timer = new Timer(Helper.makeThreadName(pwmApplication,SyslogAuditService.class),true);
-
         MAX_QUEUE_SIZE = Integer.parseInt(pwmApplication.getConfig().readAppProperty(AppProperty.QUEUE_SYSLOG_MAX_COUNT));
         MAX_AGE_MS = Long.parseLong(pwmApplication.getConfig().readAppProperty(AppProperty.QUEUE_SYSLOG_MAX_AGE_MS));
         RETRY_TIMEOUT_MS = Long.parseLong(pwmApplication.getConfig().readAppProperty(AppProperty.QUEUE_SYSLOG_RETRY_TIMEOUT_MS));
+        BATCH_SIZE = Integer.parseInt(pwmApplication.getConfig().readAppProperty(AppProperty.QUEUE_SYSLOG_BATCH_SIZE));
 
         syslogQueue = LocalDBStoredQueue.createLocalDBStoredQueue(pwmApplication, pwmApplication.getLocalDB(), LocalDB.DB.SYSLOG_QUEUE);
 
+        this.pwmApplication = pwmApplication;
         this.configuration = pwmApplication.getConfig();
-        this.certificates = configuration.readSettingAsCertificate(PwmSetting.AUDIT_SYSLOG_CERTIFICATES);
+        this.localHostname = readLocalHostname();
 
         final String syslogConfigString = configuration.readSettingAsString(PwmSetting.AUDIT_SYSLOG_SERVERS);
         final SyslogConfig syslogConfig;
         try {
             syslogConfig = SyslogConfig.fromConfigString(syslogConfigString);
-            syslogInstance = makeSyslogInstance(syslogConfig);
-            timer.schedule(new WriterTask(),1000);
+            final int maxSendAttempts = Integer.parseInt(configuration.readAppProperty(AppProperty.QUEUE_SYSLOG_MAX_SEND_ATTEMPTS));
+            transport = new SyslogTransport(syslogConfig, configuration.readSettingAsCertificate(PwmSetting.AUDIT_SYSLOG_CERTIFICATES), maxSendAttempts);
+            running = true;
+            final Thread drainerThread = new Thread(new DrainerTask(), Helper.makeThreadName(pwmApplication, SyslogAuditService.class));
+            drainerThread.setDaemon(true);
+            drainerThread.start();
             LOGGER.trace("queued service running for " + syslogConfig);
         } catch (IllegalArgumentException e) {
             LOGGER.error("error parsing syslog configuration for '" + syslogConfigString + "', error: " + e.getMessage());
         }
     }
 
-    private SyslogIF makeSyslogInstance(final SyslogConfig syslogConfig)
-    {
-        final AbstractSyslogConfigIF syslogConfigIF;
-        final AbstractNetSyslog syslogInstance;
-
-        switch (syslogConfig.getProtocol()) {
-            case sslTcp:
-            case tls: {
-                syslogConfigIF = new SSLTCPNetSyslogConfig();
-                ((SSLTCPNetSyslogConfig)syslogConfigIF).setBackLogHandlers(Collections.singletonList(new NullSyslogBackLogHandler()));
-                syslogInstance = new LocalTrustSSLTCPNetSyslog();
-            }
-            break;
-
-            case tcp: {
-                syslogConfigIF = new TCPNetSyslogConfig();
-                ((TCPNetSyslogConfig) syslogConfigIF).setBackLogHandlers(Collections.singletonList(new NullSyslogBackLogHandler()));
-                syslogInstance = new TCPNetSyslog();
-            }
-            break;
-
-            case udp: {
-                syslogConfigIF = new UDPNetSyslogConfig();
-                syslogInstance = new UDPNetSyslog();
-            }
-            break;
-
-            default:
-                throw new IllegalArgumentException("unknown protocol type");
-        }
-
-        syslogConfigIF.setThreaded(false);
-        syslogConfigIF.setMaxQueueSize(0);
-        syslogConfigIF.setThrowExceptionOnWrite(true);
-        syslogConfigIF.setHost(syslogConfig.getHost());
-        syslogConfigIF.setPort(syslogConfig.getPort());
-        syslogInstance.initialize(SYSLOG_INSTANCE_NAME, syslogConfigIF);
-        return syslogInstance;
-    }
-
     public void add(AuditRecord event) throws PwmOperationalException {
         if (syslogQueue.size() >= MAX_QUEUE_SIZE) {
             final String errorMsg = "dropping audit record event due to queue full " + event.toString() + ", queue length=" + syslogQueue.size();
@@ -159,7 +116,9 @@ public class SyslogAuditService {
         final String prefix = event.getClass().getCanonicalName();
         final String jsonValue = prefix + QUEUE_STORAGE_DELIMINATOR + JsonUtil.serialize(event);
         syslogQueue.offerLast(jsonValue);
-        timer.schedule(new WriterTask(),1);
+        synchronized (drainSignal) {
+            drainSignal.notifyAll();
+        }
     }
 
     public List<HealthRecord> healthCheck() {
@@ -174,73 +133,146 @@ public class SyslogAuditService {
         return healthRecords;
     }
 
-    private class WriterTask extends TimerTask {
-        @Override
+    /**
+     * Sends queued events in batches.  A batch is only removed from the queue once it has been sent, and after a
+     * failed send the drainer waits for the retry timeout before trying again.
+     */
+    private class DrainerTask implements Runnable {
         public void run() {
-            if (lastSendError != null) {
-                if (TimeDuration.fromCurrent(lastSendError).isLongerThan(RETRY_TIMEOUT_MS)) {
-                    lastSendError = null;
+            while (running) {
+                try {
+                    final boolean sentBatch = lastSendError == null && drainBatch();
+                    if (!sentBatch) {
+                        waitForWork();
+                    }
+                } catch (Throwable e) {
+                    LOGGER.error("unexpected error sending syslog events: " + e.getMessage(), e);
+                    lastSendError = new Date();
                 }
             }
+            transport.close();
+            LOGGER.trace("syslog drainer stopped");
+        }
 
-            while (!syslogQueue.isEmpty() && lastSendError == null) {
-                AuditRecord record = null;
-                try {
-                    final String storedString = syslogQueue.peekFirst();
-                    final String[] splitString = storedString.split(QUEUE_STORAGE_DELIMINATOR,2);
-                    final String className = splitString[0];
-                    final String jsonString = splitString[1];
-                    record = (AuditRecord) JsonUtil.deserialize(jsonString,Class.forName(className));
-                } catch (Exception e) {
-                    LOGGER.error("error decoding stored syslog event, discarding; error: " + e.getMessage());
-                    syslogQueue.removeFirst();
-                }
-                if (record != null) {
-                    final TimeDuration recordAge = TimeDuration.fromCurrent(record.getTimestamp());
-                    if (recordAge.isLongerThan(MAX_AGE_MS)) {
-                        LOGGER.info("discarding syslog audit event, maximum queued age exceeded: " + JsonUtil.serialize(record));
-                        syslogQueue.removeFirst();
-                    } else {
-                        boolean sendSuccess = processEvent(record);
-                        if (sendSuccess) {
-                            syslogQueue.removeFirst();
-                            lastSendError = null;
-                        } else {
-                            lastSendError = new Date();
-                            timer.schedule(new WriterTask(),RETRY_TIMEOUT_MS + 1);
-                        }
+        private void waitForWork() throws InterruptedException {
+            synchronized (drainSignal) {
+                if (lastSendError != null) {
+                    final long remainingMs = RETRY_TIMEOUT_MS - TimeDuration.fromCurrent(lastSendError).getTotalMilliseconds();
+                    if (remainingMs > 0) {
+                        drainSignal.wait(remainingMs);
+                    }
+                    if (TimeDuration.fromCurrent(lastSendError).isLongerThan(RETRY_TIMEOUT_MS)) {
+                        lastSendError = null;
                     }
+                } else if (running && syslogQueue.isEmpty()) {
+                    drainSignal.wait(IDLE_WAIT_MS);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if any events were sent or discarded.
+     */
+    private boolean drainBatch() {
+        final List<String> storedValues = new ArrayList<>();
+        for (final Iterator<String> iterator = syslogQueue.iterator(); iterator.hasNext() && storedValues.size() < BATCH_SIZE; ) {
+            storedValues.add(iterator.next());
+        }
+        if (storedValues.isEmpty()) {
+            return false;
+        }
+
+        final List<String> messages = new ArrayList<>();
+        for (final String storedValue : storedValues) {
+            final AuditRecord record = decodeStoredValue(storedValue);
+            if (record != null) {
+                final TimeDuration recordAge = TimeDuration.fromCurrent(record.getTimestamp());
+                if (recordAge.isLongerThan(MAX_AGE_MS)) {
+                    LOGGER.info("discarding syslog audit event, maximum queued age exceeded: " + JsonUtil.serialize(record));
+                } else {
+                    messages.add(formatMessage(record));
                 }
             }
         }
+
+        if (!messages.isEmpty()) {
+            final long startTime = System.currentTimeMillis();
+            try {
+                transport.send(messages);
+            } catch (IOException e) {
+                final ErrorInformation errorInformation = new ErrorInformation(PwmError.ERROR_SYSLOG_WRITE_ERROR, e.getMessage(), new String[]{e.getMessage()});
+                lastError = errorInformation;
+                lastSendError = new Date();
+                LOGGER.error(errorInformation.toDebugStr());
+                return false;
+            }
+            final TimeDuration sendDuration = TimeDuration.fromCurrent(startTime);
+            if (pwmApplication.getStatisticsManager() != null && pwmApplication.getStatisticsManager().status() == PwmService.STATUS.OPEN) {
+                pwmApplication.getStatisticsManager().updateAverageValue(Statistic.AVG_SYSLOG_SEND_TIME, sendDuration.getTotalMilliseconds());
+            }
+            LOGGER.trace("delivered " + messages.size() + " syslog audit events in " + sendDuration.asCompactString());
+            lastError = null;
+        }
+
+        syslogQueue.discardFirst(storedValues.size());
+        return true;
     }
 
-    private boolean processEvent(final AuditRecord auditRecord) {
+    private static AuditRecord decodeStoredValue(final String storedValue) {
+        try {
+            final String[] splitString = storedValue.split(QUEUE_STORAGE_DELIMINATOR,2);
+            final String className = splitString[0];
+            final String jsonString = splitString[1];
+            return (AuditRecord) JsonUtil.deserialize(jsonString,Class.forName(className));
+        } catch (Exception e) {
+            LOGGER.error("error decoding stored syslog event, discarding; error: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Formats the record as an RFC 3164 message with the record JSON as its content.
+     */
+    private String formatMessage(final AuditRecord auditRecord) {
         final StringBuilder sb = new StringBuilder();
+        sb.append("<").append(SYSLOG_PRIORITY).append(">");
+        sb.append(new SimpleDateFormat("MMM dd HH:mm:ss", Locale.US).format(new Date()));
+        sb.append(" ");
+        sb.append(localHostname);
+        sb.append(" ");
         sb.append(PwmConstants.PWM_APP_NAME);
         sb.append(" ");
         sb.append(JsonUtil.serialize(auditRecord));
+        return sb.toString();
+    }
 
-        final SyslogIF syslogIF = syslogInstance;
+    private static String readLocalHostname() {
         try {
-            syslogIF.info(sb.toString());
-            LOGGER.trace("delivered syslog audit event: " + sb.toString());
-            lastError = null;
-            return true;
-        } catch (Exception e) {
-            final ErrorInformation errorInformation = new ErrorInformation(PwmError.ERROR_SYSLOG_WRITE_ERROR, e.getMessage(), new String[]{e.getMessage()});
-            lastError = errorInformation;
-            LOGGER.error(errorInformation.toDebugStr());
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
         }
-
-        return false;
     }
 
     public void close() {
-        final SyslogIF syslogIF = syslogInstance;
-        syslogIF.shutdown();
-        timer.cancel();
-        syslogInstance = null;
+        running = false;
+        synchronized (drainSignal) {
+            drainSignal.notifyAll();
+        }
+    }
+
+    public int queueSize() {
+        return syslogQueue != null ? syslogQueue.size() : 0;
+    }
+
+    /**
+     * @return the timestamp of the oldest queued event, or null if the queue is empty.
+     */
+    public Date eldestItem() {
+        final String storedValue = syslogQueue != null ? syslogQueue.peekFirst() : null;
+        final AuditRecord record = storedValue == null ? null : decodeStoredValue(storedValue);
+        return record == null ? null : record.getTimestamp();
     }
 
     public static class SyslogConfig implements Serializable {
@@ -299,44 +331,4 @@ public class SyslogAuditService {
             return JsonUtil.serialize(this);
         }
     }
-
-    public int queueSize() {
-        return syslogQueue != null ? syslogQueue.size() : 0;
-    }
-
-    private class LocalTrustSyslogWriterClass extends SSLTCPNetSyslogWriter {
-        private LocalTrustSyslogWriterClass()
-        {
-            super();
-        }
-
-        @Override
-        protected SocketFactory obtainSocketFactory()
-        {
-            if (certificates != null && certificates.length >= 1) {
-                try {
-                    final SSLContext sc = SSLContext.getInstance("SSL");
-                    sc.init(null, new X509TrustManager[]{new X509Utils.PwmTrustManager(certificates)},
-                            new java.security.SecureRandom());
-                    return sc.getSocketFactory();
-                } catch (NoSuchAlgorithmException | KeyManagementException e) {
-                    LOGGER.error("unexpected error loading syslog certificates: " + e.getMessage());
-                }
-            }
-
-            return super.obtainSocketFactory();
-        }
-    }
-
-    private class LocalTrustSSLTCPNetSyslog extends SSLTCPNetSyslog {
-
-
-        @Override
-        public AbstractSyslogWriter createWriter()
-        {
-            LocalTrustSyslogWriterClass newClass = new LocalTrustSyslogWriterClass();
-            newClass.initialize(this);
-            return newClass;
-        }
-    }
 }
@@ -0,0 +1,208 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.event;
+
+import password.pwm.PwmConstants;
+import password.pwm.util.X509Utils;
+import password.pwm.util.logging.PwmLogger;
+
+import javax.net.SocketFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.X509TrustManager;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.List;
+
+/**
+ * Sends syslog messages over a single long lived connection.  TCP and TLS messages are framed using the RFC 6587
+ * octet counting method, and each batch is written in full before the stream is flushed.  If a batch can not be
+ * written the connection is re-opened and the whole batch is sent again, up to the maximum number of attempts, so
+ * messages are delivered at least once.
+ */
+class SyslogTransport {
+    private static final PwmLogger LOGGER = PwmLogger.forClass(SyslogTransport.class);
+
+    private static final int CONNECT_TIMEOUT_MS = 30 * 1000;
+    private static final int PEER_CLOSED_CHECK_TIMEOUT_MS = 1;
+
+    private final SyslogAuditService.SyslogConfig syslogConfig;
+    private final X509Certificate[] certificates;
+    private final int maxSendAttempts;
+
+    private Socket socket;
+    private OutputStream outputStream;
+    private DatagramSocket datagramSocket;
+
+    SyslogTransport(
+            final SyslogAuditService.SyslogConfig syslogConfig,
+            final X509Certificate[] certificates,
+            final int maxSendAttempts
+    ) {
+        this.syslogConfig = syslogConfig;
+        this.certificates = certificates;
+        this.maxSendAttempts = maxSendAttempts < 1 ? 1 : maxSendAttempts;
+    }
+
+    synchronized void send(final List<String> messages)
+            throws IOException
+    {
+        IOException lastException = null;
+        for (int attempt = 1; attempt <= maxSendAttempts; attempt++) {
+            try {
+                if (syslogConfig.getProtocol() == SyslogAuditService.SyslogConfig.Protocol.udp) {
+                    sendDatagrams(messages);
+                } else {
+                    sendFramed(messages);
+                }
+                return;
+            } catch (IOException e) {
+                lastException = e;
+                LOGGER.debug("error sending " + messages.size() + " syslog messages to " + syslogConfig.getHost() + ":"
+                        + syslogConfig.getPort() + " (attempt " + attempt + " of " + maxSendAttempts + "): " + e.getMessage());
+                close();
+            }
+        }
+        throw lastException;
+    }
+
+    synchronized void close() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                LOGGER.trace("error closing syslog connection: " + e.getMessage());
+            }
+            socket = null;
+            outputStream = null;
+        }
+        if (datagramSocket != null) {
+            datagramSocket.close();
+            datagramSocket = null;
+        }
+    }
+
+    private void sendFramed(final List<String> messages)
+            throws IOException
+    {
+        if (socket != null && isPeerClosed()) {
+            LOGGER.trace("syslog connection was closed by the server, reconnecting");
+            close();
+        }
+        if (socket == null) {
+            openSocket();
+        }
+        for (final String message : messages) {
+            outputStream.write(frame(message));
+        }
+        outputStream.flush();
+    }
+
+    private void sendDatagrams(final List<String> messages)
+            throws IOException
+    {
+        if (datagramSocket == null) {
+            datagramSocket = new DatagramSocket();
+        }
+        final InetSocketAddress address = new InetSocketAddress(syslogConfig.getHost(), syslogConfig.getPort());
+        for (final String message : messages) {
+            final byte[] bytes = message.getBytes(PwmConstants.DEFAULT_CHARSET);
+            datagramSocket.send(new DatagramPacket(bytes, bytes.length, address));
+        }
+    }
+
+    private void openSocket()
+            throws IOException
+    {
+        final Socket newSocket = makeSocketFactory().createSocket();
+        try {
+            newSocket.connect(new InetSocketAddress(syslogConfig.getHost(), syslogConfig.getPort()), CONNECT_TIMEOUT_MS);
+            newSocket.setTcpNoDelay(true);
+            newSocket.setKeepAlive(true);
+            outputStream = new BufferedOutputStream(newSocket.getOutputStream());
+        } catch (IOException e) {
+            newSocket.close();
+            throw e;
+        }
+        socket = newSocket;
+        LOGGER.debug("opened syslog " + syslogConfig.getProtocol() + " connection to " + syslogConfig.getHost() + ":" + syslogConfig.getPort());
+    }
+
+    private SocketFactory makeSocketFactory()
+            throws IOException
+    {
+        if (syslogConfig.getProtocol() == SyslogAuditService.SyslogConfig.Protocol.tcp) {
+            return SocketFactory.getDefault();
+        }
+
+        if (certificates != null && certificates.length >= 1) {
+            try {
+                final SSLContext sc = SSLContext.getInstance("TLS");
+                sc.init(null, new X509TrustManager[]{new X509Utils.PwmTrustManager(certificates)}, new SecureRandom());
+                return sc.getSocketFactory();
+            } catch (GeneralSecurityException e) {
+                throw new IOException("unexpected error loading syslog certificates: " + e.getMessage(), e);
+            }
+        }
+        return SSLSocketFactory.getDefault();
+    }
+
+    /**
+     * Syslog servers never write to the connection, so a read that reaches the end of the stream means the server has
+     * closed it.  Writes to such a connection may not fail until after the data has been lost.
+     */
+    private boolean isPeerClosed() {
+        try {
+            socket.setSoTimeout(PEER_CLOSED_CHECK_TIMEOUT_MS);
+            final InputStream inputStream = socket.getInputStream();
+            return inputStream.read() == -1;
+        } catch (SocketTimeoutException e) {
+            return false;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * @return the message framed as described by RFC 6587 section 3.4.1, the message length in octets followed by a
+     * space and the message.
+     */
+    static byte[] frame(final String message) {
+        final byte[] messageBytes = message.getBytes(PwmConstants.DEFAULT_CHARSET);
+        final byte[] prefixBytes = (messageBytes.length + " ").getBytes(PwmConstants.DEFAULT_CHARSET);
+        final byte[] framedBytes = new byte[prefixBytes.length + messageBytes.length];
+        System.arraycopy(prefixBytes, 0, framedBytes, 0, prefixBytes.length);
+        System.arraycopy(messageBytes, 0, framedBytes, prefixBytes.length, messageBytes.length);
+        return framedBytes;
+    }
+}
@@ -62,6 +62,8 @@ public enum HealthMessage {
     LDAP_VendorsNotSame                     (HealthStatus.CONFIG,   HealthTopic.LDAP),
     LDAP_OK                                 (HealthStatus.GOOD,     HealthTopic.LDAP),
     LDAP_RecentlyUnreachable                (HealthStatus.CAUTION,  HealthTopic.LDAP),
+    LDAP_ProxyPoolWaitTimeout               (HealthStatus.CAUTION,  HealthTopic.LDAP),
+    LDAP_ProxyPoolConnectionFailure         (HealthStatus.CAUTION,  HealthTopic.LDAP),
     CryptoTokenWithNewUserVerification      (HealthStatus.CAUTION,  HealthTopic.Configuration),
     TokenServiceError                       (HealthStatus.WARN,     HealthTopic.TokenService),
     Java_HighThreads                        (HealthStatus.CAUTION,  HealthTopic.Platform),
@@ -74,6 +76,8 @@ public enum HealthMessage {
     ServiceClosed_LocalDBUnavail            (HealthStatus.CAUTION,  HealthTopic.Application),
     ServiceClosed_AppReadOnly               (HealthStatus.CAUTION,  HealthTopic.Application),
     SMS_SendFailure                         (HealthStatus.WARN,     HealthTopic.SMS),
+    Audit_TrimBehind                        (HealthStatus.CAUTION,  HealthTopic.Audit),
+    HealthCheck_Timeout                     (HealthStatus.CAUTION,  HealthTopic.Application),
 
     ;
 
@@ -27,26 +27,39 @@ import password.pwm.PwmApplication;
 import password.pwm.PwmService;
 import password.pwm.config.option.DataStorageMethod;
 import password.pwm.error.PwmException;
+import password.pwm.util.Helper;
+import password.pwm.util.TimeDuration;
 import password.pwm.util.logging.PwmLogger;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Runs the registered {@link HealthChecker}s on a background scheduler, each at its own interval, and publishes the
+ * combined results as an immutable snapshot.  Readers never run checks themselves and never block on a slow checker;
+ * a checker that runs past its timeout is reported as a health record of its own.
+ */
 public class HealthMonitor implements PwmService {
     private static final PwmLogger LOGGER = PwmLogger.forClass(HealthMonitor.class);
     private static final int MIN_INTERVAL_SECONDS = 30;
     private static final int MAX_INTERVAL_SECONDS = 60 * 60 * 24;
+    private static final long INITIAL_DELAY_MS = 10 * 1000;
+    private static final long TIMEOUT_WATCH_INTERVAL_MS = 5 * 1000;
 
     private PwmApplication pwmApplication;
-    private Set<HealthRecord> healthRecords = Collections.emptySet();
-    private final List<HealthChecker> healthCheckers = new ArrayList<>();
+    private volatile HealthSnapshot healthSnapshot = new HealthSnapshot(Collections.<HealthRecord>emptySet(), null);
+    private final List<CheckerTask> checkerTasks = new CopyOnWriteArrayList<>();
+    private ScheduledThreadPoolExecutor executorService;
 
-    private Date lastHealthCheckDate = null;
     private int intervalSeconds = 0;
+    private int timeoutSeconds = 0;
+    private long initialDelayMs = INITIAL_DELAY_MS;
 
-    private Map<HealthProperty, Serializable> healthProperties = new HashMap<>();
+    private final Map<HealthProperty, Serializable> healthProperties = new ConcurrentHashMap<>();
 
-    private STATUS status = STATUS.NEW;
+    private volatile STATUS status = STATUS.NEW;
 
     public enum HealthProperty {
         LdapVendorSameCheck,
@@ -58,7 +71,7 @@ public class HealthMonitor implements PwmService {
     }
 
     public Date getLastHealthCheckDate() {
-        return lastHealthCheckDate;
+        return healthSnapshot.getTimestamp();
     }
 
     public HealthStatus getMostSevereHealthStatus() {
@@ -78,24 +91,46 @@ public class HealthMonitor implements PwmService {
     }
 
     public void registerHealthCheck(final HealthChecker healthChecker) {
-        healthCheckers.add(healthChecker);
+        registerHealthCheck(healthChecker, intervalSeconds, timeoutSeconds);
+    }
+
+    public void registerHealthCheck(final HealthChecker healthChecker, final int intervalSeconds, final int timeoutSeconds) {
+        final CheckerTask checkerTask = new CheckerTask(
+                healthChecker.getClass().getSimpleName(),
+                healthChecker,
+                boundInterval(intervalSeconds) * 1000L,
+                timeoutSeconds * 1000L
+        );
+        checkerTasks.add(checkerTask);
+        if (executorService != null) {
+            scheduleCheckerTask(checkerTask);
+        }
     }
 
     public Set<HealthRecord> getHealthRecords() {
         return getHealthRecords(false);
     }
 
-    public synchronized Set<HealthRecord> getHealthRecords(final boolean refreshImmediate) {
-        if (lastHealthCheckDate == null || refreshImmediate) {
-            doHealthChecks();
-        } else {
-            final long lastHealthCheckMs = lastHealthCheckDate.getTime();
-            final long lastValidHealthCheckMs = System.currentTimeMillis() - (intervalSeconds * 1000);
-            if (lastHealthCheckMs < lastValidHealthCheckMs) {
-                doHealthChecks();
-            }
+    /**
+     * Return the most recently completed health results.  If {@code refreshImmediate} is set, all checkers are run
+     * first and the caller waits up to the checker timeouts for them to complete.
+     */
+    public Set<HealthRecord> getHealthRecords(final boolean refreshImmediate) {
+        if (refreshImmediate && status == STATUS.OPEN) {
+            refreshAll();
+        }
+        return healthSnapshot.getHealthRecords();
+    }
+
+    /**
+     * @return the timing and staleness of each registered checker, as of the time of the call.
+     */
+    public List<CheckerStatus> getCheckerStatus() {
+        final List<CheckerStatus> returnList = new ArrayList<>();
+        for (final CheckerTask checkerTask : checkerTasks) {
+            returnList.add(checkerTask.toCheckerStatus());
         }
-        return healthRecords;
+        return Collections.unmodifiableList(returnList);
     }
 
     public STATUS status() {
@@ -105,64 +140,155 @@ public class HealthMonitor implements PwmService {
     public void init(PwmApplication pwmApplication) throws PwmException {
         status = STATUS.OPENING;
         this.pwmApplication = pwmApplication;
-        this.intervalSeconds = Integer.parseInt(pwmApplication.getConfig().readAppProperty(AppProperty.HEALTH_MIN_CHECK_INTERVAL_SECONDS));
+        this.intervalSeconds = boundInterval(Integer.parseInt(pwmApplication.getConfig().readAppProperty(AppProperty.HEALTH_MIN_CHECK_INTERVAL_SECONDS)));
+        this.timeoutSeconds = Integer.parseInt(pwmApplication.getConfig().readAppProperty(AppProperty.HEALTH_CHECK_TIMEOUT_SECONDS));
+        final int certificateIntervalSeconds = Integer.parseInt(pwmApplication.getConfig().readAppProperty(AppProperty.HEALTH_CERTIFICATE_CHECK_INTERVAL_SECONDS));
 
-        if (intervalSeconds < MIN_INTERVAL_SECONDS) {
-            intervalSeconds = MIN_INTERVAL_SECONDS;
-        } else if (intervalSeconds > MAX_INTERVAL_SECONDS) {
-            intervalSeconds = MAX_INTERVAL_SECONDS;
-        }
+        final Set<HealthRecord> newHealthRecords = new HashSet<>();
+        newHealthRecords.add(new HealthRecord(HealthStatus.CAUTION, HealthTopic.Application, "Health Check operation has not been performed since PWM has started."));
+        healthSnapshot = new HealthSnapshot(Collections.unmodifiableSet(newHealthRecords), null);
 
         registerHealthCheck(new LDAPStatusChecker());
         registerHealthCheck(new JavaChecker());
         registerHealthCheck(new ConfigurationChecker());
         registerHealthCheck(new LocalDBHealthChecker());
-        registerHealthCheck(new CertificateChecker());
+        registerHealthCheck(new CertificateChecker(), certificateIntervalSeconds, timeoutSeconds);
+        registerHealthCheck(new ServiceHealthChecker());
 
-        final Set<HealthRecord> newHealthRecords = new HashSet<>();
-        newHealthRecords.add(new HealthRecord(HealthStatus.CAUTION, HealthTopic.Application, "Health Check operation has not been performed since PWM has started."));
-        healthRecords = Collections.unmodifiableSet(newHealthRecords);
+        start(INITIAL_DELAY_MS, TIMEOUT_WATCH_INTERVAL_MS);
+    }
 
+    /**
+     * Start the scheduler and run each registered checker after {@code initialDelayMs}.
+     */
+    void start(final long initialDelayMs, final long timeoutWatchIntervalMs) {
+        final String threadNamePrefix = Helper.makeThreadName(pwmApplication, HealthMonitor.class) + "-checker-";
+        executorService = new ScheduledThreadPoolExecutor(checkerTasks.size() + 1, new ThreadFactory() {
+            private int counter = 0;
+
+            public synchronized Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, threadNamePrefix + counter++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        this.initialDelayMs = initialDelayMs;
         status = STATUS.OPEN;
+
+        for (final CheckerTask checkerTask : checkerTasks) {
+            scheduleCheckerTask(checkerTask);
+        }
+        executorService.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                checkForTimeouts();
+            }
+        }, timeoutWatchIntervalMs, timeoutWatchIntervalMs, TimeUnit.MILLISECONDS);
     }
 
     public void close() {
-        healthRecords = Collections.emptySet();
         status = STATUS.CLOSED;
+        if (executorService != null) {
+            executorService.shutdownNow();
+            executorService = null;
+        }
+        healthSnapshot = new HealthSnapshot(Collections.<HealthRecord>emptySet(), null);
     }
 
     public List<HealthRecord> healthCheck() {
         return Collections.emptyList();
     }
 
-    private void doHealthChecks() {
-        if (status != STATUS.OPEN) {
+    private static int boundInterval(final int intervalSeconds) {
+        if (intervalSeconds < MIN_INTERVAL_SECONDS) {
+            return MIN_INTERVAL_SECONDS;
+        } else if (intervalSeconds > MAX_INTERVAL_SECONDS) {
+            return MAX_INTERVAL_SECONDS;
+        }
+        return intervalSeconds;
+    }
+
+    private void scheduleCheckerTask(final CheckerTask checkerTask) {
+        final int requiredThreads = checkerTasks.size() + 1;
+        if (executorService.getCorePoolSize() < requiredThreads) {
+            executorService.setCorePoolSize(requiredThreads);
+        }
+        executorService.scheduleWithFixedDelay(checkerTask, initialDelayMs, checkerTask.intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void refreshAll() {
+        final ScheduledExecutorService executor = executorService;
+        if (executor == null) {
+            return;
+        }
+
+        LOGGER.trace("beginning immediate health check process");
+        final Map<CheckerTask, Future> futures = new LinkedHashMap<>();
+        try {
+            for (final CheckerTask checkerTask : checkerTasks) {
+                futures.put(checkerTask, executor.submit(checkerTask));
+            }
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("unable to run immediate health check, health monitor is closing");
             return;
         }
 
-        LOGGER.trace("beginning health check process");
-        final List<HealthRecord> newResults = new ArrayList<>();
-        for (final HealthChecker loopChecker : healthCheckers) {
+        for (final CheckerTask checkerTask : futures.keySet()) {
             try {
-                final List<HealthRecord> loopResults = loopChecker.doHealthCheck(pwmApplication);
-                if (loopResults != null) {
-                    newResults.addAll(loopResults);
-                }
+                futures.get(checkerTask).get(checkerTask.timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                LOGGER.debug("timed out waiting for health check " + checkerTask.name + " to complete");
             } catch (Exception e) {
-                LOGGER.warn("unexpected error during healthCheck: " + e.getMessage(), e);
+                LOGGER.warn("unexpected error waiting for health check " + checkerTask.name + ": " + e.getMessage());
             }
         }
-        for (final PwmService service : pwmApplication.getPwmServices()) {
-            final List<HealthRecord> loopResults = service.healthCheck();
-            if (loopResults != null) {
-                newResults.addAll(loopResults);
+        LOGGER.trace("immediate health check process completed");
+    }
+
+    private void checkForTimeouts() {
+        boolean newTimeout = false;
+        for (final CheckerTask checkerTask : checkerTasks) {
+            if (checkerTask.isTimedOut() && !checkerTask.timeoutReported) {
+                LOGGER.warn("health check " + checkerTask.name + " has not completed after "
+                        + new TimeDuration(checkerTask.timeoutMs).asCompactString());
+                checkerTask.timeoutReported = true;
+                newTimeout = true;
             }
         }
+        if (newTimeout) {
+            publishSnapshot();
+        }
+    }
+
+    /**
+     * Combine the latest result of each checker into a new snapshot.  Only the checker threads call this method; readers
+     * simply read the current snapshot.
+     */
+    private synchronized void publishSnapshot() {
+        if (status != STATUS.OPEN) {
+            return;
+        }
+
+        boolean anyCompleted = false;
         final Set<HealthRecord> sortedRecordList = new TreeSet<>();
-        sortedRecordList.addAll(newResults);
-        healthRecords = Collections.unmodifiableSet(sortedRecordList);
-        lastHealthCheckDate = new Date();
-        LOGGER.trace("health check process completed");
+        for (final CheckerTask checkerTask : checkerTasks) {
+            final CheckerResult checkerResult = checkerTask.lastResult;
+            if (checkerResult != null) {
+                anyCompleted = true;
+                sortedRecordList.addAll(checkerResult.healthRecords);
+            }
+            if (checkerTask.isTimedOut()) {
+                sortedRecordList.add(HealthRecord.forMessage(
+                        HealthMessage.HealthCheck_Timeout,
+                        checkerTask.name,
+                        new TimeDuration(checkerTask.timeoutMs).asCompactString()
+                ));
+            }
+        }
+
+        if (anyCompleted) {
+            healthSnapshot = new HealthSnapshot(Collections.unmodifiableSet(sortedRecordList), new Date());
+        }
     }
 
     public ServiceInfo serviceInfo()
@@ -174,4 +300,165 @@ public class HealthMonitor implements PwmService {
     {
         return healthProperties;
     }
+
+    private static class HealthSnapshot {
+        private final Set<HealthRecord> healthRecords;
+        private final Date timestamp;
+
+        private HealthSnapshot(final Set<HealthRecord> healthRecords, final Date timestamp) {
+            this.healthRecords = healthRecords;
+            this.timestamp = timestamp;
+        }
+
+        public Set<HealthRecord> getHealthRecords() {
+            return healthRecords;
+        }
+
+        public Date getTimestamp() {
+            return timestamp;
+        }
+    }
+
+    private static class CheckerResult {
+        private final List<HealthRecord> healthRecords;
+        private final Date completed;
+        private final long durationMs;
+
+        private CheckerResult(final List<HealthRecord> healthRecords, final Date completed, final long durationMs) {
+            this.healthRecords = healthRecords;
+            this.completed = completed;
+            this.durationMs = durationMs;
+        }
+    }
+
+    public static class CheckerStatus implements Serializable {
+        private final String name;
+        private final Date lastCompleted;
+        private final long lastDurationMs;
+        private final long ageMs;
+        private final boolean running;
+        private final boolean timedOut;
+
+        public CheckerStatus(
+                final String name,
+                final Date lastCompleted,
+                final long lastDurationMs,
+                final long ageMs,
+                final boolean running,
+                final boolean timedOut
+        )
+        {
+            this.name = name;
+            this.lastCompleted = lastCompleted;
+            this.lastDurationMs = lastDurationMs;
+            this.ageMs = ageMs;
+            this.running = running;
+            this.timedOut = timedOut;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return time the checker last completed, or null if it has not completed since startup.
+         */
+        public Date getLastCompleted() {
+            return lastCompleted;
+        }
+
+        public long getLastDurationMs() {
+            return lastDurationMs;
+        }
+
+        /**
+         * @return age of the checker's current results, or -1 if it has not completed since startup.
+         */
+        public long getAgeMs() {
+            return ageMs;
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+    }
+
+    private class CheckerTask implements Runnable {
+        private final String name;
+        private final HealthChecker healthChecker;
+        private final long intervalMs;
+        private final long timeoutMs;
+        private final AtomicBoolean running = new AtomicBoolean(false);
+
+        private volatile long runStartTime;
+        private volatile boolean timeoutReported;
+        private volatile CheckerResult lastResult;
+
+        private CheckerTask(final String name, final HealthChecker healthChecker, final long intervalMs, final long timeoutMs) {
+            this.name = name;
+            this.healthChecker = healthChecker;
+            this.intervalMs = intervalMs;
+            this.timeoutMs = timeoutMs;
+        }
+
+        public void run() {
+            if (status != STATUS.OPEN || !running.compareAndSet(false, true)) {
+                return;
+            }
+
+            runStartTime = System.currentTimeMillis();
+            List<HealthRecord> results = Collections.emptyList();
+            try {
+                final List<HealthRecord> loopResults = healthChecker.doHealthCheck(pwmApplication);
+                if (loopResults != null) {
+                    results = loopResults;
+                }
+            } catch (Exception e) {
+                LOGGER.warn("unexpected error during healthCheck: " + e.getMessage(), e);
+            }
+
+            final long durationMs = System.currentTimeMillis() - runStartTime;
+            lastResult = new CheckerResult(results, new Date(), durationMs);
+            timeoutReported = false;
+            running.set(false);
+            LOGGER.trace("health check " + name + " completed in " + new TimeDuration(durationMs).asCompactString());
+            publishSnapshot();
+        }
+
+        private boolean isTimedOut() {
+            return timeoutMs > 0 && running.get() && System.currentTimeMillis() - runStartTime > timeoutMs;
+        }
+
+        private CheckerStatus toCheckerStatus() {
+            final CheckerResult checkerResult = lastResult;
+            return new CheckerStatus(
+                    name,
+                    checkerResult == null ? null : checkerResult.completed,
+                    checkerResult == null ? -1 : checkerResult.durationMs,
+                    checkerResult == null ? -1 : System.currentTimeMillis() - checkerResult.completed.getTime(),
+                    running.get(),
+                    isTimedOut()
+            );
+        }
+    }
+
+    /**
+     * Collects the health records reported by the other {@link PwmService}s.
+     */
+    private static class ServiceHealthChecker implements HealthChecker {
+        public List<HealthRecord> doHealthCheck(final PwmApplication pwmApplication) {
+            final List<HealthRecord> newResults = new ArrayList<>();
+            for (final PwmService service : pwmApplication.getPwmServices()) {
+                final List<HealthRecord> loopResults = service.healthCheck();
+                if (loopResults != null) {
+                    newResults.addAll(loopResults);
+                }
+            }
+            return newResults;
+        }
+    }
 }
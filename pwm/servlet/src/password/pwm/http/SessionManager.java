@@ -34,13 +34,16 @@ import password.pwm.bean.UserInfoBean;
 import password.pwm.config.PwmSetting;
 import password.pwm.config.UserPermission;
 import password.pwm.config.profile.HelpdeskProfile;
+import password.pwm.config.profile.LdapProfile;
 import password.pwm.config.profile.ProfileType;
 import password.pwm.error.ErrorInformation;
 import password.pwm.error.PwmError;
 import password.pwm.error.PwmUnrecoverableException;
+import password.pwm.ldap.ChaiProviderPool;
 import password.pwm.ldap.LdapOperationsHelper;
 import password.pwm.ldap.LdapPermissionTester;
 import password.pwm.ldap.LdapUserDataReader;
+import password.pwm.ldap.SharedBindVerifier;
 import password.pwm.ldap.UserDataReader;
 import password.pwm.util.Helper;
 import password.pwm.util.PasswordData;
@@ -97,6 +100,13 @@ public class SessionManager implements Serializable {
     {
         this.closeConnections();
 
+        if (pwmApplication.getLdapConnectionService().isSharedBindEnabled()) {
+            final LdapProfile ldapProfile = userIdentity.getLdapProfile(pwmApplication.getConfig());
+            this.chaiProvider = pwmApplication.getLdapConnectionService().getSharedBindVerifier(ldapProfile)
+                    .makeLeasedProvider(userIdentity.getUserDN(), userPassword);
+            return;
+        }
+
         try {
             this.chaiProvider = LdapOperationsHelper.createChaiProvider(
                     pwmSession.getLabel(),
@@ -155,7 +165,10 @@ public class SessionManager implements Serializable {
     }
 
     public boolean hasActiveLdapConnection() {
-        return this.chaiProvider != null && this.chaiProvider.isConnected();
+        return this.chaiProvider != null
+                && !ChaiProviderPool.isPooledProvider(this.chaiProvider)
+                && !SharedBindVerifier.isLeasedProvider(this.chaiProvider)
+                && this.chaiProvider.isConnected();
     }
 
     public ChaiUser getActor(final PwmApplication pwmApplication, final UserIdentity userIdentity)
@@ -270,7 +270,7 @@ public class AdminServlet extends PwmServlet {
         aboutBean.setSmsQueueOldestTime(pwmApplication.getSmsQueue().eldestItem());
 
         aboutBean.setSyslogQueueSize(pwmApplication.getAuditManager().syslogQueueSize());
-        aboutBean.setSyslogQueueOldestTime(null);//@todo
+        aboutBean.setSyslogQueueOldestTime(pwmApplication.getAuditManager().syslogEldestItem());
 
         aboutBean.setLocalDbLogSize(pwmApplication.getLocalDBLogger().getStoredEventCount());
         aboutBean.setLocalDbLogOldestTime(pwmApplication.getLocalDBLogger().getTailDate());
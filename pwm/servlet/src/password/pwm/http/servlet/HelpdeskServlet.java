@@ -532,7 +532,7 @@ public class HelpdeskServlet extends PwmServlet {
         final String configuredDisplayName = helpdeskProfile.readSettingAsString(PwmSetting.HELPDESK_DETAIL_DISPLAY_NAME);
         if (configuredDisplayName != null && !configuredDisplayName.isEmpty()) {
             final MacroMachine macroMachine = new MacroMachine(pwmRequest.getPwmApplication(), pwmRequest.getSessionLabel(), detailInfo.getUserInfoBean(), null, userDataReader);
-            final String displayName = macroMachine.expandMacros(configuredDisplayName);
+            final String displayName = macroMachine.expandMacros(configuredDisplayName, true);
             detailInfo.setUserDisplayName(displayName);
         }
 
@@ -711,7 +711,7 @@ public class HelpdeskServlet extends PwmServlet {
         final UserIdentity userIdentity = userInfoBean.getUserIdentity();
         final MacroMachine macroMachine = MacroMachine.forNonUserSpecific(pwmRequest.getPwmApplication(), pwmRequest.getSessionLabel());
         final String configuredTokenString = config.readAppProperty(AppProperty.HELPDESK_TOKEN_VALUE);
-        final String tokenKey = macroMachine.expandMacros(configuredTokenString);
+        final String tokenKey = macroMachine.expandMacros(configuredTokenString, true);
 
         final StringBuilder destDisplayString = new StringBuilder();
         if (userInfoBean.getUserEmailAddress() != null && !userInfoBean.getUserEmailAddress().isEmpty()) {
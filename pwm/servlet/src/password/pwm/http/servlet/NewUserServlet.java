@@ -264,7 +264,7 @@ public class NewUserServlet extends PwmServlet {
                         pwmRequest.getSessionLabel(),
                         newUserBean.getNewUserForm()
                 );
-                final String expandedText = macroMachine.expandMacros(newUserAgreementText);
+                final String expandedText = macroMachine.expandMacros(newUserAgreementText, true);
                 pwmRequest.setAttribute(PwmConstants.REQUEST_ATTR.AgreementText, expandedText);
                 pwmRequest.forwardToJsp(PwmConstants.JSP_URL.NEW_USER_AGREEMENT);
                 return;
@@ -685,7 +685,7 @@ public class NewUserServlet extends PwmServlet {
         final List<String> failedValues = new ArrayList<>();
 
         final String configuredContext = newUserProfile.readSettingAsString(PwmSetting.NEWUSER_CONTEXT);
-        final String expandedContext = macroMachine.expandMacros(configuredContext);
+        final String expandedContext = macroMachine.expandMacros(configuredContext, true);
 
 
         if (configuredNames == null || configuredNames.isEmpty() || configuredNames.iterator().next().isEmpty()) {
@@ -713,7 +713,7 @@ public class NewUserServlet extends PwmServlet {
             {
                 {
                     final String configuredName = configuredNames.get(attemptCount);
-                    expandedName = macroMachine.expandMacros(configuredName);
+                    expandedName = macroMachine.expandMacros(configuredName, true);
                 }
 
                 if (!testIfEntryNameExists(pwmRequest, expandedName)) {
@@ -770,7 +770,7 @@ public class PeopleSearchServlet extends PwmServlet {
         try {
             if (overrideURL != null && !overrideURL.isEmpty()) {
                 final MacroMachine macroMachine = getMacroMachine(pwmApplication, pwmRequest.getPwmSession(), userIdentity);
-                return macroMachine.expandMacros(overrideURL);
+                return macroMachine.expandMacros(overrideURL, true);
             }
 
             try {
@@ -795,7 +795,7 @@ public class PeopleSearchServlet extends PwmServlet {
     {
         final MacroMachine macroMachine = getMacroMachine(pwmApplication, pwmSession, userIdentity);
         final String settingValue = pwmApplication.getConfig().readSettingAsString(PwmSetting.PEOPLE_SEARCH_DISPLAY_NAME);
-        return macroMachine.expandMacros(settingValue);
+        return macroMachine.expandMacros(settingValue, true);
     }
 
 
@@ -1039,7 +1039,7 @@ public class PeopleSearchServlet extends PwmServlet {
             if (displayStringSettings != null) {
                 final MacroMachine macroMachine = getMacroMachine(pwmRequest.getPwmApplication(), pwmRequest.getPwmSession(), userIdentity);
                 for (final String displayStringSetting : displayStringSettings) {
-                    final String displayLabel = macroMachine.expandMacros(displayStringSetting);
+                    final String displayLabel = macroMachine.expandMacros(displayStringSetting, true);
                     displayLabels.add(displayLabel);
                 }
             }
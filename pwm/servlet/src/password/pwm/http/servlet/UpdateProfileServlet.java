@@ -195,7 +195,7 @@ public class UpdateProfileServlet extends PwmServlet {
         if (updateProfileAgreementText != null && updateProfileAgreementText.length() > 0) {
             if (!updateProfileBean.isAgreementPassed()) {
                 final MacroMachine macroMachine = pwmRequest.getPwmSession().getSessionManager().getMacroMachine(pwmRequest.getPwmApplication());
-                final String expandedText = macroMachine.expandMacros(updateProfileAgreementText);
+                final String expandedText = macroMachine.expandMacros(updateProfileAgreementText, true);
                 pwmRequest.setAttribute(PwmConstants.REQUEST_ATTR.AgreementText, expandedText);
                 pwmRequest.forwardToJsp(PwmConstants.JSP_URL.UPDATE_ATTRIBUTES_AGREEMENT);
                 return;
@@ -53,7 +53,7 @@ public class PwmMacroTag extends TagSupport {
         try {
             final PwmRequest pwmRequest = PwmRequest.forRequest((HttpServletRequest) pageContext.getRequest(), (HttpServletResponse) pageContext.getResponse());
             final MacroMachine macroMachine = pwmRequest.getPwmSession().getSessionManager().getMacroMachine(pwmRequest.getPwmApplication());
-            final String outputValue = macroMachine.expandMacros(value);
+            final String outputValue = macroMachine.expandMacros(value, true);
             pageContext.getOut().write(outputValue);
         } catch (PwmUnrecoverableException e) {
             LOGGER.error("error while processing PwmMacroTag: " + e.getMessage());
@@ -94,7 +94,7 @@ public class PwmValueTag extends TagSupport {
                     try {
                         MacroMachine macroMachine = pwmRequest.getPwmSession().getSessionManager().getMacroMachine(
                                 pwmRequest.getPwmApplication());
-                        outputURL = macroMachine.expandMacros(outputURL);
+                        outputURL = macroMachine.expandMacros(outputURL, true);
                     } catch ( PwmUnrecoverableException e) {
                         LOGGER.error(pwmRequest, "error expanding macros in homeURL: " + e.getMessage());
                     }
@@ -119,7 +119,7 @@ public class PwmValueTag extends TagSupport {
                     try {
                         final MacroMachine macroMachine = pwmRequest.getPwmSession().getSessionManager().getMacroMachine(
                                 pwmRequest.getPwmApplication());
-                        final String expandedScript = macroMachine.expandMacros(customScript);
+                        final String expandedScript = macroMachine.expandMacros(customScript, true);
                         return expandedScript;
                     } catch (Exception e) {
                         LOGGER.error(pwmRequest, "error while expanding customJavascript macros: " + e.getMessage());
@@ -0,0 +1,493 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.ldap;
+
+import com.novell.ldapchai.exception.ChaiError;
+import com.novell.ldapchai.exception.ChaiUnavailableException;
+import com.novell.ldapchai.provider.ChaiConfiguration;
+import com.novell.ldapchai.provider.ChaiProvider;
+import password.pwm.error.PwmUnrecoverableException;
+import password.pwm.util.TimeDuration;
+import password.pwm.util.logging.PwmLogger;
+
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Date;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of proxy {@link ChaiProvider} connections for a single ldap profile.  The pool is presented to callers
+ * as a single {@link ChaiProvider}, and each ldap operation is run on the least loaded member connection.  Member
+ * connections are opened on demand when all open members are busy, closed when an operation reports the directory as
+ * unavailable, and closed after being idle for longer than the idle timeout.
+ */
+public class ChaiProviderPool {
+    private static final PwmLogger LOGGER = PwmLogger.forClass(ChaiProviderPool.class);
+
+    private static final long IDLE_CHECK_INTERVAL_MS = 1000;
+
+    interface ProviderFactory {
+        ChaiProvider openProvider(int memberIndex) throws PwmUnrecoverableException;
+    }
+
+    private final String profileID;
+    private final ProviderFactory providerFactory;
+    private final Member[] members;
+    private final int maxOperationsPerMember;
+    private final int maxOperations;
+    private final Semaphore operationPermits;
+    private final long maxWaitMs;
+    private final long idleTimeoutMs;
+    private final ChaiProvider pooledProvider;
+
+    private final AtomicInteger checkoutCounter = new AtomicInteger();
+    private final AtomicLong operationCount = new AtomicLong();
+    private final AtomicLong totalWaitMs = new AtomicLong();
+    private final AtomicLong peakWaitMs = new AtomicLong();
+    private final AtomicInteger peakActiveOperations = new AtomicInteger();
+    private final AtomicLong waitTimeouts = new AtomicLong();
+    private final AtomicLong connectionFailures = new AtomicLong();
+    private final AtomicLong idleEvictions = new AtomicLong();
+
+    private volatile ChaiConfiguration chaiConfiguration;
+    private volatile long lastIdleCheck = System.currentTimeMillis();
+    private volatile long lastWaitTimeout;
+    private volatile long lastConnectionFailure;
+    private volatile boolean closed;
+
+    ChaiProviderPool(
+            final String profileID,
+            final int poolSize,
+            final int maxOperationsPerConnection,
+            final long maxWaitMs,
+            final long idleTimeoutMs,
+            final ProviderFactory providerFactory
+    ) {
+        this.profileID = profileID;
+        this.providerFactory = providerFactory;
+        this.members = new Member[Math.max(1, poolSize)];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = new Member(i);
+        }
+        this.maxOperationsPerMember = Math.max(1, maxOperationsPerConnection);
+        this.maxOperations = members.length * maxOperationsPerMember;
+        this.operationPermits = new Semaphore(maxOperations, true);
+        this.maxWaitMs = maxWaitMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.pooledProvider = (ChaiProvider)Proxy.newProxyInstance(
+                ChaiProvider.class.getClassLoader(),
+                new Class[]{ChaiProvider.class},
+                new PooledInvocationHandler()
+        );
+    }
+
+    /**
+     * Opens the first member connection, so that an unreachable directory is reported when the pool is created.
+     */
+    void open() throws PwmUnrecoverableException {
+        final Member member = members[0];
+        synchronized (member) {
+            if (member.provider == null) {
+                member.provider = providerFactory.openProvider(member.index);
+                member.lastUsed = System.currentTimeMillis();
+                if (chaiConfiguration == null) {
+                    chaiConfiguration = member.provider.getChaiConfiguration();
+                }
+            }
+        }
+    }
+
+    ChaiProvider getPooledProvider() {
+        return pooledProvider;
+    }
+
+    /**
+     * @return true if the provider is the shared provider of a pool, rather than a connection owned by the caller.
+     */
+    public static boolean isPooledProvider(final ChaiProvider chaiProvider) {
+        return chaiProvider != null
+                && Proxy.isProxyClass(chaiProvider.getClass())
+                && Proxy.getInvocationHandler(chaiProvider) instanceof PooledInvocationHandler;
+    }
+
+    void close() {
+        closed = true;
+        for (final Member member : members) {
+            synchronized (member) {
+                closeMemberProvider(member);
+            }
+        }
+        LOGGER.trace("closed ldap proxy connection pool for profile " + profileID + ", " + getStatistics().toDebugString());
+    }
+
+    public PoolStatistics getStatistics() {
+        int openConnections = 0;
+        for (final Member member : members) {
+            if (member.provider != null) {
+                openConnections++;
+            }
+        }
+        final long operations = operationCount.get();
+        final PoolStatistics poolStatistics = new PoolStatistics();
+        poolStatistics.profileID = profileID;
+        poolStatistics.poolSize = members.length;
+        poolStatistics.openConnections = openConnections;
+        poolStatistics.maxOperations = maxOperations;
+        poolStatistics.activeOperations = maxOperations - operationPermits.availablePermits();
+        poolStatistics.peakActiveOperations = peakActiveOperations.get();
+        poolStatistics.operationCount = operations;
+        poolStatistics.averageWaitMs = operations == 0 ? 0 : totalWaitMs.get() / operations;
+        poolStatistics.peakWaitMs = peakWaitMs.get();
+        poolStatistics.waitTimeouts = waitTimeouts.get();
+        poolStatistics.connectionFailures = connectionFailures.get();
+        poolStatistics.idleEvictions = idleEvictions.get();
+        poolStatistics.lastWaitTimeout = lastWaitTimeout == 0 ? null : new Date(lastWaitTimeout);
+        poolStatistics.lastConnectionFailure = lastConnectionFailure == 0 ? null : new Date(lastConnectionFailure);
+        return poolStatistics;
+    }
+
+    private Member checkout()
+            throws ChaiUnavailableException
+    {
+        if (closed) {
+            throw new IllegalStateException("ldap proxy connection pool for profile " + profileID + " is closed");
+        }
+
+        final long startTime = System.currentTimeMillis();
+        boolean acquired;
+        try {
+            acquired = operationPermits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        final long waitMs = System.currentTimeMillis() - startTime;
+
+        if (!acquired) {
+            waitTimeouts.incrementAndGet();
+            lastWaitTimeout = System.currentTimeMillis();
+            throw new ChaiUnavailableException("no ldap proxy connection for profile " + profileID + " became available within "
+                    + TimeDuration.asCompactString(waitMs), ChaiError.COMMUNICATION);
+        }
+
+        operationCount.incrementAndGet();
+        totalWaitMs.addAndGet(waitMs);
+        updatePeak(peakWaitMs, waitMs);
+        final int activeOperations = maxOperations - operationPermits.availablePermits();
+        if (activeOperations > peakActiveOperations.get()) {
+            synchronized (peakActiveOperations) {
+                if (activeOperations > peakActiveOperations.get()) {
+                    peakActiveOperations.set(activeOperations);
+                }
+            }
+        }
+
+        evictIdleMembers();
+        return reserveMember();
+    }
+
+    /**
+     * Selects a member and reserves one of its operation slots.  Prefers an idle open member, starting from a rotating
+     * offset so load is spread across members.  If every open member is busy an unopened member is used, otherwise the
+     * member with the fewest active operations.  The slot is reserved with a compare-and-set of the member's active
+     * count, so concurrent callers never share a slot; if another caller took the slot first the selection is repeated.
+     * The caller must hold an operation permit, which guarantees a member with a free slot exists.
+     */
+    private Member reserveMember() {
+        final int offset = (checkoutCounter.getAndIncrement() & Integer.MAX_VALUE) % members.length;
+        while (true) {
+            Member selectedMember = null;
+            int selectedActive = 0;
+            int selectedRank = Integer.MAX_VALUE;
+            for (int i = 0; i < members.length; i++) {
+                final Member member = members[(offset + i) % members.length];
+                final int active = member.active.get();
+                if (active >= maxOperationsPerMember) {
+                    continue;
+                }
+                final int rank;
+                if (active == 0) {
+                    rank = member.provider != null ? 0 : 1;
+                } else {
+                    rank = 1 + active;
+                }
+                if (rank < selectedRank) {
+                    selectedMember = member;
+                    selectedActive = active;
+                    selectedRank = rank;
+                }
+            }
+            if (selectedMember != null && selectedMember.active.compareAndSet(selectedActive, selectedActive + 1)) {
+                return selectedMember;
+            }
+        }
+    }
+
+    private ChaiProvider acquireProvider(final Member member)
+            throws ChaiUnavailableException
+    {
+        synchronized (member) {
+            if (member.provider == null) {
+                try {
+                    member.provider = providerFactory.openProvider(member.index);
+                } catch (PwmUnrecoverableException e) {
+                    connectionFailures.incrementAndGet();
+                    lastConnectionFailure = System.currentTimeMillis();
+                    throw new ChaiUnavailableException(e.getMessage(), ChaiError.COMMUNICATION);
+                }
+                if (chaiConfiguration == null) {
+                    chaiConfiguration = member.provider.getChaiConfiguration();
+                }
+            }
+            member.lastUsed = System.currentTimeMillis();
+            return member.provider;
+        }
+    }
+
+    private void release(final Member member) {
+        member.active.decrementAndGet();
+        member.lastUsed = System.currentTimeMillis();
+        operationPermits.release();
+    }
+
+    private void retireMember(final Member member, final ChaiProvider provider) {
+        synchronized (member) {
+            if (member.provider == provider) {
+                connectionFailures.incrementAndGet();
+                lastConnectionFailure = System.currentTimeMillis();
+                LOGGER.debug("closing ldap proxy connection #" + member.index + " for profile " + profileID + " after communication error");
+                closeMemberProvider(member);
+            }
+        }
+    }
+
+    private void evictIdleMembers() {
+        final long now = System.currentTimeMillis();
+        if (idleTimeoutMs <= 0 || now - lastIdleCheck < IDLE_CHECK_INTERVAL_MS) {
+            return;
+        }
+        lastIdleCheck = now;
+        for (final Member member : members) {
+            if (member.provider != null && member.active.get() == 0 && now - member.lastUsed > idleTimeoutMs) {
+                synchronized (member) {
+                    if (member.provider != null && member.active.get() == 0 && now - member.lastUsed > idleTimeoutMs) {
+                        idleEvictions.incrementAndGet();
+                        LOGGER.trace("closing idle ldap proxy connection #" + member.index + " for profile " + profileID);
+                        closeMemberProvider(member);
+                    }
+                }
+            }
+        }
+    }
+
+    private void closeMemberProvider(final Member member) {
+        final ChaiProvider provider = member.provider;
+        member.provider = null;
+        if (provider != null) {
+            try {
+                provider.close();
+            } catch (Exception e) {
+                LOGGER.error("error closing ldap proxy connection: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private boolean isConnected() {
+        if (closed) {
+            return false;
+        }
+        boolean anyOpen = false;
+        for (final Member member : members) {
+            final ChaiProvider provider = member.provider;
+            if (provider != null) {
+                if (provider.isConnected()) {
+                    return true;
+                }
+                anyOpen = true;
+            }
+        }
+        return !anyOpen;
+    }
+
+    private ChaiProvider anyOpenProvider() {
+        for (final Member member : members) {
+            final ChaiProvider provider = member.provider;
+            if (provider != null) {
+                return provider;
+            }
+        }
+        return null;
+    }
+
+    private static void updatePeak(final AtomicLong peak, final long value) {
+        long current = peak.get();
+        while (value > current && !peak.compareAndSet(current, value)) {
+            current = peak.get();
+        }
+    }
+
+    private class PooledInvocationHandler implements InvocationHandler {
+        public Object invoke(final Object proxy, final Method method, final Object[] args)
+                throws Throwable
+        {
+            final String methodName = method.getName();
+            if (method.getDeclaringClass() == Object.class) {
+                if ("equals".equals(methodName)) {
+                    return proxy == args[0];
+                } else if ("hashCode".equals(methodName)) {
+                    return System.identityHashCode(proxy);
+                }
+                return "ChaiProviderPool[" + profileID + "]";
+            }
+
+            if ("close".equals(methodName)) {
+                // members are closed by the owning service, not by callers sharing the pool
+                return null;
+            } else if ("isConnected".equals(methodName)) {
+                return isConnected();
+            } else if ("getChaiConfiguration".equals(methodName)) {
+                return chaiConfiguration;
+            } else if ("getProviderStatistics".equals(methodName)) {
+                final ChaiProvider provider = anyOpenProvider();
+                return provider == null ? null : provider.getProviderStatistics();
+            }
+
+            final Member member = checkout();
+            ChaiProvider provider = null;
+            try {
+                provider = acquireProvider(member);
+                return method.invoke(provider, args);
+            } catch (InvocationTargetException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof ChaiUnavailableException) {
+                    retireMember(member, provider);
+                }
+                throw cause;
+            } finally {
+                release(member);
+            }
+        }
+    }
+
+    private static class Member {
+        private final int index;
+        private final AtomicInteger active = new AtomicInteger();
+        private volatile ChaiProvider provider;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private Member(final int index) {
+            this.index = index;
+        }
+    }
+
+    public static class PoolStatistics implements Serializable {
+        private String profileID;
+        private int poolSize;
+        private int openConnections;
+        private int maxOperations;
+        private int activeOperations;
+        private int peakActiveOperations;
+        private long operationCount;
+        private long averageWaitMs;
+        private long peakWaitMs;
+        private long waitTimeouts;
+        private long connectionFailures;
+        private long idleEvictions;
+        private Date lastWaitTimeout;
+        private Date lastConnectionFailure;
+
+        public String getProfileID() {
+            return profileID;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public int getOpenConnections() {
+            return openConnections;
+        }
+
+        public int getMaxOperations() {
+            return maxOperations;
+        }
+
+        public int getActiveOperations() {
+            return activeOperations;
+        }
+
+        public int getPeakActiveOperations() {
+            return peakActiveOperations;
+        }
+
+        public long getOperationCount() {
+            return operationCount;
+        }
+
+        public long getAverageWaitMs() {
+            return averageWaitMs;
+        }
+
+        public long getPeakWaitMs() {
+            return peakWaitMs;
+        }
+
+        public long getWaitTimeouts() {
+            return waitTimeouts;
+        }
+
+        public long getConnectionFailures() {
+            return connectionFailures;
+        }
+
+        public long getIdleEvictions() {
+            return idleEvictions;
+        }
+
+        public Date getLastWaitTimeout() {
+            return lastWaitTimeout;
+        }
+
+        public Date getLastConnectionFailure() {
+            return lastConnectionFailure;
+        }
+
+        public String toDebugString() {
+            return "connections=" + openConnections + "/" + poolSize
+                    + " active=" + activeOperations + "/" + maxOperations
+                    + " peakActive=" + peakActiveOperations
+                    + " operations=" + operationCount
+                    + " avgWait=" + averageWaitMs + "ms"
+                    + " peakWait=" + peakWaitMs + "ms"
+                    + " waitTimeouts=" + waitTimeouts
+                    + " failures=" + connectionFailures
+                    + " idleEvictions=" + idleEvictions;
+        }
+    }
+}
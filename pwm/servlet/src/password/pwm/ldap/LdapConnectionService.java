@@ -23,27 +23,40 @@
 package password.pwm.ldap;
 
 import com.google.gson.reflect.TypeToken;
+import com.novell.ldapchai.exception.ChaiUnavailableException;
 import com.novell.ldapchai.provider.ChaiProvider;
+import password.pwm.AppProperty;
 import password.pwm.PwmApplication;
 import password.pwm.PwmService;
+import password.pwm.config.Configuration;
+import password.pwm.config.PwmSetting;
 import password.pwm.config.option.DataStorageMethod;
 import password.pwm.config.profile.LdapProfile;
 import password.pwm.error.ErrorInformation;
 import password.pwm.error.PwmError;
 import password.pwm.error.PwmException;
 import password.pwm.error.PwmUnrecoverableException;
+import password.pwm.health.HealthMessage;
 import password.pwm.health.HealthRecord;
+import password.pwm.util.Helper;
 import password.pwm.util.JsonUtil;
+import password.pwm.util.PasswordData;
+import password.pwm.util.TimeDuration;
 import password.pwm.util.logging.PwmLogger;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 public class LdapConnectionService implements PwmService {
     final private static PwmLogger LOGGER = PwmLogger.forClass(LdapConnectionService.class);
 
-    private final Map<String,ChaiProvider> proxyChaiProviders = new HashMap<>();
-    private final Map<LdapProfile,ErrorInformation> lastLdapErrors = new HashMap<>();
+    private final ConcurrentMap<String,ChaiProviderPool> proxyChaiPools = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String,SharedBindVerifier> sharedBindVerifiers = new ConcurrentHashMap<>();
+    private final Map<LdapProfile,ErrorInformation> lastLdapErrors = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String,SearchTime> contextSearchTimes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String,Set<String>> prefetchAttributeNames = new ConcurrentHashMap<>();
     private PwmApplication pwmApplication;
+    private ExecutorService searchExecutor;
     private STATUS status = STATUS.NEW;
 
     public STATUS status()
@@ -59,28 +72,60 @@ public class LdapConnectionService implements PwmService {
         // read the lastLoginTime
         this.lastLdapErrors.putAll(readLastLdapFailure(pwmApplication));
 
+        final int searchThreadCount = Integer.parseInt(pwmApplication.getConfig().readAppProperty(AppProperty.LDAP_SEARCH_PARALLEL_THREADS));
+        if (searchThreadCount > 1) {
+            searchExecutor = makeSearchExecutor(pwmApplication, searchThreadCount);
+        }
+
         status = STATUS.OPEN;
     }
 
     public void close()
     {
         status = STATUS.CLOSED;
+        if (searchExecutor != null) {
+            searchExecutor.shutdownNow();
+            searchExecutor = null;
+        }
         LOGGER.trace("closing ldap proxy connections");
-        for (final String id : proxyChaiProviders.keySet()) {
-            final ChaiProvider existingProvider = proxyChaiProviders.get(id);
-
-            try {
-                existingProvider.close();
-            } catch (Exception e) {
-                LOGGER.error("error closing ldap proxy connection: " + e.getMessage(), e);
-            }
+        for (final ChaiProviderPool pool : proxyChaiPools.values()) {
+            pool.close();
         }
-        proxyChaiProviders.clear();
+        proxyChaiPools.clear();
+        sharedBindVerifiers.clear();
     }
 
     public List<HealthRecord> healthCheck()
     {
-        return null;
+        if (status != STATUS.OPEN || proxyChaiPools.isEmpty()) {
+            return null;
+        }
+
+        final long cautionDurationMs = Long.parseLong(pwmApplication.getConfig().readAppProperty(AppProperty.HEALTH_LDAP_CAUTION_DURATION_MS));
+        final List<HealthRecord> healthRecords = new ArrayList<>();
+        for (final ChaiProviderPool.PoolStatistics poolStatistics : getProxyPoolStatistics().values()) {
+            final Date lastWaitTimeout = poolStatistics.getLastWaitTimeout();
+            if (lastWaitTimeout != null && TimeDuration.fromCurrent(lastWaitTimeout).getTotalMilliseconds() < cautionDurationMs) {
+                healthRecords.add(HealthRecord.forMessage(HealthMessage.LDAP_ProxyPoolWaitTimeout,
+                        poolStatistics.getProfileID(),
+                        String.valueOf(poolStatistics.getWaitTimeouts()),
+                        TimeDuration.fromCurrent(lastWaitTimeout).asCompactString(),
+                        String.valueOf(poolStatistics.getPoolSize())
+                ));
+            }
+
+            final Date lastConnectionFailure = poolStatistics.getLastConnectionFailure();
+            if (lastConnectionFailure != null && TimeDuration.fromCurrent(lastConnectionFailure).getTotalMilliseconds() < cautionDurationMs) {
+                healthRecords.add(HealthRecord.forMessage(HealthMessage.LDAP_ProxyPoolConnectionFailure,
+                        poolStatistics.getProfileID(),
+                        String.valueOf(poolStatistics.getConnectionFailures()),
+                        TimeDuration.fromCurrent(lastConnectionFailure).asCompactString(),
+                        String.valueOf(poolStatistics.getOpenConnections()),
+                        String.valueOf(poolStatistics.getPoolSize())
+                ));
+            }
+        }
+        return healthRecords;
     }
 
     public ServiceInfo serviceInfo()
@@ -98,30 +143,110 @@ public class LdapConnectionService implements PwmService {
     public ChaiProvider getProxyChaiProvider(final String identifier)
             throws PwmUnrecoverableException
     {
-        final ChaiProvider proxyChaiProvider = proxyChaiProviders.get(identifier == null ? "" : identifier);
-        if (proxyChaiProvider != null) {
-            return proxyChaiProvider;
+        final String profileID = identifier == null ? "" : identifier;
+        final ChaiProviderPool existingPool = proxyChaiPools.get(profileID);
+        if (existingPool != null) {
+            return existingPool.getPooledProvider();
         }
 
-        final LdapProfile ldapProfile = pwmApplication.getConfig().getLdapProfiles().get(identifier == null ? "" : identifier);
+        final LdapProfile ldapProfile = pwmApplication.getConfig().getLdapProfiles().get(profileID);
         if (ldapProfile == null) {
             final String errorMsg = "unknown ldap profile requested connection: " + identifier;
             throw new PwmUnrecoverableException(new ErrorInformation(PwmError.ERROR_NO_LDAP_CONNECTION,errorMsg));
         }
 
-        try {
-            final ChaiProvider newProvider = LdapOperationsHelper.openProxyChaiProvider(
-                    null,
-                    ldapProfile,
-                    pwmApplication.getConfig(),
-                    pwmApplication.getStatisticsManager()
-            );
-            proxyChaiProviders.put(identifier, newProvider);
-            return newProvider;
-        } catch (PwmUnrecoverableException e) {
-            setLastLdapFailure(ldapProfile,e.getErrorInformation());
-            throw e;
+        synchronized (proxyChaiPools) {
+            if (proxyChaiPools.containsKey(profileID)) {
+                return proxyChaiPools.get(profileID).getPooledProvider();
+            }
+
+            final ChaiProviderPool newPool = makeProxyChaiPool(ldapProfile);
+            newPool.open();
+            proxyChaiPools.put(profileID, newPool);
+            return newPool.getPooledProvider();
+        }
+    }
+
+    /**
+     * @return map of ldap profile identifier to the utilization and wait time statistics of its proxy connection pool.
+     */
+    public Map<String,ChaiProviderPool.PoolStatistics> getProxyPoolStatistics() {
+        final Map<String,ChaiProviderPool.PoolStatistics> returnMap = new TreeMap<>();
+        for (final String profileID : proxyChaiPools.keySet()) {
+            returnMap.put(profileID, proxyChaiPools.get(profileID).getStatistics());
+        }
+        return Collections.unmodifiableMap(returnMap);
+    }
+
+    public boolean isSharedBindEnabled() {
+        return Boolean.parseBoolean(pwmApplication.getConfig().readAppProperty(AppProperty.LDAP_AUTH_SHARED_BIND_ENABLE));
+    }
+
+    public SharedBindVerifier getSharedBindVerifier(final LdapProfile ldapProfile) {
+        final SharedBindVerifier existingVerifier = sharedBindVerifiers.get(ldapProfile.getIdentifier());
+        if (existingVerifier != null) {
+            return existingVerifier;
+        }
+
+        final Configuration config = pwmApplication.getConfig();
+        final int maxConnections = Integer.parseInt(config.readAppProperty(AppProperty.LDAP_AUTH_SHARED_BIND_MAX_CONNECTIONS));
+        final long maxWaitMs = Long.parseLong(config.readAppProperty(AppProperty.LDAP_PROXY_POOL_MAX_WAIT_MS));
+        final SharedBindVerifier newVerifier = new SharedBindVerifier(ldapProfile.getIdentifier(), maxConnections, maxWaitMs, new SharedBindVerifier.BindProviderFactory() {
+            public ChaiProvider openBindProvider(final String userDN, final PasswordData password)
+                    throws ChaiUnavailableException, PwmUnrecoverableException
+            {
+                return LdapOperationsHelper.createChaiProvider(null, ldapProfile, config, userDN, password);
+            }
+        });
+        sharedBindVerifiers.putIfAbsent(ldapProfile.getIdentifier(), newVerifier);
+        return sharedBindVerifiers.get(ldapProfile.getIdentifier());
+    }
+
+    /**
+     * @return the number of ldap connections currently open for the proxy pools and shared bind verification.
+     */
+    public int getOpenConnectionCount() {
+        int counter = 0;
+        for (final ChaiProviderPool pool : proxyChaiPools.values()) {
+            counter += pool.getStatistics().getOpenConnections();
         }
+        for (final SharedBindVerifier verifier : sharedBindVerifiers.values()) {
+            counter += verifier.getOpenConnections();
+        }
+        return counter;
+    }
+
+    private ChaiProviderPool makeProxyChaiPool(final LdapProfile ldapProfile) {
+        final Configuration config = pwmApplication.getConfig();
+        final int poolSize = Integer.parseInt(config.readAppProperty(AppProperty.LDAP_PROXY_POOL_SIZE));
+        final int maxActivePerConnection = Integer.parseInt(config.readAppProperty(AppProperty.LDAP_PROXY_POOL_MAX_ACTIVE_PER_CONNECTION));
+        final long maxWaitMs = Long.parseLong(config.readAppProperty(AppProperty.LDAP_PROXY_POOL_MAX_WAIT_MS));
+        final long idleTimeoutMs = Long.parseLong(config.readAppProperty(AppProperty.LDAP_PROXY_POOL_IDLE_TIMEOUT_MS));
+        final boolean distributeServers = Boolean.parseBoolean(config.readAppProperty(AppProperty.LDAP_PROXY_POOL_DISTRIBUTE_SERVERS));
+
+        return new ChaiProviderPool(ldapProfile.getIdentifier(), poolSize, maxActivePerConnection, maxWaitMs, idleTimeoutMs, new ChaiProviderPool.ProviderFactory() {
+            public ChaiProvider openProvider(final int memberIndex)
+                    throws PwmUnrecoverableException
+            {
+                final List<String> ldapURLs = new ArrayList<>(ldapProfile.readSettingAsStringArray(PwmSetting.LDAP_SERVER_URLS));
+                if (distributeServers && ldapURLs.size() > 1) {
+                    // rotate the url list so each member connection prefers a different server, keeping the rest for fail-over
+                    Collections.rotate(ldapURLs, -(memberIndex % ldapURLs.size()));
+                }
+                try {
+                    return LdapOperationsHelper.openProxyChaiProvider(
+                            null,
+                            ldapProfile,
+                            config,
+                            pwmApplication.getStatisticsManager(),
+                            ldapURLs
+                    );
+                } catch (PwmUnrecoverableException e) {
+                    setLastLdapFailure(ldapProfile,e.getErrorInformation());
+                    throw e;
+                }
+            }
+        });
     }
 
     public void setLastLdapFailure(final LdapProfile ldapProfile, final ErrorInformation errorInformation) {
@@ -146,6 +271,104 @@ public class LdapConnectionService implements PwmService {
         return null;
     }
 
+    /**
+     * Executor used by {@link UserSearchEngine} to search multiple profiles and contexts concurrently.  When all threads
+     * are busy the search runs on the calling thread instead of queuing.
+     *
+     * @return the search executor, or null if parallel searching is disabled.
+     */
+    public ExecutorService getSearchExecutor() {
+        return searchExecutor;
+    }
+
+    public void recordContextSearchTime(final LdapProfile ldapProfile, final String context, final long durationMs) {
+        final String key = ldapProfile.getIdentifier() + "|" + context;
+        SearchTime searchTime = contextSearchTimes.get(key);
+        if (searchTime == null) {
+            contextSearchTimes.putIfAbsent(key, new SearchTime());
+            searchTime = contextSearchTimes.get(key);
+        }
+        searchTime.update(durationMs);
+    }
+
+    /**
+     * @return map of "profileID|context" to the weighted average search time of that context, in milliseconds.
+     */
+    public Map<String,Long> getContextSearchTimes() {
+        final Map<String,Long> returnMap = new TreeMap<>();
+        for (final String key : contextSearchTimes.keySet()) {
+            returnMap.put(key, contextSearchTimes.get(key).getAverage());
+        }
+        return Collections.unmodifiableMap(returnMap);
+    }
+
+    /**
+     * @return names of user attributes that have been read outside the configured attribute prefetch for users of the profile.
+     */
+    public Set<String> getPrefetchAttributeNames(final LdapProfile ldapProfile) {
+        final Set<String> attributeNames = prefetchAttributeNames.get(ldapProfile.getIdentifier());
+        if (attributeNames == null) {
+            return Collections.emptySet();
+        }
+        synchronized (attributeNames) {
+            return new HashSet<>(attributeNames);
+        }
+    }
+
+    public void addPrefetchAttributeNames(final LdapProfile ldapProfile, final Collection<String> attributeNames) {
+        if (attributeNames == null || attributeNames.isEmpty()) {
+            return;
+        }
+        final int maxAttributes = Integer.parseInt(pwmApplication.getConfig().readAppProperty(AppProperty.LDAP_USER_PREFETCH_MAX_ATTRIBUTES));
+        final String key = ldapProfile.getIdentifier();
+        prefetchAttributeNames.putIfAbsent(key, new TreeSet<String>(String.CASE_INSENSITIVE_ORDER));
+        final Set<String> knownNames = prefetchAttributeNames.get(key);
+        synchronized (knownNames) {
+            for (final String attributeName : attributeNames) {
+                if (knownNames.size() >= maxAttributes) {
+                    return;
+                }
+                if (knownNames.add(attributeName)) {
+                    LOGGER.trace("adding attribute '" + attributeName + "' to user attribute prefetch for ldap profile " + key);
+                }
+            }
+        }
+    }
+
+    private static ExecutorService makeSearchExecutor(final PwmApplication pwmApplication, final int threadCount) {
+        final String threadNamePrefix = Helper.makeThreadName(pwmApplication, UserSearchEngine.class) + "-";
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threadCount,
+                threadCount,
+                1, TimeUnit.MINUTES,
+                new SynchronousQueue<Runnable>(),
+                new ThreadFactory() {
+                    private int counter = 0;
+
+                    public synchronized Thread newThread(final Runnable runnable) {
+                        final Thread thread = new Thread(runnable, threadNamePrefix + counter++);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static class SearchTime {
+        private long average = -1;
+
+        synchronized void update(final long durationMs) {
+            average = average < 0 ? durationMs : (average * 7 + durationMs) / 8;
+        }
+
+        synchronized long getAverage() {
+            return average;
+        }
+    }
+
     private static Map<LdapProfile,ErrorInformation> readLastLdapFailure(final PwmApplication pwmApplication) {
         String lastLdapFailureStr = null;
         try {
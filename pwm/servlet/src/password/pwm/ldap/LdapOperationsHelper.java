@@ -46,6 +46,9 @@ import password.pwm.error.PwmUnrecoverableException;
 import password.pwm.util.PasswordData;
 import password.pwm.util.StringUtil;
 import password.pwm.util.X509Utils;
+import password.pwm.util.cache.CacheKey;
+import password.pwm.util.cache.CachePolicy;
+import password.pwm.util.cache.CacheService;
 import password.pwm.util.logging.PwmLogger;
 import password.pwm.util.macro.MacroMachine;
 import password.pwm.util.stats.Statistic;
@@ -110,6 +113,19 @@ public class LdapOperationsHelper {
             final StatisticsManager statisticsManager
     )
             throws PwmUnrecoverableException
+    {
+        final List<String> ldapURLs = ldapProfile.readSettingAsStringArray(PwmSetting.LDAP_SERVER_URLS);
+        return openProxyChaiProvider(sessionLabel, ldapProfile, config, statisticsManager, ldapURLs);
+    }
+
+    public static ChaiProvider openProxyChaiProvider(
+            final SessionLabel sessionLabel,
+            final LdapProfile ldapProfile,
+            final Configuration config,
+            final StatisticsManager statisticsManager,
+            final List<String> ldapURLs
+    )
+            throws PwmUnrecoverableException
     {
         LOGGER.trace(sessionLabel, "opening new ldap proxy connection");
 
@@ -117,7 +133,7 @@ public class LdapOperationsHelper {
         final PasswordData proxyPW = ldapProfile.readSettingAsPassword(PwmSetting.LDAP_PROXY_USER_PASSWORD);
 
         try {
-            return createChaiProvider(sessionLabel, ldapProfile, config, proxyDN, proxyPW);
+            return createChaiProvider(sessionLabel, config, ldapProfile, ldapURLs, proxyDN, proxyPW);
         } catch (ChaiUnavailableException e) {
             if (statisticsManager != null) {
                 statisticsManager.incrementValue(Statistic.LDAP_UNAVAILABLE_COUNT);
@@ -145,24 +161,122 @@ public class LdapOperationsHelper {
     )
             throws ChaiUnavailableException, PwmUnrecoverableException
     {
-        final String existingValue = GUIDHelper.readExistingGuidValue(pwmApplication, sessionLabel, userIdentity, throwExceptionOnError);
         final LdapProfile ldapProfile = pwmApplication.getConfig().getLdapProfiles().get(
                 userIdentity.getLdapProfileID());
         final String guidAttributeName = ldapProfile.readSettingAsString(PwmSetting.LDAP_GUID_ATTRIBUTE);
+
+        final String cachedValue = GUIDHelper.readCachedGuidValue(pwmApplication, ldapProfile, userIdentity);
+        if (cachedValue != null) {
+            return cachedValue;
+        }
+
+        final String existingValue = GUIDHelper.readExistingGuidValue(pwmApplication, sessionLabel, userIdentity, throwExceptionOnError);
         if (existingValue == null || existingValue.length() < 1) {
             if (!"DN".equalsIgnoreCase(guidAttributeName) && !"VENDORGUID".equalsIgnoreCase(guidAttributeName)) {
                 if (ldapProfile.readSettingAsBoolean(PwmSetting.LDAP_GUID_AUTO_ADD)) {
                     LOGGER.trace("assigning new GUID to user " + userIdentity);
-                    return GUIDHelper.assignGuidToUser(pwmApplication, sessionLabel, userIdentity, guidAttributeName);
+                    final String newValue = GUIDHelper.assignGuidToUser(pwmApplication, sessionLabel, userIdentity, guidAttributeName);
+                    GUIDHelper.writeCachedGuidValue(pwmApplication, ldapProfile, userIdentity, newValue);
+                    return newValue;
                 }
             }
             final String errorMsg = "unable to resolve GUID value for user " + userIdentity.toString();
             GUIDHelper.processError(errorMsg,throwExceptionOnError);
         }
+        GUIDHelper.writeCachedGuidValue(pwmApplication, ldapProfile, userIdentity, existingValue);
         return existingValue;
     }
 
-    private static class GUIDHelper {
+    /**
+     * Returns the user with the given GUID value, if the GUID was read or assigned recently enough to still be cached.
+     *
+     * @return the cached user identity, or null if the GUID value is not cached.
+     */
+    public static UserIdentity readCachedGuidUserIdentity(
+            final PwmApplication pwmApplication,
+            final String guidValue
+    )
+            throws PwmUnrecoverableException
+    {
+        for (final LdapProfile ldapProfile : pwmApplication.getConfig().getLdapProfiles().values()) {
+            final UserIdentity userIdentity = GUIDHelper.readCachedUserIdentity(pwmApplication, ldapProfile, guidValue);
+            if (userIdentity != null) {
+                return userIdentity;
+            }
+        }
+        return null;
+    }
+
+    static class GUIDHelper {
+        /**
+         * Cache values are keyed on the profile's guid attribute and server urls, so changing either setting in a new
+         * configuration leaves the profile's previous values unused until they expire.
+         */
+        private static CacheKey makeGuidCacheKey(final LdapProfile ldapProfile, final UserIdentity userIdentity, final String guidValue) {
+            final String profileKey = ldapProfile.getIdentifier()
+                    + "!" + ldapProfile.readSettingAsString(PwmSetting.LDAP_GUID_ATTRIBUTE)
+                    + "!" + ldapProfile.readSettingAsStringArray(PwmSetting.LDAP_SERVER_URLS);
+            return userIdentity != null
+                    ? CacheKey.makeCacheKey(LdapOperationsHelper.class, userIdentity, "guid!" + profileKey)
+                    : CacheKey.makeCacheKey(LdapOperationsHelper.class, null, "guidUser!" + profileKey + "!" + guidValue);
+        }
+
+        private static boolean isCacheable(final PwmApplication pwmApplication, final LdapProfile ldapProfile) {
+            return pwmApplication.getCacheService() != null
+                    && !"DN".equalsIgnoreCase(ldapProfile.readSettingAsString(PwmSetting.LDAP_GUID_ATTRIBUTE))
+                    && Long.parseLong(pwmApplication.getConfig().readAppProperty(AppProperty.CACHE_LDAP_GUID_LIFETIME_MS)) > 0;
+        }
+
+        static String readCachedGuidValue(
+                final PwmApplication pwmApplication,
+                final LdapProfile ldapProfile,
+                final UserIdentity userIdentity
+        )
+                throws PwmUnrecoverableException
+        {
+            if (!isCacheable(pwmApplication, ldapProfile)) {
+                return null;
+            }
+            final String cachedValue = pwmApplication.getCacheService().get(makeGuidCacheKey(ldapProfile, userIdentity, null));
+            final StatisticsManager statisticsManager = pwmApplication.getStatisticsManager();
+            if (statisticsManager != null) {
+                statisticsManager.incrementValue(cachedValue != null ? Statistic.LDAP_GUID_CACHE_HITS : Statistic.LDAP_GUID_CACHE_MISSES);
+            }
+            return cachedValue;
+        }
+
+        static UserIdentity readCachedUserIdentity(
+                final PwmApplication pwmApplication,
+                final LdapProfile ldapProfile,
+                final String guidValue
+        )
+                throws PwmUnrecoverableException
+        {
+            if (guidValue == null || !isCacheable(pwmApplication, ldapProfile)) {
+                return null;
+            }
+            final String cachedValue = pwmApplication.getCacheService().get(makeGuidCacheKey(ldapProfile, null, guidValue));
+            return cachedValue == null ? null : UserIdentity.fromDelimitedKey(cachedValue);
+        }
+
+        static void writeCachedGuidValue(
+                final PwmApplication pwmApplication,
+                final LdapProfile ldapProfile,
+                final UserIdentity userIdentity,
+                final String guidValue
+        )
+                throws PwmUnrecoverableException
+        {
+            if (guidValue == null || guidValue.isEmpty() || !isCacheable(pwmApplication, ldapProfile)) {
+                return;
+            }
+            final long lifetimeMs = Long.parseLong(pwmApplication.getConfig().readAppProperty(AppProperty.CACHE_LDAP_GUID_LIFETIME_MS));
+            final CachePolicy cachePolicy = CachePolicy.makePolicyWithExpirationMS(lifetimeMs);
+            final CacheService cacheService = pwmApplication.getCacheService();
+            cacheService.put(makeGuidCacheKey(ldapProfile, userIdentity, null), cachePolicy, guidValue);
+            cacheService.put(makeGuidCacheKey(ldapProfile, null, guidValue), cachePolicy, userIdentity.toDelimitedKey());
+        }
+
         private static String readExistingGuidValue(
                 final PwmApplication pwmApplication,
                 final SessionLabel sessionLabel,
@@ -183,7 +297,11 @@ public class LdapOperationsHelper {
                 try {
                     final String guidValue = theUser.readGUID();
                     if (guidValue != null && guidValue.length() > 1) {
-                        LOGGER.trace(sessionLabel, "read VENDORGUID value for user " + theUser + ": " + guidValue);
+                        LOGGER.trace(sessionLabel, new PwmLogger.MessageSupplier() {
+                            public CharSequence get() {
+                                return "read VENDORGUID value for user " + theUser + ": " + guidValue;
+                            }
+                        });
                     } else {
                         LOGGER.trace(sessionLabel, "unable to find a VENDORGUID value for user " + theUser.getEntryDN());
                     }
@@ -220,6 +338,10 @@ public class LdapOperationsHelper {
         )
                 throws ChaiUnavailableException, PwmUnrecoverableException
         {
+            if (readCachedGuidUserIdentity(pwmApplication, guidValue) != null) {
+                return true;
+            }
+
             boolean exists = false;
             for (final LdapProfile ldapProfile : pwmApplication.getConfig().getLdapProfiles().values()) {
                 final String guidAttributeName = ldapProfile.readSettingAsString(PwmSetting.LDAP_GUID_ATTRIBUTE);
@@ -287,7 +409,7 @@ public class LdapOperationsHelper {
         {
             final MacroMachine macroMachine = MacroMachine.forNonUserSpecific(pwmApplication, sessionLabel);
             final String guidPattern = pwmApplication.getConfig().readAppProperty(AppProperty.LDAP_GUID_PATTERN);
-            return macroMachine.expandMacros(guidPattern);
+            return macroMachine.expandMacros(guidPattern, true);
         }
     }
 
@@ -303,7 +425,7 @@ public class LdapOperationsHelper {
     {
         final List<String> ldapURLs = ldapProfile.readSettingAsStringArray(PwmSetting.LDAP_SERVER_URLS);
         final ChaiConfiguration chaiConfig = createChaiConfiguration(config, ldapProfile, ldapURLs, userDN, userPassword);
-        LOGGER.trace(sessionLabel,"creating new ldap connection using config: " + chaiConfig.toString());
+        traceNewConnection(sessionLabel, chaiConfig);
         return ChaiProviderFactory.createProvider(chaiConfig);
     }
 
@@ -318,10 +440,18 @@ public class LdapOperationsHelper {
             throws ChaiUnavailableException, PwmUnrecoverableException
     {
         final ChaiConfiguration chaiConfig = createChaiConfiguration( config, ldapProfile, ldapURLs, userDN, userPassword);
-        LOGGER.trace(sessionLabel,"creating new ldap connection using config: " + chaiConfig.toString());
+        traceNewConnection(sessionLabel, chaiConfig);
         return ChaiProviderFactory.createProvider(chaiConfig);
     }
 
+    private static void traceNewConnection(final SessionLabel sessionLabel, final ChaiConfiguration chaiConfig) {
+        LOGGER.trace(sessionLabel, new PwmLogger.MessageSupplier() {
+            public CharSequence get() {
+                return "creating new ldap connection using config: " + chaiConfig.toString();
+            }
+        });
+    }
+
     public static ChaiConfiguration createChaiConfiguration(
             final Configuration config,
             final LdapProfile ldapProfile
@@ -146,7 +146,7 @@ public class LdapUserDataReader implements Serializable, UserDataReader {
         // read uncached attributes into cache
         if (!uncachedAttributes.isEmpty()) {
             final Map<String,String> readData = user.readStringAttributes(new HashSet<>(uncachedAttributes));
-            for (final String attribute : attributes) {
+            for (final String attribute : uncachedAttributes) {
                 cacheMap.put(attribute,readData.containsKey(attribute) ? readData.get(attribute) : NULL_CACHE_VALUE);
             }
         }
@@ -0,0 +1,162 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.ldap;
+
+import com.novell.ldapchai.exception.ChaiOperationException;
+import com.novell.ldapchai.exception.ChaiUnavailableException;
+import com.novell.ldapchai.provider.ChaiProvider;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+/**
+ * Wraps a {@link ChaiProvider} so that string attribute reads of a single entry are answered from values fetched with
+ * one {@link ChaiProvider#readStringAttributes(String, Set)} call.  Reads of other entries, of attributes that were not
+ * prefetched, and all other operations are passed to the wrapped provider.  Any operation that may modify the directory
+ * discards the prefetched values.
+ */
+class PrefetchingChaiProvider implements InvocationHandler {
+
+    private final ChaiProvider chaiProvider;
+    private final String entryDN;
+    private final Set<String> prefetchedNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    private final Map<String,String> prefetchedValues = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final Set<String> missedNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    private int prefetchHits;
+
+    private PrefetchingChaiProvider(final ChaiProvider chaiProvider, final String entryDN) {
+        this.chaiProvider = chaiProvider;
+        this.entryDN = entryDN;
+    }
+
+    /**
+     * Reads the attributes of the entry in a single operation and returns a wrapper of the provider that serves them.
+     */
+    static PrefetchingChaiProvider prefetch(
+            final ChaiProvider chaiProvider,
+            final String entryDN,
+            final Set<String> attributeNames
+    )
+            throws ChaiUnavailableException, ChaiOperationException
+    {
+        final PrefetchingChaiProvider prefetchingProvider = new PrefetchingChaiProvider(chaiProvider, entryDN);
+        if (attributeNames != null && !attributeNames.isEmpty()) {
+            final Map<String,String> values = chaiProvider.readStringAttributes(entryDN, new HashSet<>(attributeNames));
+            prefetchingProvider.prefetchedNames.addAll(attributeNames);
+            if (values != null) {
+                prefetchingProvider.prefetchedValues.putAll(values);
+            }
+        }
+        return prefetchingProvider;
+    }
+
+    ChaiProvider asChaiProvider() {
+        return (ChaiProvider)Proxy.newProxyInstance(
+                ChaiProvider.class.getClassLoader(),
+                new Class[]{ChaiProvider.class},
+                this
+        );
+    }
+
+    /**
+     * @return names of attributes of the entry that were read after the prefetch, and so were not prefetched.
+     */
+    synchronized Set<String> getMissedAttributeNames() {
+        return Collections.unmodifiableSet(new TreeSet<>(missedNames));
+    }
+
+    synchronized int getPrefetchHits() {
+        return prefetchHits;
+    }
+
+    public Object invoke(final Object proxy, final Method method, final Object[] args)
+            throws Throwable
+    {
+        final String methodName = method.getName();
+        if (method.getDeclaringClass() == Object.class) {
+            if ("equals".equals(methodName)) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(methodName)) {
+                return System.identityHashCode(proxy);
+            }
+            return "PrefetchingChaiProvider[" + entryDN + "]";
+        }
+
+        if (args != null && args.length == 2 && entryDN.equals(args[0])) {
+            if ("readStringAttribute".equals(methodName) && args[1] instanceof String) {
+                synchronized (this) {
+                    final String attributeName = (String)args[1];
+                    if (prefetchedNames.contains(attributeName)) {
+                        prefetchHits++;
+                        return prefetchedValues.get(attributeName);
+                    }
+                    missedNames.add(attributeName);
+                }
+            } else if ("readStringAttributes".equals(methodName) && args[1] instanceof Set) {
+                synchronized (this) {
+                    final Set<?> attributeNames = (Set<?>)args[1];
+                    if (!attributeNames.isEmpty() && prefetchedNames.containsAll(attributeNames)) {
+                        prefetchHits++;
+                        final Map<String,String> returnMap = new HashMap<>();
+                        for (final Object attributeName : attributeNames) {
+                            final String value = prefetchedValues.get(attributeName);
+                            if (value != null) {
+                                returnMap.put((String)attributeName, value);
+                            }
+                        }
+                        return returnMap;
+                    }
+                    for (final Object attributeName : attributeNames) {
+                        if (!prefetchedNames.contains(attributeName)) {
+                            missedNames.add((String)attributeName);
+                        }
+                    }
+                }
+            }
+        }
+
+        if (isModifyingMethod(methodName)) {
+            synchronized (this) {
+                prefetchedNames.clear();
+                prefetchedValues.clear();
+            }
+        }
+
+        try {
+            return method.invoke(chaiProvider, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static boolean isModifyingMethod(final String methodName) {
+        return methodName.startsWith("write")
+                || methodName.startsWith("replace")
+                || methodName.startsWith("delete")
+                || methodName.startsWith("create")
+                || "extendedOperation".equals(methodName);
+    }
+}
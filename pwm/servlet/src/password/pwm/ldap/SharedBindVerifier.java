@@ -0,0 +1,229 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.ldap;
+
+import com.novell.ldapchai.ChaiConstant;
+import com.novell.ldapchai.exception.ChaiError;
+import com.novell.ldapchai.exception.ChaiException;
+import com.novell.ldapchai.exception.ChaiUnavailableException;
+import com.novell.ldapchai.provider.ChaiProvider;
+import password.pwm.error.PwmUnrecoverableException;
+import password.pwm.util.PasswordData;
+import password.pwm.util.TimeDuration;
+import password.pwm.util.logging.PwmLogger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifies user credentials with short-lived bind connections.  At most <code>maxConnections</code> bind connections
+ * are open at any time for a profile, and each connection is closed as soon as the bind has been checked, so
+ * authenticated sessions do not hold a connection to the directory.  Operations an authenticated session performs as
+ * the user are run through a {@link #makeLeasedProvider(String, PasswordData) leased provider}, which binds as the user
+ * on a connection from the same bounded set for each operation.
+ */
+public class SharedBindVerifier {
+    private static final PwmLogger LOGGER = PwmLogger.forClass(SharedBindVerifier.class);
+
+    interface BindProviderFactory {
+        ChaiProvider openBindProvider(String userDN, PasswordData password)
+                throws ChaiUnavailableException, PwmUnrecoverableException;
+    }
+
+    private final String profileID;
+    private final BindProviderFactory bindProviderFactory;
+    private final Semaphore bindPermits;
+    private final long maxWaitMs;
+
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicInteger peakOpenConnections = new AtomicInteger();
+    private final AtomicLong bindCount = new AtomicLong();
+
+    SharedBindVerifier(
+            final String profileID,
+            final int maxConnections,
+            final long maxWaitMs,
+            final BindProviderFactory bindProviderFactory
+    ) {
+        this.profileID = profileID;
+        this.bindProviderFactory = bindProviderFactory;
+        this.bindPermits = new Semaphore(Math.max(1, maxConnections), true);
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    /**
+     * Binds as the user and then releases the connection.
+     *
+     * @throws ChaiException if the bind fails, with the error code of the underlying ldap error.
+     */
+    public void verifyCredentials(final String userDN, final PasswordData password)
+            throws ChaiException, PwmUnrecoverableException
+    {
+        final ChaiProvider bindProvider = openLease(userDN, password);
+        try {
+            //issue a read operation to trigger a bind.
+            bindProvider.readStringAttribute(userDN, ChaiConstant.ATTR_LDAP_OBJECTCLASS);
+            bindCount.incrementAndGet();
+        } finally {
+            closeLease(bindProvider);
+        }
+    }
+
+    /**
+     * Makes a provider that runs each ldap operation on its own connection bound as the user, closed as soon as the
+     * operation completes.  The provider holds no connection between operations, so it can be kept by a session in
+     * place of a dedicated user connection while operations still run with the user's own rights.
+     */
+    public ChaiProvider makeLeasedProvider(final String userDN, final PasswordData password) {
+        return (ChaiProvider)Proxy.newProxyInstance(
+                ChaiProvider.class.getClassLoader(),
+                new Class[]{ChaiProvider.class},
+                new LeasedInvocationHandler(userDN, password)
+        );
+    }
+
+    /**
+     * @return true if the provider is a leased provider, which does not hold a connection.
+     */
+    public static boolean isLeasedProvider(final ChaiProvider chaiProvider) {
+        return chaiProvider != null
+                && Proxy.isProxyClass(chaiProvider.getClass())
+                && Proxy.getInvocationHandler(chaiProvider) instanceof LeasedInvocationHandler;
+    }
+
+    private ChaiProvider openLease(final String userDN, final PasswordData password)
+            throws ChaiUnavailableException, PwmUnrecoverableException
+    {
+        final long startTime = System.currentTimeMillis();
+        boolean acquired;
+        try {
+            acquired = bindPermits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            throw new ChaiUnavailableException("no ldap bind connection for profile " + profileID + " became available within "
+                    + TimeDuration.fromCurrent(startTime).asCompactString(), ChaiError.COMMUNICATION);
+        }
+
+        ChaiProvider bindProvider = null;
+        try {
+            bindProvider = bindProviderFactory.openBindProvider(userDN, password);
+        } finally {
+            if (bindProvider == null) {
+                bindPermits.release();
+            }
+        }
+        final int open = openConnections.incrementAndGet();
+        synchronized (peakOpenConnections) {
+            if (open > peakOpenConnections.get()) {
+                peakOpenConnections.set(open);
+            }
+        }
+        return bindProvider;
+    }
+
+    private void closeLease(final ChaiProvider bindProvider) {
+        try {
+            bindProvider.close();
+        } catch (Exception e) {
+            LOGGER.error("error closing ldap bind connection: " + e.getMessage());
+        }
+        openConnections.decrementAndGet();
+        bindPermits.release();
+    }
+
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    public int getPeakOpenConnections() {
+        return peakOpenConnections.get();
+    }
+
+    public long getBindCount() {
+        return bindCount.get();
+    }
+
+    private class LeasedInvocationHandler implements InvocationHandler {
+        private final String userDN;
+        private final PasswordData password;
+        private final Map<String,Object> connectionProperties = new ConcurrentHashMap<>();
+
+        private LeasedInvocationHandler(final String userDN, final PasswordData password) {
+            this.userDN = userDN;
+            this.password = password;
+        }
+
+        public Object invoke(final Object proxy, final Method method, final Object[] args)
+                throws Throwable
+        {
+            final String methodName = method.getName();
+            if (method.getDeclaringClass() == Object.class) {
+                if ("equals".equals(methodName)) {
+                    return proxy == args[0];
+                } else if ("hashCode".equals(methodName)) {
+                    return System.identityHashCode(proxy);
+                }
+                return "SharedBindVerifier.LeasedProvider[" + userDN + "]";
+            }
+
+            if ("close".equals(methodName)) {
+                // no connection is held between operations
+                return null;
+            } else if ("isConnected".equals(methodName)) {
+                return true;
+            } else if ("getProviderStatistics".equals(methodName)) {
+                return null;
+            }
+
+            // the configuration and vendor are the same for every connection, so they are read on the first lease only
+            final boolean connectionProperty = "getChaiConfiguration".equals(methodName) || "getDirectoryVendor".equals(methodName);
+            if (connectionProperty && connectionProperties.containsKey(methodName)) {
+                return connectionProperties.get(methodName);
+            }
+
+            final ChaiProvider bindProvider = openLease(userDN, password);
+            try {
+                final Object result = method.invoke(bindProvider, args);
+                if (connectionProperty && result != null) {
+                    connectionProperties.put(methodName, result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                closeLease(bindProvider);
+            }
+        }
+    }
+}
@@ -43,17 +43,22 @@ import password.pwm.http.PwmRequest;
 import password.pwm.util.JsonUtil;
 import password.pwm.util.StringUtil;
 import password.pwm.util.TimeDuration;
+import password.pwm.util.logging.PwmLogLevel;
 import password.pwm.util.logging.PwmLogger;
 import password.pwm.util.stats.Statistic;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class UserSearchEngine {
 
     private static final PwmLogger LOGGER = PwmLogger.forClass(UserSearchEngine.class);
 
-    private static int searchCounter = 0;
+    private static final AtomicInteger SEARCH_COUNTER = new AtomicInteger();
+
+    private static final long SEARCH_DEADLINE_GRACE_MS = 5 * 1000;
 
     private PwmApplication pwmApplication;
     private SessionLabel sessionLabel;
@@ -218,59 +223,58 @@ public class UserSearchEngine {
             ldapProfiles = pwmApplication.getConfig().getLdapProfiles().values();
         }
 
-        final boolean ignoreUnreachableProfiles = pwmApplication.getConfig().readSettingAsBoolean(PwmSetting.LDAP_IGNORE_UNREACHABLE_PROFILES);
-        final Map<UserIdentity,Map<String,String>> returnMap = new LinkedHashMap<>();
+        final long startTime = System.currentTimeMillis();
+        LOGGER.debug(sessionLabel, "beginning user search process");
 
-        final List<String> errors = new ArrayList<>();
+        final boolean ignoreUnreachableProfiles = pwmApplication.getConfig().readSettingAsBoolean(PwmSetting.LDAP_IGNORE_UNREACHABLE_PROFILES);
+        final SearchErrors searchErrors = new SearchErrors(ldapProfiles.size(), ignoreUnreachableProfiles);
 
+        final List<SearchJob> searchJobs = new ArrayList<>();
         final long profileRetryDelayMS = Long.valueOf(pwmApplication.getConfig().readAppProperty(AppProperty.LDAP_PROFILE_RETRY_DELAY));
         for (final LdapProfile ldapProfile : ldapProfiles) {
-            if (returnMap.size() < maxResults) {
-                boolean skipProfile = false;
-                final Date lastLdapFailure = pwmApplication.getLdapConnectionService().getLastLdapFailureTime(ldapProfile);
-                if (ldapProfiles.size() > 1 && lastLdapFailure != null && TimeDuration.fromCurrent(lastLdapFailure).isShorterThan(profileRetryDelayMS)) {
-                    LOGGER.info("skipping user search on ldap profile " + ldapProfile.getIdentifier() + " due to recent unreachable status (" + TimeDuration.fromCurrent(lastLdapFailure).asCompactString() + ")");
-                    skipProfile = true;
-                }
-                if (!skipProfile) {
-                    try {
-                        returnMap.putAll(performMultiUserSearchImpl(
-                                        ldapProfile,
-                                        searchConfiguration,
-                                        maxResults - returnMap.size(),
-                                        returnAttributes)
-                        );
-                    } catch (PwmUnrecoverableException e) {
-                        if (e.getError() == PwmError.ERROR_DIRECTORY_UNAVAILABLE) {
-                            pwmApplication.getLdapConnectionService().setLastLdapFailure(ldapProfile,e.getErrorInformation());
-                            if (ignoreUnreachableProfiles) {
-                                errors.add(e.getErrorInformation().getDetailedErrorMsg());
-                                if (errors.size() >= ldapProfiles.size()) {
-                                    final String errorMsg = "all ldap profiles are unreachable; errors: " + JsonUtil.serializeCollection(errors);
-                                    throw new PwmUnrecoverableException(new ErrorInformation(PwmError.ERROR_DIRECTORY_UNAVAILABLE,errorMsg));
-                                }
-                            } else {
-                                throw e;
-                            }
-                        }
-                    }
+            boolean skipProfile = false;
+            final Date lastLdapFailure = pwmApplication.getLdapConnectionService().getLastLdapFailureTime(ldapProfile);
+            if (ldapProfiles.size() > 1 && lastLdapFailure != null && TimeDuration.fromCurrent(lastLdapFailure).isShorterThan(profileRetryDelayMS)) {
+                LOGGER.info("skipping user search on ldap profile " + ldapProfile.getIdentifier() + " due to recent unreachable status (" + TimeDuration.fromCurrent(lastLdapFailure).asCompactString() + ")");
+                skipProfile = true;
+            }
+            if (!skipProfile) {
+                try {
+                    searchJobs.addAll(makeSearchJobs(
+                            ldapProfile,
+                            searchConfiguration,
+                            maxResults,
+                            returnAttributes)
+                    );
+                } catch (PwmUnrecoverableException e) {
+                    searchErrors.handleProfileError(ldapProfile, e);
                 }
             }
         }
+
+        final Map<UserIdentity,Map<String,String>> returnMap;
+        final ExecutorService searchExecutor = pwmApplication.getLdapConnectionService().getSearchExecutor();
+        if (searchJobs.size() > 1 && searchExecutor != null) {
+            long maxTimeLimitMS = 0;
+            for (final SearchJob searchJob : searchJobs) {
+                maxTimeLimitMS = Math.max(maxTimeLimitMS, searchJob.timeLimitMS);
+            }
+            returnMap = executeParallelSearchJobs(searchExecutor, searchJobs, maxResults, searchErrors, maxTimeLimitMS + SEARCH_DEADLINE_GRACE_MS);
+        } else {
+            returnMap = executeSearchJobs(searchJobs, maxResults, searchErrors);
+        }
+
+        LOGGER.debug(sessionLabel, "completed user search process in " + TimeDuration.fromCurrent(startTime).asCompactString() + ", resultSize=" + returnMap.size());
         return returnMap;
     }
 
-
-    protected Map<UserIdentity,Map<String,String>> performMultiUserSearchImpl(
+    private List<SearchJob> makeSearchJobs(
             final LdapProfile ldapProfile,
             final SearchConfiguration searchConfiguration,
             final int maxResults,
             final Collection<String> returnAttributes
     )
             throws PwmUnrecoverableException, PwmOperationalException {
-        final long startTime = System.currentTimeMillis();
-        LOGGER.debug(sessionLabel, "beginning user search process");
-
         // check the search configuration data params
         searchConfiguration.validate();
 
@@ -333,29 +337,148 @@ public class UserSearchEngine {
                 pwmApplication.getProxyChaiProvider(ldapProfile.getIdentifier()) :
                 searchConfiguration.getChaiProvider();
 
-        final Map<UserIdentity,Map<String,String>> returnMap;
-        returnMap = new LinkedHashMap<>();
+        final List<SearchJob> searchJobs = new ArrayList<>();
         for (final String loopContext : searchContexts) {
-            final Map<UserIdentity,Map<String,String>> singleContextResults;
-            singleContextResults = doSingleContextSearch(
+            searchJobs.add(new SearchJob(
                     ldapProfile,
                     searchFilter,
                     loopContext,
                     returnAttributes,
-                    maxResults - returnMap.size(),
+                    maxResults,
                     chaiProvider,
                     timeLimitMS
-            );
-            returnMap.putAll(singleContextResults);
+            ));
+        }
+        return searchJobs;
+    }
+
+    private Map<UserIdentity,Map<String,String>> executeSearchJobs(
+            final List<SearchJob> searchJobs,
+            final int maxResults,
+            final SearchErrors searchErrors
+    )
+            throws PwmUnrecoverableException, PwmOperationalException
+    {
+        final Map<UserIdentity,Map<String,String>> returnMap = new LinkedHashMap<>();
+        for (final SearchJob searchJob : searchJobs) {
             if (returnMap.size() >= maxResults) {
                 break;
             }
+            if (!searchErrors.hasFailed(searchJob.ldapProfile)) {
+                try {
+                    mergeResults(returnMap, searchJob.call(), maxResults);
+                } catch (PwmUnrecoverableException e) {
+                    searchErrors.handleProfileError(searchJob.ldapProfile, e);
+                }
+            }
         }
+        return returnMap;
+    }
 
-        LOGGER.debug(sessionLabel, "completed user search process in " + TimeDuration.fromCurrent(startTime).asCompactString() + ", resultSize=" + returnMap.size());
+    /**
+     * Runs each search job on the search executor.  Results are merged in job order (profile, then context) as soon as
+     * all preceding jobs have completed, so the result ordering matches a sequential search.  Once the merged results reach
+     * <code>maxResults</code> any outstanding jobs are abandoned.  Jobs that have not completed within <code>maxWaitMS</code>
+     * are treated as unreachable.
+     */
+    Map<UserIdentity,Map<String,String>> executeParallelSearchJobs(
+            final ExecutorService searchExecutor,
+            final List<SearchJob> searchJobs,
+            final int maxResults,
+            final SearchErrors searchErrors,
+            final long maxWaitMS
+    )
+            throws PwmUnrecoverableException, PwmOperationalException
+    {
+        final long deadline = System.currentTimeMillis() + maxWaitMS;
+
+        final int jobCount = searchJobs.size();
+        final CompletionService<Map<UserIdentity,Map<String,String>>> completionService = new ExecutorCompletionService<>(searchExecutor);
+        final Map<Future<Map<UserIdentity,Map<String,String>>>,Integer> futureIndexes = new HashMap<>();
+        final List<Map<UserIdentity,Map<String,String>>> jobResults = new ArrayList<>(Collections.<Map<UserIdentity,Map<String,String>>>nCopies(jobCount, null));
+        final boolean[] jobCompleted = new boolean[jobCount];
+
+        final Map<UserIdentity,Map<String,String>> returnMap = new LinkedHashMap<>();
+        int mergedIndex = 0;
+        try {
+            for (int i = 0; i < jobCount; i++) {
+                futureIndexes.put(completionService.submit(searchJobs.get(i)), i);
+            }
+
+            while (mergedIndex < jobCount && returnMap.size() < maxResults) {
+                final long remainingMS = deadline - System.currentTimeMillis();
+                final Future<Map<UserIdentity,Map<String,String>>> future = remainingMS > 0
+                        ? completionService.poll(remainingMS, TimeUnit.MILLISECONDS)
+                        : null;
+
+                if (future == null) {
+                    for (int i = mergedIndex; i < jobCount; i++) {
+                        if (!jobCompleted[i]) {
+                            jobCompleted[i] = true;
+                            final SearchJob searchJob = searchJobs.get(i);
+                            final String errorMsg = "ldap search did not complete within " + TimeDuration.asCompactString(maxWaitMS)
+                                    + " (profile=" + searchJob.ldapProfile.getIdentifier() + " base=" + searchJob.context + ")";
+                            searchErrors.handleProfileError(searchJob.ldapProfile, new PwmUnrecoverableException(new ErrorInformation(PwmError.ERROR_DIRECTORY_UNAVAILABLE, errorMsg)));
+                        }
+                    }
+                } else {
+                    final int index = futureIndexes.get(future);
+                    jobCompleted[index] = true;
+                    try {
+                        jobResults.set(index, future.get());
+                    } catch (ExecutionException e) {
+                        final Throwable cause = e.getCause();
+                        if (cause instanceof PwmOperationalException) {
+                            throw (PwmOperationalException)cause;
+                        } else if (cause instanceof PwmUnrecoverableException) {
+                            searchErrors.handleProfileError(searchJobs.get(index).ldapProfile, (PwmUnrecoverableException)cause);
+                        } else {
+                            final String errorMsg = "unexpected error during ldap search: " + (cause == null ? e.getMessage() : cause.getMessage());
+                            throw new PwmUnrecoverableException(new ErrorInformation(PwmError.ERROR_UNKNOWN, errorMsg));
+                        }
+                    }
+                }
+
+                while (mergedIndex < jobCount && jobCompleted[mergedIndex]) {
+                    final Map<UserIdentity,Map<String,String>> results = jobResults.get(mergedIndex);
+                    if (results != null && !searchErrors.hasFailed(searchJobs.get(mergedIndex).ldapProfile)) {
+                        mergeResults(returnMap, results, maxResults);
+                    }
+                    jobResults.set(mergedIndex, null);
+                    mergedIndex++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PwmUnrecoverableException(new ErrorInformation(PwmError.ERROR_UNKNOWN, "interrupted while waiting for ldap search results"));
+        } finally {
+            int abandonedCount = 0;
+            for (final Future<Map<UserIdentity,Map<String,String>>> future : futureIndexes.keySet()) {
+                if (!future.isDone()) {
+                    future.cancel(false);
+                    abandonedCount++;
+                }
+            }
+            if (abandonedCount > 0) {
+                LOGGER.trace(sessionLabel, "abandoned " + abandonedCount + " outstanding ldap searches after " + mergedIndex + " of " + jobCount + " searches were merged");
+            }
+        }
         return returnMap;
     }
 
+    private static void mergeResults(
+            final Map<UserIdentity,Map<String,String>> returnMap,
+            final Map<UserIdentity,Map<String,String>> results,
+            final int maxResults
+    ) {
+        for (final Map.Entry<UserIdentity,Map<String,String>> entry : results.entrySet()) {
+            if (returnMap.size() >= maxResults) {
+                return;
+            }
+            returnMap.put(entry.getKey(), entry.getValue());
+        }
+    }
+
     private Map<UserIdentity,Map<String,String>> doSingleContextSearch(
             final LdapProfile ldapProfile,
             final String searchFilter,
@@ -372,9 +495,10 @@ public class UserSearchEngine {
         searchHelper.setFilter(searchFilter);
         searchHelper.setAttributes(returnAttributes);
         searchHelper.setTimeLimit((int)timeoutMs);
-        final int searchID = searchCounter++;
+        final int searchID = SEARCH_COUNTER.getAndIncrement();
 
-        final String debugInfo = "searchID=" + searchID + " profile=" + ldapProfile.getIdentifier() + " base=" + context + " filter=" + searchHelper.toString();
+        // also used by trace output, which is only enabled when debug is enabled
+        final String debugInfo = !LOGGER.isEnabled(PwmLogLevel.DEBUG) ? "" : "searchID=" + searchID + " profile=" + ldapProfile.getIdentifier() + " base=" + context + " filter=" + searchHelper.toString();
         LOGGER.debug(sessionLabel, "performing ldap search for user; " + debugInfo);
 
         final Date startTime = new Date();
@@ -388,6 +512,10 @@ public class UserSearchEngine {
         }
         final TimeDuration searchDuration = TimeDuration.fromCurrent(startTime);
 
+        if (pwmApplication.getLdapConnectionService() != null) {
+            pwmApplication.getLdapConnectionService().recordContextSearchTime(ldapProfile, context, searchDuration.getTotalMilliseconds());
+        }
+
         if (pwmApplication.getStatisticsManager() != null && pwmApplication.getStatisticsManager().status() == PwmService.STATUS.OPEN) {
             pwmApplication.getStatisticsManager().updateAverageValue(Statistic.AVG_LDAP_SEARCH_TIME, searchDuration.getTotalMilliseconds());
         }
@@ -408,6 +536,90 @@ public class UserSearchEngine {
         return returnMap;
     }
 
+    class SearchJob implements Callable<Map<UserIdentity,Map<String,String>>> {
+        private final LdapProfile ldapProfile;
+        private final String searchFilter;
+        private final String context;
+        private final Collection<String> returnAttributes;
+        private final int maxResults;
+        private final ChaiProvider chaiProvider;
+        private final long timeLimitMS;
+
+        SearchJob(
+                final LdapProfile ldapProfile,
+                final String searchFilter,
+                final String context,
+                final Collection<String> returnAttributes,
+                final int maxResults,
+                final ChaiProvider chaiProvider,
+                final long timeLimitMS
+        ) {
+            this.ldapProfile = ldapProfile;
+            this.searchFilter = searchFilter;
+            this.context = context;
+            this.returnAttributes = returnAttributes;
+            this.maxResults = maxResults;
+            this.chaiProvider = chaiProvider;
+            this.timeLimitMS = timeLimitMS;
+        }
+
+        public Map<UserIdentity,Map<String,String>> call()
+                throws PwmOperationalException, PwmUnrecoverableException
+        {
+            return doSingleContextSearch(ldapProfile, searchFilter, context, returnAttributes, maxResults, chaiProvider, timeLimitMS);
+        }
+    }
+
+    /**
+     * Tracks the profiles that have failed during a single multi-profile search.  Results from a failed profile are
+     * discarded, and the search as a whole fails if every profile is unreachable.
+     */
+    class SearchErrors {
+        private final Map<LdapProfile,ErrorInformation> failedProfiles = new LinkedHashMap<>();
+        private final int profileCount;
+        private final boolean ignoreUnreachableProfiles;
+
+        SearchErrors(final int profileCount, final boolean ignoreUnreachableProfiles) {
+            this.profileCount = profileCount;
+            this.ignoreUnreachableProfiles = ignoreUnreachableProfiles;
+        }
+
+        private boolean hasFailed(final LdapProfile ldapProfile) {
+            return failedProfiles.containsKey(ldapProfile);
+        }
+
+        private void handleProfileError(final LdapProfile ldapProfile, final PwmUnrecoverableException e)
+                throws PwmUnrecoverableException
+        {
+            if (failedProfiles.containsKey(ldapProfile)) {
+                return;
+            }
+            failedProfiles.put(ldapProfile, e.getErrorInformation());
+
+            if (e.getError() == PwmError.ERROR_DIRECTORY_UNAVAILABLE) {
+                recordLdapFailure(ldapProfile, e.getErrorInformation());
+                if (ignoreUnreachableProfiles) {
+                    final List<String> errors = new ArrayList<>();
+                    for (final ErrorInformation errorInformation : failedProfiles.values()) {
+                        if (errorInformation.getError() == PwmError.ERROR_DIRECTORY_UNAVAILABLE) {
+                            errors.add(errorInformation.getDetailedErrorMsg());
+                        }
+                    }
+                    if (errors.size() >= profileCount) {
+                        final String errorMsg = "all ldap profiles are unreachable; errors: " + JsonUtil.serializeCollection(errors);
+                        throw new PwmUnrecoverableException(new ErrorInformation(PwmError.ERROR_DIRECTORY_UNAVAILABLE,errorMsg));
+                    }
+                } else {
+                    throw e;
+                }
+            }
+        }
+
+        void recordLdapFailure(final LdapProfile ldapProfile, final ErrorInformation errorInformation) {
+            pwmApplication.getLdapConnectionService().setLastLdapFailure(ldapProfile, errorInformation);
+        }
+    }
+
     private static void validateSpecifiedContext(final PwmApplication pwmApplication, final LdapProfile profile, final String context)
             throws PwmOperationalException
     {
@@ -538,12 +750,18 @@ public class UserSearchEngine {
         for (final LdapProfile ldapProfile : pwmApplication.getConfig().getLdapProfiles().values()) {
             final String usernameAttribute = ldapProfile.readSettingAsString(PwmSetting.LDAP_NAMING_ATTRIBUTE);
             if (input.toLowerCase().startsWith(usernameAttribute.toLowerCase() + "=")) {
-                LOGGER.trace(sessionLabel,
-                        "username '" + input + "' appears to be a DN (starts with configured ldap naming attribute'" + usernameAttribute + "'), skipping username search");
+                LOGGER.trace(sessionLabel, new PwmLogger.MessageSupplier() {
+                    public CharSequence get() {
+                        return "username '" + input + "' appears to be a DN (starts with configured ldap naming attribute'" + usernameAttribute + "'), skipping username search";
+                    }
+                });
                 return true;
             } else {
-                LOGGER.trace(sessionLabel,
-                        "username '" + input + "' does not appear to be a DN (does not start with configured ldap naming attribute '" + usernameAttribute + "')");
+                LOGGER.trace(sessionLabel, new PwmLogger.MessageSupplier() {
+                    public CharSequence get() {
+                        return "username '" + input + "' does not appear to be a DN (does not start with configured ldap naming attribute '" + usernameAttribute + "')";
+                    }
+                });
             }
         }
 
@@ -27,6 +27,7 @@ import com.novell.ldapchai.ChaiUser;
 import com.novell.ldapchai.exception.ChaiOperationException;
 import com.novell.ldapchai.exception.ChaiUnavailableException;
 import com.novell.ldapchai.provider.ChaiProvider;
+import password.pwm.AppProperty;
 import password.pwm.PwmApplication;
 import password.pwm.PwmConstants;
 import password.pwm.bean.*;
@@ -266,7 +267,9 @@ public class UserStatusReader {
         //attempt to add the object class to the user
         LdapOperationsHelper.addConfiguredUserObjectClass(sessionLabel, userIdentity, pwmApplication);
 
-        final ChaiUser theUser = ChaiFactory.createChaiUser(userIdentity.getUserDN(), provider);
+        final PrefetchingChaiProvider prefetchingProvider = prefetchUserAttributes(userIdentity, provider);
+        final ChaiProvider userProvider = prefetchingProvider == null ? provider : prefetchingProvider.asChaiProvider();
+        final ChaiUser theUser = ChaiFactory.createChaiUser(userIdentity.getUserDN(), userProvider);
         final UserDataReader userDataReader = new LdapUserDataReader(userIdentity, theUser);
 
         try {
@@ -276,7 +279,11 @@ public class UserStatusReader {
             uiBean.setUserIdentity(userIdentity);
         }
 
-        populateLocaleSpecificUserInfoBean(uiBean, userLocale);
+        // the policy and responses are read with the proxy connection, so the prefetched user can serve them only when it uses one
+        final ChaiUser localeUser = ChaiProviderPool.isPooledProvider(provider)
+                ? theUser
+                : pwmApplication.getProxiedChaiUser(uiBean.getUserIdentity());
+        populateLocaleSpecificUserInfoBean(uiBean, userLocale, localeUser);
 
         //populate OTP data
         if (config.readSettingAsBoolean(PwmSetting.OTP_ENABLED)){
@@ -381,6 +388,14 @@ public class UserStatusReader {
             LOGGER.error(sessionLabel, "error reading account expired date for user '" + userIdentity + "', " + e.getMessage());
         }
 
+        if (prefetchingProvider != null) {
+            final Set<String> missedAttributes = prefetchingProvider.getMissedAttributeNames();
+            LOGGER.trace(sessionLabel, "served " + prefetchingProvider.getPrefetchHits() + " attribute reads from prefetched values, "
+                    + missedAttributes.size() + " attributes were not prefetched: " + missedAttributes);
+            final LdapProfile ldapProfile = config.getLdapProfiles().get(userIdentity.getLdapProfileID());
+            pwmApplication.getLdapConnectionService().addPrefetchAttributeNames(ldapProfile, missedAttributes);
+        }
+
         // read authenticated profiles
         for (final ProfileType profileType : ProfileType.values()) {
             if (profileType.isAuthenticated()) {
@@ -411,13 +426,20 @@ public class UserStatusReader {
             final Locale userLocale
     )
             throws PwmUnrecoverableException, ChaiUnavailableException {
-        final long startTime = System.currentTimeMillis();
-
         if (uiBean == null || uiBean.getUserIdentity() == null) {
             return;
         }
 
-        final ChaiUser theUser = pwmApplication.getProxiedChaiUser(uiBean.getUserIdentity());
+        populateLocaleSpecificUserInfoBean(uiBean, userLocale, pwmApplication.getProxiedChaiUser(uiBean.getUserIdentity()));
+    }
+
+    private void populateLocaleSpecificUserInfoBean(
+            final UserInfoBean uiBean,
+            final Locale userLocale,
+            final ChaiUser theUser
+    )
+            throws PwmUnrecoverableException, ChaiUnavailableException {
+        final long startTime = System.currentTimeMillis();
 
         //populate password policy
         uiBean.setPasswordPolicy(PasswordUtility.readPasswordPolicyForUser(pwmApplication, sessionLabel, uiBean.getUserIdentity(), theUser, userLocale));
@@ -441,6 +463,43 @@ public class UserStatusReader {
         LOGGER.trace(sessionLabel, "finished population of locale specific UserInfoBean in " + TimeDuration.fromCurrent(startTime).asCompactString());
     }
 
+    /**
+     * Reads, in a single ldap operation, the user attributes the configuration is known to need during population of the
+     * {@link UserInfoBean}, along with attributes found to be read by earlier populations of users in the same ldap profile.
+     *
+     * @return a provider wrapper serving the prefetched attributes, or null if prefetching is disabled or failed.
+     */
+    private PrefetchingChaiProvider prefetchUserAttributes(
+            final UserIdentity userIdentity,
+            final ChaiProvider provider
+    )
+            throws ChaiUnavailableException
+    {
+        final Configuration config = pwmApplication.getConfig();
+        if (!Boolean.parseBoolean(config.readAppProperty(AppProperty.LDAP_USER_PREFETCH_ENABLE))) {
+            return null;
+        }
+
+        final LdapProfile ldapProfile = config.getLdapProfiles().get(userIdentity.getLdapProfileID());
+        final Set<String> attributeNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        attributeNames.addAll(config.readSettingAsStringArray(PwmSetting.CACHED_USER_ATTRIBUTES));
+        attributeNames.add(ldapProfile.getUsernameAttribute());
+        attributeNames.add(config.readSettingAsString(PwmSetting.EMAIL_USER_MAIL_ATTRIBUTE));
+        attributeNames.add(config.readSettingAsString(PwmSetting.SMS_USER_PHONE_ATTRIBUTE));
+        attributeNames.addAll(pwmApplication.getLdapConnectionService().getPrefetchAttributeNames(ldapProfile));
+        attributeNames.remove(null);
+        attributeNames.remove("");
+
+        try {
+            final PrefetchingChaiProvider prefetchingProvider = PrefetchingChaiProvider.prefetch(provider, userIdentity.getUserDN(), attributeNames);
+            LOGGER.trace(sessionLabel, "prefetched " + attributeNames.size() + " attributes for " + userIdentity.toDisplayString());
+            return prefetchingProvider;
+        } catch (ChaiOperationException e) {
+            LOGGER.debug(sessionLabel, "unable to prefetch attributes for " + userIdentity.toDisplayString() + ", attributes will be read individually: " + e.getMessage());
+            return null;
+        }
+    }
+
     private static Set<String> figurePasswordRuleAttributes(
             final UserInfoBean uiBean
     ) {
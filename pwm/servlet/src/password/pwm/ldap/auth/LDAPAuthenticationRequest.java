@@ -230,8 +230,18 @@ class LDAPAuthenticationRequest implements AuthenticationRequest {
             }
         }
 
+        final boolean useSharedBind = pwmApplication.getLdapConnectionService().isSharedBindEnabled();
         final boolean useProxy = determineIfLdapProxyNeeded(returnAuthType, password);
-        final ChaiProvider returnProvider = useProxy ? makeProxyProvider() : userProvider;
+        final ChaiProvider returnProvider;
+        if (useSharedBind) {
+            // user operations bind as the user on a leased connection; only sessions that would use a proxy share the pool
+            final LdapProfile ldapProfile = userIdentity.getLdapProfile(pwmApplication.getConfig());
+            returnProvider = useProxy
+                    ? pwmApplication.getProxyChaiProvider(userIdentity.getLdapProfileID())
+                    : pwmApplication.getLdapConnectionService().getSharedBindVerifier(ldapProfile).makeLeasedProvider(userIdentity.getUserDN(), password);
+        } else {
+            returnProvider = useProxy ? makeProxyProvider() : userProvider;
+        }
         final AuthenticationResult authenticationResult = new AuthenticationResult(returnProvider, returnAuthType, password);
 
         final StringBuilder debugMsg = new StringBuilder();
@@ -239,6 +249,9 @@ class LDAPAuthenticationRequest implements AuthenticationRequest {
         debugMsg.append(" (").append(TimeDuration.fromCurrent(startTime).asCompactString()).append(")");
         debugMsg.append(" type: ").append(returnAuthType).append(", using strategy ").append(strategy);
         debugMsg.append(", using proxy connection: ").append(useProxy);
+        if (useSharedBind) {
+            debugMsg.append(useProxy ? " (shared pool)" : " (leased user connections)");
+        }
         log(PwmLogLevel.INFO, debugMsg);
         pwmApplication.getAuditManager().submit(pwmApplication.getAuditManager().createUserAuditRecord(
                 AuditEvent.AUTHENTICATE,
@@ -283,6 +296,13 @@ class LDAPAuthenticationRequest implements AuthenticationRequest {
 
         boolean bindSucceeded = false;
         try {
+            if (pwmApplication.getLdapConnectionService().isSharedBindEnabled()) {
+                // bind on a short-lived connection; the session leases user connections afterwards
+                final LdapProfile ldapProfile = userIdentity.getLdapProfile(pwmApplication.getConfig());
+                pwmApplication.getLdapConnectionService().getSharedBindVerifier(ldapProfile).verifyCredentials(userIdentity.getUserDN(), password);
+                return;
+            }
+
             //read a provider using the user's DN and password.
             userProvider = LdapOperationsHelper.createChaiProvider(
                     sessionLabel,
@@ -0,0 +1,211 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util;
+
+import password.pwm.PwmConstants;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact binary encoding used for records stored in the LocalDB.  Integers are written as zig-zag varints, strings
+ * as a varint length followed by UTF-8 bytes, and frequently repeated strings as an index into a {@link Dictionary}.
+ * Since LocalDB values are strings, the encoded bytes are stored base64 encoded following {@link #STORED_PREFIX},
+ * which allows readers to tell binary values apart from older JSON values.
+ */
+public abstract class BinaryEncoding {
+    public static final String STORED_PREFIX = "b!";
+
+    public static boolean isStoredValue(final String value) {
+        return value != null && value.startsWith(STORED_PREFIX);
+    }
+
+    /**
+     * A fixed, ordered list of values.  Entries are referenced by their index, so a dictionary may only be appended
+     * to; values not in the dictionary are written as literals.
+     */
+    public static class Dictionary {
+        private final String[] values;
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        public Dictionary(final String... values) {
+            this.values = values;
+            for (int i = 0; i < values.length; i++) {
+                indexes.put(values[i], i);
+            }
+        }
+
+        private int indexOf(final String value) {
+            final Integer index = indexes.get(value);
+            return index == null ? -1 : index;
+        }
+
+        private int longestPrefixOf(final String value) {
+            int bestIndex = -1;
+            for (int i = 0; i < values.length; i++) {
+                if (value.startsWith(values[i]) && (bestIndex == -1 || values[i].length() > values[bestIndex].length())) {
+                    bestIndex = i;
+                }
+            }
+            return bestIndex;
+        }
+
+        private String get(final int index) throws IOException {
+            if (index < 0 || index >= values.length) {
+                throw new IOException("unknown dictionary index " + index);
+            }
+            return values[index];
+        }
+    }
+
+    public static class Writer {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+
+        public Writer writeByte(final int value) {
+            out.write(value);
+            return this;
+        }
+
+        public Writer writeLong(final long value) {
+            long zigZag = (value << 1) ^ (value >> 63);
+            while ((zigZag & ~0x7FL) != 0) {
+                out.write((int) ((zigZag & 0x7F) | 0x80));
+                zigZag >>>= 7;
+            }
+            out.write((int) zigZag);
+            return this;
+        }
+
+        public Writer writeString(final String value) {
+            if (value == null) {
+                return writeLong(0);
+            }
+            final byte[] bytes = value.getBytes(PwmConstants.DEFAULT_CHARSET);
+            writeLong(bytes.length + 1);
+            out.write(bytes, 0, bytes.length);
+            return this;
+        }
+
+        /**
+         * Write the dictionary index of the value, or the value itself if it is not in the dictionary.
+         */
+        public Writer writeInterned(final String value, final Dictionary dictionary) {
+            final int index = value == null ? -1 : dictionary.indexOf(value);
+            writeLong(index + 1);
+            if (index == -1) {
+                writeString(value);
+            }
+            return this;
+        }
+
+        /**
+         * Write the dictionary index of the longest dictionary entry the value starts with, followed by the remainder
+         * of the value.
+         */
+        public Writer writePrefixed(final String value, final Dictionary dictionary) {
+            final int index = value == null ? -1 : dictionary.longestPrefixOf(value);
+            writeLong(index + 1);
+            writeString(index == -1 ? value : value.substring(dictionary.values[index].length()));
+            return this;
+        }
+
+        public byte[] toBytes() {
+            return out.toByteArray();
+        }
+
+        public String toStoredValue() {
+            return STORED_PREFIX + Base64Util.encodeBytes(out.toByteArray());
+        }
+    }
+
+    public static class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        public Reader(final byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        public static Reader fromStoredValue(final String value)
+                throws IOException
+        {
+            if (!isStoredValue(value)) {
+                throw new IOException("value is not binary encoded");
+            }
+            return new Reader(Base64Util.decode(value.substring(STORED_PREFIX.length()), Base64Util.DONT_GUNZIP));
+        }
+
+        public int readByte() throws IOException {
+            if (position >= bytes.length) {
+                throw new IOException("unexpected end of encoded value");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        public long readLong() throws IOException {
+            long zigZag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final int b = readByte();
+                zigZag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigZag >>> 1) ^ -(zigZag & 1);
+                }
+            }
+            throw new IOException("malformed varint in encoded value");
+        }
+
+        public int readInt() throws IOException {
+            final long value = readLong();
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw new IOException("encoded value " + value + " is out of range");
+            }
+            return (int) value;
+        }
+
+        public String readString() throws IOException {
+            final int length = readInt() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (length > bytes.length - position) {
+                throw new IOException("unexpected end of encoded value");
+            }
+            final String value = new String(bytes, position, length, PwmConstants.DEFAULT_CHARSET);
+            position += length;
+            return value;
+        }
+
+        public String readInterned(final Dictionary dictionary) throws IOException {
+            final int index = readInt() - 1;
+            return index == -1 ? readString() : dictionary.get(index);
+        }
+
+        public String readPrefixed(final Dictionary dictionary) throws IOException {
+            final int index = readInt() - 1;
+            final String remainder = readString();
+            return index == -1 ? remainder : dictionary.get(index) + remainder;
+        }
+    }
+}
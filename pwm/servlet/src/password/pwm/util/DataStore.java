@@ -24,6 +24,8 @@ package password.pwm.util;
 
 import password.pwm.error.PwmDataStoreException;
 
+import java.util.Map;
+
 public interface DataStore {
     public static enum Status {
         NEW, OPEN, CLOSED
@@ -41,6 +43,9 @@ public interface DataStore {
     ClosableIterator<String> iterator()
             throws PwmDataStoreException;
 
+    ClosableIterator<Map.Entry<String, String>> entryIterator()
+            throws PwmDataStoreException;
+
     Status status();
 
     boolean put(String key, String value)
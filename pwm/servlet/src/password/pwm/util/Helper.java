@@ -336,7 +336,7 @@ public class
         } catch (NoSuchMethodException e) {
             /* no error, pre java 1.6 doesn't have this method */
         } catch (Exception e) {
-            LOGGER.debug("error reading file space remaining for " + file.toString() + ",: " + e.getMessage());
+            LOGGER.debug("error reading file space remaining for " + file + ",: " + e.getMessage());
         }
         return -1;
     }
@@ -382,11 +382,7 @@ public class
     public static int figureLdapConnectionCount(final PwmApplication pwmApplication, final ContextManager contextManager) {
         int counter = 0;
         try {
-            for (final String identifer : pwmApplication.getConfig().getLdapProfiles().keySet()) {
-                if (pwmApplication.getProxyChaiProvider(identifer).isConnected()) {
-                    counter++;
-                }
-            }
+            counter += pwmApplication.getLdapConnectionService().getOpenConnectionCount();
 
             for (final PwmSession loopSession : contextManager.getPwmSessions().values()) {
                 if (loopSession != null) {
@@ -24,6 +24,7 @@ package password.pwm.util;
 
 import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
 import password.pwm.util.logging.PwmLogger;
 
 import java.io.ByteArrayInputStream;
@@ -106,6 +107,14 @@ public class JsonUtil {
         return JsonUtil.getGson(flags).toJson(object);
     }
 
+    /**
+     * Write the object as the next value of the writer, allowing large outputs to be streamed without building
+     * the full json string in memory.
+     */
+    public static void serialize(final Serializable object, final JsonWriter jsonWriter) {
+        JsonUtil.getGson().toJson(object, object.getClass(), jsonWriter);
+    }
+
     /**
      * Gson Serializer for {@link java.security.cert.X509Certificate}.  Neccessary because sometimes X509Certs have circular refecences
      * and the default gson serializer will cause a {@code java.lang.StackOverflowError}.  Standard Base64 encoding of
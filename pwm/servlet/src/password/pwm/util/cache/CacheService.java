@@ -29,19 +29,20 @@ import password.pwm.config.option.DataStorageMethod;
 import password.pwm.error.PwmException;
 import password.pwm.error.PwmUnrecoverableException;
 import password.pwm.health.HealthRecord;
-import password.pwm.util.JsonUtil;
 import password.pwm.util.localdb.LocalDB;
 import password.pwm.util.logging.PwmLogger;
 
-import java.util.Collections;
-import java.util.Date;
-import java.util.List;
+import java.util.*;
 
+/**
+ * Two level cache.  Values are held in a bounded {@link MemoryCacheStore} (L1) and written behind to a
+ * {@link LocalDBCacheStore} (L2).  Values found only in L2 are promoted back into L1 on read.
+ */
 public class CacheService implements PwmService {
     private static PwmLogger LOGGER = PwmLogger.forClass(CacheService.class);
 
-    private MemoryCacheStore memoryCacheStore;
-    private LocalDBCacheStore localDBCacheStore;
+    private volatile MemoryCacheStore memoryCacheStore;
+    private volatile LocalDBCacheStore localDBCacheStore;
 
     private STATUS status = STATUS.OPENING;
 
@@ -84,6 +85,9 @@ public class CacheService implements PwmService {
     @Override
     public void close() {
         status = STATUS.CLOSED;
+        if (localDBCacheStore != null) {
+            localDBCacheStore.close();
+        }
         localDBCacheStore = null;
     }
 
@@ -113,6 +117,7 @@ public class CacheService implements PwmService {
         }
         final Date expirationDate = cachePolicy.getExpiration();
         memoryCacheStore.store(cacheKey, expirationDate, payload);
+        final LocalDBCacheStore localDBCacheStore = this.localDBCacheStore;
         if (localDBCacheStore != null) {
             localDBCacheStore.store(cacheKey, expirationDate, payload);
         }
@@ -128,28 +133,39 @@ public class CacheService implements PwmService {
             return null;
         }
 
-        String payload = null;
         if (memoryCacheStore != null) {
-            payload = memoryCacheStore.read(cacheKey);
+            final ValueWrapper memoryValue = memoryCacheStore.read(cacheKey);
+            if (memoryValue != null) {
+                return memoryValue.getPayload();
+            }
         }
 
-        if (payload == null && localDBCacheStore != null) {
-            payload = localDBCacheStore.read(cacheKey);
+        final LocalDBCacheStore localDBCacheStore = this.localDBCacheStore;
+        if (localDBCacheStore != null) {
+            final ValueWrapper localDBValue = localDBCacheStore.read(cacheKey);
+            if (localDBValue != null) {
+                if (memoryCacheStore != null) {
+                    memoryCacheStore.store(cacheKey, localDBValue.getExpirationDate(), localDBValue.getPayload());
+                }
+                return localDBValue.getPayload();
+            }
         }
 
-        final StringBuilder traceOutput = new StringBuilder();
-        traceOutput.append("cache ").append(payload == null ? "MISS" : "HIT");
+        return null;
+    }
+
+    /**
+     * @return current counters for each cache level, keyed by level name.
+     */
+    public Map<String, CacheStoreInfo> getCacheStoreInfo() {
+        final Map<String, CacheStoreInfo> returnMap = new LinkedHashMap<>();
         if (memoryCacheStore != null) {
-            final CacheStoreInfo info = memoryCacheStore.getCacheStoreInfo();
-            traceOutput.append(", memCache=");
-            traceOutput.append(JsonUtil.serialize(info));
+            returnMap.put("memory", memoryCacheStore.getCacheStoreInfo());
         }
+        final LocalDBCacheStore localDBCacheStore = this.localDBCacheStore;
         if (localDBCacheStore != null) {
-            final CacheStoreInfo info = localDBCacheStore.getCacheStoreInfo();
-            traceOutput.append(", localDbCache=");
-            traceOutput.append(JsonUtil.serialize(info));
+            returnMap.put("localDB", localDBCacheStore.getCacheStoreInfo());
         }
-        LOGGER.trace(traceOutput);
-        return payload;
+        return returnMap;
     }
 }
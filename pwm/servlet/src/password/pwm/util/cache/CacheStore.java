@@ -28,8 +28,11 @@ import java.util.Date;
 
 public interface CacheStore {
     void store(CacheKey cacheKey, Date expirationDate, String data) throws PwmUnrecoverableException;
-    
-    String read(CacheKey cacheKey) throws PwmUnrecoverableException;
+
+    /**
+     * @return the stored, unexpired value for the key, or null if there is none.
+     */
+    ValueWrapper read(CacheKey cacheKey) throws PwmUnrecoverableException;
     
     public CacheStoreInfo getCacheStoreInfo();
 }
@@ -25,49 +25,67 @@ package password.pwm.util.cache;
 import java.io.Serializable;
 
 public class CacheStoreInfo implements Serializable {
-    private int storeCount;
-    private int readCount;
-    private int hitCount;
-    private int missCount;
-    private int itemCount;
+    private long storeCount;
+    private long readCount;
+    private long hitCount;
+    private long missCount;
+    private long itemCount;
+    private long pendingWriteCount;
+    private long expiredRemovalCount;
 
-    public int getStoreCount() {
+    public long getStoreCount() {
         return storeCount;
     }
 
-    public void setStoreCount(int storeCount) {
+    public void setStoreCount(long storeCount) {
         this.storeCount = storeCount;
     }
 
-    public int getReadCount() {
+    public long getReadCount() {
         return readCount;
     }
 
-    public void setReadCount(int readCount) {
+    public void setReadCount(long readCount) {
         this.readCount = readCount;
     }
 
-    public int getHitCount() {
+    public long getHitCount() {
         return hitCount;
     }
 
-    public void setHitCount(int hitCount) {
+    public void setHitCount(long hitCount) {
         this.hitCount = hitCount;
     }
 
-    public int getMissCount() {
+    public long getMissCount() {
         return missCount;
     }
 
-    public void setMissCount(int missCount) {
+    public void setMissCount(long missCount) {
         this.missCount = missCount;
     }
 
-    public int getItemCount() {
+    public long getItemCount() {
         return itemCount;
     }
 
-    public void setItemCount(int itemCount) {
+    public void setItemCount(long itemCount) {
         this.itemCount = itemCount;
     }
+
+    public long getPendingWriteCount() {
+        return pendingWriteCount;
+    }
+
+    public void setPendingWriteCount(long pendingWriteCount) {
+        this.pendingWriteCount = pendingWriteCount;
+    }
+
+    public long getExpiredRemovalCount() {
+        return expiredRemovalCount;
+    }
+
+    public void setExpiredRemovalCount(long expiredRemovalCount) {
+        this.expiredRemovalCount = expiredRemovalCount;
+    }
 }
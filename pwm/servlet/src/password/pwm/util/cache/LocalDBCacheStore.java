@@ -30,58 +30,98 @@ import password.pwm.util.localdb.LocalDB;
 import password.pwm.util.localdb.LocalDBException;
 import password.pwm.util.logging.PwmLogger;
 
-import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Second level cache store backed by the LocalDB {@link LocalDB.DB#CACHE} db.
+ * <p/>
+ * Writes are buffered and written behind on the store's timer thread with a single {@link LocalDB#putAll(LocalDB.DB, Map)},
+ * so callers never wait on LocalDB.  Each written value also gets an expiration index key of the form
+ * {@code !expire!<expiration ms>!<hash>}; since index keys sort by expiration time the purger only needs to read the
+ * range of index keys that are already past due rather than examining every record.  Flushing and purging both run
+ * on the timer thread, so they never interleave.
+ */
 public class LocalDBCacheStore implements CacheStore {
     private static final PwmLogger LOGGER = PwmLogger.forClass(LocalDBCacheStore.class);
     
     private static final LocalDB.DB DB = LocalDB.DB.CACHE;
+    private static final String EXPIRATION_INDEX_PREFIX = "!expire!";
     private static final int MAX_REMOVALS_PER_CYCLE = 10 * 1000;
-    private static final int TICKS_BETWEEN_PURGE_CYCLES = 1000;
+    private static final int MAX_PENDING_WRITES = 10 * 1000;
+    private static final long WRITE_BEHIND_DELAY_MS = 1000;
+    private static final long PURGE_FREQUENCY_MS = 60 * 1000;
 
     private final LocalDB localDB;
     private final Timer timer;
-    private int ticks = 0;
 
-    private int readCount;
-    private int storeCount;
-    private int hitCount;
-    private int missCount;
+    private final ConcurrentMap<String, ValueWrapper> pendingWrites = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private volatile boolean closed = false;
+
+    private final AtomicLong readCount = new AtomicLong();
+    private final AtomicLong storeCount = new AtomicLong();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong expiredRemovalCount = new AtomicLong();
+    private final AtomicLong indexEntryCount = new AtomicLong();
 
     LocalDBCacheStore(final PwmApplication pwmApplication) {
-        this.localDB = pwmApplication.getLocalDB();
+        this(pwmApplication.getLocalDB(), Helper.makeThreadName(pwmApplication,LocalDBCacheStore.class));
+    }
+
+    LocalDBCacheStore(final LocalDB localDB, final String threadName) {
+        this.localDB = localDB;
         try {
             localDB.truncate(DB);
         } catch (LocalDBException e) {
             LOGGER.error("error while clearing LocalDB CACHE DB during init: " + e.getMessage());
         }
-        timer = new Timer(Helper.makeThreadName(pwmApplication,LocalDBCacheStore.class),true);
+        timer = new Timer(threadName,true);
+        timer.schedule(new PurgerTask(), PURGE_FREQUENCY_MS, PURGE_FREQUENCY_MS);
     }
 
     @Override
     public void store(final CacheKey cacheKey, final Date expirationDate, final String data)
             throws PwmUnrecoverableException
     {
-        ticks++;
-        storeCount++;
-        try {
-            localDB.put(DB,cacheKey.getHash(),JsonUtil.serialize(new ValueWrapper(cacheKey, expirationDate, data)));
-        } catch (LocalDBException e) {
-            LOGGER.error("error while writing cache: " + e.getMessage());
+        storeCount.incrementAndGet();
+        if (closed || expirationDate == null) {
+            return;
         }
-        if (ticks > TICKS_BETWEEN_PURGE_CYCLES) {
-            ticks = 0;
-            timer.schedule(new PurgerTask(),1);
+
+        final String hashKey = cacheKey.getHash();
+        if (pendingWrites.size() >= MAX_PENDING_WRITES && !pendingWrites.containsKey(hashKey)) {
+            // the write-behind thread is not keeping up; the value is still held by the memory cache
+            return;
+        }
+
+        pendingWrites.put(hashKey, new ValueWrapper(cacheKey, expirationDate, data));
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                timer.schedule(new FlushTask(), WRITE_BEHIND_DELAY_MS);
+            } catch (IllegalStateException e) {
+                LOGGER.trace("unable to schedule cache write, store is closed");
+            }
         }
     }
 
     @Override
-    public String read(CacheKey cacheKey)
+    public ValueWrapper read(CacheKey cacheKey)
             throws PwmUnrecoverableException 
     {
-        readCount++;
+        readCount.incrementAndGet();
         final String hashKey = cacheKey.getHash();
+
+        final ValueWrapper pendingValue = pendingWrites.get(hashKey);
+        if (pendingValue != null && cacheKey.equals(pendingValue.getCacheKey()) && !pendingValue.isExpired()) {
+            hitCount.incrementAndGet();
+            return pendingValue;
+        }
+
         final String storedValue; 
         try {
             storedValue = localDB.get(DB,hashKey);
@@ -93,9 +133,9 @@ public class LocalDBCacheStore implements CacheStore {
             try {
                 final ValueWrapper valueWrapper = JsonUtil.deserialize(storedValue, ValueWrapper.class);
                 if (cacheKey.equals(valueWrapper.getCacheKey())) {
-                    if (valueWrapper.getExpirationDate().after(new Date())) {
-                        hitCount++;
-                        return valueWrapper.getPayload();
+                    if (!valueWrapper.isExpired()) {
+                        hitCount.incrementAndGet();
+                        return valueWrapper;
                     }
                 }
             } catch (Exception e) {
@@ -107,104 +147,130 @@ public class LocalDBCacheStore implements CacheStore {
                 LOGGER.error("error while purging record from cache: " + e.getMessage());
             }
         }
-        missCount++;
+        missCount.incrementAndGet();
         return null;
     }
 
     @Override
     public CacheStoreInfo getCacheStoreInfo() {
         final CacheStoreInfo cacheStoreInfo = new CacheStoreInfo();
-        cacheStoreInfo.setReadCount(readCount);
-        cacheStoreInfo.setStoreCount(storeCount);
-        cacheStoreInfo.setHitCount(hitCount);
-        cacheStoreInfo.setMissCount(missCount);
+        cacheStoreInfo.setReadCount(readCount.get());
+        cacheStoreInfo.setStoreCount(storeCount.get());
+        cacheStoreInfo.setHitCount(hitCount.get());
+        cacheStoreInfo.setMissCount(missCount.get());
+        cacheStoreInfo.setExpiredRemovalCount(expiredRemovalCount.get());
+        cacheStoreInfo.setPendingWriteCount(pendingWrites.size());
         try {
-            cacheStoreInfo.setItemCount(localDB.size(DB));
+            cacheStoreInfo.setItemCount(Math.max(0, localDB.size(DB) - indexEntryCount.get()));
         } catch (LocalDBException e) {
             LOGGER.error("error generating cacheStoreInfo: " + e.getMessage());
         }
         return cacheStoreInfo;
     }
 
-    private static class ValueWrapper implements Serializable {
-        final CacheKey cacheKey;
-        final Date expirationDate;
-        final String payload;
+    void close() {
+        closed = true;
+        timer.cancel();
+        pendingWrites.clear();
+    }
+
+    private static String expirationIndexKey(final Date expirationDate, final String hashKey) {
+        return expirationIndexPrefix(expirationDate.getTime()) + "!" + hashKey;
+    }
 
-        private ValueWrapper(
-                CacheKey cacheKey,
-                Date expirationDate,
-                String payload
-        )
-        {
-            this.cacheKey = cacheKey;
-            this.expirationDate = expirationDate;
-            this.payload = payload;
+    private static String expirationIndexPrefix(final long timestamp) {
+        final StringBuilder sb = new StringBuilder(Long.toString(Math.max(0, timestamp)));
+        while (sb.length() < 13) {
+            sb.insert(0, '0');
         }
+        return EXPIRATION_INDEX_PREFIX + sb.toString();
+    }
 
-        public CacheKey getCacheKey()
-        {
-            return cacheKey;
+    void flushPendingWrites() throws LocalDBException {
+        flushScheduled.set(false);
+        if (pendingWrites.isEmpty()) {
+            return;
         }
 
-        public Date getExpirationDate() {
-            return expirationDate;
+        final Map<String, ValueWrapper> writeBatch = new HashMap<>(pendingWrites);
+        final Map<String, String> keyValueMap = new HashMap<>();
+        for (final Map.Entry<String, ValueWrapper> entry : writeBatch.entrySet()) {
+            final ValueWrapper valueWrapper = entry.getValue();
+            keyValueMap.put(entry.getKey(), JsonUtil.serialize(valueWrapper));
+            keyValueMap.put(expirationIndexKey(valueWrapper.getExpirationDate(), entry.getKey()), entry.getKey());
         }
 
-        public String getPayload()
-        {
-            return payload;
+        localDB.putAll(DB, keyValueMap);
+        indexEntryCount.addAndGet(writeBatch.size());
+
+        for (final Map.Entry<String, ValueWrapper> entry : writeBatch.entrySet()) {
+            pendingWrites.remove(entry.getKey(), entry.getValue());
         }
     }
-    
-   
-    private boolean purgeExpiredRecords() throws LocalDBException {
-        final List<String> removalKeys = new ArrayList<>();
-        final LocalDB.LocalDBIterator<String> localDBIterator = localDB.iterator(DB);
-        int counter = 0;
-        try {
-            while (localDBIterator.hasNext() && removalKeys.size() < MAX_REMOVALS_PER_CYCLE) {
-                final String key = localDBIterator.next();
-                counter++;
-                boolean keep = false;
-                try {
-                    if (key != null) {
-                        final String strValue = localDB.get(DB, key);
-                        if (strValue != null) {
-                            final ValueWrapper valueWrapper = JsonUtil.deserialize(strValue, ValueWrapper.class);
-                            if (valueWrapper.expirationDate.before(new Date())) {
-                                keep = true;
-                            }
-                        }
 
-                    }
-                } catch (Exception e) {
-                    LOGGER.error("error reading from cache: " + e.getMessage());
-                }
-                if (!keep) {
-                    removalKeys.add(key);
-                }
+    boolean purgeExpiredRecords() throws LocalDBException {
+        final LocalDB.KeyRange expiredRange = LocalDB.KeyRange.between(EXPIRATION_INDEX_PREFIX, expirationIndexPrefix(System.currentTimeMillis()));
+        final Map<String, String> expiredIndexEntries = new HashMap<>();
+        final LocalDB.LocalDBEntryIterator entryIterator = localDB.entryIterator(DB, expiredRange);
+        try {
+            while (entryIterator.hasNext() && expiredIndexEntries.size() < MAX_REMOVALS_PER_CYCLE) {
+                final Map.Entry<String, String> entry = entryIterator.next();
+                expiredIndexEntries.put(entry.getKey(), entry.getValue());
             }
         } finally {
-            if (localDBIterator != null) {
-                localDBIterator.close();
+            entryIterator.close();
+        }
+
+        if (expiredIndexEntries.isEmpty()) {
+            LOGGER.trace("purger did not discover any expired cache records");
+            return false;
+        }
+
+        // the record may have been re-stored with a later expiration since the index entry was written, so check it.
+        final List<String> removalKeys = new ArrayList<>(expiredIndexEntries.keySet());
+        final Map<String, String> storedValues = localDB.getAll(DB, new HashSet<>(expiredIndexEntries.values()));
+        int expiredRecords = 0;
+        for (final Map.Entry<String, String> entry : storedValues.entrySet()) {
+            boolean keep = false;
+            try {
+                final ValueWrapper valueWrapper = JsonUtil.deserialize(entry.getValue(), ValueWrapper.class);
+                keep = !valueWrapper.isExpired();
+            } catch (Exception e) {
+                LOGGER.error("error reading from cache: " + e.getMessage());
+            }
+            if (!keep) {
+                removalKeys.add(entry.getKey());
+                expiredRecords++;
             }
         }
-        if (!removalKeys.isEmpty()) {
-            LOGGER.debug("purging " + removalKeys.size() + " expired cache records");
-            localDB.removeAll(DB, removalKeys);
-        } else {
-            LOGGER.trace("purger examined " + counter + " records and did not discover any expired cache records");
+
+        LOGGER.debug("purging " + expiredRecords + " expired cache records and " + expiredIndexEntries.size() + " expiration index entries");
+        localDB.removeAll(DB, removalKeys);
+        indexEntryCount.addAndGet(-expiredIndexEntries.size());
+        expiredRemovalCount.addAndGet(expiredRecords);
+
+        return expiredIndexEntries.size() >= MAX_REMOVALS_PER_CYCLE;
+    }
+
+    private class FlushTask extends TimerTask {
+        @Override
+        public void run() {
+            try {
+                flushPendingWrites();
+            } catch (LocalDBException e) {
+                LOGGER.error("error while writing cache: " + e.getMessage(),e);
+            }
         }
-        
-        return removalKeys.size() >= MAX_REMOVALS_PER_CYCLE;
     }
-    
+
     private class PurgerTask extends TimerTask {
         @Override
         public void run() {
             try {
-                purgeExpiredRecords();
+                boolean moreRecords = true;
+                while (moreRecords && !closed) {
+                    moreRecords = purgeExpiredRecords();
+                }
             } catch (LocalDBException e) {
                 LOGGER.error("error while running purger task: " + e.getMessage(),e);
             }
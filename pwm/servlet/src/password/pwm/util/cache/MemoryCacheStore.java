@@ -25,16 +25,17 @@ package password.pwm.util.cache;
 import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
 import password.pwm.error.PwmUnrecoverableException;
 
-import java.io.Serializable;
 import java.util.Date;
-import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 class MemoryCacheStore implements CacheStore {
-    private final Map<String,ValueWrapper> memoryStore;
-    private int readCount;
-    private int storeCount;
-    private int hitCount;
-    private int missCount;
+    private final ConcurrentMap<String,ValueWrapper> memoryStore;
+    private final AtomicLong readCount = new AtomicLong();
+    private final AtomicLong storeCount = new AtomicLong();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong expiredRemovalCount = new AtomicLong();
 
     MemoryCacheStore(int maxItems) {
         memoryStore = new ConcurrentLinkedHashMap.Builder<String, ValueWrapper>()
@@ -45,68 +46,41 @@ class MemoryCacheStore implements CacheStore {
     @Override
     public void store(final CacheKey cacheKey, final Date expirationDate, final String data)
             throws PwmUnrecoverableException {
-        storeCount++;
+        storeCount.incrementAndGet();
         memoryStore.put(cacheKey.getHash(), new ValueWrapper(cacheKey, expirationDate, data));
     }
 
     @Override
-    public String read(CacheKey cacheKey)
+    public ValueWrapper read(CacheKey cacheKey)
             throws PwmUnrecoverableException 
     {
-        readCount++;
-        final ValueWrapper valueWrapper = memoryStore.get(cacheKey.getHash());
+        readCount.incrementAndGet();
+        final String hashKey = cacheKey.getHash();
+        final ValueWrapper valueWrapper = memoryStore.get(hashKey);
         if (valueWrapper != null) {
             if (cacheKey.equals(valueWrapper.getCacheKey())) {
-                if (valueWrapper.getExpirationDate().after(new Date())) {
-                    hitCount++;
-                    return valueWrapper.payload;
+                if (!valueWrapper.isExpired()) {
+                    hitCount.incrementAndGet();
+                    return valueWrapper;
+                }
+                if (memoryStore.remove(hashKey, valueWrapper)) {
+                    expiredRemovalCount.incrementAndGet();
                 }
             }
         }
-        missCount++;
+        missCount.incrementAndGet();
         return null;
     }
 
     @Override
     public CacheStoreInfo getCacheStoreInfo() {
         final CacheStoreInfo cacheStoreInfo = new CacheStoreInfo();
-        cacheStoreInfo.setReadCount(readCount);
-        cacheStoreInfo.setStoreCount(storeCount);
-        cacheStoreInfo.setHitCount(hitCount);
-        cacheStoreInfo.setMissCount(missCount);
+        cacheStoreInfo.setReadCount(readCount.get());
+        cacheStoreInfo.setStoreCount(storeCount.get());
+        cacheStoreInfo.setHitCount(hitCount.get());
+        cacheStoreInfo.setMissCount(missCount.get());
+        cacheStoreInfo.setExpiredRemovalCount(expiredRemovalCount.get());
         cacheStoreInfo.setItemCount(memoryStore.size());
         return cacheStoreInfo;
     }
-
-    private static class ValueWrapper implements Serializable {
-        final CacheKey cacheKey;
-        final Date expirationDate;
-        final String payload;
-
-        private ValueWrapper(
-                CacheKey cacheKey,
-                Date expirationDate,
-                String payload
-        )
-        {
-            this.cacheKey = cacheKey;
-            this.expirationDate = expirationDate;
-            this.payload = payload;
-        }
-
-        public CacheKey getCacheKey()
-        {
-            return cacheKey;
-        }
-
-        public Date getExpirationDate() {
-            return expirationDate;
-        }
-
-        public String getPayload()
-        {
-            return payload;
-        }
-    }
-
 }
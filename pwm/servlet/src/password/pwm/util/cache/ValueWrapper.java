@@ -0,0 +1,64 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.cache;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * A cached payload along with its key and expiration.  This is also the stored (json) form used by {@link LocalDBCacheStore}.
+ */
+class ValueWrapper implements Serializable {
+    final CacheKey cacheKey;
+    final Date expirationDate;
+    final String payload;
+
+    ValueWrapper(
+            CacheKey cacheKey,
+            Date expirationDate,
+            String payload
+    )
+    {
+        this.cacheKey = cacheKey;
+        this.expirationDate = expirationDate;
+        this.payload = payload;
+    }
+
+    public CacheKey getCacheKey()
+    {
+        return cacheKey;
+    }
+
+    public Date getExpirationDate() {
+        return expirationDate;
+    }
+
+    public String getPayload()
+    {
+        return payload;
+    }
+
+    boolean isExpired() {
+        return expirationDate == null || !expirationDate.after(new Date());
+    }
+}
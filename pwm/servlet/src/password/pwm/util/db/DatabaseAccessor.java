@@ -26,6 +26,8 @@ import password.pwm.util.ClosableIterator;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.Collection;
+import java.util.Map;
 
 public interface DatabaseAccessor {
     /**
@@ -54,6 +56,14 @@ public interface DatabaseAccessor {
     )
             throws DatabaseException;
 
+    @DbOperation
+    @DbModifyOperation
+    void putAll(
+            DatabaseTable table,
+            Map<String, String> keyValueMap
+    )
+            throws DatabaseException;
+
     @DbOperation
     boolean contains(
             DatabaseTable table,
@@ -71,6 +81,9 @@ public interface DatabaseAccessor {
     ClosableIterator<String> iterator(DatabaseTable table)
             throws DatabaseException;
 
+    ClosableIterator<Map.Entry<String, String>> entryIterator(DatabaseTable table)
+            throws DatabaseException;
+
     @DbOperation
     @DbModifyOperation
     boolean remove(
@@ -79,6 +92,14 @@ public interface DatabaseAccessor {
     )
             throws DatabaseException;
 
+    @DbOperation
+    @DbModifyOperation
+    void removeAll(
+            DatabaseTable table,
+            Collection<String> keys
+    )
+            throws DatabaseException;
+
     @DbOperation
     int size(DatabaseTable table) throws
             DatabaseException;
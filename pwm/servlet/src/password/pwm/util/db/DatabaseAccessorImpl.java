@@ -22,6 +22,7 @@
 
 package password.pwm.util.db;
 
+import password.pwm.AppProperty;
 import password.pwm.PwmApplication;
 import password.pwm.PwmConstants;
 import password.pwm.PwmService;
@@ -45,7 +46,6 @@ import password.pwm.util.stats.Statistic;
 import password.pwm.util.stats.StatisticsManager;
 
 import java.io.*;
-import java.lang.reflect.Method;
 import java.sql.*;
 import java.util.*;
 import java.util.jar.JarEntry;
@@ -70,7 +70,11 @@ public class DatabaseAccessorImpl implements PwmService, DatabaseAccessor {
     private Driver driver;
     private String instanceID;
     private boolean traceLogging;
-    private volatile Connection connection;
+    private int maxConnections;
+    private int statementCacheSize;
+    private long maxConnectionWaitMs;
+    private volatile DatabaseConnectionPool connectionPool;
+    private volatile DatabaseDialect dialect = DatabaseDialect.GENERIC;
     private volatile PwmService.STATUS status = PwmService.STATUS.NEW;
     private ErrorInformation lastError;
     private PwmApplication pwmApplication;
@@ -108,7 +112,7 @@ public class DatabaseAccessorImpl implements PwmService, DatabaseAccessor {
             jdbcDriverBytes = null;
         }
 
-        this.dbConfiguration = new DBConfiguration(
+        final DBConfiguration dbConfiguration = new DBConfiguration(
                 config.readSettingAsString(PwmSetting.DATABASE_CLASS),
                 config.readSettingAsString(PwmSetting.DATABASE_URL),
                 config.readSettingAsString(PwmSetting.DATABASE_USERNAME),
@@ -118,8 +122,29 @@ public class DatabaseAccessorImpl implements PwmService, DatabaseAccessor {
                 jdbcDriverBytes
         );
 
-        this.instanceID = pwmApplication == null ? null : pwmApplication.getInstanceID();
         this.traceLogging = config.readSettingAsBoolean(PwmSetting.DATABASE_DEBUG_TRACE);
+        init(
+                dbConfiguration,
+                pwmApplication == null ? null : pwmApplication.getInstanceID(),
+                Integer.parseInt(config.readAppProperty(AppProperty.DB_CONNECTIONS_MAX)),
+                Integer.parseInt(config.readAppProperty(AppProperty.DB_STATEMENT_CACHE_SIZE)),
+                Long.parseLong(config.readAppProperty(AppProperty.DB_CONNECTIONS_WAIT_MS))
+        );
+    }
+
+    void init(
+            final DBConfiguration dbConfiguration,
+            final String instanceID,
+            final int maxConnections,
+            final int statementCacheSize,
+            final long maxConnectionWaitMs
+    )
+    {
+        this.dbConfiguration = dbConfiguration;
+        this.instanceID = instanceID;
+        this.maxConnections = maxConnections;
+        this.statementCacheSize = statementCacheSize;
+        this.maxConnectionWaitMs = maxConnectionWaitMs;
 
         if (this.dbConfiguration.isEmpty()) {
             status = PwmService.STATUS.CLOSED;
@@ -130,9 +155,9 @@ public class DatabaseAccessorImpl implements PwmService, DatabaseAccessor {
     public void close()
     {
         status = PwmService.STATUS.CLOSED;
-        if (connection != null) {
+        if (connectionPool != null) {
             try {
-                connection.close();
+                connectionPool.close();
             } catch (Exception e) {
                 LOGGER.debug("error while closing DB: " + e.getMessage());
             }
@@ -144,7 +169,7 @@ public class DatabaseAccessorImpl implements PwmService, DatabaseAccessor {
             LOGGER.debug("error while de-registering driver: " + e.getMessage());
         }
 
-        connection = null;
+        connectionPool = null;
     }
 
     public List<HealthRecord> healthCheck() {
@@ -192,14 +217,32 @@ public class DatabaseAccessorImpl implements PwmService, DatabaseAccessor {
     private synchronized void init()
             throws DatabaseException
     {
+        if (status == PwmService.STATUS.OPEN || status == PwmService.STATUS.CLOSED) {
+            return;
+        }
+
         status = PwmService.STATUS.OPENING;
         LOGGER.debug("opening connection to database " + this.dbConfiguration.getConnectionString());
 
-        connection = openDB(dbConfiguration);
-        for (final DatabaseTable table : DatabaseTable.values()) {
-            initTable(connection, table, dbConfiguration);
+        final DatabaseConnectionPool newPool = openDB(dbConfiguration);
+        DatabaseConnectionPool.PooledConnection pooledConnection = null;
+        boolean broken = true;
+        try {
+            pooledConnection = newPool.borrow();
+            final Connection connection = pooledConnection.getConnection();
+            dialect = detectDialect(connection);
+            for (final DatabaseTable table : DatabaseTable.values()) {
+                initTable(connection, table, dbConfiguration);
+            }
+            broken = false;
+        } finally {
+            newPool.release(pooledConnection, broken);
+            if (broken) {
+                newPool.close();
+            }
         }
 
+        connectionPool = newPool;
         status = PwmService.STATUS.OPEN;
 
         try {
@@ -210,7 +253,7 @@ public class DatabaseAccessorImpl implements PwmService, DatabaseAccessor {
         }
     }
 
-    private Connection openDB(final DBConfiguration dbConfiguration) throws DatabaseException {
+    private DatabaseConnectionPool openDB(final DBConfiguration dbConfiguration) throws DatabaseException {
         final String connectionURL = dbConfiguration.getConnectionString();
         final String jdbcClassName = dbConfiguration.getDriverClassname();
 
@@ -241,7 +284,7 @@ public class DatabaseAccessorImpl implements PwmService, DatabaseAccessor {
         }
 
         try {
-            LOGGER.debug("opening connection to database " + connectionURL);
+            LOGGER.debug("opening connection pool to database " + connectionURL + " (maxConnections=" + maxConnections + ")");
             final Properties connectionProperties = new Properties();
             if (dbConfiguration.getUsername() != null && !dbConfiguration.getUsername().isEmpty()) {
                 connectionProperties.setProperty("user", dbConfiguration.getUsername());
@@ -249,17 +292,31 @@ public class DatabaseAccessorImpl implements PwmService, DatabaseAccessor {
             if (dbConfiguration.getPassword() != null) {
                 connectionProperties.setProperty("password", dbConfiguration.getPassword().getStringValue());
             }
-            final Connection connection = driver.connect(connectionURL, connectionProperties);
-            LOGGER.debug("successfully opened connection to database " + connectionURL);
-            connection.setAutoCommit(true);
-            return connection;
-        } catch (PwmUnrecoverableException | SQLException e) {
+            final String validationQuery = "SELECT " + KEY_COLUMN + " FROM " + DatabaseTable.PWM_META.toString() + " WHERE " + KEY_COLUMN + " = '0'";
+            return new DatabaseConnectionPool(driver, connectionURL, connectionProperties, validationQuery, maxConnections, statementCacheSize, maxConnectionWaitMs);
+        } catch (PwmUnrecoverableException e) {
             final String errorMsg = "error connecting to database: " + e.getMessage();
             final ErrorInformation errorInformation = new ErrorInformation(PwmError.ERROR_DB_UNAVAILABLE,errorMsg);
             throw new DatabaseException(errorInformation);
         }
     }
 
+    private static DatabaseDialect detectDialect(final Connection connection) {
+        try {
+            final DatabaseMetaData metaData = connection.getMetaData();
+            final DatabaseDialect dialect = DatabaseDialect.forProduct(
+                    metaData.getDatabaseProductName(),
+                    metaData.getDatabaseMajorVersion(),
+                    metaData.getDatabaseMinorVersion()
+            );
+            LOGGER.debug("using " + dialect + " sql dialect for database product " + metaData.getDatabaseProductName() + " " + metaData.getDatabaseProductVersion());
+            return dialect;
+        } catch (SQLException | AbstractMethodError e) {
+            LOGGER.debug("unable to read database product metadata, using generic sql dialect: " + e.getMessage());
+            return DatabaseDialect.GENERIC;
+        }
+    }
+
     private static void initTable(final Connection connection, final DatabaseTable table, final DBConfiguration dbConfiguration) throws DatabaseException {
         try {
             checkIfTableExists(connection, table);
@@ -333,43 +390,29 @@ public class DatabaseAccessorImpl implements PwmService, DatabaseAccessor {
     )
             throws DatabaseException {
 
-        preOperationCheck();
         if (traceLogging) {
             LOGGER.trace("attempting put operation for table=" + table + ", key=" + key);
         }
-        if (!contains(table, key)) {
-            final String sqlText = "INSERT INTO " + table.toString() + "(" + KEY_COLUMN + ", " + VALUE_COLUMN + ") VALUES(?,?)";
-            PreparedStatement statement = null;
 
-            try {
-                statement = connection.prepareStatement(sqlText);
+        final DatabaseConnectionPool.PooledConnection pooledConnection = borrowConnection();
+        boolean broken = true;
+        try {
+            final String upsertText = dialect.upsertStatement(table.toString(), KEY_COLUMN, VALUE_COLUMN);
+            if (upsertText != null) {
+                final PreparedStatement statement = pooledConnection.prepareStatement(upsertText);
                 statement.setString(1, key);
                 statement.setString(2, value);
                 statement.executeUpdate();
-            } catch (SQLException e) {
-                final ErrorInformation errorInformation = new ErrorInformation(PwmError.ERROR_DB_UNAVAILABLE,"put operation failed: " + e.getMessage());
-                lastError = errorInformation;
-                throw new DatabaseException(errorInformation);
-            } finally {
-                close(statement);
+            } else {
+                genericPut(pooledConnection, table, key, value);
             }
-            return false;
-        }
-
-        final String sqlText = "UPDATE " + table.toString() + " SET " + VALUE_COLUMN + "=? WHERE " + KEY_COLUMN + "=?";
-        PreparedStatement statement = null;
-
-        try {
-            statement = connection.prepareStatement(sqlText);
-            statement.setString(1, value);
-            statement.setString(2, key);
-            statement.executeUpdate();
+            broken = false;
         } catch (SQLException e) {
             final ErrorInformation errorInformation = new ErrorInformation(PwmError.ERROR_DB_UNAVAILABLE,"put operation failed: " + e.getMessage());
             lastError = errorInformation;
             throw new DatabaseException(errorInformation);
         } finally {
-            close(statement);
+            connectionPool.release(pooledConnection, broken);
         }
 
         if (traceLogging) {
@@ -384,61 +427,174 @@ public class DatabaseAccessorImpl implements PwmService, DatabaseAccessor {
         return true;
     }
 
-    private synchronized void preOperationCheck() throws DatabaseException {
-        if (status == PwmService.STATUS.CLOSED) {
-            throw new DatabaseException(new ErrorInformation(PwmError.ERROR_DB_UNAVAILABLE,"database connection is not open"));
+    /**
+     * Update the row, inserting it if no row was updated.  If a concurrent writer inserts the same key between the
+     * two statements the insert fails and the update is attempted once more.
+     */
+    private static void genericPut(
+            final DatabaseConnectionPool.PooledConnection pooledConnection,
+            final DatabaseTable table,
+            final String key,
+            final String value
+    )
+            throws SQLException
+    {
+        if (executeUpdate(pooledConnection, table, key, value) > 0) {
+            return;
         }
 
-        if (status == PwmService.STATUS.NEW) {
-            init();
+        final PreparedStatement insertStatement = pooledConnection.prepareStatement(insertSql(table));
+        insertStatement.setString(1, key);
+        insertStatement.setString(2, value);
+        try {
+            insertStatement.executeUpdate();
+        } catch (SQLException e) {
+            if (executeUpdate(pooledConnection, table, key, value) < 1) {
+                throw e;
+            }
         }
+    }
 
-        if (!isValid(connection)) {
-            init();
+    private static int executeUpdate(
+            final DatabaseConnectionPool.PooledConnection pooledConnection,
+            final DatabaseTable table,
+            final String key,
+            final String value
+    )
+            throws SQLException
+    {
+        final PreparedStatement updateStatement = pooledConnection.prepareStatement(updateSql(table));
+        updateStatement.setString(1, value);
+        updateStatement.setString(2, key);
+        return updateStatement.executeUpdate();
+    }
+
+    /**
+     * Write all of the key/value pairs as a single batched transaction.
+     */
+    @Override
+    public void putAll(
+            final DatabaseTable table,
+            final Map<String,String> keyValueMap
+    )
+            throws DatabaseException
+    {
+        if (keyValueMap == null || keyValueMap.isEmpty()) {
+            return;
+        }
+
+        if (traceLogging) {
+            LOGGER.trace("attempting putAll operation for table=" + table + ", keys=" + keyValueMap.size());
+        }
+
+        final DatabaseConnectionPool.PooledConnection pooledConnection = borrowConnection();
+        final Connection connection = pooledConnection.getConnection();
+        boolean broken = true;
+        try {
+            connection.setAutoCommit(false);
+            final String upsertText = dialect.upsertStatement(table.toString(), KEY_COLUMN, VALUE_COLUMN);
+            if (upsertText != null) {
+                final PreparedStatement statement = pooledConnection.prepareStatement(upsertText);
+                for (final Map.Entry<String,String> entry : keyValueMap.entrySet()) {
+                    statement.setString(1, entry.getKey());
+                    statement.setString(2, entry.getValue());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            } else {
+                genericPutAll(pooledConnection, table, keyValueMap);
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+            broken = false;
+        } catch (SQLException e) {
+            rollback(connection);
+            final ErrorInformation errorInformation = new ErrorInformation(PwmError.ERROR_DB_UNAVAILABLE,"putAll operation failed: " + e.getMessage());
+            lastError = errorInformation;
+            throw new DatabaseException(errorInformation);
+        } finally {
+            connectionPool.release(pooledConnection, broken);
         }
+
+        updateStats(0, keyValueMap.size());
     }
 
-    private boolean isValid(final Connection connection) {
-        if (connection == null) {
-            return false;
+    private static void genericPutAll(
+            final DatabaseConnectionPool.PooledConnection pooledConnection,
+            final DatabaseTable table,
+            final Map<String,String> keyValueMap
+    )
+            throws SQLException
+    {
+        final List<Map.Entry<String,String>> entries = new ArrayList<>(keyValueMap.entrySet());
+        final PreparedStatement updateStatement = pooledConnection.prepareStatement(updateSql(table));
+        for (final Map.Entry<String,String> entry : entries) {
+            updateStatement.setString(1, entry.getValue());
+            updateStatement.setString(2, entry.getKey());
+            updateStatement.addBatch();
+        }
+        final int[] updateCounts = updateStatement.executeBatch();
+
+        final List<Map.Entry<String,String>> inserts = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            final int updateCount = i < updateCounts.length ? updateCounts[i] : Statement.SUCCESS_NO_INFO;
+            if (updateCount == 0) {
+                inserts.add(entries.get(i));
+            } else if (updateCount == Statement.SUCCESS_NO_INFO) {
+                // driver does not report per-row counts, so fall back to a single statement for this row
+                genericPut(pooledConnection, table, entries.get(i).getKey(), entries.get(i).getValue());
+            }
         }
 
-        if (status != PwmService.STATUS.OPEN) {
-            return false;
+        if (!inserts.isEmpty()) {
+            final PreparedStatement insertStatement = pooledConnection.prepareStatement(insertSql(table));
+            for (final Map.Entry<String,String> entry : inserts) {
+                insertStatement.setString(1, entry.getKey());
+                insertStatement.setString(2, entry.getValue());
+                insertStatement.addBatch();
+            }
+            insertStatement.executeBatch();
         }
+    }
 
+    private DatabaseConnectionPool.PooledConnection borrowConnection() throws DatabaseException {
+        preOperationCheck();
+        final DatabaseConnectionPool pool = connectionPool;
+        if (pool == null) {
+            throw new DatabaseException(new ErrorInformation(PwmError.ERROR_DB_UNAVAILABLE,"database connection is not open"));
+        }
         try {
-            final Method getFreeSpaceMethod = File.class.getMethod("isValid");
-            final Object rawResult = getFreeSpaceMethod.invoke(connection,10);
-            return (Boolean) rawResult;
-        } catch (NoSuchMethodException e) {
-            /* no error, pre java 1.6 doesn't have this method */
-        } catch (Exception e) {
-            LOGGER.debug("error checking for isValid for " + connection.toString() + ",: " + e.getMessage());
+            return pool.borrow();
+        } catch (DatabaseException e) {
+            lastError = e.getErrorInformation();
+            throw e;
         }
+    }
 
-        final StringBuilder sb = new StringBuilder();
-        sb.append("SELECT * FROM ").append(DatabaseTable.PWM_META.toString()).append(" WHERE " + KEY_COLUMN + " = ?");
-        PreparedStatement statement = null;
-        ResultSet resultSet = null;
+    private void preOperationCheck() throws DatabaseException {
+        if (status == PwmService.STATUS.CLOSED) {
+            throw new DatabaseException(new ErrorInformation(PwmError.ERROR_DB_UNAVAILABLE,"database connection is not open"));
+        }
+
+        if (status != PwmService.STATUS.OPEN) {
+            init();
+        }
+    }
+
+    private static String insertSql(final DatabaseTable table) {
+        return "INSERT INTO " + table.toString() + "(" + KEY_COLUMN + ", " + VALUE_COLUMN + ") VALUES(?,?)";
+    }
+
+    private static String updateSql(final DatabaseTable table) {
+        return "UPDATE " + table.toString() + " SET " + VALUE_COLUMN + "=? WHERE " + KEY_COLUMN + "=?";
+    }
+
+    private static void rollback(final Connection connection) {
         try {
-            statement = connection.prepareStatement(sb.toString());
-            statement.setString(1, KEY_ENGINE_START_PREFIX + instanceID);
-            statement.setMaxRows(1);
-            resultSet = statement.executeQuery();
-            if (resultSet.next()) {
-                resultSet.getString(VALUE_COLUMN);
-            }
+            connection.rollback();
         } catch (SQLException e) {
-            final ErrorInformation errorInformation = new ErrorInformation(PwmError.ERROR_DB_UNAVAILABLE,"isValid operation failed: " + e.getMessage());
-            lastError = errorInformation;
-            LOGGER.error(errorInformation.toDebugStr());
-            return false;
-        } finally {
-            close(statement);
-            close(resultSet);
+            LOGGER.debug("error during transaction rollback: " + e.getMessage());
         }
-        return true;
     }
 
     private static void close(final Statement statement) {
@@ -476,7 +632,6 @@ public class DatabaseAccessorImpl implements PwmService, DatabaseAccessor {
             debugOutput.put("result",result);
             LOGGER.trace("contains operation result: " + JsonUtil.serializeMap(debugOutput, JsonUtil.Flag.PrettyPrint));
         }
-        updateStats(true,false);
         return result;
     }
 
@@ -490,15 +645,14 @@ public class DatabaseAccessorImpl implements PwmService, DatabaseAccessor {
         if (traceLogging) {
             LOGGER.trace("attempting get operation for table=" + table + ", key=" + key);
         }
-        preOperationCheck();
-        final StringBuilder sb = new StringBuilder();
-        sb.append("SELECT * FROM ").append(table.toString()).append(" WHERE " + KEY_COLUMN + " = ?");
+        final String sqlText = "SELECT " + VALUE_COLUMN + " FROM " + table.toString() + " WHERE " + KEY_COLUMN + " = ?";
 
-        PreparedStatement statement = null;
+        final DatabaseConnectionPool.PooledConnection pooledConnection = borrowConnection();
+        boolean broken = true;
         ResultSet resultSet = null;
         String returnValue = null;
         try {
-            statement = connection.prepareStatement(sb.toString());
+            final PreparedStatement statement = pooledConnection.prepareStatement(sqlText);
             statement.setString(1, key);
             statement.setMaxRows(1);
             resultSet = statement.executeQuery();
@@ -506,13 +660,14 @@ public class DatabaseAccessorImpl implements PwmService, DatabaseAccessor {
             if (resultSet.next()) {
                 returnValue = resultSet.getString(VALUE_COLUMN);
             }
+            broken = false;
         } catch (SQLException e) {
             final ErrorInformation errorInformation = new ErrorInformation(PwmError.ERROR_DB_UNAVAILABLE,"get operation failed: " + e.getMessage());
             lastError = errorInformation;
             throw new DatabaseException(errorInformation);
         } finally {
-            close(statement);
             close(resultSet);
+            connectionPool.release(pooledConnection, broken);
         }
 
         if (traceLogging) {
@@ -531,10 +686,16 @@ public class DatabaseAccessorImpl implements PwmService, DatabaseAccessor {
     public ClosableIterator<String> iterator(final DatabaseTable table)
             throws DatabaseException
     {
-        preOperationCheck();
         return new DBIterator(table);
     }
 
+    @Override
+    public ClosableIterator<Map.Entry<String, String>> entryIterator(final DatabaseTable table)
+            throws DatabaseException
+    {
+        return new DBEntryIterator(table);
+    }
+
     @Override
     public boolean remove(
             final DatabaseTable table,
@@ -546,24 +707,22 @@ public class DatabaseAccessorImpl implements PwmService, DatabaseAccessor {
             LOGGER.trace("attempting remove operation for table=" + table + ", key=" + key);
         }
 
-        boolean result = contains(table, key);
-        if (result) {
-            final StringBuilder sqlText = new StringBuilder();
-            sqlText.append("DELETE FROM ").append(table.toString()).append(" WHERE " + KEY_COLUMN + "=?");
+        final String sqlText = "DELETE FROM " + table.toString() + " WHERE " + KEY_COLUMN + "=?";
 
-            PreparedStatement statement = null;
-            try {
-                statement = connection.prepareStatement(sqlText.toString());
-                statement.setString(1, key);
-                statement.executeUpdate();
-                LOGGER.trace("remove operation succeeded for table=" + table + ", key=" + key);
-            } catch (SQLException e) {
-                final ErrorInformation errorInformation = new ErrorInformation(PwmError.ERROR_DB_UNAVAILABLE,"remove operation failed: " + e.getMessage());
-                lastError = errorInformation;
-                throw new DatabaseException(errorInformation);
-            } finally {
-                close(statement);
-            }
+        final DatabaseConnectionPool.PooledConnection pooledConnection = borrowConnection();
+        boolean broken = true;
+        final boolean result;
+        try {
+            final PreparedStatement statement = pooledConnection.prepareStatement(sqlText);
+            statement.setString(1, key);
+            result = statement.executeUpdate() > 0;
+            broken = false;
+        } catch (SQLException e) {
+            final ErrorInformation errorInformation = new ErrorInformation(PwmError.ERROR_DB_UNAVAILABLE,"remove operation failed: " + e.getMessage());
+            lastError = errorInformation;
+            throw new DatabaseException(errorInformation);
+        } finally {
+            connectionPool.release(pooledConnection, broken);
         }
 
         if (traceLogging) {
@@ -574,80 +733,132 @@ public class DatabaseAccessorImpl implements PwmService, DatabaseAccessor {
             LOGGER.trace("remove operation result: " + JsonUtil.serializeMap(debugOutput, JsonUtil.Flag.PrettyPrint));
         }
 
-        updateStats(true, false);
+        updateStats(false, true);
         return result;
     }
 
+    /**
+     * Remove all of the keys as a single batched transaction.
+     */
+    @Override
+    public void removeAll(
+            final DatabaseTable table,
+            final Collection<String> keys
+    )
+            throws DatabaseException
+    {
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+
+        if (traceLogging) {
+            LOGGER.trace("attempting removeAll operation for table=" + table + ", keys=" + keys.size());
+        }
+
+        final String sqlText = "DELETE FROM " + table.toString() + " WHERE " + KEY_COLUMN + "=?";
+
+        final DatabaseConnectionPool.PooledConnection pooledConnection = borrowConnection();
+        final Connection connection = pooledConnection.getConnection();
+        boolean broken = true;
+        try {
+            connection.setAutoCommit(false);
+            final PreparedStatement statement = pooledConnection.prepareStatement(sqlText);
+            for (final String key : keys) {
+                statement.setString(1, key);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            connection.commit();
+            connection.setAutoCommit(true);
+            broken = false;
+        } catch (SQLException e) {
+            rollback(connection);
+            final ErrorInformation errorInformation = new ErrorInformation(PwmError.ERROR_DB_UNAVAILABLE,"removeAll operation failed: " + e.getMessage());
+            lastError = errorInformation;
+            throw new DatabaseException(errorInformation);
+        } finally {
+            connectionPool.release(pooledConnection, broken);
+        }
+
+        updateStats(0, keys.size());
+    }
+
     @Override
     public int size(final DatabaseTable table) throws
             DatabaseException {
-        preOperationCheck();
 
-        final StringBuilder sb = new StringBuilder();
-        sb.append("SELECT COUNT(" + KEY_COLUMN + ") FROM ").append(table.toString());
+        final String sqlText = "SELECT COUNT(" + KEY_COLUMN + ") FROM " + table.toString();
 
-        PreparedStatement statement = null;
+        final DatabaseConnectionPool.PooledConnection pooledConnection = borrowConnection();
+        boolean broken = true;
         ResultSet resultSet = null;
+        int returnValue = 0;
         try {
-            statement = connection.prepareStatement(sb.toString());
+            final PreparedStatement statement = pooledConnection.prepareStatement(sqlText);
             resultSet = statement.executeQuery();
             if (resultSet.next()) {
-                return resultSet.getInt(1);
+                returnValue = resultSet.getInt(1);
             }
+            broken = false;
         } catch (SQLException e) {
             final ErrorInformation errorInformation = new ErrorInformation(PwmError.ERROR_DB_UNAVAILABLE,"size operation failed: " + e.getMessage());
             lastError = errorInformation;
             throw new DatabaseException(errorInformation);
         } finally {
-            close(statement);
             close(resultSet);
+            connectionPool.release(pooledConnection, broken);
         }
 
         updateStats(true,false);
-        return 0;
+        return returnValue;
     }
 
 // -------------------------- ENUMERATIONS --------------------------
 
     // -------------------------- INNER CLASSES --------------------------
 
-    public class DBIterator implements ClosableIterator<String> {
+    /**
+     * Result set iteration over a pooled connection.  The connection is held until the iterator is exhausted or closed.
+     */
+    abstract class PooledResultIterator<T> implements ClosableIterator<T> {
         private final DatabaseTable table;
-        private final ResultSet resultSet;
-        private java.lang.String nextValue;
-        private boolean finished;
-
-        public DBIterator(final DatabaseTable table)
+        private final DatabaseConnectionPool pool;
+        private DatabaseConnectionPool.PooledConnection pooledConnection;
+        private Statement statement;
+        private ResultSet resultSet;
+        private T nextItem;
+        private boolean broken;
+
+        PooledResultIterator(final DatabaseTable table, final String sqlText)
                 throws DatabaseException
         {
             this.table = table;
-            this.resultSet = init();
-            getNextItem();
-        }
-
-        private ResultSet init() throws DatabaseException {
-            final StringBuilder sb = new StringBuilder();
-            sb.append("SELECT " + KEY_COLUMN + " FROM ").append(table.toString());
-
+            this.pooledConnection = borrowConnection();
+            this.pool = connectionPool;
             try {
-                final PreparedStatement statement = connection.prepareStatement(sb.toString());
-                return statement.executeQuery();
+                statement = pooledConnection.getConnection().createStatement();
+                resultSet = statement.executeQuery(sqlText);
             } catch (SQLException e) {
+                broken = true;
+                close();
                 final ErrorInformation errorInformation = new ErrorInformation(PwmError.ERROR_DB_UNAVAILABLE,"get iterator failed: " + e.getMessage());
                 lastError = errorInformation;
                 throw new DatabaseException(errorInformation);
             }
+            getNextItem();
         }
 
+        abstract T readItem(ResultSet resultSet) throws SQLException;
+
         public boolean hasNext() {
-            return !finished;
+            return nextItem != null;
         }
 
-        public java.lang.String next() {
-            if (finished) {
+        public T next() {
+            if (nextItem == null) {
                 throw new IllegalStateException("iterator completed");
             }
-            final String returnValue = nextValue;
+            final T returnValue = nextItem;
             getNextItem();
             return returnValue;
         }
@@ -658,27 +869,53 @@ public class DatabaseAccessorImpl implements PwmService, DatabaseAccessor {
 
         private void getNextItem() {
             try {
-                if (resultSet.next()) {
-                    nextValue = resultSet.getString(KEY_COLUMN);
+                if (resultSet != null && resultSet.next()) {
+                    nextItem = readItem(resultSet);
                 } else {
                     close();
                 }
             } catch (SQLException e) {
-                finished = true;
-                LOGGER.warn("unexpected error during result set iteration: " + e.getMessage());
+                LOGGER.warn("unexpected error during result set iteration of " + table + ": " + e.getMessage());
+                broken = true;
+                close();
             }
             updateStats(true,false);
         }
 
         public void close() {
-            if (resultSet != null) {
-                try {
-                    resultSet.close();
-                } catch (SQLException e) {
-                    LOGGER.error("error closing inner resultset in iterator: " + e.getMessage());
-                }
+            nextItem = null;
+            DatabaseAccessorImpl.close(resultSet);
+            DatabaseAccessorImpl.close(statement);
+            resultSet = null;
+            statement = null;
+            if (pooledConnection != null) {
+                pool.release(pooledConnection, broken);
+                pooledConnection = null;
             }
-            finished = true;
+        }
+    }
+
+    public class DBIterator extends PooledResultIterator<String> {
+        public DBIterator(final DatabaseTable table)
+                throws DatabaseException
+        {
+            super(table, "SELECT " + KEY_COLUMN + " FROM " + table.toString());
+        }
+
+        String readItem(final ResultSet resultSet) throws SQLException {
+            return resultSet.getString(KEY_COLUMN);
+        }
+    }
+
+    public class DBEntryIterator extends PooledResultIterator<Map.Entry<String, String>> {
+        public DBEntryIterator(final DatabaseTable table)
+                throws DatabaseException
+        {
+            super(table, "SELECT " + KEY_COLUMN + ", " + VALUE_COLUMN + " FROM " + table.toString());
+        }
+
+        Map.Entry<String, String> readItem(final ResultSet resultSet) throws SQLException {
+            return new AbstractMap.SimpleImmutableEntry<>(resultSet.getString(KEY_COLUMN), resultSet.getString(VALUE_COLUMN));
         }
     }
 
@@ -753,6 +990,7 @@ public class DatabaseAccessorImpl implements PwmService, DatabaseAccessor {
         }
     }
 
+
     public ServiceInfo serviceInfo()
     {
         if (status() == STATUS.OPEN) {
@@ -763,14 +1001,18 @@ public class DatabaseAccessorImpl implements PwmService, DatabaseAccessor {
     }
 
     private void updateStats(boolean readOperation, boolean writeOperation) {
+        updateStats(readOperation ? 1 : 0, writeOperation ? 1 : 0);
+    }
+
+    private void updateStats(final int readCount, final int writeCount) {
         if (pwmApplication != null && pwmApplication.getApplicationMode() == PwmApplication.MODE.RUNNING) {
             final StatisticsManager statisticsManager = pwmApplication.getStatisticsManager();
             if (statisticsManager != null && statisticsManager.status() == STATUS.OPEN) {
-                if (readOperation) {
-                    statisticsManager.updateEps(Statistic.EpsType.DB_READS,1);
+                if (readCount > 0) {
+                    statisticsManager.updateEps(Statistic.EpsType.DB_READS,readCount);
                 }
-                if (writeOperation) {
-                    statisticsManager.updateEps(Statistic.EpsType.DB_WRITES,1);
+                if (writeCount > 0) {
+                    statisticsManager.updateEps(Statistic.EpsType.DB_WRITES,writeCount);
                 }
             }
         }
@@ -0,0 +1,249 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.db;
+
+import password.pwm.error.ErrorInformation;
+import password.pwm.error.PwmError;
+import password.pwm.util.logging.PwmLogger;
+
+import java.sql.*;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool of JDBC connections used by {@link DatabaseAccessorImpl}.  Each pooled connection keeps its own cache
+ * of prepared statements.  Connections that have been idle for a while are validated before they are handed out, and
+ * connections returned as broken are discarded and replaced on demand.
+ */
+class DatabaseConnectionPool {
+
+    private static final PwmLogger LOGGER = PwmLogger.forClass(DatabaseConnectionPool.class);
+
+    private static final long VALIDATION_IDLE_MS = 30 * 1000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final Driver driver;
+    private final String connectionURL;
+    private final Properties connectionProperties;
+    private final String validationQuery;
+    private final int statementCacheSize;
+    private final long maxWaitMs;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private volatile boolean closed = false;
+
+    DatabaseConnectionPool(
+            final Driver driver,
+            final String connectionURL,
+            final Properties connectionProperties,
+            final String validationQuery,
+            final int maxConnections,
+            final int statementCacheSize,
+            final long maxWaitMs
+    )
+    {
+        this.driver = driver;
+        this.connectionURL = connectionURL;
+        this.connectionProperties = connectionProperties;
+        this.validationQuery = validationQuery;
+        this.statementCacheSize = statementCacheSize;
+        this.maxWaitMs = maxWaitMs;
+        this.permits = new Semaphore(Math.max(1, maxConnections), true);
+    }
+
+    /**
+     * Borrow a connection, waiting up to the configured time if all connections are in use.  Every borrowed connection
+     * must be handed back to {@link #release(PooledConnection, boolean)}.
+     */
+    PooledConnection borrow()
+            throws DatabaseException
+    {
+        if (closed) {
+            throw new DatabaseException(new ErrorInformation(PwmError.ERROR_DB_UNAVAILABLE, "database connection pool is closed"));
+        }
+
+        try {
+            if (!permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) {
+                throw new DatabaseException(new ErrorInformation(PwmError.ERROR_DB_UNAVAILABLE,
+                        "timed out after " + maxWaitMs + "ms waiting for an available database connection"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException(new ErrorInformation(PwmError.ERROR_DB_UNAVAILABLE, "interrupted while waiting for a database connection"));
+        }
+
+        try {
+            PooledConnection pooledConnection;
+            while ((pooledConnection = idleConnections.pollFirst()) != null) {
+                if (pooledConnection.isUsable()) {
+                    return pooledConnection;
+                }
+                pooledConnection.close();
+            }
+            return new PooledConnection(openConnection());
+        } catch (DatabaseException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Return a borrowed connection to the pool.
+     *
+     * @param broken if true the connection is closed instead of being reused, typically after an unexpected {@link SQLException}.
+     */
+    void release(final PooledConnection pooledConnection, final boolean broken) {
+        if (pooledConnection == null) {
+            return;
+        }
+        try {
+            if (broken || closed) {
+                pooledConnection.close();
+            } else {
+                pooledConnection.lastUsed = System.currentTimeMillis();
+                idleConnections.offerFirst(pooledConnection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    void close() {
+        closed = true;
+        PooledConnection pooledConnection;
+        while ((pooledConnection = idleConnections.pollFirst()) != null) {
+            pooledConnection.close();
+        }
+    }
+
+    private Connection openConnection()
+            throws DatabaseException
+    {
+        try {
+            final Connection connection = driver.connect(connectionURL, connectionProperties);
+            if (connection == null) {
+                throw new SQLException("driver does not accept connection url " + connectionURL);
+            }
+            connection.setAutoCommit(true);
+            LOGGER.trace("opened new pooled connection to database " + connectionURL);
+            return connection;
+        } catch (SQLException e) {
+            final String errorMsg = "error connecting to database: " + e.getMessage();
+            throw new DatabaseException(new ErrorInformation(PwmError.ERROR_DB_UNAVAILABLE, errorMsg));
+        }
+    }
+
+    class PooledConnection {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statementCache;
+        private long lastUsed = System.currentTimeMillis();
+
+        private PooledConnection(final Connection connection) {
+            this.connection = connection;
+            this.statementCache = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, PreparedStatement> eldest) {
+                    if (this.size() > statementCacheSize) {
+                        closeStatement(eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        Connection getConnection() {
+            return connection;
+        }
+
+        /**
+         * @return a cached prepared statement for the sql text.  The statement must not be closed by the caller.
+         */
+        PreparedStatement prepareStatement(final String sqlText)
+                throws SQLException
+        {
+            PreparedStatement statement = statementCache.get(sqlText);
+            if (statement == null) {
+                statement = connection.prepareStatement(sqlText);
+                if (statementCacheSize > 0) {
+                    statementCache.put(sqlText, statement);
+                }
+            } else {
+                statement.clearParameters();
+            }
+            return statement;
+        }
+
+        private boolean isUsable() {
+            if (System.currentTimeMillis() - lastUsed < VALIDATION_IDLE_MS) {
+                return true;
+            }
+
+            try {
+                return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (AbstractMethodError | SQLException e) {
+                /* driver does not implement isValid(), fall back to a query */
+            }
+
+            Statement statement = null;
+            try {
+                statement = connection.createStatement();
+                statement.executeQuery(validationQuery).close();
+                return true;
+            } catch (SQLException e) {
+                LOGGER.debug("discarding pooled database connection that failed validation: " + e.getMessage());
+                return false;
+            } finally {
+                closeStatement(statement);
+            }
+        }
+
+        private void close() {
+            for (final Iterator<PreparedStatement> iterator = statementCache.values().iterator(); iterator.hasNext(); ) {
+                closeStatement(iterator.next());
+                iterator.remove();
+            }
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                LOGGER.debug("error while closing pooled database connection: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void closeStatement(final Statement statement) {
+        if (statement != null) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                LOGGER.debug("error while closing cached statement: " + e.getMessage());
+            }
+        }
+    }
+}
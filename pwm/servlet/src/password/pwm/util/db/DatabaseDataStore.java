@@ -27,6 +27,8 @@ import password.pwm.error.PwmDataStoreException;
 import password.pwm.util.ClosableIterator;
 import password.pwm.util.DataStore;
 
+import java.util.Map;
+
 public class DatabaseDataStore implements DataStore {
     private final DatabaseAccessorImpl databaseAccessor;
     private final DatabaseTable table;
@@ -52,6 +54,10 @@ public class DatabaseDataStore implements DataStore {
         return databaseAccessor.iterator(table);
     }
 
+    public ClosableIterator<Map.Entry<String, String>> entryIterator() throws PwmDataStoreException {
+        return databaseAccessor.entryIterator(table);
+    }
+
     public Status status() {
         final PwmService.STATUS dbStatus = databaseAccessor.status();
         if (dbStatus == null) {
@@ -77,6 +83,10 @@ public class DatabaseDataStore implements DataStore {
         return databaseAccessor.put(table, key, value);
     }
 
+    public void putAll(Map<String, String> keyValueMap) throws PwmDataStoreException {
+        databaseAccessor.putAll(table, keyValueMap);
+    }
+
     public boolean remove(String key) throws PwmDataStoreException {
         return databaseAccessor.remove(table, key);
     }
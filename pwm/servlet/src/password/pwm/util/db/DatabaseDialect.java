@@ -0,0 +1,96 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.db;
+
+/**
+ * SQL variations for the database products that support a single statement insert-or-update.  Products that are not
+ * recognized use {@link #GENERIC}, which performs an update followed by an insert if no row was updated.
+ */
+enum DatabaseDialect {
+    H2 {
+        String upsertStatement(final String table, final String keyColumn, final String valueColumn) {
+            return "MERGE INTO " + table + " (" + keyColumn + ", " + valueColumn + ") KEY (" + keyColumn + ") VALUES (?, ?)";
+        }
+    },
+    POSTGRESQL {
+        String upsertStatement(final String table, final String keyColumn, final String valueColumn) {
+            return "INSERT INTO " + table + " (" + keyColumn + ", " + valueColumn + ") VALUES (?, ?)"
+                    + " ON CONFLICT (" + keyColumn + ") DO UPDATE SET " + valueColumn + " = EXCLUDED." + valueColumn;
+        }
+    },
+    MYSQL {
+        String upsertStatement(final String table, final String keyColumn, final String valueColumn) {
+            return "INSERT INTO " + table + " (" + keyColumn + ", " + valueColumn + ") VALUES (?, ?)"
+                    + " ON DUPLICATE KEY UPDATE " + valueColumn + " = VALUES(" + valueColumn + ")";
+        }
+    },
+    ORACLE {
+        String upsertStatement(final String table, final String keyColumn, final String valueColumn) {
+            return "MERGE INTO " + table + " t USING (SELECT ? " + keyColumn + ", ? " + valueColumn + " FROM dual) s"
+                    + " ON (t." + keyColumn + " = s." + keyColumn + ")"
+                    + " WHEN MATCHED THEN UPDATE SET t." + valueColumn + " = s." + valueColumn
+                    + " WHEN NOT MATCHED THEN INSERT (" + keyColumn + ", " + valueColumn + ") VALUES (s." + keyColumn + ", s." + valueColumn + ")";
+        }
+    },
+    MSSQL {
+        String upsertStatement(final String table, final String keyColumn, final String valueColumn) {
+            return "MERGE INTO " + table + " AS t USING (VALUES (?, ?)) AS s (" + keyColumn + ", " + valueColumn + ")"
+                    + " ON t." + keyColumn + " = s." + keyColumn
+                    + " WHEN MATCHED THEN UPDATE SET " + valueColumn + " = s." + valueColumn
+                    + " WHEN NOT MATCHED THEN INSERT (" + keyColumn + ", " + valueColumn + ") VALUES (s." + keyColumn + ", s." + valueColumn + ");";
+        }
+    },
+    GENERIC {
+        String upsertStatement(final String table, final String keyColumn, final String valueColumn) {
+            return null;
+        }
+    },
+
+    ;
+
+    /**
+     * @return a statement taking the key and value as its two parameters, or null if the dialect has no upsert support.
+     */
+    abstract String upsertStatement(String table, String keyColumn, String valueColumn);
+
+    static DatabaseDialect forProduct(final String productName, final int majorVersion, final int minorVersion) {
+        if (productName == null) {
+            return GENERIC;
+        }
+
+        final String name = productName.toLowerCase();
+        if (name.startsWith("h2")) {
+            return H2;
+        } else if (name.contains("postgresql")) {
+            // ON CONFLICT is only available from 9.5
+            return majorVersion > 9 || (majorVersion == 9 && minorVersion >= 5) ? POSTGRESQL : GENERIC;
+        } else if (name.contains("mysql") || name.contains("mariadb")) {
+            return MYSQL;
+        } else if (name.contains("oracle")) {
+            return ORACLE;
+        } else if (name.contains("microsoft sql server")) {
+            return MSSQL;
+        }
+        return GENERIC;
+    }
+}
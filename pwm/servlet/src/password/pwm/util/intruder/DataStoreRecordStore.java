@@ -33,6 +33,7 @@ import password.pwm.util.logging.PwmLogger;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 class DataStoreRecordStore implements RecordStore {
     private static final PwmLogger LOGGER = PwmLogger.forClass(DataStoreRecordStore.class);
@@ -66,6 +67,10 @@ class DataStoreRecordStore implements RecordStore {
             return null;
         }
 
+        return decode(key, value);
+    }
+
+    private IntruderRecord decode(final String key, final String value) {
         if (value == null || value.length() < 1) {
             return null;
         }
@@ -94,16 +99,16 @@ class DataStoreRecordStore implements RecordStore {
     @Override
     public ClosableIterator<IntruderRecord> iterator() throws PwmOperationalException {
         try {
-            return new RecordIterator(dataStore.iterator());
+            return new RecordIterator(dataStore.entryIterator());
         } catch (PwmDataStoreException e) {
             throw new PwmOperationalException(PwmError.ERROR_UNKNOWN,"iterator unavailable:" + e.getMessage());
         }
     }
 
     private class RecordIterator implements ClosableIterator<IntruderRecord> {
-        private final ClosableIterator<String> dbIterator;
+        private final ClosableIterator<Map.Entry<String, String>> dbIterator;
 
-        private RecordIterator(ClosableIterator<String> dbIterator) {
+        private RecordIterator(ClosableIterator<Map.Entry<String, String>> dbIterator) {
             this.dbIterator = dbIterator;
         }
 
@@ -114,12 +119,8 @@ class DataStoreRecordStore implements RecordStore {
 
         @Override
         public IntruderRecord next() {
-            final String key = dbIterator.next();
-            try {
-                return read(key);
-            } catch (PwmUnrecoverableException e) {
-                throw new IllegalStateException(e);
-            }
+            final Map.Entry<String, String> entry = dbIterator.next();
+            return decode(entry.getKey(), entry.getValue());
         }
 
         @Override
@@ -168,12 +169,13 @@ class DataStoreRecordStore implements RecordStore {
 
     private List<String> discoverPurgableKeys(final TimeDuration maxRecordAge) {
         final List<String> recordsToRemove = new ArrayList<>();
-        ClosableIterator<String> dbIterator = null;
+        ClosableIterator<Map.Entry<String, String>> dbIterator = null;
         try {
-            dbIterator = dataStore.iterator();
+            dbIterator = dataStore.entryIterator();
             while (intruderManager.status() == PwmService.STATUS.OPEN && dbIterator.hasNext() && recordsToRemove.size() < MAX_REMOVALS_PER_CYCLE) {
-                final String key = dbIterator.next();
-                final IntruderRecord record = read(key);
+                final Map.Entry<String, String> entry = dbIterator.next();
+                final String key = entry.getKey();
+                final IntruderRecord record = decode(key, entry.getValue());
                 if (record != null) {
                     if (TimeDuration.fromCurrent(record.getTimeStamp()).isLongerThan(maxRecordAge)) {
                         recordsToRemove.add(key);
@@ -185,8 +187,6 @@ class DataStoreRecordStore implements RecordStore {
             }
         } catch (PwmDataStoreException e) {
             LOGGER.error("unable to perform intruder table cleanup: " + e.getMessage());
-        } catch (PwmUnrecoverableException e) {
-            LOGGER.error("unable to perform intruder table cleanup: " + e.getMessage());
         } finally {
             if (dbIterator != null) {
                 dbIterator.close();
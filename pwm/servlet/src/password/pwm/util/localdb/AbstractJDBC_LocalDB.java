@@ -24,6 +24,7 @@ package password.pwm.util.localdb;
 
 import password.pwm.error.ErrorInformation;
 import password.pwm.error.PwmError;
+import password.pwm.util.ClosableIterator;
 import password.pwm.util.logging.PwmLogger;
 
 import java.io.File;
@@ -42,12 +43,14 @@ public abstract class AbstractJDBC_LocalDB implements LocalDBProvider {
 
     private static final String WIDTH_KEY = String.valueOf(LocalDB.MAX_KEY_LENGTH);
 
+    private static final int MAX_IN_CLAUSE_KEYS = 100;
+
     protected Driver driver;
     protected File dbDirectory;
 
     // cache of dbIterators
-    private final Set<LocalDB.LocalDBIterator<String>> dbIterators = Collections.newSetFromMap(
-            new ConcurrentHashMap<LocalDB.LocalDBIterator<String>, Boolean>());
+    private final Set<ClosableIterator> dbIterators = Collections.newSetFromMap(
+            new ConcurrentHashMap<ClosableIterator, Boolean>());
 
     // sql db connection
     protected Connection dbConnection;
@@ -224,6 +227,96 @@ public abstract class AbstractJDBC_LocalDB implements LocalDBProvider {
         return null;
     }
 
+    public Map<String, String> getAll(final LocalDB.DB db, final Collection<String> keys)
+            throws LocalDBException {
+        preCheck(false);
+        final Map<String, String> results = new LinkedHashMap<>();
+        try {
+            LOCK.readLock().lock();
+            for (final List<String> keyChunk : chunkKeys(keys)) {
+                PreparedStatement statement = null;
+                ResultSet resultSet = null;
+                try {
+                    statement = prepareInStatement(db, KEY_COLUMN + ", " + VALUE_COLUMN, keyChunk);
+                    resultSet = statement.executeQuery();
+                    while (resultSet.next()) {
+                        results.put(resultSet.getString(KEY_COLUMN), resultSet.getString(VALUE_COLUMN));
+                    }
+                } finally {
+                    close(statement);
+                    close(resultSet);
+                }
+            }
+        } catch (SQLException ex) {
+            throw new LocalDBException(new ErrorInformation(PwmError.ERROR_LOCALDB_UNAVAILABLE,ex.getMessage()));
+        } finally {
+            LOCK.readLock().unlock();
+        }
+        return results;
+    }
+
+    public boolean containsAny(final LocalDB.DB db, final Collection<String> keys)
+            throws LocalDBException {
+        preCheck(false);
+        try {
+            LOCK.readLock().lock();
+            for (final List<String> keyChunk : chunkKeys(keys)) {
+                PreparedStatement statement = null;
+                ResultSet resultSet = null;
+                try {
+                    statement = prepareInStatement(db, KEY_COLUMN, keyChunk);
+                    statement.setMaxRows(1);
+                    resultSet = statement.executeQuery();
+                    if (resultSet.next()) {
+                        return true;
+                    }
+                } finally {
+                    close(statement);
+                    close(resultSet);
+                }
+            }
+        } catch (SQLException ex) {
+            throw new LocalDBException(new ErrorInformation(PwmError.ERROR_LOCALDB_UNAVAILABLE,ex.getMessage()));
+        } finally {
+            LOCK.readLock().unlock();
+        }
+        return false;
+    }
+
+    private PreparedStatement prepareInStatement(final LocalDB.DB db, final String columns, final List<String> keys)
+            throws SQLException
+    {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("SELECT ").append(columns).append(" FROM ").append(db.toString());
+        sb.append(" WHERE " + KEY_COLUMN + " IN (");
+        for (int i = 0; i < keys.size(); i++) {
+            sb.append(i == 0 ? "?" : ",?");
+        }
+        sb.append(")");
+
+        final PreparedStatement statement = dbConnection.prepareStatement(sb.toString());
+        for (int i = 0; i < keys.size(); i++) {
+            statement.setString(i + 1, keys.get(i));
+        }
+        return statement;
+    }
+
+    private static List<List<String>> chunkKeys(final Collection<String> keys) {
+        final List<List<String>> chunks = new ArrayList<>();
+        List<String> currentChunk = new ArrayList<>();
+        for (final String key : new LinkedHashSet<>(keys)) {
+            if (currentChunk.size() >= MAX_IN_CLAUSE_KEYS) {
+                chunks.add(currentChunk);
+                currentChunk = new ArrayList<>();
+            }
+            currentChunk.add(key);
+        }
+        if (!currentChunk.isEmpty()) {
+            chunks.add(currentChunk);
+        }
+        return chunks;
+    }
+
     public void init(final File dbDirectory, final Map<String, String> initParams, final boolean readOnly)
             throws LocalDBException {
         this.dbDirectory = dbDirectory;
@@ -254,6 +347,19 @@ public abstract class AbstractJDBC_LocalDB implements LocalDBProvider {
         }
     }
 
+    public LocalDB.LocalDBEntryIterator entryIterator(final LocalDB.DB db, final LocalDB.KeyRange keyRange)
+            throws LocalDBException {
+        preCheck(false);
+        if (dbIterators.size() > ITERATOR_LIMIT) {
+            throw new LocalDBException(new ErrorInformation(PwmError.ERROR_UNKNOWN,"over " + ITERATOR_LIMIT + " iterators are outstanding, maximum limit exceeded"));
+        }
+
+        final DbEntryIterator iterator = new DbEntryIterator(db, keyRange);
+        dbIterators.add(iterator);
+        LOGGER.trace(this.getClass().getSimpleName() + " issued entry iterator for " + db.toString() + ", outstanding iterators: " + dbIterators.size());
+        return iterator;
+    }
+
     public void putAll(final LocalDB.DB db, final Map<String, String> keyValueMap)
             throws LocalDBException {
         preCheck(true);
@@ -399,10 +505,10 @@ public abstract class AbstractJDBC_LocalDB implements LocalDBProvider {
         try {
             LOCK.writeLock().lock();
 
-            final Set<LocalDB.LocalDBIterator<String>> copiedIterators = new HashSet<>();
+            final Set<ClosableIterator> copiedIterators = new HashSet<>();
             copiedIterators.addAll(dbIterators);
 
-            for (final LocalDB.LocalDBIterator dbIterator : copiedIterators) {
+            for (final ClosableIterator dbIterator : copiedIterators) {
                 dbIterator.close();
             }
 
@@ -527,6 +633,86 @@ public abstract class AbstractJDBC_LocalDB implements LocalDBProvider {
         }
     }
 
+    private class DbEntryIterator implements LocalDB.LocalDBEntryIterator {
+        private final LocalDB.DB db;
+        private PreparedStatement statement;
+        private ResultSet resultSet;
+        private Map.Entry<String, String> nextEntry;
+
+        private DbEntryIterator(final LocalDB.DB db, final LocalDB.KeyRange keyRange) throws LocalDBException {
+            this.db = db;
+
+            final StringBuilder sb = new StringBuilder();
+            sb.append("SELECT " + KEY_COLUMN + ", " + VALUE_COLUMN + " FROM ").append(db.toString());
+            final List<String> parameters = new ArrayList<>();
+            if (keyRange != null && (keyRange.getFromKey() != null || keyRange.getToKey() != null)) {
+                sb.append(" WHERE ");
+                if (keyRange.getFromKey() != null) {
+                    sb.append(KEY_COLUMN + " >= ?");
+                    parameters.add(keyRange.getFromKey());
+                }
+                if (keyRange.getToKey() != null) {
+                    sb.append(parameters.isEmpty() ? "" : " AND ").append(KEY_COLUMN + " < ?");
+                    parameters.add(keyRange.getToKey());
+                }
+            }
+            if (keyRange != null) {
+                sb.append(" ORDER BY " + KEY_COLUMN);
+            }
+
+            try {
+                statement = dbConnection.prepareStatement(sb.toString());
+                for (int i = 0; i < parameters.size(); i++) {
+                    statement.setString(i + 1, parameters.get(i));
+                }
+                resultSet = statement.executeQuery();
+            } catch (SQLException ex) {
+                close();
+                throw new LocalDBException(new ErrorInformation(PwmError.ERROR_LOCALDB_UNAVAILABLE,ex.getMessage()));
+            }
+            fetchNext();
+        }
+
+        private void fetchNext() {
+            try {
+                if (resultSet != null && resultSet.next()) {
+                    nextEntry = new AbstractMap.SimpleImmutableEntry<>(resultSet.getString(KEY_COLUMN), resultSet.getString(VALUE_COLUMN));
+                } else {
+                    close();
+                }
+            } catch (SQLException e) {
+                close();
+                throw new IllegalStateException("error during db iteration of " + db.toString() + ": " + e.getMessage());
+            }
+        }
+
+        public boolean hasNext() {
+            return nextEntry != null;
+        }
+
+        public Map.Entry<String, String> next() {
+            if (nextEntry == null) {
+                throw new NoSuchElementException();
+            }
+            final Map.Entry<String, String> returnEntry = nextEntry;
+            fetchNext();
+            return returnEntry;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("JDBC LocalDB entry iterator does not support removals");
+        }
+
+        public void close() {
+            nextEntry = null;
+            AbstractJDBC_LocalDB.close(resultSet);
+            AbstractJDBC_LocalDB.close(statement);
+            resultSet = null;
+            statement = null;
+            dbIterators.remove(this);
+        }
+    }
+
     public File getFileLocation() {
         return dbDirectory;
     }
@@ -60,6 +60,9 @@ public class Berkeley_LocalDB implements LocalDBProvider {
     // cache of dbIterators
     private final Set<LocalDB.LocalDBIterator<String>> dbIterators = Collections.newSetFromMap(new ConcurrentHashMap<LocalDB.LocalDBIterator<String>,Boolean>());
 
+    // cache of cursor backed entry iterators, these must be closed before their database is closed or truncated.
+    private final Set<DbEntryIterator> dbEntryIterators = Collections.newSetFromMap(new ConcurrentHashMap<DbEntryIterator,Boolean>());
+
     private LocalDB.Status status = LocalDB.Status.NEW;
 
     private boolean readOnly;
@@ -129,6 +132,8 @@ public class Berkeley_LocalDB implements LocalDBProvider {
         LOGGER.debug("LocalDB closing....");
         status = LocalDB.Status.CLOSED;
 
+        closeEntryIterators(null);
+
         for (final DB key : cachedDatabases.keySet()) {
             try {
                 cachedDatabases.get(key).close();
@@ -185,6 +190,72 @@ public class Berkeley_LocalDB implements LocalDBProvider {
         }
     }
 
+    public Map<String, String> getAll(final DB db, final Collection<String> keys)
+            throws LocalDBException {
+        preCheck(false);
+        final Map<String, String> results = new LinkedHashMap<>();
+        if (keys.isEmpty()) {
+            return results;
+        }
+
+        Cursor cursor = null;
+        try {
+            cursor = cachedDatabases.get(db).openCursor(null, CursorConfig.READ_COMMITTED);
+            final DatabaseEntry keyEntry = new DatabaseEntry();
+            final DatabaseEntry valueEntry = new DatabaseEntry();
+            for (final String key : new TreeSet<>(keys)) {
+                STRING_TUPLE.objectToEntry(key, keyEntry);
+                if (cursor.getSearchKey(keyEntry, valueEntry, LockMode.DEFAULT) == OperationStatus.SUCCESS) {
+                    results.put(key, STRING_TUPLE.entryToObject(valueEntry));
+                }
+            }
+        } catch (DatabaseException e) {
+            LOGGER.error("error during multiple-get: " + e.toString());
+            throw new LocalDBException(new ErrorInformation(PwmError.ERROR_LOCALDB_UNAVAILABLE,e.toString()));
+        } finally {
+            closeCursor(cursor);
+        }
+        return results;
+    }
+
+    public boolean containsAny(final DB db, final Collection<String> keys)
+            throws LocalDBException {
+        preCheck(false);
+        if (keys.isEmpty()) {
+            return false;
+        }
+
+        Cursor cursor = null;
+        try {
+            cursor = cachedDatabases.get(db).openCursor(null, CursorConfig.READ_COMMITTED);
+            final DatabaseEntry keyEntry = new DatabaseEntry();
+            final DatabaseEntry valueEntry = new DatabaseEntry();
+            valueEntry.setPartial(0, 0, true); // only the key is of interest, skip reading the value
+            for (final String key : new TreeSet<>(keys)) {
+                STRING_TUPLE.objectToEntry(key, keyEntry);
+                if (cursor.getSearchKey(keyEntry, valueEntry, LockMode.DEFAULT) == OperationStatus.SUCCESS) {
+                    return true;
+                }
+            }
+        } catch (DatabaseException e) {
+            LOGGER.error("error during multiple-contains check: " + e.toString());
+            throw new LocalDBException(new ErrorInformation(PwmError.ERROR_LOCALDB_UNAVAILABLE,e.toString()));
+        } finally {
+            closeCursor(cursor);
+        }
+        return false;
+    }
+
+    private static void closeCursor(final Cursor cursor) {
+        if (cursor != null) {
+            try {
+                cursor.close();
+            } catch (DatabaseException e) {
+                LOGGER.error("error while closing cursor: " + e.getMessage());
+            }
+        }
+    }
+
     public void init(final File dbDirectory, final Map<String, String> initParameters, final boolean readOnly)
             throws LocalDBException {
         LOGGER.trace("begin initialization");
@@ -223,6 +294,30 @@ public class Berkeley_LocalDB implements LocalDBProvider {
         }
     }
 
+    public LocalDB.LocalDBEntryIterator entryIterator(final DB db, final LocalDB.KeyRange keyRange)
+            throws LocalDBException
+    {
+        preCheck(false);
+        if (dbIterators.size() + dbEntryIterators.size() > ITERATOR_LIMIT) {
+            throw new LocalDBException(new ErrorInformation(PwmError.ERROR_UNKNOWN,"over " + ITERATOR_LIMIT + " iterators are outstanding, maximum limit exceeded"));
+        }
+        try {
+            final DbEntryIterator iterator = new DbEntryIterator(db, keyRange);
+            LOGGER.trace(this.getClass().getSimpleName() + " issued entry iterator for " + db.toString() + ", outstanding entry iterators: " + dbEntryIterators.size());
+            return iterator;
+        } catch (DatabaseException e) {
+            throw new LocalDBException(new ErrorInformation(PwmError.ERROR_LOCALDB_UNAVAILABLE,e.toString()));
+        }
+    }
+
+    private void closeEntryIterators(final DB db) {
+        for (final DbEntryIterator iterator : new ArrayList<>(dbEntryIterators)) {
+            if (db == null || db == iterator.db) {
+                iterator.close();
+            }
+        }
+    }
+
     public void putAll(final DB db, final Map<String, String> keyValueMap)
             throws LocalDBException {
         preCheck(true);
@@ -287,6 +382,7 @@ public class Berkeley_LocalDB implements LocalDBProvider {
     public void truncate(final DB db)
             throws LocalDBException {
         preCheck(true);
+        closeEntryIterators(db);
         try {
             cachedMaps.remove(db);
             cachedDatabases.remove(db).close();
@@ -332,6 +428,78 @@ public class Berkeley_LocalDB implements LocalDBProvider {
         }
     }
 
+    private class DbEntryIterator implements LocalDB.LocalDBEntryIterator {
+        private final DB db;
+        private final LocalDB.KeyRange keyRange;
+        private final DatabaseEntry keyEntry = new DatabaseEntry();
+        private final DatabaseEntry valueEntry = new DatabaseEntry();
+        private Cursor cursor;
+        private Map.Entry<String, String> nextEntry;
+
+        private DbEntryIterator(final DB db, final LocalDB.KeyRange keyRange) throws DatabaseException {
+            this.db = db;
+            this.keyRange = keyRange;
+
+            // uncommitted reads so the cursor holds no locks, callers commonly remove records as they iterate.
+            cursor = cachedDatabases.get(db).openCursor(null, CursorConfig.READ_UNCOMMITTED);
+            dbEntryIterators.add(this);
+
+            final OperationStatus result;
+            if (keyRange != null && keyRange.getFromKey() != null) {
+                STRING_TUPLE.objectToEntry(keyRange.getFromKey(), keyEntry);
+                result = cursor.getSearchKeyRange(keyEntry, valueEntry, LockMode.READ_UNCOMMITTED);
+            } else {
+                result = cursor.getFirst(keyEntry, valueEntry, LockMode.READ_UNCOMMITTED);
+            }
+            readCurrent(result);
+        }
+
+        private void readCurrent(final OperationStatus result) {
+            nextEntry = null;
+            if (result == OperationStatus.SUCCESS) {
+                final String key = STRING_TUPLE.entryToObject(keyEntry);
+                if (keyRange == null || !keyRange.isBeyond(key)) {
+                    nextEntry = new AbstractMap.SimpleImmutableEntry<>(key, STRING_TUPLE.entryToObject(valueEntry));
+                }
+            }
+            if (nextEntry == null) {
+                close();
+            }
+        }
+
+        public boolean hasNext() {
+            return nextEntry != null;
+        }
+
+        public Map.Entry<String, String> next() {
+            if (nextEntry == null) {
+                throw new NoSuchElementException();
+            }
+            final Map.Entry<String, String> returnEntry = nextEntry;
+            try {
+                readCurrent(cursor.getNext(keyEntry, valueEntry, LockMode.READ_UNCOMMITTED));
+            } catch (DatabaseException e) {
+                close();
+                throw new IllegalStateException("error during db iteration of " + db.toString() + ": " + e.getMessage());
+            }
+            return returnEntry;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("Berkeley LocalDB entry iterator does not support removals");
+        }
+
+        public synchronized void close() {
+            nextEntry = null;
+            if (cursor != null) {
+                closeCursor(cursor);
+                cursor = null;
+                dbEntryIterators.remove(this);
+                LOGGER.trace(this.getClass().getSimpleName() + " closed entry iterator for " + db.toString() + ", outstanding entry iterators: " + dbEntryIterators.size());
+            }
+        }
+    }
+
     public File getFileLocation() {
         if (environment == null) {
             return null;
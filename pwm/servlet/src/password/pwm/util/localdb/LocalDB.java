@@ -63,9 +63,48 @@ public interface LocalDB {
     String get(DB db, String key)
             throws LocalDBException;
 
+    /**
+     * Read the values of multiple keys.  Implementations perform the lookups as a single operation against the
+     * underlying store rather than one operation per key.
+     *
+     * @param db   database to perform the operation on
+     * @param keys keys to read
+     * @return map of the keys that exist to their values, keys that do not exist are omitted
+     * @throws LocalDBException if there is an error reading the store
+     */
+    @ReadOperation
+    Map<String, String> getAll(DB db, Collection<String> keys)
+            throws LocalDBException;
+
+    /**
+     * Test for the presence of any of multiple keys.  Implementations stop examining keys once a match is found.
+     *
+     * @param db   database to perform the operation on
+     * @param keys keys to test
+     * @return true if at least one of the keys exists
+     * @throws LocalDBException if there is an error reading the store
+     */
+    @ReadOperation
+    boolean containsAny(DB db, Collection<String> keys)
+            throws LocalDBException;
+
     LocalDBIterator<String> iterator(DB db)
             throws LocalDBException;
 
+    /**
+     * Iterate the keys and values of a database in a single pass over the underlying store, avoiding a separate
+     * {@link #get(DB, String)} for each key.  Without a key range, entries are returned in the native key order of
+     * the implementation; with a key range (including an unbounded one) they are returned in ascending key order.
+     * The returned iterator must be closed by the caller.
+     *
+     * @param db       database to iterate
+     * @param keyRange optional range of keys to return, or null for all keys
+     * @return iterator of key/value entries
+     * @throws LocalDBException if there is an error reading the store
+     */
+    LocalDBEntryIterator entryIterator(DB db, KeyRange keyRange)
+            throws LocalDBException;
+
     @WriteOperation
     void putAll(DB db, Map<String, String> keyValueMap)
             throws LocalDBException;
@@ -133,6 +172,13 @@ public interface LocalDB {
         TEMP,
         SYSLOG_QUEUE,
         CACHE,
+        AUDIT_INDEX_TIME,
+        AUDIT_INDEX_PERPETRATOR,
+        AUDIT_INDEX_TARGET,
+        AUDIT_INDEX_EVENT,
+        EVENTLOG_SEGMENTS,
+        EMAIL_QUEUE_LEASES,
+        SMS_QUEUE_LEASES,
     }
 
 
@@ -152,6 +198,69 @@ public interface LocalDB {
     public static interface LocalDBIterator<K> extends ClosableIterator<String> {
     }
 
+    public static interface LocalDBEntryIterator extends ClosableIterator<Map.Entry<String, String>> {
+    }
+
+    /**
+     * A range of keys, bounded by an inclusive lower key and an exclusive upper key.  Either bound may be null,
+     * in which case the range is unbounded in that direction.  Keys are compared using {@link String#compareTo(String)}.
+     */
+    public static class KeyRange implements Serializable {
+        private final String fromKey;
+        private final String toKey;
+
+        private KeyRange(final String fromKey, final String toKey) {
+            this.fromKey = fromKey;
+            this.toKey = toKey;
+        }
+
+        public static KeyRange between(final String fromKey, final String toKey) {
+            return new KeyRange(fromKey, toKey);
+        }
+
+        public static KeyRange prefix(final String prefix) {
+            if (prefix == null || prefix.isEmpty()) {
+                return new KeyRange(null, null);
+            }
+
+            // the upper bound is the prefix with its last char incremented, dropping any trailing max value chars.
+            final StringBuilder upperBound = new StringBuilder(prefix);
+            while (upperBound.length() > 0 && upperBound.charAt(upperBound.length() - 1) == Character.MAX_VALUE) {
+                upperBound.setLength(upperBound.length() - 1);
+            }
+            if (upperBound.length() == 0) {
+                return new KeyRange(prefix, null);
+            }
+            final int lastIndex = upperBound.length() - 1;
+            upperBound.setCharAt(lastIndex, (char) (upperBound.charAt(lastIndex) + 1));
+            return new KeyRange(prefix, upperBound.toString());
+        }
+
+        public String getFromKey() {
+            return fromKey;
+        }
+
+        public String getToKey() {
+            return toKey;
+        }
+
+        public boolean includes(final String key) {
+            return (fromKey == null || key.compareTo(fromKey) >= 0) && !isBeyond(key);
+        }
+
+        /**
+         * @return true if the key is at or above the upper bound, so no later key in sorted order can be in range.
+         */
+        public boolean isBeyond(final String key) {
+            return toKey != null && key.compareTo(toKey) >= 0;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + (fromKey == null ? "" : fromKey) + "," + (toKey == null ? "" : toKey) + ")";
+        }
+    }
+
     public static class TransactionItem implements Serializable, Comparable {
         private final DB db;
         private final String key;
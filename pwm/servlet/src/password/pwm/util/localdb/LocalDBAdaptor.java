@@ -81,6 +81,28 @@ public class LocalDBAdaptor implements LocalDB {
         return value;
     }
 
+    public Map<String, String> getAll(final DB db, final Collection<String> keys) throws LocalDBException {
+        ParameterValidator.validateDBValue(db);
+        for (final String key : keys) {
+            ParameterValidator.validateKeyValue(key);
+        }
+
+        final Map<String, String> values = innerDB.getAll(db, keys);
+        markRead(keys.size());
+        return values;
+    }
+
+    public boolean containsAny(final DB db, final Collection<String> keys) throws LocalDBException {
+        ParameterValidator.validateDBValue(db);
+        for (final String key : keys) {
+            ParameterValidator.validateKeyValue(key);
+        }
+
+        final boolean value = innerDB.containsAny(db, keys);
+        markRead(keys.size());
+        return value;
+    }
+
     @WriteOperation
     public void init(final File dbDirectory, final Map<String, String> initParameters, boolean readOnly) throws LocalDBException {
         innerDB.init(dbDirectory, initParameters, readOnly);
@@ -126,6 +148,48 @@ public class LocalDBAdaptor implements LocalDB {
         }
     }
 
+    public LocalDBEntryIterator entryIterator(final DB db, final KeyRange keyRange) throws LocalDBException {
+        ParameterValidator.validateDBValue(db);
+        return new ReadCountingEntryIterator(innerDB.entryIterator(db, keyRange));
+    }
+
+    private class ReadCountingEntryIterator implements LocalDBEntryIterator {
+        private static final int MARK_READ_FREQUENCY = 1000;
+
+        private final LocalDBEntryIterator innerIterator;
+        private int unmarkedReads;
+
+        ReadCountingEntryIterator(final LocalDBEntryIterator innerIterator) {
+            this.innerIterator = innerIterator;
+        }
+
+        public boolean hasNext() {
+            return innerIterator.hasNext();
+        }
+
+        public Map.Entry<String, String> next() {
+            final Map.Entry<String, String> entry = innerIterator.next();
+            if (++unmarkedReads >= MARK_READ_FREQUENCY) {
+                markRead(unmarkedReads);
+                unmarkedReads = 0;
+            }
+            return entry;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("LocalDB entry iterator does not support removals");
+        }
+
+        @Override
+        public void close() {
+            innerIterator.close();
+            if (unmarkedReads > 0) {
+                markRead(unmarkedReads);
+                unmarkedReads = 0;
+            }
+        }
+    }
+
     @WriteOperation
     public void putAll(final DB db, final Map<String, String> keyValueMap) throws LocalDBException {
         ParameterValidator.validateDBValue(db);
@@ -23,11 +23,13 @@
 package password.pwm.util.localdb;
 
 import password.pwm.PwmConstants;
+import password.pwm.util.BinaryEncoding;
 import password.pwm.util.StringUtil;
 import password.pwm.util.logging.PwmLogger;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.AbstractMap;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -77,11 +79,48 @@ public class LocalDBCompressor implements LocalDB {
         return decompressData(innerLocalDB.get(db, key));
     }
 
+    @Override
+    public Map<String, String> getAll(DB db, Collection<String> keys) throws LocalDBException {
+        final Map<String, String> values = innerLocalDB.getAll(db, keys);
+        for (final Map.Entry<String, String> entry : values.entrySet()) {
+            entry.setValue(decompressData(entry.getValue()));
+        }
+        return values;
+    }
+
+    @Override
+    public boolean containsAny(DB db, Collection<String> keys) throws LocalDBException {
+        return innerLocalDB.containsAny(db, keys);
+    }
+
     @Override
     public LocalDBIterator<String> iterator(DB db) throws LocalDBException {
         return innerLocalDB.iterator(db);
     }
 
+    @Override
+    public LocalDBEntryIterator entryIterator(DB db, KeyRange keyRange) throws LocalDBException {
+        final LocalDBEntryIterator innerIterator = innerLocalDB.entryIterator(db, keyRange);
+        return new LocalDBEntryIterator() {
+            public boolean hasNext() {
+                return innerIterator.hasNext();
+            }
+
+            public Map.Entry<String, String> next() {
+                final Map.Entry<String, String> entry = innerIterator.next();
+                return new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), decompressData(entry.getValue()));
+            }
+
+            public void remove() {
+                innerIterator.remove();
+            }
+
+            public void close() {
+                innerIterator.close();
+            }
+        };
+    }
+
     @Override
     public void putAll(DB db, Map<String, String> keyValueMap) throws LocalDBException {
         final Map<String,String> tempMap = new LinkedHashMap<>();
@@ -137,6 +176,10 @@ public class LocalDBCompressor implements LocalDB {
         if (input.length() < minCompressLength) {
             return input;
         }
+        if (BinaryEncoding.isStoredValue(input)) {
+            // already compact binary wrapped in base64, gzip would only add another layer of base64
+            return input;
+        }
         final String compressedValue;
         try {
             compressedValue = StringUtil.base64Encode(input.getBytes(PwmConstants.DEFAULT_CHARSET),StringUtil.Base64Options.GZIP);
@@ -53,6 +53,10 @@ public class LocalDBDataStore implements DataStore {
         return localDB.iterator(db);
     }
 
+    public ClosableIterator<Map.Entry<String, String>> entryIterator() throws PwmDataStoreException {
+        return localDB.entryIterator(db, null);
+    }
+
     public void putAll(Map<String, String> keyValueMap) throws PwmDataStoreException {
         localDB.putAll(db, keyValueMap);
     }
@@ -39,6 +39,14 @@ public interface LocalDBProvider {
     String get(LocalDB.DB db, String key)
             throws LocalDBException;
 
+    @LocalDB.ReadOperation
+    Map<String, String> getAll(LocalDB.DB db, Collection<String> keys)
+            throws LocalDBException;
+
+    @LocalDB.ReadOperation
+    boolean containsAny(LocalDB.DB db, Collection<String> keys)
+            throws LocalDBException;
+
     @LocalDB.WriteOperation
     void init(File dbDirectory, Map<String, String> initParameters, boolean readOnly)
             throws LocalDBException;
@@ -46,6 +54,9 @@ public interface LocalDBProvider {
     LocalDB.LocalDBIterator<String> iterator(LocalDB.DB db)
             throws LocalDBException;
 
+    LocalDB.LocalDBEntryIterator entryIterator(LocalDB.DB db, LocalDB.KeyRange keyRange)
+            throws LocalDBException;
+
     @LocalDB.WriteOperation
     void putAll(LocalDB.DB db, Map<String, String> keyValueMap)
             throws LocalDBException;
@@ -23,9 +23,9 @@
 package password.pwm.util.localdb;
 
 import password.pwm.PwmApplication;
+import password.pwm.util.TimeDuration;
 import password.pwm.util.logging.PwmLogger;
 
-import java.math.BigInteger;
 import java.util.*;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -45,7 +45,11 @@ public class
     private final static String KEY_HEAD_POSITION = "_HEAD_POSITION";
     private final static String KEY_TAIL_POSITION = "_TAIL_POSITION";
     private final static String KEY_VERSION = "_KEY_VERSION";
-    private final static String VALUE_VERSION = "7a";
+    private final static String VALUE_VERSION = "8a";
+    private final static String LEGACY_VALUE_VERSION = "7a";
+
+    private final static int ITERATOR_FETCH_SIZE = 100;
+    private final static int MIGRATION_BATCH_SIZE = 1000;
 
     private final InternalQueue internalQueue;
 
@@ -90,9 +94,162 @@ public class
         return new LocalDBStoredQueue(pwmDB, DB, debugEnabled);
     }
 
+    /**
+     * Add all values to the head of the queue using a single {@link LocalDB#putAll(LocalDB.DB, java.util.Map)}.
+     */
+    public void addFirst(final Collection<String> values) {
+        try {
+            internalQueue.addFirst(values);
+        } catch (LocalDBException e) {
+            throw new IllegalStateException("unexpected LocalDB error while modifying queue: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Add all values to the head of the queue.
+     *
+     * @return the position of the last value added.  The other values occupy the positions before it, see
+     * {@link #readRange(long, int)}.
+     */
+    public long addFirstAndGetPosition(final Collection<String> values) {
+        try {
+            return internalQueue.addFirst(values);
+        } catch (LocalDBException e) {
+            throw new IllegalStateException("unexpected LocalDB error while modifying queue: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Read {@code count} values starting at {@code position} and moving towards the tail.  Positions that do not
+     * currently hold a value are returned as null.
+     */
+    public List<String> readRange(final long position, final int count) {
+        final List<String> keys = new ArrayList<>(count);
+        long loopPosition = position;
+        for (int i = 0; i < count; i++) {
+            keys.add(positionKey(loopPosition));
+            loopPosition = previousPosition(loopPosition);
+        }
+
+        try {
+            final Map<String, String> values = internalQueue.localDB.getAll(internalQueue.DB, keys);
+            final List<String> returnList = new ArrayList<>(count);
+            for (final String key : keys) {
+                returnList.add(values.get(key));
+            }
+            return returnList;
+        } catch (LocalDBException e) {
+            throw new IllegalStateException("unexpected localDB error while reading queue: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Add all values to the tail of the queue using a single {@link LocalDB#putAll(LocalDB.DB, java.util.Map)}.
+     */
+    public void addLast(final Collection<String> values) {
+        try {
+            internalQueue.addLast(values);
+        } catch (LocalDBException e) {
+            throw new IllegalStateException("unexpected LocalDB error while modifying queue: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Add a value to the tail of the queue.
+     *
+     * @return the position of the value, which stays the same until the value is removed from the queue.
+     */
+    public long addLastAndGetPosition(final String value) {
+        try {
+            return internalQueue.addLast(Collections.singletonList(value));
+        } catch (LocalDBException e) {
+            throw new IllegalStateException("unexpected LocalDB error while modifying queue: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Read the values at the given positions.  Positions that do not currently hold a value are left out of the
+     * returned map.
+     */
+    public Map<Long, String> getAtPositions(final Collection<Long> positions) {
+        if (positions == null || positions.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        final List<String> keys = new ArrayList<>(positions.size());
+        for (final Long position : positions) {
+            keys.add(positionKey(position));
+        }
+
+        try {
+            final Map<String, String> values = internalQueue.localDB.getAll(internalQueue.DB, keys);
+            final Map<Long, String> returnMap = new LinkedHashMap<>();
+            for (final Long position : positions) {
+                final String value = values.get(positionKey(position));
+                if (value != null) {
+                    returnMap.put(position, value);
+                }
+            }
+            return returnMap;
+        } catch (LocalDBException e) {
+            throw new IllegalStateException("unexpected localDB error while reading queue: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Iterate from the first value to the last, returning each value along with its position.
+     */
+    public Iterator<Map.Entry<Long, String>> positionIterator() {
+        try {
+            final InnerIterator<String> innerIterator = new InnerIterator<>(internalQueue, true);
+            return new Iterator<Map.Entry<Long, String>>() {
+                public boolean hasNext() {
+                    return innerIterator.hasNext();
+                }
+
+                public Map.Entry<Long, String> next() {
+                    return innerIterator.nextEntry();
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        } catch (LocalDBException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Remove up to {@code removalCount} values from the head of the queue.
+     *
+     * @return the removed values, in queue order
+     */
+    public List<String> removeFirst(final int removalCount) {
+        try {
+            return internalQueue.removeFirst(removalCount, true);
+        } catch (LocalDBException e) {
+            throw new IllegalStateException("unexpected localDB error while modifying queue: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Remove up to {@code removalCount} values from the head of the queue.  The removed values are not read.
+     */
+    public void discardFirst(final int removalCount) {
+        try {
+            internalQueue.removeFirst(removalCount, false);
+        } catch (LocalDBException e) {
+            throw new IllegalStateException("unexpected localDB error while modifying queue: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Remove up to {@code removalCount} values from the tail of the queue.  The removed values are not read.
+     */
     public void removeLast(final int removalCount) {
         try {
-            internalQueue.removeLast(removalCount);
+            internalQueue.removeLast(removalCount, false);
         } catch (LocalDBException e) {
             throw new IllegalStateException("unexpected localDB error while modifying queue: " + e.getMessage(), e);
         }
@@ -105,11 +262,7 @@ public class
 
 
     public boolean isEmpty() {
-        try {
-            return internalQueue.size() == 0;
-        } catch (LocalDBException e) {
-            throw new IllegalStateException(e);
-        }
+        return internalQueue.size() == 0;
     }
 
     public Object[] toArray() {
@@ -182,11 +335,7 @@ public class
     }
 
     public int size() {
-        try {
-            return internalQueue.size();
-        } catch (LocalDBException e) {
-            throw new IllegalStateException(e);
-        }
+        return internalQueue.size();
     }
 
 // --------------------- Interface Deque ---------------------
@@ -244,7 +393,7 @@ public class
 
     public String pollFirst() {
         try {
-            final List<String> values = internalQueue.removeFirst(1);
+            final List<String> values = internalQueue.removeFirst(1, true);
             if (values == null || values.isEmpty()) {
                 return null;
             }
@@ -256,7 +405,7 @@ public class
 
     public String pollLast() {
         try {
-            final List<String> values = internalQueue.removeLast(1);
+            final List<String> values = internalQueue.removeLast(1, true);
             if (values == null || values.isEmpty()) {
                 return null;
             }
@@ -379,42 +528,59 @@ public class
 // -------------------------- INNER CLASSES --------------------------
 
     private class InnerIterator<K> implements Iterator {
-        private Position position;
         private final InternalQueue internalQueue;
         private final boolean first;
-        private int queueSizeAtCreate;
-        private int steps;
-
+        private final LinkedList<Map.Entry<Long, String>> buffer = new LinkedList<>();
+        private long position;
+        private int remaining;
 
         private InnerIterator(final InternalQueue internalQueue, final boolean first)
                 throws LocalDBException
         {
             this.internalQueue = internalQueue;
             this.first = first;
-            position = internalQueue.size() == 0 ? null : first ? internalQueue.headPosition : internalQueue.tailPosition;
-            queueSizeAtCreate = internalQueue.size();
+            internalQueue.LOCK.readLock().lock();
+            try {
+                position = first ? internalQueue.headPosition : internalQueue.tailPosition;
+                remaining = internalQueue.size;
+            } finally {
+                internalQueue.LOCK.readLock().unlock();
+            }
         }
 
         public boolean hasNext() {
-            return position != null;
+            return !buffer.isEmpty() || remaining > 0;
         }
 
         public String next() {
-            if (position == null) {
-                throw new NoSuchElementException();
+            return nextEntry().getValue();
+        }
+
+        private Map.Entry<Long, String> nextEntry() {
+            if (buffer.isEmpty()) {
+                if (remaining <= 0) {
+                    throw new NoSuchElementException();
+                }
+                fillBuffer();
             }
-            steps++;
+            return buffer.removeFirst();
+        }
+
+        private void fillBuffer() {
+            final int fetchCount = Math.min(remaining, ITERATOR_FETCH_SIZE);
+            final List<Long> positions = new ArrayList<>(fetchCount);
+            final List<String> keys = new ArrayList<>(fetchCount);
+            for (int i = 0; i < fetchCount; i++) {
+                positions.add(position);
+                keys.add(positionKey(position));
+                position = first ? previousPosition(position) : nextPosition(position);
+            }
+            remaining -= fetchCount;
             try {
-                final String nextValue = internalQueue.localDB.get(internalQueue.DB, position.toString());
-                if (first) {
-                    position = position.equals(internalQueue.tailPosition) ? null : position.previous();
-                } else {
-                    position = position.equals(internalQueue.headPosition) ? null : position.next();
-                }
-                if (steps > queueSizeAtCreate) {
-                    position = null;
+                final Map<String, String> values = internalQueue.localDB.getAll(internalQueue.DB, keys);
+                for (int i = 0; i < fetchCount; i++) {
+                    buffer.add(new AbstractMap.SimpleImmutableEntry<>(positions.get(i), values.get(keys.get(i))));
                 }
-                return nextValue;
             } catch (LocalDBException e) {
                 throw new IllegalStateException("unexpected localDB error while iterating queue: " + e.getMessage(), e);
             }
@@ -425,80 +591,89 @@ public class
         }
     }
 
-    private static class Position {
-        private final static int RADIX = 36;
-        private final static BigInteger MAXIMUM_POSITION = new BigInteger("zzzzzz", RADIX);
-        private final static BigInteger MINIMUM_POSITION = BigInteger.ZERO;
+// -------------------------- POSITIONS --------------------------
 
-        private final BigInteger bigInt;
+    /*
+    Queue positions are primitive longs on a ring of 2^40 slots.  The tail is the lowest position and values
+    are added towards the head by incrementing.  Keys are stored as fixed width, zero padded hex so that
+    encoding a position is a single char array fill.
+     */
 
-        private Position(final BigInteger bigInt) {
-            this.bigInt = bigInt;
-        }
+    private static final long MAXIMUM_POSITION = 0xFFFFFFFFFFL;
+    private static final int POSITION_KEY_WIDTH = 10;
+    private static final char[] HEX_CHARS = "0123456789ABCDEF".toCharArray();
 
-        public Position(final String bigInt) {
-            this.bigInt = new BigInteger(bigInt, RADIX);
+    static String positionKey(long position) {
+        final char[] chars = new char[POSITION_KEY_WIDTH];
+        for (int i = POSITION_KEY_WIDTH - 1; i >= 0; i--) {
+            chars[i] = HEX_CHARS[(int) (position & 0xF)];
+            position >>>= 4;
         }
+        return new String(chars);
+    }
 
-        public Position next() {
-            BigInteger next = bigInt.add(BigInteger.ONE);
-            if (next.compareTo(MAXIMUM_POSITION) > 0) {
-                next = MINIMUM_POSITION;
-            }
-            return new Position(next);
+    static long parsePosition(final String key) {
+        if (key == null || key.length() != POSITION_KEY_WIDTH) {
+            throw new IllegalArgumentException("invalid queue position key: " + key);
         }
+        return Long.parseLong(key, 16);
+    }
 
-        public Position previous() {
-            BigInteger previous = bigInt.subtract(BigInteger.ONE);
-            if (previous.compareTo(MINIMUM_POSITION) < 0) {
-                previous = MAXIMUM_POSITION;
-            }
-            return new Position(previous);
-        }
+    static long nextPosition(final long position) {
+        return position >= MAXIMUM_POSITION ? 0 : position + 1;
+    }
 
-        public BigInteger distanceToHead(final Position head) {
-            final int compareToValue = head.bigInt.compareTo(this.bigInt);
-            if (compareToValue == 0) {
-                return BigInteger.ZERO;
-            } else if (compareToValue == 1) {
-                return head.bigInt.subtract(this.bigInt);
-            }
+    static long previousPosition(final long position) {
+        return position <= 0 ? MAXIMUM_POSITION : position - 1;
+    }
+
+    /**
+     * @return number of steps from {@code tail} to {@code head}, following the ring around if necessary.
+     */
+    static long distance(final long tail, final long head) {
+        return head >= tail ? head - tail : (MAXIMUM_POSITION - tail) + head + 1;
+    }
 
-            final BigInteger tailToMax = MAXIMUM_POSITION.subtract(this.bigInt);
-            final BigInteger minToHead = head.bigInt.subtract(MINIMUM_POSITION);
-            return minToHead.add(tailToMax).add(BigInteger.ONE);
+    /**
+     * Positions as stored by {@link #LEGACY_VALUE_VERSION}: six character radix-36 strings on a ring of 36^6
+     * slots.  Only used to migrate existing queues.
+     */
+    private static class LegacyPosition {
+        private static final int RADIX = 36;
+        private static final int KEY_WIDTH = 6;
+        private static final long MAXIMUM_POSITION = Long.parseLong("zzzzzz", RADIX);
+
+        static long parse(final String key) {
+            return key == null || key.isEmpty() ? 0 : Long.parseLong(key, RADIX);
         }
 
-        public String toString() {
-            final StringBuilder sb = new StringBuilder();
-            sb.append(bigInt.toString(RADIX).toUpperCase());
-            while (sb.length() < 6) {
+        static String key(final long position) {
+            final StringBuilder sb = new StringBuilder(Long.toString(position, RADIX).toUpperCase());
+            while (sb.length() < KEY_WIDTH) {
                 sb.insert(0, "0");
             }
             return sb.toString();
         }
 
-        @Override
-        public boolean equals(final Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-
-            final Position position = (Position) o;
-
-            return bigInt.equals(position.bigInt);
+        static long next(final long position) {
+            return position >= MAXIMUM_POSITION ? 0 : position + 1;
         }
 
-        @Override
-        public int hashCode() {
-            return bigInt.hashCode();
+        static long distance(final long tail, final long head) {
+            return head >= tail ? head - tail : (MAXIMUM_POSITION - tail) + head + 1;
         }
     }
 
     private static class InternalQueue {
         private final LocalDB localDB;
         private final LocalDB.DB DB;
-        private volatile Position headPosition;
-        private volatile Position tailPosition;
+
+        // cached copies of the stored head/tail positions and the resulting queue size; only modified while
+        // holding the write lock.
+        private volatile long headPosition;
+        private volatile long tailPosition;
+        private volatile int size;
+
         private boolean developerDebug = false;
         private static final int DEBUG_MAX_ROWS = 50;
         private static final int DEBUG_MAX_WIDTH = 120;
@@ -537,30 +712,88 @@ public class
 
         private void init()
                 throws LocalDBException {
-            if (!checkVersion()) {
+            final String storedVersion = localDB.get(DB, KEY_VERSION);
+            if (LEGACY_VALUE_VERSION.equals(storedVersion)) {
+                migrateLegacyFormat();
+            } else if (!VALUE_VERSION.equals(storedVersion)) {
+                LOGGER.warn("values in db " + DB + " use an outdated format, the stored events will be purged!");
                 clear();
             }
 
             final String headPositionStr = localDB.get(DB, KEY_HEAD_POSITION);
             final String tailPositionStr = localDB.get(DB, KEY_TAIL_POSITION);
 
-            headPosition = headPositionStr != null && headPositionStr.length() > 0 ? new Position(headPositionStr) : new Position("0");
-            tailPosition = tailPositionStr != null && tailPositionStr.length() > 0 ? new Position(tailPositionStr) : new Position("0");
+            try {
+                headPosition = headPositionStr != null && headPositionStr.length() > 0 ? parsePosition(headPositionStr) : 0;
+                tailPosition = tailPositionStr != null && tailPositionStr.length() > 0 ? parsePosition(tailPositionStr) : 0;
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("stored head/tail positions in db " + DB + " are invalid, the stored events will be purged: " + e.getMessage());
+                clear();
+            }
+            size = calculateSize();
 
-            LOGGER.trace("loaded for db " + DB + "; headPosition=" + headPosition + ", tailPosition=" + tailPosition + ", size=" + this.size());
+            LOGGER.trace("loaded for db " + DB + "; headPosition=" + positionKey(headPosition) + ", tailPosition=" + positionKey(tailPosition) + ", size=" + size);
 
             repair();
 
             debugOutput("post init()");
         }
 
-        private boolean checkVersion() throws LocalDBException {
-            final String storedVersion = localDB.get(DB, KEY_VERSION);
-            if (storedVersion == null || !VALUE_VERSION.equals(storedVersion)) {
-                LOGGER.warn("values in db " + DB + " use an outdated format, the stored events will be purged!");
-                return false;
+        private int calculateSize()
+                throws LocalDBException
+        {
+            if (headPosition == tailPosition && localDB.get(DB, positionKey(headPosition)) == null) {
+                return 0;
             }
-            return true;
+            return (int) Math.min(MAX_SIZE, distance(tailPosition, headPosition) + 1);
+        }
+
+        /**
+         * Rewrite a queue stored in the {@link #LEGACY_VALUE_VERSION} format.  Values are copied in batches, and the
+         * stored version is only updated once every value has been copied, so an interrupted migration is simply
+         * repeated on the next startup.
+         */
+        private void migrateLegacyFormat()
+                throws LocalDBException
+        {
+            final long startTime = System.currentTimeMillis();
+            final long legacyHead = LegacyPosition.parse(localDB.get(DB, KEY_HEAD_POSITION));
+            final long legacyTail = LegacyPosition.parse(localDB.get(DB, KEY_TAIL_POSITION));
+            final long legacyCount = LegacyPosition.distance(legacyTail, legacyHead) + 1;
+            LOGGER.info("migrating up to " + legacyCount + " values in db " + DB + " from queue format " + LEGACY_VALUE_VERSION + " to " + VALUE_VERSION);
+
+            long legacyPosition = legacyTail;
+            long migratedPositions = 0;
+            int migratedValues = 0;
+            while (migratedPositions < legacyCount) {
+                final int batchSize = (int) Math.min(MIGRATION_BATCH_SIZE, legacyCount - migratedPositions);
+                final List<String> legacyKeys = new ArrayList<>(batchSize);
+                for (int i = 0; i < batchSize; i++) {
+                    legacyKeys.add(LegacyPosition.key(legacyPosition));
+                    legacyPosition = LegacyPosition.next(legacyPosition);
+                }
+
+                final Map<String, String> legacyValues = localDB.getAll(DB, legacyKeys);
+                final Map<String, String> newValues = new HashMap<>();
+                for (int i = 0; i < batchSize; i++) {
+                    final String value = legacyValues.get(legacyKeys.get(i));
+                    if (value != null) {
+                        newValues.put(positionKey(migratedPositions + i), value);
+                    }
+                }
+                localDB.putAll(DB, newValues);
+                localDB.removeAll(DB, legacyKeys);
+                migratedPositions += batchSize;
+                migratedValues += newValues.size();
+            }
+
+            final Map<String, String> keyValueMap = new HashMap<>();
+            keyValueMap.put(KEY_HEAD_POSITION, positionKey(legacyCount - 1));
+            keyValueMap.put(KEY_TAIL_POSITION, positionKey(0));
+            keyValueMap.put(KEY_VERSION, VALUE_VERSION);
+            localDB.putAll(DB, keyValueMap);
+
+            LOGGER.info("migrated " + migratedValues + " values in db " + DB + " in " + TimeDuration.fromCurrent(startTime).asCompactString());
         }
 
         public void clear()
@@ -569,12 +802,15 @@ public class
                 LOCK.writeLock().lock();
                 localDB.truncate(DB);
 
-                headPosition = new Position("0");
-                tailPosition = new Position("0");
-                localDB.put(DB, KEY_HEAD_POSITION, headPosition.toString());
-                localDB.put(DB, KEY_TAIL_POSITION, tailPosition.toString());
+                headPosition = 0;
+                tailPosition = 0;
+                size = 0;
 
-                localDB.put(DB, KEY_VERSION, VALUE_VERSION);
+                final Map<String, String> keyValueMap = new HashMap<>();
+                keyValueMap.put(KEY_HEAD_POSITION, positionKey(headPosition));
+                keyValueMap.put(KEY_TAIL_POSITION, positionKey(tailPosition));
+                keyValueMap.put(KEY_VERSION, VALUE_VERSION);
+                localDB.putAll(DB, keyValueMap);
 
                 debugOutput("post clear()");
             } finally {
@@ -582,52 +818,34 @@ public class
             }
         }
 
-        public int size()
-                throws LocalDBException
-        {
-            try {
-                LOCK.readLock().lock();
-                return internalSize();
-            } finally {
-                LOCK.readLock().unlock();
-            }
-        }
-
-        private int internalSize()
-                throws LocalDBException
-        {
-            if (headPosition.equals(tailPosition) && localDB.get(DB, headPosition.toString()) == null) {
-                return 0;
-            }
-            return tailPosition.distanceToHead(headPosition).intValue() + 1;
+        public int size() {
+            return size;
         }
 
-        public List<String> removeFirst(final int removalCount) throws LocalDBException {
+        public List<String> removeFirst(final int removalCount, final boolean returnValues) throws LocalDBException {
             try {
                 LOCK.writeLock().lock();
 
                 debugOutput("pre removeFirst()");
 
-                if (removalCount < 1) {
-                    Collections.emptyList();
+                final int count = Math.min(removalCount, size);
+                if (count < 1) {
+                    return Collections.emptyList();
                 }
 
-                final List<String> removalKeys = new ArrayList<>();
-                final List<String> removedValues = new ArrayList<>();
-                Position previousHead = headPosition;
-                int removedPositions = 0;
-                while (removedPositions < removalCount) {
-                    removalKeys.add(previousHead.toString());
-                    final String loopValue = localDB.get(DB, previousHead.toString());
-                    if (loopValue != null) {
-                        removedValues.add(loopValue);
-                    }
-                    previousHead = previousHead.equals(tailPosition) ? previousHead : previousHead.previous();
-                    removedPositions++;
+                final List<String> removalKeys = new ArrayList<>(count);
+                long position = headPosition;
+                for (int i = 0; i < count; i++) {
+                    removalKeys.add(positionKey(position));
+                    position = previousPosition(position);
                 }
+                final long nextHead = count == size ? tailPosition : position;
+
+                final List<String> removedValues = returnValues ? readValues(removalKeys) : Collections.<String>emptyList();
                 localDB.removeAll(DB, removalKeys);
-                localDB.put(DB, KEY_HEAD_POSITION, previousHead.toString());
-                headPosition = previousHead;
+                localDB.put(DB, KEY_HEAD_POSITION, positionKey(nextHead));
+                headPosition = nextHead;
+                size -= count;
 
                 debugOutput("post removeFirst()");
                 return Collections.unmodifiableList(removedValues);
@@ -636,32 +854,30 @@ public class
             }
         }
 
-        public List<String> removeLast(final int removalCount) throws LocalDBException {
+        public List<String> removeLast(final int removalCount, final boolean returnValues) throws LocalDBException {
             try {
                 LOCK.writeLock().lock();
 
                 debugOutput("pre removeLast()");
 
-                if (removalCount < 1) {
-                    Collections.emptyList();
+                final int count = Math.min(removalCount, size);
+                if (count < 1) {
+                    return Collections.emptyList();
                 }
 
-                final List<String> removalKeys = new ArrayList<>();
-                final List<String> removedValues = new ArrayList<>();
-                Position nextTail = tailPosition;
-                int removedPositions = 0;
-                while (removedPositions < removalCount) {
-                    removalKeys.add(nextTail.toString());
-                    final String loopValue = localDB.get(DB, nextTail.toString());
-                    if (loopValue != null) {
-                        removedValues.add(loopValue);
-                    }
-                    nextTail = nextTail.equals(headPosition) ? nextTail : nextTail.next();
-                    removedPositions++;
+                final List<String> removalKeys = new ArrayList<>(count);
+                long position = tailPosition;
+                for (int i = 0; i < count; i++) {
+                    removalKeys.add(positionKey(position));
+                    position = nextPosition(position);
                 }
+                final long nextTail = count == size ? headPosition : position;
+
+                final List<String> removedValues = returnValues ? readValues(removalKeys) : Collections.<String>emptyList();
                 localDB.removeAll(DB, removalKeys);
-                localDB.put(DB, KEY_TAIL_POSITION, nextTail.toString());
+                localDB.put(DB, KEY_TAIL_POSITION, positionKey(nextTail));
                 tailPosition = nextTail;
+                size -= count;
 
                 debugOutput("post removeLast()");
                 return Collections.unmodifiableList(removedValues);
@@ -670,7 +886,10 @@ public class
             }
         }
 
-        public void addFirst(final Collection<String> values)
+        /**
+         * @return the position of the last value added
+         */
+        public long addFirst(final Collection<String> values)
                 throws LocalDBException
         {
             try {
@@ -678,134 +897,145 @@ public class
                 debugOutput("pre addFirst()");
 
                 if (values == null || values.isEmpty()) {
-                    return;
+                    return headPosition;
                 }
 
-                if (internalSize() + values.size() > MAX_SIZE) {
+                if ((long) size + values.size() > MAX_SIZE) {
                     throw new IllegalStateException("queue overflow");
                 }
 
-                final Iterator<String> valueIterator = values.iterator();
-
                 final Map<String, String> keyValueMap = new HashMap<>();
-                Position nextHead = headPosition;
-
-                if (internalSize() == 0) {
-                    keyValueMap.put(nextHead.toString(), valueIterator.next());
-                }
-
-                while (valueIterator.hasNext()) {
-                    nextHead = nextHead.next();
-                    keyValueMap.put(nextHead.toString(), valueIterator.next());
+                long nextHead = headPosition;
+                boolean firstValue = size == 0;
+                for (final String value : values) {
+                    if (!firstValue) {
+                        nextHead = nextPosition(nextHead);
+                    }
+                    keyValueMap.put(positionKey(nextHead), value);
+                    firstValue = false;
                 }
+                keyValueMap.put(KEY_HEAD_POSITION, positionKey(nextHead));
 
                 localDB.putAll(DB, keyValueMap);
-                localDB.put(DB, KEY_HEAD_POSITION, String.valueOf(nextHead));
                 headPosition = nextHead;
+                size += values.size();
 
                 debugOutput("post addFirst()");
+                return nextHead;
             } finally {
                 LOCK.writeLock().unlock();
             }
         }
 
-        public void addLast(final Collection<String> values) throws LocalDBException {
+        /**
+         * @return the position of the last value added
+         */
+        public long addLast(final Collection<String> values) throws LocalDBException {
             try {
                 LOCK.writeLock().lock();
                 debugOutput("pre addLast()");
                 if (values == null || values.isEmpty()) {
-                    return;
+                    return tailPosition;
                 }
 
-                if (internalSize() + values.size() > MAX_SIZE) {
+                if ((long) size + values.size() > MAX_SIZE) {
                     throw new IllegalStateException("queue overflow");
                 }
 
-                final Iterator<String> valueIterator = values.iterator();
-
                 final Map<String, String> keyValueMap = new HashMap<>();
-                Position nextTail = tailPosition;
-
-                if (internalSize() == 0) {
-                    keyValueMap.put(nextTail.toString(), valueIterator.next());
-                }
-
-                while (valueIterator.hasNext()) {
-                    nextTail = nextTail.previous();
-                    keyValueMap.put(nextTail.toString(), valueIterator.next());
+                long nextTail = tailPosition;
+                boolean firstValue = size == 0;
+                for (final String value : values) {
+                    if (!firstValue) {
+                        nextTail = previousPosition(nextTail);
+                    }
+                    keyValueMap.put(positionKey(nextTail), value);
+                    firstValue = false;
                 }
+                keyValueMap.put(KEY_TAIL_POSITION, positionKey(nextTail));
 
                 localDB.putAll(DB, keyValueMap);
-                localDB.put(DB, KEY_TAIL_POSITION, String.valueOf(nextTail));
                 tailPosition = nextTail;
+                size += values.size();
 
                 debugOutput("post addLast()");
+                return nextTail;
             } finally {
                 LOCK.writeLock().unlock();
             }
         }
 
-        public List<String> getFirst(int getCount)
+        public List<String> getFirst(final int getCount)
                 throws LocalDBException {
             try {
                 LOCK.readLock().lock();
                 debugOutput("pre getFirst()");
 
-                if (getCount < 1) {
+                final int count = Math.min(getCount, size);
+                if (count < 1) {
                     return Collections.emptyList();
                 }
 
-                if (getCount > internalSize()) {
-                    getCount = internalSize();
-                }
-
-                final List<String> returnList = new ArrayList<>();
-
-                Position nextHead = headPosition;
-                while (returnList.size() < getCount) {
-                    returnList.add(localDB.get(DB, nextHead.toString()));
-                    nextHead = nextHead.previous();
+                final List<String> keys = new ArrayList<>(count);
+                long position = headPosition;
+                for (int i = 0; i < count; i++) {
+                    keys.add(positionKey(position));
+                    position = previousPosition(position);
                 }
 
                 debugOutput("post getFirst()");
 
-                return returnList;
+                return readValues(keys);
             } finally {
                 LOCK.readLock().unlock();
             }
         }
 
-        public List<String> getLast(int getCount)
+        public List<String> getLast(final int getCount)
                 throws LocalDBException {
             try {
                 LOCK.readLock().lock();
 
                 debugOutput("pre getLast()");
 
-                if (getCount < 1) {
+                final int count = Math.min(getCount, size);
+                if (count < 1) {
                     return Collections.emptyList();
                 }
 
-                if (getCount > internalSize()) {
-                    getCount = internalSize();
-                }
-
-                final List<String> returnList = new ArrayList<>();
-
-                Position nextTail = tailPosition;
-                while (returnList.size() < getCount) {
-                    returnList.add(localDB.get(DB, nextTail.toString()));
-                    nextTail = nextTail.next();
+                final List<String> keys = new ArrayList<>(count);
+                long position = tailPosition;
+                for (int i = 0; i < count; i++) {
+                    keys.add(positionKey(position));
+                    position = nextPosition(position);
                 }
 
                 debugOutput("post getLast()");
 
-                return returnList;
+                return readValues(keys);
             } finally {
                 LOCK.readLock().unlock();
             }
         }
 
+        private List<String> readValues(final List<String> keys)
+                throws LocalDBException
+        {
+            if (keys.size() == 1) {
+                return Collections.singletonList(localDB.get(DB, keys.get(0)));
+            }
+
+            final Map<String, String> values = localDB.getAll(DB, keys);
+            final List<String> returnList = new ArrayList<>(keys.size());
+            for (final String key : keys) {
+                final String value = values.get(key);
+                if (value != null) {
+                    returnList.add(value);
+                }
+            }
+            return returnList;
+        }
+
         public void debugOutput(final String input) {
             if (!developerDebug || DEBUG_IGNORED_DBs.contains(DB)) {
                 return;
@@ -814,25 +1044,25 @@ public class
             final StringBuilder sb = new StringBuilder();
             try {
                 sb.append(input);
-                sb.append("  tailPosition=").append(tailPosition).append(", headPosition=").append(headPosition).append(", db=").append(DB);
-                sb.append(", size=").append(internalSize()).append("\n");
+                sb.append("  tailPosition=").append(positionKey(tailPosition)).append(", headPosition=").append(positionKey(headPosition)).append(", db=").append(DB);
+                sb.append(", size=").append(size).append("\n");
 
-                LocalDB.LocalDBIterator<String> keyIter = null;
+                LocalDB.LocalDBEntryIterator entryIter = null;
                 try {
-                    keyIter = localDB.iterator(DB);
+                    entryIter = localDB.entryIterator(DB, null);
                     int rowCount = 0;
-                    while (keyIter.hasNext() && rowCount < DEBUG_MAX_ROWS) {
-                        final String key = keyIter.next();
-                        String value = localDB.get(DB, key);
+                    while (entryIter.hasNext() && rowCount < DEBUG_MAX_ROWS) {
+                        final Map.Entry<String, String> entry = entryIter.next();
+                        String value = entry.getValue();
                         value = value == null ? "" : value;
                         value = value.length() < DEBUG_MAX_WIDTH ? value : value.substring(0, DEBUG_MAX_WIDTH) + "...";
-                        String row = key + " " + value;
+                        String row = entry.getKey() + " " + value;
                         sb.append(row).append("\n");
                         rowCount++;
                     }
                 } finally {
-                    if (keyIter != null) {
-                        keyIter.close();
+                    if (entryIter != null) {
+                        entryIter.close();
                     }
                 }
 
@@ -850,22 +1080,27 @@ public class
             debugOutput("pre repair()");
 
             // trim the top.
-            while (!headPosition.equals(tailPosition) && localDB.get(DB,headPosition.toString()) == null) {
-                headPosition = headPosition.previous();
-                localDB.put(DB, KEY_HEAD_POSITION, headPosition.toString());
+            while (headPosition != tailPosition && localDB.get(DB, positionKey(headPosition)) == null) {
+                headPosition = previousPosition(headPosition);
                 headTrim++;
             }
+            if (headTrim > 0) {
+                localDB.put(DB, KEY_HEAD_POSITION, positionKey(headPosition));
+            }
 
             // trim the bottom.
-            while (!headPosition.equals(tailPosition) && localDB.get(DB,tailPosition.toString()) == null) {
-                tailPosition = tailPosition.next();
-                localDB.put(DB, KEY_TAIL_POSITION, tailPosition.toString());
+            while (headPosition != tailPosition && localDB.get(DB, positionKey(tailPosition)) == null) {
+                tailPosition = nextPosition(tailPosition);
                 tailTrim++;
             }
+            if (tailTrim > 0) {
+                localDB.put(DB, KEY_TAIL_POSITION, positionKey(tailPosition));
+            }
 
             if (tailTrim == 0 && headTrim == 0) {
                 LOGGER.trace("repair unnecessary for " + DB);
             } else {
+                size = calculateSize();
                 if (headTrim > 0) {
                     LOGGER.warn("trimmed " + headTrim + " from head position against database " + DB);
                 }
@@ -111,16 +111,15 @@ public class LocalDBUtility {
             for (LocalDB.DB loopDB : LocalDB.DB.values()) {
                 if (!BACKUP_IGNORE_DBs.contains(loopDB)) {
                     csvPrinter.printComment("Export of " + loopDB.toString());
-                    final LocalDB.LocalDBIterator<String> localDBIterator = localDB.iterator(loopDB);
+                    final LocalDB.LocalDBEntryIterator entryIterator = localDB.entryIterator(loopDB, null);
                     try {
-                        while (localDBIterator.hasNext()) {
-                            final String key = localDBIterator.next();
-                            final String value = localDB.get(loopDB, key);
-                            csvPrinter.printRecord(loopDB.toString(), key, value);
+                        while (entryIterator.hasNext()) {
+                            final Map.Entry<String, String> entry = entryIterator.next();
+                            csvPrinter.printRecord(loopDB.toString(), entry.getKey(), entry.getValue());
                             exportLineCounter++;
                         }
                     } finally {
-                        localDBIterator.close();
+                        entryIterator.close();
                     }
                 }
             }
@@ -278,12 +277,13 @@ public class LocalDBUtility {
                 ? (LocalDBCompressor) localDB
                 : new LocalDBCompressor(localDB, 0, true);
 
-        LocalDB.LocalDBIterator<String> iter = null;
+        LocalDB.LocalDBEntryIterator iter = null;
         try {
-            iter = compressorLocalDB.iterator(db);
+            iter = compressorLocalDB.innerLocalDB.entryIterator(db, null);
             while (iter.hasNext()) {
-                final String key = iter.next();
-                final String rawValue = compressorLocalDB.innerLocalDB.get(db, key);
+                final Map.Entry<String, String> entry = iter.next();
+                final String key = entry.getKey();
+                final String rawValue = entry.getValue();
                 if (rawValue != null) {
                     totalValues++;
                     storedChars += rawValue.length();
@@ -30,10 +30,7 @@ import password.pwm.util.logging.PwmLogger;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -119,6 +116,44 @@ public class MapDB_LocalDB implements LocalDBProvider {
         }
     }
 
+    public Map<String, String> getAll(final LocalDB.DB db, final Collection<String> keys)
+            throws LocalDBException {
+        try {
+            LOCK.readLock().lock();
+            final Map<String, String> tree = getHTree(db);
+            final Map<String, String> results = new LinkedHashMap<>();
+            for (final String key : keys) {
+                final Object value = tree.get(key);
+                if (value != null) {
+                    results.put(key, value.toString());
+                }
+            }
+            return results;
+        } catch (IOException e) {
+            throw new LocalDBException(new ErrorInformation(PwmError.ERROR_LOCALDB_UNAVAILABLE,e.getMessage()));
+        } finally {
+            LOCK.readLock().unlock();
+        }
+    }
+
+    public boolean containsAny(final LocalDB.DB db, final Collection<String> keys)
+            throws LocalDBException {
+        try {
+            LOCK.readLock().lock();
+            final Map<String, String> tree = getHTree(db);
+            for (final String key : keys) {
+                if (tree.containsKey(key)) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            throw new LocalDBException(new ErrorInformation(PwmError.ERROR_LOCALDB_UNAVAILABLE,e.getMessage()));
+        } finally {
+            LOCK.readLock().unlock();
+        }
+    }
+
     public void init(final File dbDirectory, final Map<String, String> initParameters, final boolean readOnly)
             throws LocalDBException {
         if (readOnly) {
@@ -155,6 +190,15 @@ public class MapDB_LocalDB implements LocalDBProvider {
         }
     }
 
+    public LocalDB.LocalDBEntryIterator entryIterator(final DB db, final LocalDB.KeyRange keyRange)
+            throws LocalDBException {
+        try {
+            return new MapDBEntryIterator(db, keyRange);
+        } catch (IOException e) {
+            throw new LocalDBException(new ErrorInformation(PwmError.ERROR_LOCALDB_UNAVAILABLE,e.getMessage()));
+        }
+    }
+
     public void putAll(final DB db, final Map<String, String> keyValueMap)
             throws LocalDBException {
         try {
@@ -277,6 +321,49 @@ public class MapDB_LocalDB implements LocalDBProvider {
 
 // -------------------------- INNER CLASSES --------------------------
 
+    private class MapDBEntryIterator implements LocalDB.LocalDBEntryIterator {
+        private Iterator<Map.Entry<String, String>> theIterator;
+
+        private MapDBEntryIterator(final DB db, final LocalDB.KeyRange keyRange) throws IOException {
+            Map<String, String> tree = getHTree(db);
+            if (keyRange != null && tree instanceof NavigableMap) {
+                NavigableMap<String, String> navigableMap = (NavigableMap<String, String>) tree;
+                if (keyRange.getFromKey() != null) {
+                    navigableMap = navigableMap.tailMap(keyRange.getFromKey(), true);
+                }
+                if (keyRange.getToKey() != null) {
+                    navigableMap = navigableMap.headMap(keyRange.getToKey(), false);
+                }
+                tree = navigableMap;
+            }
+            this.theIterator = tree.entrySet().iterator();
+        }
+
+        public boolean hasNext() {
+            final boolean hasNext = theIterator != null && theIterator.hasNext();
+            if (!hasNext) {
+                close();
+            }
+            return hasNext;
+        }
+
+        public void close() {
+            theIterator = null;
+        }
+
+        public Map.Entry<String, String> next() {
+            if (theIterator == null) {
+                throw new NoSuchElementException();
+            }
+            final Map.Entry<String, String> entry = theIterator.next();
+            return new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue());
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("MapDB LocalDB entry iterator does not support removals");
+        }
+    }
+
     private class MapDBIterator<K> implements LocalDB.LocalDBIterator<String> {
         private Iterator<String> theIterator;
 
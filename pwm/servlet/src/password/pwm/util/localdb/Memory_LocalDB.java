@@ -28,7 +28,7 @@ import password.pwm.util.Helper;
 
 import java.io.File;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import static password.pwm.util.localdb.LocalDB.DB;
 
@@ -41,7 +41,7 @@ public class Memory_LocalDB implements LocalDBProvider {
 
     private static final long MIN_FREE_MEMORY = 1024 * 1024;  // 1mb
     private LocalDB.Status state = LocalDB.Status.NEW;
-    private Map<DB, Map<String, String>> maps = new HashMap<>();
+    private Map<DB, NavigableMap<String, String>> maps = new HashMap<>();
 
 // -------------------------- STATIC METHODS --------------------------
 
@@ -68,7 +68,7 @@ public class Memory_LocalDB implements LocalDBProvider {
 
     public Memory_LocalDB() {
         for (final DB db : LocalDB.DB.values()) {
-            final Map<String, String> newMap = new ConcurrentHashMap<>();
+            final NavigableMap<String, String> newMap = new ConcurrentSkipListMap<>();
             maps.put(db, newMap);
         }
     }
@@ -101,6 +101,32 @@ public class Memory_LocalDB implements LocalDBProvider {
         return map.get(key);
     }
 
+    public Map<String, String> getAll(final DB db, final Collection<String> keys)
+            throws LocalDBException {
+        opertationPreCheck();
+        final Map<String, String> map = maps.get(db);
+        final Map<String, String> results = new LinkedHashMap<>();
+        for (final String key : keys) {
+            final String value = map.get(key);
+            if (value != null) {
+                results.put(key, value);
+            }
+        }
+        return results;
+    }
+
+    public boolean containsAny(final DB db, final Collection<String> keys)
+            throws LocalDBException {
+        opertationPreCheck();
+        final Map<String, String> map = maps.get(db);
+        for (final String key : keys) {
+            if (map.containsKey(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @LocalDB.WriteOperation
     public void init(final File dbDirectory, final Map<String, String> initParameters, final boolean readOnly)
             throws LocalDBException {
@@ -120,6 +146,11 @@ public class Memory_LocalDB implements LocalDBProvider {
         return new DbIterator(db);
     }
 
+    public LocalDB.LocalDBEntryIterator entryIterator(final DB db, final LocalDB.KeyRange keyRange) throws LocalDBException {
+        opertationPreCheck();
+        return new DbEntryIterator(db, keyRange);
+    }
+
     @LocalDB.WriteOperation
     public void putAll(final DB db, final Map<String, String> keyValueMap)
             throws LocalDBException {
@@ -207,6 +238,51 @@ public class Memory_LocalDB implements LocalDBProvider {
         }
     }
 
+    private class DbEntryIterator implements LocalDB.LocalDBEntryIterator {
+        private final Iterator<Map.Entry<String, String>> iterator;
+        private Map.Entry<String, String> nextEntry;
+
+        private DbEntryIterator(final DB db, final LocalDB.KeyRange keyRange) {
+            NavigableMap<String, String> map = maps.get(db);
+            if (keyRange != null && keyRange.getFromKey() != null) {
+                map = map.tailMap(keyRange.getFromKey(), true);
+            }
+            if (keyRange != null && keyRange.getToKey() != null) {
+                map = map.headMap(keyRange.getToKey(), false);
+            }
+            this.iterator = map.entrySet().iterator();
+            fetchNext();
+        }
+
+        private void fetchNext() {
+            nextEntry = null;
+            if (iterator.hasNext()) {
+                final Map.Entry<String, String> entry = iterator.next();
+                nextEntry = new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue());
+            }
+        }
+
+        public boolean hasNext() {
+            return nextEntry != null;
+        }
+
+        public Map.Entry<String, String> next() {
+            if (nextEntry == null) {
+                throw new NoSuchElementException();
+            }
+            final Map.Entry<String, String> returnEntry = nextEntry;
+            fetchNext();
+            return returnEntry;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("Memory LocalDB entry iterator does not support removals");
+        }
+
+        public void close() {
+        }
+    }
+
     public File getFileLocation() {
         return null;
     }
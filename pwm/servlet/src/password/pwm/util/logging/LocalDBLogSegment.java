@@ -0,0 +1,128 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.logging;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Summary of a run of consecutive events in the LocalDB event log.  The events occupy {@link #getCount()} queue
+ * positions ending at {@link #getNewestPosition()}.  Searches use the summary to skip segments that can not contain
+ * a matching event without reading them.
+ */
+class LocalDBLogSegment implements Serializable {
+    static final int MAX_ACTORS = 100;
+
+    private long newestPosition;
+    private int count;
+    private int levels;
+    private boolean systemEvents;
+    private boolean actorOverflow;
+    private Set<String> actors = new HashSet<>();
+
+    long getNewestPosition() {
+        return newestPosition;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    void setNewestPosition(final long newestPosition) {
+        this.newestPosition = newestPosition;
+    }
+
+    /**
+     * Record the events most recently added to the queue, the last of which is at {@code newestPosition}.
+     */
+    void addEvents(final Iterable<PwmLogEvent> events, final long newestPosition) {
+        for (final PwmLogEvent event : events) {
+            addEvent(event);
+        }
+        this.newestPosition = newestPosition;
+    }
+
+    /**
+     * Record an event occupying the next position of the segment.  The event may be null if the stored value can not
+     * be read, in which case only the position is counted.
+     */
+    void addEvent(final PwmLogEvent event) {
+        count++;
+        if (event != null) {
+            if (event.getLevel() != null) {
+                levels |= 1 << event.getLevel().ordinal();
+            }
+            final String actor = event.getActor();
+            if (actor == null || actor.isEmpty()) {
+                systemEvents = true;
+            } else if (!actorOverflow && !actors.contains(actor)) {
+                if (actors.size() < MAX_ACTORS) {
+                    actors.add(actor);
+                } else {
+                    actorOverflow = true;
+                    actors.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return false if no event in the segment can match the search parameters.
+     */
+    boolean mayMatch(final LocalDBLogger.SearchParameters searchParameters) {
+        if (count == 0) {
+            return false;
+        }
+
+        if (searchParameters.getMinimumLevel() != null) {
+            final int matchingLevels = levels >>> searchParameters.getMinimumLevel().ordinal();
+            if (matchingLevels == 0) {
+                return false;
+            }
+        }
+
+        if (searchParameters.getEventType() == LocalDBLogger.EventType.System && !systemEvents) {
+            return false;
+        }
+
+        if (searchParameters.getEventType() == LocalDBLogger.EventType.User && !actorOverflow && actors.isEmpty()) {
+            return false;
+        }
+
+        if (searchParameters.hasUsernameFilter() && !actorOverflow) {
+            boolean actorMatch = systemEvents && searchParameters.matchesActor(null);
+            for (final String actor : actors) {
+                if (actorMatch) {
+                    break;
+                }
+                actorMatch = searchParameters.matchesActor(actor);
+            }
+            if (!actorMatch) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
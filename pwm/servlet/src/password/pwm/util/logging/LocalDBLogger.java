@@ -42,7 +42,6 @@ import java.io.Serializable;
 import java.text.NumberFormat;
 import java.util.*;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -58,6 +57,19 @@ public class LocalDBLogger implements PwmService {
 
     private final static int MINIMUM_MAXIMUM_EVENTS = 100;
 
+    /*
+    The stored events are divided into segments of consecutive queue positions, each with a summary stored in the
+    EVENTLOG_SEGMENTS db under a zero padded sequence key.  Segments written at startup by the rebuild thread count
+    down from SEGMENT_REBUILD_BASE and segments written by the writer thread count up from it, so key order is always
+    oldest to newest.  The index is marked clean on close and the mark is removed while open, so an unclean shutdown
+    causes a rebuild.
+     */
+    private final static int SEGMENT_SIZE = 1000;
+    private final static long SEGMENT_REBUILD_BASE = 1000L * 1000L * 1000L;
+    private final static int SEGMENT_KEY_WIDTH = 16;
+    private final static String SEGMENT_CLEAN_KEY = "_clean";
+    private final static LocalDB.KeyRange SEGMENT_KEY_RANGE = LocalDB.KeyRange.between("0", ":");
+
     private volatile long tailTimestampMs = -1L;
     private long lastQueueFlushTimestamp = System.currentTimeMillis();
 
@@ -68,8 +80,12 @@ public class LocalDBLogger implements PwmService {
 
     private volatile STATUS status = STATUS.NEW;
     private volatile boolean writerThreadActive = false;
+    private volatile boolean segmentsReady = false;
     private boolean hasShownReadError = false;
 
+    private LocalDBLogSegment currentSegment;
+    private long currentSegmentSequence = SEGMENT_REBUILD_BASE;
+
     private final TransactionSizeCalculator transactionCalculator = new TransactionSizeCalculator(2049, 5, PwmConstants.LOCALDB_LOGGER_MAX_QUEUE_SIZE);
 
 // --------------------------- CONSTRUCTORS ---------------------------
@@ -100,6 +116,7 @@ public class LocalDBLogger implements PwmService {
         }
 
         this.tailTimestampMs = readTailTimestamp();
+        initSegments(pwmApplication);
         status = STATUS.OPEN;
 
         { // start the writer thread
@@ -168,6 +185,14 @@ public class LocalDBLogger implements PwmService {
             LOGGER.warn("abandoning " + eventQueue.size() + " events waiting to be written to LocalDB log");
         }
 
+        if (segmentsReady && !writerThreadActive) {
+            try {
+                localDB.put(LocalDB.DB.EVENTLOG_SEGMENTS, SEGMENT_CLEAN_KEY, "true");
+            } catch (LocalDBException e) {
+                LOGGER.error("unable to mark event log segments as clean: " + e.getMessage());
+            }
+        }
+
         LOGGER.debug("LocalDBLogger close completed (" + debugStats() + ")");
     }
 
@@ -191,20 +216,196 @@ public class LocalDBLogger implements PwmService {
 
     private void doWrite(final Collection<PwmLogEvent> events) {
         final List<String> transactions = new ArrayList<>();
+        final List<PwmLogEvent> writtenEvents = new ArrayList<>();
         try {
             for (final PwmLogEvent event : events) {
                 final String encodedString = event.toEncodedString();
                 if (encodedString.length() < LocalDB.MAX_VALUE_LENGTH) {
                     transactions.add(encodedString);
+                    writtenEvents.add(event);
                 }
             }
 
-            localDBListQueue.addAll(transactions);
+            if (!transactions.isEmpty()) {
+                final long newestPosition = localDBListQueue.addFirstAndGetPosition(transactions);
+                writeSegment(writtenEvents, newestPosition);
+            }
         } catch (Exception e) {
             LOGGER.error("error writing to localDBLogger: " + e.getMessage(), e);
         }
     }
 
+// -------------------------- SEGMENTS --------------------------
+
+    private void initSegments(final PwmApplication pwmApplication)
+            throws LocalDBException
+    {
+        final boolean clean = localDB.get(LocalDB.DB.EVENTLOG_SEGMENTS, SEGMENT_CLEAN_KEY) != null;
+        if (clean) {
+            localDB.remove(LocalDB.DB.EVENTLOG_SEGMENTS, SEGMENT_CLEAN_KEY);
+            for (final Map.Entry<Long, LocalDBLogSegment> entry : readSegments().entrySet()) {
+                currentSegmentSequence = Math.max(currentSegmentSequence, entry.getKey());
+            }
+            segmentsReady = true;
+            return;
+        }
+
+        localDB.truncate(LocalDB.DB.EVENTLOG_SEGMENTS);
+        if (localDBListQueue.isEmpty()) {
+            segmentsReady = true;
+            return;
+        }
+
+        // the iterator is created before the writer starts, so the rebuild covers exactly the existing events
+        final Iterator<Map.Entry<Long, String>> existingEvents = localDBListQueue.positionIterator();
+        final Thread rebuildThread = new Thread(new Runnable() {
+            public void run() {
+                rebuildSegments(existingEvents);
+            }
+        }, Helper.makeThreadName(pwmApplication, LocalDBLogger.class) + "-SegmentBuilder");
+        rebuildThread.setDaemon(true);
+        rebuildThread.start();
+    }
+
+    private void rebuildSegments(final Iterator<Map.Entry<Long, String>> existingEvents) {
+        final long startTime = System.currentTimeMillis();
+        long sequence = SEGMENT_REBUILD_BASE;
+        int eventCount = 0;
+        try {
+            LocalDBLogSegment segment = null;
+            while (existingEvents.hasNext() && status != STATUS.CLOSED) {
+                final Map.Entry<Long, String> entry = existingEvents.next();
+                if (segment == null) {
+                    segment = new LocalDBLogSegment();
+                    segment.setNewestPosition(entry.getKey());
+                }
+                segment.addEvent(entry.getValue() == null ? null : readEvent(entry.getValue()));
+                eventCount++;
+                if (segment.getCount() >= SEGMENT_SIZE) {
+                    localDB.put(LocalDB.DB.EVENTLOG_SEGMENTS, segmentKey(sequence--), JsonUtil.serialize(segment));
+                    segment = null;
+                }
+            }
+            if (segment != null) {
+                localDB.put(LocalDB.DB.EVENTLOG_SEGMENTS, segmentKey(sequence), JsonUtil.serialize(segment));
+            }
+            if (status != STATUS.CLOSED) {
+                segmentsReady = true;
+                LOGGER.debug("indexed " + eventCount + " stored events into " + (SEGMENT_REBUILD_BASE - sequence + 1)
+                        + " segments in " + TimeDuration.fromCurrent(startTime).asCompactString());
+            }
+        } catch (Exception e) {
+            LOGGER.error("error indexing stored events, searches will scan all events: " + e.getMessage());
+        }
+    }
+
+    private void writeSegment(final List<PwmLogEvent> events, final long newestPosition)
+            throws LocalDBException
+    {
+        if (currentSegment == null || currentSegment.getCount() >= SEGMENT_SIZE) {
+            currentSegment = new LocalDBLogSegment();
+            currentSegmentSequence++;
+        }
+        currentSegment.addEvents(events, newestPosition);
+        localDB.put(LocalDB.DB.EVENTLOG_SEGMENTS, segmentKey(currentSegmentSequence), JsonUtil.serialize(currentSegment));
+    }
+
+    /**
+     * Remove the summaries of the oldest segments once their events have been purged from the queue.  Summaries are
+     * read oldest first and only until the first segment that still has stored events.
+     */
+    private void purgeSegments()
+            throws LocalDBException
+    {
+        final List<String> removalKeys = new ArrayList<>();
+        final LocalDB.LocalDBEntryIterator iterator = localDB.entryIterator(LocalDB.DB.EVENTLOG_SEGMENTS, SEGMENT_KEY_RANGE);
+        try {
+            while (iterator.hasNext()) {
+                final Map.Entry<String, String> entry = iterator.next();
+                final LocalDBLogSegment segment = JsonUtil.deserialize(entry.getValue(), LocalDBLogSegment.class);
+                if (segment != null && !localDBListQueue.getAtPositions(Collections.singletonList(segment.getNewestPosition())).isEmpty()) {
+                    break;
+                }
+                removalKeys.add(entry.getKey());
+            }
+        } finally {
+            iterator.close();
+        }
+        if (!removalKeys.isEmpty()) {
+            localDB.removeAll(LocalDB.DB.EVENTLOG_SEGMENTS, removalKeys);
+        }
+    }
+
+    /**
+     * @return the segment summaries, ordered from oldest to newest.
+     */
+    private SortedMap<Long, LocalDBLogSegment> readSegments()
+            throws LocalDBException
+    {
+        final SortedMap<Long, LocalDBLogSegment> segments = new TreeMap<>();
+        final LocalDB.LocalDBEntryIterator iterator = localDB.entryIterator(LocalDB.DB.EVENTLOG_SEGMENTS, SEGMENT_KEY_RANGE);
+        try {
+            while (iterator.hasNext()) {
+                final Map.Entry<String, String> entry = iterator.next();
+                segments.put(Long.parseLong(entry.getKey()), JsonUtil.deserialize(entry.getValue(), LocalDBLogSegment.class));
+            }
+        } finally {
+            iterator.close();
+        }
+        return segments;
+    }
+
+    private static String segmentKey(final long sequence) {
+        final String value = Long.toString(sequence);
+        final StringBuilder sb = new StringBuilder(SEGMENT_KEY_WIDTH);
+        for (int i = value.length(); i < SEGMENT_KEY_WIDTH; i++) {
+            sb.append('0');
+        }
+        return sb.append(value).toString();
+    }
+
+    /**
+     * Reads the stored values of the segments that may match the search, newest first.
+     */
+    private class SegmentValueIterator implements Iterator<String> {
+        private final Iterator<LocalDBLogSegment> segmentIterator;
+        private Iterator<String> valueIterator = Collections.<String>emptyList().iterator();
+
+        private SegmentValueIterator(final SearchParameters searchParameters)
+                throws LocalDBException
+        {
+            final List<LocalDBLogSegment> matchingSegments = new ArrayList<>();
+            for (final LocalDBLogSegment segment : readSegments().values()) {
+                if (segment.mayMatch(searchParameters)) {
+                    matchingSegments.add(segment);
+                }
+            }
+            Collections.reverse(matchingSegments);
+            segmentIterator = matchingSegments.iterator();
+        }
+
+        public boolean hasNext() {
+            while (!valueIterator.hasNext() && segmentIterator.hasNext()) {
+                final LocalDBLogSegment segment = segmentIterator.next();
+                final List<String> values = localDBListQueue.readRange(segment.getNewestPosition(), segment.getCount());
+                values.removeAll(Collections.singleton((String) null));
+                valueIterator = values.iterator();
+            }
+            return valueIterator.hasNext();
+        }
+
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return valueIterator.next();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     public Date getTailDate() {
         return new Date(tailTimestampMs);
     }
@@ -263,6 +464,9 @@ public class LocalDBLogger implements PwmService {
         final private long maxQueryTime;
         final private EventType eventType;
 
+        final private Pattern usernamePattern;
+        final private String textLowercase;
+
         public SearchParameters(
                 final PwmLogLevel minimumLevel,
                 final int count,
@@ -277,6 +481,17 @@ public class LocalDBLogger implements PwmService {
             this.username = username;
             this.maxEvents = count;
             this.minimumLevel = minimumLevel;
+
+            Pattern pattern = null;
+            try {
+                if (username != null && username.length() > 0) {
+                    pattern = Pattern.compile(username);
+                }
+            } catch (PatternSyntaxException e) {
+                LOGGER.trace("invalid regex syntax for " + username + ", reverting to plaintext search");
+            }
+            this.usernamePattern = pattern;
+            this.textLowercase = text == null || text.length() < 1 ? null : text.toLowerCase();
         }
 
         public PwmLogLevel getMinimumLevel()
@@ -308,11 +523,71 @@ public class LocalDBLogger implements PwmService {
         {
             return eventType;
         }
+
+        boolean hasUsernameFilter() {
+            return usernamePattern != null || (username != null && username.length() > 1);
+        }
+
+        boolean matchesActor(final String actor) {
+            if (usernamePattern != null) {
+                return usernamePattern.matcher(actor == null ? "" : actor).find();
+            }
+            if (username != null && username.length() > 1) {
+                return actor != null && actor.equalsIgnoreCase(username);
+            }
+            return true;
+        }
+
+        boolean matches(final PwmLogEvent event) {
+            if (event == null) {
+                return false;
+            }
+
+            if (minimumLevel != null && event.getLevel().compareTo(minimumLevel) < 0) {
+                return false;
+            }
+
+            if (!matchesActor(event.getActor())) {
+                return false;
+            }
+
+            if (textLowercase != null) {
+                final String eventMessage = event.getMessage();
+                if (eventMessage != null && eventMessage.length() > 0) {
+                    final boolean isAMatch = eventMessage.toLowerCase().contains(textLowercase)
+                            || (event.getTopic() != null && event.getTopic().toLowerCase().contains(textLowercase));
+                    if (!isAMatch) {
+                        return false;
+                    }
+                }
+            }
+
+            final boolean systemEvent = event.getActor() == null || event.getActor().length() < 1;
+            if (eventType == EventType.System && !systemEvent) {
+                return false;
+            } else if (eventType == EventType.User && systemEvent) {
+                return false;
+            }
+
+            return true;
+        }
     }
 
+    /**
+     * Search the stored events, newest first.  Once the segment summaries are available, segments that cannot
+     * contain a match are skipped without being read.  Events are read lazily as the results are iterated, and
+     * reading stops once the search parameter's max query time is reached.
+     */
     public SearchResults readStoredEvents(
             final SearchParameters searchParameters
     ) {
+        if (segmentsReady) {
+            try {
+                return new SearchResults(new SegmentValueIterator(searchParameters), searchParameters);
+            } catch (LocalDBException e) {
+                LOGGER.error("error reading event log segments, reverting to full search: " + e.getMessage());
+            }
+        }
         return new SearchResults(localDBListQueue.iterator(), searchParameters);
     }
 
@@ -336,76 +611,6 @@ public class LocalDBLogger implements PwmService {
         return null;
     }
 
-    private boolean checkEventForParams(
-            final PwmLogEvent event,
-            final SearchParameters searchParameters
-    ) {
-        if (event == null) {
-            return false;
-        }
-
-        boolean eventMatchesParams = true;
-
-        if (searchParameters.getMinimumLevel()!= null) {
-            if (event.getLevel().compareTo(searchParameters.getMinimumLevel()) <= -1) {
-                eventMatchesParams = false;
-            }
-        }
-
-        Pattern pattern = null;
-        try {
-            if (searchParameters.getUsername() != null && searchParameters.getUsername().length() > 0) {
-                pattern = Pattern.compile(searchParameters.getUsername());
-            }
-        } catch (PatternSyntaxException e) {
-            LOGGER.trace("invalid regex syntax for " + searchParameters.getUsername() + ", reverting to plaintext search");
-        }
-        if (pattern != null) {
-            final Matcher matcher = pattern.matcher(event.getActor() == null ? "" : event.getActor());
-            if (!matcher.find()) {
-                eventMatchesParams = false;
-            }
-        } else if (eventMatchesParams && (searchParameters.getUsername() != null && searchParameters.getUsername().length() > 1)) {
-            final String eventUsername = event.getActor();
-            if (eventUsername == null || !eventUsername.equalsIgnoreCase(searchParameters.getUsername())) {
-                eventMatchesParams = false;
-            }
-        }
-
-        if (eventMatchesParams && (searchParameters.getText() != null && searchParameters.getText().length() > 0)) {
-            final String eventMessage = event.getMessage();
-            final String textLowercase = searchParameters.getText() .toLowerCase();
-            boolean isAMatch = false;
-            if (eventMessage != null && eventMessage.length() > 0) {
-                if (eventMessage.toLowerCase().contains(textLowercase)) {
-                    isAMatch = true;
-                } else if (event.getTopic() != null && event.getTopic().length() > 0) {
-                    if (event.getTopic().toLowerCase().contains(textLowercase)) {
-                        isAMatch = true;
-                    }
-                }
-                if (!isAMatch) {
-                    eventMatchesParams = false;
-                }
-            }
-        }
-
-        if (searchParameters.getEventType() != null) {
-            if (searchParameters.getEventType() == EventType.System) {
-                if (event.getActor() != null && event.getActor().length() > 0) {
-                    eventMatchesParams = false;
-                }
-            } else if (searchParameters.getEventType() == EventType.User) {
-                if (event.getActor() == null || event.getActor().length() < 1) {
-                    eventMatchesParams = false;
-                }
-            }
-        }
-
-        return eventMatchesParams;
-    }
-
-
     public void writeEvent(final PwmLogEvent event) {
         if (status == STATUS.OPEN) {
             if (settings.getMaxEvents() > 0) {
@@ -450,6 +655,9 @@ public class LocalDBLogger implements PwmService {
                 if (purgeCount > 0) {
                     int removalCount = purgeCount > transactionCalculator.getTransactionSize() + 1 ? transactionCalculator.getTransactionSize() + 1 : purgeCount;
                     localDBListQueue.removeLast(removalCount);
+                    if (segmentsReady) {
+                        purgeSegments();
+                    }
                     tailTimestampMs = readTailTimestamp();
                     purgesDone = removalCount;
                 }
@@ -519,19 +727,19 @@ public class LocalDBLogger implements PwmService {
             return returnEvent;
         }
 
-        private boolean isTimedout() {
+        private boolean isTimedOut() {
             //return false;
             return TimeDuration.fromCurrent(startTime).isLongerThan(new TimeDuration(searchParameters.getMaxQueryTime()));
         }
 
         private PwmLogEvent readNextEvent()
         {
-            if (eventCount >= searchParameters.getMaxEvents() || isTimedout()) {
+            if (eventCount >= searchParameters.getMaxEvents() || isTimedOut()) {
                 finishTime = new Date();
                 return null;
             }
 
-            while (!isTimedout() && localDBIterator.hasNext()) {
+            while (!isTimedOut() && localDBIterator.hasNext()) {
                 final String nextDbValue = localDBIterator.next();
                 if (nextDbValue == null) {
                     finishTime = new Date();
@@ -539,7 +747,7 @@ public class LocalDBLogger implements PwmService {
                 }
 
                 final PwmLogEvent logEvent = readEvent(nextDbValue);
-                if (logEvent != null && checkEventForParams(logEvent, searchParameters)) {
+                if (searchParameters.matches(logEvent)) {
                     eventCount++;
                     return logEvent;
                 }
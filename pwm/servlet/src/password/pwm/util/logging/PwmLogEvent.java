@@ -25,21 +25,19 @@ package password.pwm.util.logging;
 import password.pwm.PwmConstants;
 import password.pwm.bean.SessionLabel;
 import password.pwm.util.Base64Util;
+import password.pwm.util.BinaryEncoding;
 import password.pwm.util.JsonUtil;
 import password.pwm.util.StringUtil;
 
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
 
 public class PwmLogEvent implements Serializable, Comparable {
 // -------------------------- ENUMERATIONS --------------------------
 
-    private static final String VERSION = "1";
-
-    private static final String KEY_VERSION = "v";
+    // keys of the JSON encoding used by events stored prior to PwmLogEventCodec
     private static final String KEY_LEVEL = "l";
     private static final String KEY_TOPIC = "t";
     private static final String KEY_MESSAGE = "m";
@@ -65,6 +63,10 @@ public class PwmLogEvent implements Serializable, Comparable {
     public static PwmLogEvent fromEncodedString(final String encodedString)
             throws ClassNotFoundException, IOException
     {
+        if (BinaryEncoding.isStoredValue(encodedString)) {
+            return PwmLogEventCodec.decode(encodedString);
+        }
+
         final Map<String, String> srcMap = JsonUtil.deserializeStringMap(encodedString);
 
         if (srcMap == null) {
@@ -275,24 +277,7 @@ public class PwmLogEvent implements Serializable, Comparable {
     public String toEncodedString()
             throws IOException
     {
-        final Map<String, String> tempMap = new HashMap<>();
-        tempMap.put(KEY_VERSION, VERSION);
-        tempMap.put(KEY_TOPIC, topic);
-        tempMap.put(KEY_MESSAGE, message);
-        tempMap.put(KEY_SOURCE, source);
-        tempMap.put(KEY_ACTOR, actor);
-        tempMap.put(KEY_LEVEL, level.toString());
-        tempMap.put(KEY_DATE, String.valueOf(date.getTime()));
-
-        if (label != null) {
-            tempMap.put(KEY_LABEL, label);
-        }
-
-        if (throwable != null) {
-            tempMap.put(KEY_THROWABLE, Base64Util.encodeObject(throwable, Base64Util.NO_OPTIONS));
-        }
-
-        return JsonUtil.serializeMap(tempMap);
+        return PwmLogEventCodec.encode(this);
     }
 
     private String getDebugLabel()
@@ -0,0 +1,193 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.logging;
+
+import password.pwm.util.BinaryEncoding;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Binary encoding of {@link PwmLogEvent}s for storage in the LocalDB.  Throwables are stored as their class names,
+ * messages and stack frames rather than as serialized java objects, and are decoded as {@link StoredThrowable}s.
+ */
+class PwmLogEventCodec {
+    private static final int VERSION = 1;
+    private static final int MAX_CAUSE_DEPTH = 10;
+
+    // timestamps are written relative to 2015-01-01 to keep the varint short
+    private static final long TIMESTAMP_EPOCH = 1420070400000L;
+
+    // dictionaries are append only, existing entries must never be changed or reordered
+    private static final BinaryEncoding.Dictionary LEVELS = new BinaryEncoding.Dictionary(
+            "TRACE", "DEBUG", "INFO", "WARN", "ERROR", "FATAL"
+    );
+
+    private static final BinaryEncoding.Dictionary PACKAGES = new BinaryEncoding.Dictionary(
+            "password.pwm.",
+            "password.pwm.config.",
+            "password.pwm.event.",
+            "password.pwm.health.",
+            "password.pwm.http.",
+            "password.pwm.http.servlet.",
+            "password.pwm.ldap.",
+            "password.pwm.util.",
+            "password.pwm.util.localdb.",
+            "password.pwm.util.logging.",
+            "password.pwm.ws.server.rest.",
+            "java.",
+            "java.lang.",
+            "java.util.",
+            "javax.",
+            "javax.servlet.",
+            "sun.",
+            "com.novell.ldapchai.",
+            "com.novell.ldap.",
+            "com.sleepycat.je.",
+            "org.apache.",
+            "org.apache.catalina.",
+            "org.eclipse.jetty."
+    );
+
+    static String encode(final PwmLogEvent event) {
+        final BinaryEncoding.Writer writer = new BinaryEncoding.Writer();
+        writer.writeByte(VERSION);
+        writer.writeInterned(event.getLevel().toString(), LEVELS);
+        writer.writeLong(event.getDate().getTime() - TIMESTAMP_EPOCH);
+        writer.writePrefixed(event.getTopic(), PACKAGES);
+        writer.writeString(event.getMessage());
+        writer.writeString(event.getSource());
+        writer.writeString(event.getActor());
+        writer.writeString(event.getLabel());
+        writeThrowable(writer, event.getThrowable());
+        return writer.toStoredValue();
+    }
+
+    static PwmLogEvent decode(final String storedValue)
+            throws IOException
+    {
+        final BinaryEncoding.Reader reader = BinaryEncoding.Reader.fromStoredValue(storedValue);
+        final int version = reader.readByte();
+        if (version != VERSION) {
+            throw new IOException("unsupported log event encoding version " + version);
+        }
+        final PwmLogLevel level = PwmLogLevel.valueOf(reader.readInterned(LEVELS));
+        final Date date = new Date(reader.readLong() + TIMESTAMP_EPOCH);
+        final String topic = reader.readPrefixed(PACKAGES);
+        final String message = reader.readString();
+        final String source = reader.readString();
+        final String actor = reader.readString();
+        final String label = reader.readString();
+        final Throwable throwable = readThrowable(reader);
+        return PwmLogEvent.createPwmLogEvent(date, topic, message, source, actor, label, throwable, level);
+    }
+
+    private static void writeThrowable(final BinaryEncoding.Writer writer, final Throwable throwable) {
+        final List<Throwable> chain = new ArrayList<>();
+        final Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<Throwable, Boolean>());
+        for (Throwable loopThrowable = throwable; loopThrowable != null && chain.size() < MAX_CAUSE_DEPTH; loopThrowable = loopThrowable.getCause()) {
+            if (!seen.add(loopThrowable)) {
+                break;
+            }
+            chain.add(loopThrowable);
+        }
+
+        writer.writeLong(chain.size());
+        for (final Throwable loopThrowable : chain) {
+            final String className = loopThrowable instanceof StoredThrowable
+                    ? ((StoredThrowable) loopThrowable).getClassName()
+                    : loopThrowable.getClass().getName();
+            writer.writePrefixed(className, PACKAGES);
+            writer.writeString(loopThrowable.getMessage());
+            final StackTraceElement[] frames = loopThrowable.getStackTrace();
+            writer.writeLong(frames.length);
+            for (final StackTraceElement frame : frames) {
+                writer.writePrefixed(frame.getClassName(), PACKAGES);
+                writer.writeString(frame.getMethodName());
+                writer.writeString(frame.getFileName());
+                writer.writeLong(frame.getLineNumber());
+            }
+        }
+    }
+
+    private static Throwable readThrowable(final BinaryEncoding.Reader reader)
+            throws IOException
+    {
+        final int depth = reader.readInt();
+        final List<StoredThrowable> chain = new ArrayList<>();
+        for (int i = 0; i < depth; i++) {
+            final String className = reader.readPrefixed(PACKAGES);
+            final String message = reader.readString();
+            final int frameCount = reader.readInt();
+            final List<StackTraceElement> frames = new ArrayList<>();
+            for (int f = 0; f < frameCount; f++) {
+                final String declaringClass = reader.readPrefixed(PACKAGES);
+                final String methodName = reader.readString();
+                final String fileName = reader.readString();
+                final int lineNumber = reader.readInt();
+                frames.add(new StackTraceElement(declaringClass, methodName, fileName, lineNumber));
+            }
+            final StoredThrowable storedThrowable = new StoredThrowable(className, message);
+            storedThrowable.setStackTrace(frames.toArray(new StackTraceElement[frames.size()]));
+            chain.add(storedThrowable);
+        }
+
+        for (int i = chain.size() - 1; i > 0; i--) {
+            chain.get(i - 1).initCause(chain.get(i));
+        }
+        return chain.isEmpty() ? null : chain.get(0);
+    }
+
+    /**
+     * A decoded throwable.  The original exception class is not instantiated; instead its name is kept and used
+     * in place of the class name when the throwable is printed.
+     */
+    static class StoredThrowable extends Throwable {
+        private final String className;
+
+        StoredThrowable(final String className, final String message) {
+            super(message);
+            this.className = className;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            final String message = getLocalizedMessage();
+            return message != null ? className + ": " + message : className;
+        }
+    }
+}
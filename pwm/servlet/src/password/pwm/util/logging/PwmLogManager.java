@@ -63,6 +63,7 @@ public class PwmLogManager {
         PwmLogger.setLocalDBLogger(null,null);
         PwmLogger.setPwmApplication(null);
         PwmLogger.setFileAppender(null);
+        PwmLogger.setMinimumLog4jLevel(PwmLogLevel.TRACE);
     }
 
     public static void initializeLogger(
@@ -82,6 +83,7 @@ public class PwmLogManager {
                     throw new Exception("file not found: " + log4jConfigFile.getAbsolutePath());
                 }
                 DOMConfigurator.configure(log4jConfigFile.getAbsolutePath());
+                PwmLogger.setMinimumLog4jLevel(PwmLogLevel.TRACE); // thresholds of configured appenders are not known
                 LOGGER.debug("successfully initialized log4j using file " + log4jConfigFile.getAbsolutePath());
                 return;
             } catch (Exception e) {
@@ -93,12 +95,14 @@ public class PwmLogManager {
 
         // if we haven't yet configured log4j for whatever reason, do so using the hardcoded defaults and level (if supplied)
         final Layout patternLayout = new PatternLayout(config.readAppProperty(AppProperty.LOGGING_PATTERN));
+        PwmLogLevel minimumLog4jLevel = null;
 
         // configure console logging
         if (consoleLogLevel != null && consoleLogLevel.length() > 0 && !"Off".equals(consoleLogLevel)) {
             final ConsoleAppender consoleAppender = new ConsoleAppender(patternLayout);
             final Level level = Level.toLevel(consoleLogLevel);
             consoleAppender.setThreshold(level);
+            minimumLog4jLevel = lowerLevel(minimumLog4jLevel, PwmLogLevel.fromLog4jLevel(level));
             for (final Package logPackage : LOGGING_PACKAGES) {
                 if (logPackage != null) {
                     final Logger logger = Logger.getLogger(logPackage.getName());
@@ -128,6 +132,7 @@ public class PwmLogManager {
                 final RollingFileAppender fileAppender = new RollingFileAppender(patternLayout,fileName,true);
                 final Level level = Level.toLevel(fileLogLevel);
                 fileAppender.setThreshold(level);
+                minimumLog4jLevel = lowerLevel(minimumLog4jLevel, PwmLogLevel.fromLog4jLevel(level));
                 fileAppender.setMaxBackupIndex(Integer.parseInt(config.readAppProperty(AppProperty.LOGGING_FILE_MAX_ROLLOVER)));
                 fileAppender.setMaxFileSize(config.readAppProperty(AppProperty.LOGGING_FILE_MAX_SIZE));
 
@@ -147,11 +152,20 @@ public class PwmLogManager {
             }
         }
 
+        PwmLogger.setMinimumLog4jLevel(minimumLog4jLevel);
+
         // disable jersey warnings.
         java.util.logging.LogManager.getLogManager().addLogger(java.util.logging.Logger.getLogger("com.sun.jersey.spi.container.servlet.WebComponent"));
         java.util.logging.LogManager.getLogManager().getLogger("com.sun.jersey.spi.container.servlet.WebComponent").setLevel(java.util.logging.Level.OFF);
     }
 
+    private static PwmLogLevel lowerLevel(final PwmLogLevel level1, final PwmLogLevel level2) {
+        if (level1 == null) {
+            return level2;
+        }
+        return level2 == null || level1.compareTo(level2) <= 0 ? level1 : level2;
+    }
+
     public static LocalDBLogger initializeLocalDBLogger(final PwmApplication pwmApplication) {
         final LocalDB localDB = pwmApplication.getLocalDB();
 
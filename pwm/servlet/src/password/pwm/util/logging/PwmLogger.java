@@ -52,6 +52,9 @@ public class PwmLogger {
     private static RollingFileAppender fileAppender;
     private static boolean initialized;
 
+    private static PwmLogLevel minimumLog4jLevel = PwmLogLevel.TRACE;
+    private static volatile PwmLogLevel minimumLevel = PwmLogLevel.TRACE;
+
     private final String name;
     private final org.apache.log4j.Logger log4jLogger;
     private final boolean localDBDisabled;
@@ -70,6 +73,30 @@ public class PwmLogger {
     static void setLocalDBLogger(final PwmLogLevel minimumDbLogLevel, final LocalDBLogger localDBLogger) {
         PwmLogger.minimumDbLogLevel = minimumDbLogLevel;
         PwmLogger.localDBLogger = localDBLogger;
+        updateMinimumLevel();
+    }
+
+    /**
+     * Set the lowest level any log4j appender will output, or null if log4j has no appenders.
+     */
+    static void setMinimumLog4jLevel(final PwmLogLevel minimumLog4jLevel) {
+        PwmLogger.minimumLog4jLevel = minimumLog4jLevel;
+        updateMinimumLevel();
+    }
+
+    /**
+     * Events below the lowest of the log4j and LocalDB thresholds are discarded before the message is formatted.
+     * Fatal events are always processed since they are also submitted to the audit manager.
+     */
+    private static void updateMinimumLevel() {
+        PwmLogLevel newMinimum = PwmLogLevel.FATAL;
+        if (minimumLog4jLevel != null && minimumLog4jLevel.compareTo(newMinimum) < 0) {
+            newMinimum = minimumLog4jLevel;
+        }
+        if (localDBLogger != null && minimumDbLogLevel != null && minimumDbLogLevel.compareTo(newMinimum) < 0) {
+            newMinimum = minimumDbLogLevel;
+        }
+        minimumLevel = newMinimum;
     }
 
     static void setFileAppender(final RollingFileAppender rollingFileAppender) {
@@ -111,6 +138,13 @@ public class PwmLogger {
         return name;
     }
 
+    /**
+     * @return false if events at the level would be discarded by every log output.
+     */
+    public boolean isEnabled(final PwmLogLevel level) {
+        return !initialized || level.compareTo(minimumLevel) >= 0;
+    }
+
 // -------------------------- OTHER METHODS --------------------------
 
 
@@ -122,6 +156,10 @@ public class PwmLogger {
 
     private void doPwmSessionLogEvent(final PwmLogLevel level, final PwmSession pwmSession, final Object message, final Throwable e)
     {
+        if (!isEnabled(level)) {
+            return;
+        }
+
         final SessionLabel sessionLabel = pwmSession != null ? pwmSession.getLabel() : null;
         Object cleanedMessage = message;
         if (pwmSession != null && message != null) {
@@ -136,6 +174,10 @@ public class PwmLogger {
 
     private void doLogEvent(final PwmLogLevel level, final SessionLabel sessionLabel, final Object message, final Throwable e)
     {
+        if (!isEnabled(level)) {
+            return;
+        }
+
         final String topic = log4jLogger.getName();
         final PwmLogEvent logEvent = PwmLogEvent.createPwmLogEvent(new Date(), topic, message.toString(), sessionLabel,
                 e, level);
@@ -217,6 +259,12 @@ public class PwmLogger {
         doLogEvent(level, sessionLabel, message, null);
     }
 
+    public void log(final PwmLogLevel level, final SessionLabel sessionLabel, final MessageSupplier message) {
+        if (isEnabled(level)) {
+            doLogEvent(level, sessionLabel, message.get(), null);
+        }
+    }
+
     public void trace(final CharSequence message) {
         doLogEvent(PwmLogLevel.TRACE, null, message, null);
     }
@@ -237,6 +285,30 @@ public class PwmLogger {
         doLogEvent(PwmLogLevel.TRACE, null, message, exception);
     }
 
+    public void trace(final MessageSupplier message) {
+        if (isEnabled(PwmLogLevel.TRACE)) {
+            doLogEvent(PwmLogLevel.TRACE, null, message.get(), null);
+        }
+    }
+
+    public void trace(final PwmSession pwmSession, final MessageSupplier message) {
+        if (isEnabled(PwmLogLevel.TRACE)) {
+            doPwmSessionLogEvent(PwmLogLevel.TRACE, pwmSession, message.get(), null);
+        }
+    }
+
+    public void trace(final PwmRequest pwmRequest, final MessageSupplier message) {
+        if (isEnabled(PwmLogLevel.TRACE)) {
+            doPwmRequestLogEvent(PwmLogLevel.TRACE, pwmRequest, message.get(), null);
+        }
+    }
+
+    public void trace(final SessionLabel sessionLabel, final MessageSupplier message) {
+        if (isEnabled(PwmLogLevel.TRACE)) {
+            doLogEvent(PwmLogLevel.TRACE, sessionLabel, message.get(), null);
+        }
+    }
+
     public void debug(final CharSequence message) {
         doLogEvent(PwmLogLevel.DEBUG, null, message, null);
     }
@@ -273,6 +345,30 @@ public class PwmLogger {
         doPwmSessionLogEvent(PwmLogLevel.DEBUG, pwmSession, message, e);
     }
 
+    public void debug(final MessageSupplier message) {
+        if (isEnabled(PwmLogLevel.DEBUG)) {
+            doLogEvent(PwmLogLevel.DEBUG, null, message.get(), null);
+        }
+    }
+
+    public void debug(final PwmSession pwmSession, final MessageSupplier message) {
+        if (isEnabled(PwmLogLevel.DEBUG)) {
+            doPwmSessionLogEvent(PwmLogLevel.DEBUG, pwmSession, message.get(), null);
+        }
+    }
+
+    public void debug(final PwmRequest pwmRequest, final MessageSupplier message) {
+        if (isEnabled(PwmLogLevel.DEBUG)) {
+            doPwmRequestLogEvent(PwmLogLevel.DEBUG, pwmRequest, message.get(), null);
+        }
+    }
+
+    public void debug(final SessionLabel sessionLabel, final MessageSupplier message) {
+        if (isEnabled(PwmLogLevel.DEBUG)) {
+            doLogEvent(PwmLogLevel.DEBUG, sessionLabel, message.get(), null);
+        }
+    }
+
     public void info(final CharSequence message) {
         doLogEvent(PwmLogLevel.INFO, null, message, null);
     }
@@ -393,6 +489,13 @@ public class PwmLogger {
         doLogEvent(PwmLogLevel.FATAL, null, message, exception);
     }
 
+    /**
+     * Supplies a log message that is only built if the event's level is enabled.
+     */
+    public interface MessageSupplier {
+        CharSequence get();
+    }
+
     public Appendable asAppendable(final PwmLogLevel pwmLogLevel, final SessionLabel sessionLabel) {
         return new PwmLoggerAppendable(pwmLogLevel, sessionLabel);
     }
@@ -37,9 +37,7 @@ import password.pwm.ldap.UserStatusReader;
 import password.pwm.util.StringUtil;
 import password.pwm.util.logging.PwmLogger;
 
-import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Locale;
 
 public class MacroMachine {
     private static final PwmLogger LOGGER = PwmLogger.forClass(MacroMachine.class);
@@ -49,7 +47,8 @@ public class MacroMachine {
     private final UserInfoBean userInfoBean;
     private final LoginInfoBean loginInfoBean;
     private final UserDataReader userDataReader;
-    private final Map<Pattern,MacroImplementation> macroImplementations;
+    private final MacroRegistry macroRegistry;
+    private final MacroImplementation.MacroRequestInfo macroRequestInfo;
 
     public MacroMachine(
             final PwmApplication pwmApplication,
@@ -64,60 +63,12 @@ public class MacroMachine {
         this.userInfoBean = userInfoBean;
         this.loginInfoBean = loginInfoBean;
         this.userDataReader = userDataReader;
-        this.macroImplementations = makeImplementations();
+        this.macroRegistry = MacroRegistry.forExternalRestUrls(pwmApplication.getConfig().readSettingAsStringArray(PwmSetting.EXTERNAL_MACROS_REST_URLS));
+        this.macroRequestInfo = makeMacroRequestInfo();
     }
 
-    private Map<Pattern,MacroImplementation> makeImplementations() {
-        final Set<Class<? extends MacroImplementation>> implementations = new HashSet<>();
-        implementations.addAll(StandardMacros.STANDARD_MACROS);
-        implementations.addAll(InternalMacros.INTERNAL_MACROS);
-        final LinkedHashMap<Pattern,MacroImplementation> map = new LinkedHashMap<>();
-
-        for (Class macroClass : implementations) {
-            try {
-                final MacroImplementation macroImplementation = (MacroImplementation)macroClass.newInstance();
-                final Pattern pattern = macroImplementation.getRegExPattern();
-                map.put(pattern,macroImplementation);
-            } catch (Exception e) {
-                LOGGER.error(sessionLabel, "unable to load macro class " + macroClass.getName() + ", error: " + e.getMessage());
-            }
-        }
-
-        final List<String> externalMethods = pwmApplication.getConfig().readSettingAsStringArray(PwmSetting.EXTERNAL_MACROS_REST_URLS);
-
-        int iteration = 0;
-        for (final String url : externalMethods) {
-            iteration++;
-            final MacroImplementation macroImplementation = new ExternalRestMacro(iteration,url);
-            final Pattern pattern = macroImplementation.getRegExPattern();
-            map.put(pattern,macroImplementation);
-        }
-        return map;
-    }
-
-
-
-
-    public String expandMacros(
-            final String input
-    ) {
-        return expandMacros(input, null);
-    }
-
-    public String expandMacros(
-            final String input,
-            final StringReplacer stringReplacer
-    )
-    {
-        if (input == null) {
-            return null;
-        }
-
-        if (input.length() < 1) {
-            return input;
-        }
-
-        final MacroImplementation.MacroRequestInfo macroRequestInfo = new MacroImplementation.MacroRequestInfo() {
+    private MacroImplementation.MacroRequestInfo makeMacroRequestInfo() {
+        return new MacroImplementation.MacroRequestInfo() {
             @Override
             public PwmApplication getPwmApplication()
             {
@@ -142,36 +93,66 @@ public class MacroMachine {
                 return userDataReader;
             }
         };
+    }
+
+    public String expandMacros(
+            final String input
+    ) {
+        return expandMacros(input, null, false);
+    }
 
+    public String expandMacros(
+            final String input,
+            final StringReplacer stringReplacer
+    ) {
+        return expandMacros(input, stringReplacer, false);
+    }
 
-        String workingString = input;
+    public String expandMacros(
+            final String input,
+            final boolean cacheTemplate
+    ) {
+        return expandMacros(input, null, cacheTemplate);
+    }
 
-        for (final Pattern pattern : macroImplementations.keySet()) {
-            final MacroImplementation pwmMacro = macroImplementations.get(pattern);
-            boolean matched = true;
-            while (matched) {
-                final Matcher matcher = pattern.matcher(workingString);
-                if (matcher.find()) {
-                    workingString = doReplace(workingString, pwmMacro, matcher, stringReplacer, macroRequestInfo);
-                } else {
-                    matched = false;
-                }
-            }
+    /**
+     * @param cacheTemplate true only when {@code input} is a template read directly from the configuration.  Text
+     *                      that has already had per-message values (such as passwords or tokens) substituted into it
+     *                      must not be cached.
+     */
+    public String expandMacros(
+            final String input,
+            final StringReplacer stringReplacer,
+            final boolean cacheTemplate
+    )
+    {
+        if (input == null) {
+            return null;
+        }
+
+        if (input.length() < 1 || input.indexOf('@') < 0) {
+            return input;
         }
 
-        return workingString;
+        final MacroTemplate macroTemplate = cacheTemplate
+                ? macroRegistry.getCachedTemplate(input)
+                : macroRegistry.compileTemplate(input);
+        return macroTemplate.expand(new MacroTemplate.MacroResolver() {
+            public String resolve(final MacroImplementation macroImplementation, final String macroText)
+            {
+                return doReplace(macroImplementation, macroText, stringReplacer);
+            }
+        });
     }
 
+    /**
+     * @return the replacement value, or null if the macro text should be left in place.
+     */
     private String doReplace(
-            final String input,
             final MacroImplementation macroImplementation,
-            final Matcher matcher,
-            final StringReplacer stringReplacer,
-            final MacroImplementation.MacroRequestInfo macroRequestInfo
+            final String matchedStr,
+            final StringReplacer stringReplacer
     ) {
-        final String matchedStr = matcher.group();
-        final int startPos = matcher.start();
-        final int endPos = matcher.end();
         String replaceStr = "";
         try {
             replaceStr = macroImplementation.replaceValue(matchedStr, macroRequestInfo);
@@ -183,7 +164,7 @@ public class MacroMachine {
         }
 
         if (replaceStr == null) {
-            return input;
+            return null;
         }
 
         if (stringReplacer != null) {
@@ -198,7 +179,7 @@ public class MacroMachine {
             LOGGER.trace(sessionLabel, "replaced macro " + matchedStr + " with value: "
                     + (macroImplementation.isSensitive() ? PwmConstants.LOG_REMOVED_VALUE_REPLACEMENT : replaceStr));
         }
-        return new StringBuilder(input).replace(startPos, endPos, replaceStr).toString();
+        return replaceStr == null ? "" : replaceStr;
     }
 
     public static interface StringReplacer {
@@ -0,0 +1,127 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.macro;
+
+import password.pwm.util.logging.PwmLogger;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shared set of macro implementations, along with a cache of configured templates compiled against them.  The standard and
+ * internal macros are stateless, so a single instance of each is created when the class loads and used by every
+ * {@link MacroMachine}.  External REST macros depend on the configured URLs, so a separate registry is kept for each
+ * distinct list of URLs.
+ */
+class MacroRegistry {
+    private static final PwmLogger LOGGER = PwmLogger.forClass(MacroRegistry.class);
+
+    private static final int MAX_CACHED_TEMPLATES = 1000;
+    private static final int MAX_REGISTRIES = 10;
+
+    private static final List<MacroImplementation> STATIC_IMPLEMENTATIONS;
+    static {
+        final List<Class<? extends MacroImplementation>> implementationClasses = new ArrayList<>();
+        implementationClasses.addAll(StandardMacros.STANDARD_MACROS);
+        implementationClasses.addAll(InternalMacros.INTERNAL_MACROS);
+
+        final List<MacroImplementation> implementations = new ArrayList<>();
+        for (final Class<? extends MacroImplementation> macroClass : implementationClasses) {
+            try {
+                implementations.add(macroClass.newInstance());
+            } catch (Exception e) {
+                LOGGER.error("unable to load macro class " + macroClass.getName() + ", error: " + e.getMessage());
+            }
+        }
+        STATIC_IMPLEMENTATIONS = Collections.unmodifiableList(implementations);
+    }
+
+    private static final MacroRegistry STANDARD_REGISTRY = new MacroRegistry(Collections.<String>emptyList());
+    private static final ConcurrentMap<List<String>, MacroRegistry> EXTERNAL_REGISTRIES = new ConcurrentHashMap<>();
+
+    private final List<MacroImplementation> implementations;
+    private final ConcurrentMap<String, MacroTemplate> templateCache = new ConcurrentHashMap<>();
+
+    MacroRegistry(final List<String> externalRestUrls) {
+        final List<MacroImplementation> implementations = new ArrayList<>(STATIC_IMPLEMENTATIONS);
+        int iteration = 0;
+        for (final String url : externalRestUrls) {
+            iteration++;
+            implementations.add(new ExternalRestMacro(iteration, url));
+        }
+        this.implementations = Collections.unmodifiableList(implementations);
+    }
+
+    static MacroRegistry forExternalRestUrls(final List<String> externalRestUrls) {
+        if (externalRestUrls == null || externalRestUrls.isEmpty()) {
+            return STANDARD_REGISTRY;
+        }
+
+        final List<String> key = Collections.unmodifiableList(new ArrayList<>(externalRestUrls));
+        MacroRegistry registry = EXTERNAL_REGISTRIES.get(key);
+        if (registry == null) {
+            if (EXTERNAL_REGISTRIES.size() >= MAX_REGISTRIES) {
+                EXTERNAL_REGISTRIES.clear();
+            }
+            final MacroRegistry newRegistry = new MacroRegistry(key);
+            registry = EXTERNAL_REGISTRIES.putIfAbsent(key, newRegistry);
+            if (registry == null) {
+                registry = newRegistry;
+            }
+        }
+        return registry;
+    }
+
+    List<MacroImplementation> getImplementations() {
+        return implementations;
+    }
+
+    /**
+     * Compile {@code templateText} without retaining it.  Used for per-message text, which may contain substituted
+     * passwords or tokens and is rarely seen twice.
+     */
+    MacroTemplate compileTemplate(final String templateText) {
+        return MacroTemplate.compile(templateText, implementations);
+    }
+
+    /**
+     * Return the compiled form of {@code templateText}, compiling it on first use.  Only text read from the
+     * configuration should be passed here, since the text itself is used as the cache key.
+     */
+    MacroTemplate getCachedTemplate(final String templateText) {
+        MacroTemplate template = templateCache.get(templateText);
+        if (template == null) {
+            template = compileTemplate(templateText);
+            if (templateCache.size() >= MAX_CACHED_TEMPLATES) {
+                templateCache.clear();
+            }
+            templateCache.put(templateText, template);
+        }
+        return template;
+    }
+
+    int cachedTemplateCount() {
+        return templateCache.size();
+    }
+}
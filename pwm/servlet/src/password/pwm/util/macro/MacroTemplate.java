@@ -0,0 +1,165 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.macro;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+
+/**
+ * A template split into literal text and macro references.  Compiling walks the text once, trying the macro patterns
+ * only at each {@code @}; expanding is then a single pass that appends each part to one buffer.  Macro values are not
+ * rescanned for further macros, except for the value wrapped by the {@code @Encode@} macro, which is compiled as a
+ * nested template and expanded before it is encoded.
+ */
+class MacroTemplate {
+    private static final String WRAPPER_START = "[[";
+    private static final String WRAPPER_END = "]]@";
+
+    private final List<Node> nodes;
+    private final int textLength;
+
+    interface MacroResolver {
+        /**
+         * @return the replacement value, or null to leave the macro text unchanged.
+         */
+        String resolve(MacroImplementation macroImplementation, String macroText);
+    }
+
+    private MacroTemplate(final List<Node> nodes) {
+        this.nodes = nodes;
+        int length = 0;
+        for (final Node node : nodes) {
+            length += node.text.length();
+        }
+        this.textLength = length;
+    }
+
+    static MacroTemplate compile(final String templateText, final List<MacroImplementation> implementations) {
+        final List<Node> nodes = new ArrayList<>();
+        final Matcher[] matchers = new Matcher[implementations.size()];
+        for (int i = 0; i < matchers.length; i++) {
+            matchers[i] = implementations.get(i).getRegExPattern().matcher(templateText);
+        }
+
+        int literalStart = 0;
+        int position = templateText.indexOf('@');
+        while (position >= 0) {
+            int macroEnd = -1;
+            MacroImplementation matchedImplementation = null;
+            for (int i = 0; i < matchers.length && matchedImplementation == null; i++) {
+                final Matcher matcher = matchers[i];
+                matcher.region(position, templateText.length());
+                if (matcher.lookingAt()) {
+                    macroEnd = matcher.end();
+                    matchedImplementation = implementations.get(i);
+                }
+            }
+
+            if (matchedImplementation == null) {
+                position = templateText.indexOf('@', position + 1);
+            } else {
+                if (position > literalStart) {
+                    nodes.add(new Node(templateText.substring(literalStart, position), null, null));
+                }
+                final String macroText = templateText.substring(position, macroEnd);
+                nodes.add(new Node(macroText, matchedImplementation, compileWrappedValue(macroText, matchedImplementation, implementations)));
+                literalStart = macroEnd;
+                position = templateText.indexOf('@', macroEnd);
+            }
+        }
+
+        if (literalStart < templateText.length()) {
+            nodes.add(new Node(templateText.substring(literalStart), null, null));
+        }
+
+        return new MacroTemplate(Collections.unmodifiableList(nodes));
+    }
+
+    private static MacroTemplate compileWrappedValue(
+            final String macroText,
+            final MacroImplementation macroImplementation,
+            final List<MacroImplementation> implementations
+    ) {
+        if (!(macroImplementation instanceof StandardMacros.EncodingMacro)) {
+            return null;
+        }
+        final int valueStart = macroText.indexOf(WRAPPER_START) + WRAPPER_START.length();
+        final int valueEnd = macroText.length() - WRAPPER_END.length();
+        return compile(macroText.substring(valueStart, valueEnd), implementations);
+    }
+
+    int macroCount() {
+        int count = 0;
+        for (final Node node : nodes) {
+            if (node.macroImplementation != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    String expand(final MacroResolver macroResolver) {
+        if (nodes.size() == 1 && nodes.get(0).macroImplementation == null) {
+            return nodes.get(0).text;
+        }
+        final StringBuilder output = new StringBuilder(textLength + 16 * nodes.size());
+        appendTo(output, macroResolver);
+        return output.toString();
+    }
+
+    private void appendTo(final StringBuilder output, final MacroResolver macroResolver) {
+        for (final Node node : nodes) {
+            if (node.macroImplementation == null) {
+                output.append(node.text);
+            } else {
+                final String macroText;
+                if (node.wrappedValue == null) {
+                    macroText = node.text;
+                } else {
+                    final int valueStart = node.text.indexOf(WRAPPER_START) + WRAPPER_START.length();
+                    final StringBuilder wrappedText = new StringBuilder(node.text.length());
+                    wrappedText.append(node.text, 0, valueStart);
+                    node.wrappedValue.appendTo(wrappedText, macroResolver);
+                    wrappedText.append(WRAPPER_END);
+                    macroText = wrappedText.toString();
+                }
+                final String value = macroResolver.resolve(node.macroImplementation, macroText);
+                output.append(value == null ? macroText : value);
+            }
+        }
+    }
+
+    private static class Node {
+        private final String text;
+        private final MacroImplementation macroImplementation;
+        private final MacroTemplate wrappedValue;
+
+        private Node(final String text, final MacroImplementation macroImplementation, final MacroTemplate wrappedValue) {
+            this.text = text;
+            this.macroImplementation = macroImplementation;
+            this.wrappedValue = wrappedValue;
+        }
+    }
+}
@@ -58,8 +58,8 @@ public abstract class StandardMacros {
         defaultMacros.add(EncodingMacro.class);
 
         defaultMacros.add(LdapMacro.class);
-        defaultMacros.add(UserPwExpirationTimeMacro.class);
         defaultMacros.add(UserPwExpirationTimeDefaultMacro.class);
+        defaultMacros.add(UserPwExpirationTimeMacro.class);
         defaultMacros.add(UserDaysUntilPwExpireMacro.class);
         defaultMacros.add(UserIDMacro.class);
         defaultMacros.add(UserEmailMacro.class);
@@ -276,7 +276,7 @@ public abstract class StandardMacros {
                 return "";
             }
 
-            final String datePattern = matchValue.substring(19, matchValue.length() - 1);
+            final String datePattern = matchValue.length() > 20 ? matchValue.substring(19, matchValue.length() - 1) : "";
             if (datePattern.length() > 0) {
                 try {
                     final DateFormat dateFormat = new SimpleDateFormat(datePattern);
@@ -139,13 +139,13 @@ public class ActionExecutor {
                 }
                 final MacroMachine macroMachine = settings.getMacroMachine();
 
-                url = macroMachine.expandMacros(url, new MacroMachine.URLEncoderReplacer());
-                body = body == null ? "" : macroMachine.expandMacros(body);
+                url = macroMachine.expandMacros(url, new MacroMachine.URLEncoderReplacer(), true);
+                body = body == null ? "" : macroMachine.expandMacros(body, true);
 
                 for (final String headerName : headers.keySet()) {
                     final String headerValue = headers.get(headerName);
                     if (headerValue != null) {
-                        headers.put(headerName, macroMachine.expandMacros(headerValue));
+                        headers.put(headerName, macroMachine.expandMacros(headerValue, true));
                     }
                 }
             }
@@ -190,7 +190,7 @@ public class ActionExecutor {
         }
 
         if (macroMachine != null) {
-            attrValue  = macroMachine.expandMacros(attrValue);
+            attrValue  = macroMachine.expandMacros(attrValue, true);
         }
 
         LOGGER.trace(pwmSession,"beginning ldap " + ldapMethod.toString() + " operation on " + theUser.getEntryDN() + ", attribute " + attrName);
@@ -139,7 +139,7 @@ public class OtpService implements PwmService {
         final String configuredTokenMacro = settings.getRecoveryTokenMacro();
         final List<String> recoveryCodes = new ArrayList<>();
         while (recoveryCodes.size() < numRecoveryCodes) {
-            final String code = macroMachine.expandMacros(configuredTokenMacro);
+            final String code = macroMachine.expandMacros(configuredTokenMacro, true);
             recoveryCodes.add(code);
         }
         return recoveryCodes;
@@ -25,6 +25,7 @@ package password.pwm.util.queue;
 import password.pwm.AppProperty;
 import password.pwm.PwmApplication;
 import password.pwm.PwmService;
+import password.pwm.config.Configuration;
 import password.pwm.config.option.DataStorageMethod;
 import password.pwm.error.*;
 import password.pwm.health.HealthMessage;
@@ -33,30 +34,47 @@ import password.pwm.util.Helper;
 import password.pwm.util.JsonUtil;
 import password.pwm.util.TimeDuration;
 import password.pwm.util.localdb.LocalDB;
+import password.pwm.util.localdb.LocalDBException;
 import password.pwm.util.localdb.LocalDBStoredQueue;
 import password.pwm.util.logging.PwmLogger;
 
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Base class for the outbound email and sms queues.  Items are persisted to a {@link LocalDBStoredQueue} and sent by a
+ * pool of worker threads.  A worker leases the item at the head of the queue by moving it to a separate lease
+ * database, and acknowledges it by removing the lease once the send completes.  Leases left behind by a shutdown or
+ * crash are returned to the head of the queue on the next startup, so in-flight items are not lost.
+ */
 public abstract class AbstractQueueManager implements PwmService {
     protected PwmLogger LOGGER = PwmLogger.forClass(AbstractQueueManager.class);
 
     private static final long QUEUE_POLL_INTERVAL = 30 * 1003;
 
     protected PwmApplication pwmApplication;
-    protected STATUS status = PwmService.STATUS.NEW;
-    protected Timer timerThread;
+    protected volatile STATUS status = PwmService.STATUS.NEW;
     protected Settings settings;
 
-    protected Date lastSendTime = new Date();
+    private Configuration config;
+    private LocalDB localDB;
+    private LocalDB.DB leaseDB;
     private LocalDBStoredQueue sendQueue;
-    protected int itemIDCounter;
+    private final Object leaseLock = new Object();
+    private final Object workSignal = new Object();
+    private final AtomicInteger inFlightCount = new AtomicInteger(0);
+    private final List<Thread> workerThreads = new ArrayList<>();
+    private volatile boolean workersRunning;
+
+    private final AtomicInteger itemIDCounter = new AtomicInteger(0);
+    private volatile int reservedItemIDLimit;
+    private int itemIDBlockSize;
     protected PwmApplication.AppAttribute itemCountAppAttribute;
     protected String serviceName = AbstractQueueManager.class.getSimpleName();
 
-    protected FailureInfo lastFailure;
+    protected volatile FailureInfo lastFailure;
 
     static class FailureInfo {
         private Date time = new Date();
@@ -81,6 +99,14 @@ public abstract class AbstractQueueManager implements PwmService {
         }
     }
 
+    /**
+     * State owned by a single worker thread, such as a connection to the remote server.  It is created on the
+     * worker thread when the worker starts and closed when the worker stops.
+     */
+    interface WorkerState {
+        void close();
+    }
+
 
     public STATUS status() {
         return status;
@@ -91,7 +117,7 @@ public abstract class AbstractQueueManager implements PwmService {
             return 0;
         }
 
-        return this.sendQueue.size();
+        return this.sendQueue.size() + inFlightCount.get();
     }
     
     public Date eldestItem() {
@@ -108,14 +134,14 @@ public abstract class AbstractQueueManager implements PwmService {
     protected void add(final Serializable input)
             throws PwmUnrecoverableException
     {
-        final String jsonInput = JsonUtil.serialize(input);
-        final int nextItemID = getNextItemCount();
-        final QueueEvent event = new QueueEvent(jsonInput, new Date(), nextItemID);
-
         if (status != PwmService.STATUS.OPEN) {
             throw new PwmUnrecoverableException(new ErrorInformation(PwmError.ERROR_CLOSING));
         }
 
+        final String jsonInput = JsonUtil.serialize(input);
+        final int nextItemID = getNextItemCount();
+        final QueueEvent event = new QueueEvent(jsonInput, new Date(), nextItemID);
+
         if (sendQueue.size() >= settings.getMaxQueueItemCount()) {
             LOGGER.warn("queue full, discarding item send request: " + event.getItem());
             return;
@@ -125,7 +151,9 @@ public abstract class AbstractQueueManager implements PwmService {
         sendQueue.addLast(jsonEvent);
         LOGGER.trace("submitted item to queue: " + queueItemToDebugString(event) + ", queue size: " + sendQueue.size());
 
-        timerThread.schedule(new QueueProcessorTask(), 1);
+        synchronized (workSignal) {
+            workSignal.notify();
+        }
     }
 
     protected static class QueueEvent implements Serializable {
@@ -171,6 +199,7 @@ public abstract class AbstractQueueManager implements PwmService {
     public void init(
             final PwmApplication pwmApplication,
             final LocalDB.DB DB,
+            final LocalDB.DB leaseDB,
             final Settings settings,
             final PwmApplication.AppAttribute itemCountAppAttribute,
             final String serviceName
@@ -194,13 +223,44 @@ public abstract class AbstractQueueManager implements PwmService {
             return;
         }
 
-        itemIDCounter = readItemIDCounter();
-        sendQueue = LocalDBStoredQueue.createLocalDBStoredQueue(pwmApplication, localDB, DB);
-        final String threadName = Helper.makeThreadName(pwmApplication, this.getClass()) + " timer thread";
-        timerThread = new Timer(threadName,true);
+        open(localDB, pwmApplication.getConfig(), DB, leaseDB, settings);
+    }
+
+    /**
+     * Open the queue against the given LocalDB and start the worker threads.  Leases left behind by a previous
+     * run are returned to the queue before any worker starts.
+     */
+    void open(
+            final LocalDB localDB,
+            final Configuration config,
+            final LocalDB.DB DB,
+            final LocalDB.DB leaseDB,
+            final Settings settings
+    )
+            throws LocalDBException
+    {
+        this.localDB = localDB;
+        this.config = config;
+        this.leaseDB = leaseDB;
+        this.settings = settings;
+
+        itemIDBlockSize = Integer.parseInt(config.readAppProperty(AppProperty.QUEUE_ITEM_ID_BLOCK_SIZE));
+        itemIDCounter.set(readItemIDCounter());
+        reservedItemIDLimit = itemIDCounter.get();
+        sendQueue = LocalDBStoredQueue.createLocalDBStoredQueue(localDB, DB, config.isDevDebugMode());
+        restoreLeasedItems();
         status = PwmService.STATUS.OPEN;
         LOGGER.debug(settings.getDebugName() + " is now open, " + sendQueue.size() + " items in queue");
-        timerThread.schedule(new QueueProcessorTask(),1,QUEUE_POLL_INTERVAL);
+
+        workersRunning = true;
+        final int workerCount = Math.max(1, settings.getWorkerCount());
+        for (int i = 0; i < workerCount; i++) {
+            final String threadName = Helper.makeThreadName(pwmApplication, this.getClass()) + " worker thread " + i;
+            final Thread workerThread = new Thread(new QueueWorker(), threadName);
+            workerThread.setDaemon(true);
+            workerThreads.add(workerThread);
+            workerThread.start();
+        }
     }
 
     protected int readItemIDCounter() {
@@ -215,45 +275,80 @@ public abstract class AbstractQueueManager implements PwmService {
         return 0;
     }
 
-    protected void storeItemCounter() {
+    protected void storeItemCounter(final int value) {
         try {
-            pwmApplication.writeAppAttribute(itemCountAppAttribute, String.valueOf(itemIDCounter));
+            pwmApplication.writeAppAttribute(itemCountAppAttribute, String.valueOf(value));
         } catch (Exception e) {
             LOGGER.error("error writing stored item counter app attribute: " + e.getMessage());
         }
     }
 
-    protected synchronized int getNextItemCount() {
-        itemIDCounter++;
-        if (itemIDCounter < 0) {
-            itemIDCounter = 0;
+    /**
+     * Item ids are reserved in blocks; the stored counter is the end of the current block, so it is only written
+     * once per block.  After a restart numbering resumes at the end of the last reserved block.
+     */
+    protected int getNextItemCount() {
+        int current, next;
+        do {
+            current = itemIDCounter.get();
+            next = current == Integer.MAX_VALUE ? 0 : current + 1;
+        } while (!itemIDCounter.compareAndSet(current, next));
+
+        if (next >= reservedItemIDLimit || next == 0) {
+            reserveItemIDs(next);
+        }
+        return next;
+    }
+
+    private void reserveItemIDs(final int itemID) {
+        synchronized (itemIDCounter) {
+            if (itemID >= reservedItemIDLimit || itemID == 0) {
+                final int newLimit = (int)Math.min(Integer.MAX_VALUE, (long)itemID + itemIDBlockSize);
+                storeItemCounter(newLimit);
+                reservedItemIDLimit = newLimit;
+            }
         }
-        storeItemCounter();
-        return itemIDCounter;
     }
 
     public synchronized void close() {
         status = PwmService.STATUS.CLOSED;
         final Date startTime = new Date();
-        final int maxCloseWaitMs = Integer.parseInt(pwmApplication.getConfig().readAppProperty(AppProperty.QUEUE_MAX_CLOSE_TIMEOUT_MS));
-
-        if (sendQueue != null && !sendQueue.isEmpty()) {
-            if (timerThread != null) {
-                timerThread.schedule(new QueueProcessorTask(),1);
-                LOGGER.warn("waiting up to 5 seconds for " + sendQueue.size() + " items in the queue to process");
-                while (!sendQueue.isEmpty() && TimeDuration.fromCurrent(startTime).isShorterThan(maxCloseWaitMs)) {
-                    Helper.pause(100);
-                }
+
+        if (!workersRunning) {
+            return;
+        }
+
+        final int maxCloseWaitMs = Integer.parseInt(config.readAppProperty(AppProperty.QUEUE_MAX_CLOSE_TIMEOUT_MS));
+
+        if (!sendQueue.isEmpty() || inFlightCount.get() > 0) {
+            LOGGER.warn("waiting up to " + maxCloseWaitMs + "ms for " + queueSize() + " items in the queue to process");
+            synchronized (workSignal) {
+                workSignal.notifyAll();
+            }
+            while ((!sendQueue.isEmpty() || inFlightCount.get() > 0) && TimeDuration.fromCurrent(startTime).isShorterThan(maxCloseWaitMs)) {
+                Helper.pause(100);
             }
             if (!sendQueue.isEmpty()) {
                 LOGGER.warn("closing queue with " + sendQueue.size() + " message in queue");
             }
         }
 
-        if (timerThread != null) {
-            timerThread.cancel();
+        workersRunning = false;
+        synchronized (workSignal) {
+            workSignal.notifyAll();
+        }
+        for (final Thread workerThread : workerThreads) {
+            try {
+                workerThread.join(1000);
+            } catch (InterruptedException e) {
+                LOGGER.warn("interrupted while waiting for worker thread " + workerThread.getName() + " to stop");
+            }
+        }
+        workerThreads.clear();
+
+        if (inFlightCount.get() > 0) {
+            LOGGER.warn("closing queue with " + inFlightCount.get() + " leased items still being sent, they will be resent on next startup");
         }
-        timerThread = null;
     }
 
     public List<HealthRecord> healthCheck() {
@@ -265,72 +360,189 @@ public abstract class AbstractQueueManager implements PwmService {
             return Collections.singletonList(HealthRecord.forMessage(HealthMessage.ServiceClosed_AppReadOnly,serviceName));
         }
 
-        if (lastFailure != null) {
-            return this.failureToHealthRecord(lastFailure);
+        final FailureInfo failureInfo = lastFailure;
+        if (failureInfo != null) {
+            return this.failureToHealthRecord(failureInfo);
         }
 
         return Collections.emptyList();
     }
 
-    private void processQueue() {
-        if (lastFailure != null) {
-            final TimeDuration timeSinceFailure = TimeDuration.fromCurrent(lastSendTime);
-            if (timeSinceFailure.isShorterThan(settings.getErrorRetryWaitTime())) {
-                return;
+    /**
+     * Return any items leased by a previous run to the head of the queue, oldest first.
+     */
+    private void restoreLeasedItems() throws LocalDBException {
+        final List<QueueEvent> leasedEvents = new ArrayList<>();
+        final LocalDB.LocalDBEntryIterator iterator = localDB.entryIterator(leaseDB, null);
+        try {
+            while (iterator.hasNext()) {
+                final QueueEvent event = JsonUtil.deserialize(iterator.next().getValue(), QueueEvent.class);
+                if (event != null && event.getTimestamp() != null) {
+                    leasedEvents.add(event);
+                }
+            }
+        } finally {
+            iterator.close();
+        }
+
+        if (!leasedEvents.isEmpty()) {
+            // addFirst places each value ahead of the one before it, so add the newest first to leave the oldest at the
+            // head.  stored timestamps only have one second resolution, so items leased within the same second are
+            // ordered by item id.
+            Collections.sort(leasedEvents, new Comparator<QueueEvent>() {
+                public int compare(QueueEvent o1, QueueEvent o2) {
+                    final int timestampComparison = o2.getTimestamp().compareTo(o1.getTimestamp());
+                    if (timestampComparison != 0) {
+                        return timestampComparison;
+                    }
+                    return Integer.compare(o2.getItemID(), o1.getItemID());
+                }
+            });
+            final List<String> jsonEvents = new ArrayList<>();
+            for (final QueueEvent event : leasedEvents) {
+                jsonEvents.add(JsonUtil.serialize(event));
             }
+            sendQueue.addFirst(jsonEvents);
+            LOGGER.debug("returned " + jsonEvents.size() + " items leased before the last shutdown to the queue");
         }
+        localDB.truncate(leaseDB);
+    }
 
-        lastSendTime = new Date();
+    /**
+     * Remove the item at the head of the queue and record it in the lease database.  Expired or unreadable
+     * items found at the head of the queue are discarded.
+     *
+     * @return the leased item, or null if the queue is empty.
+     */
+    private QueueEvent leaseNextItem() throws LocalDBException {
+        synchronized (leaseLock) {
+            while (true) {
+                final String jsonEvent = sendQueue.peekFirst();
+                if (jsonEvent == null) {
+                    return null;
+                }
 
-        boolean sendFailure = false;
-        while (sendQueue.peekFirst() != null && !sendFailure) {
-            final String jsonEvent = sendQueue.peekFirst();
-            if (jsonEvent != null) {
                 final QueueEvent event = JsonUtil.deserialize(jsonEvent, QueueEvent.class);
-
                 if (event == null || event.getTimestamp() == null) {
                     sendQueue.pollFirst();
-                } else if (TimeDuration.fromCurrent(event.getTimestamp()).isLongerThan(
-                        settings.getMaxQueueItemAge())) {
+                } else if (TimeDuration.fromCurrent(event.getTimestamp()).isLongerThan(settings.getMaxQueueItemAge())) {
                     LOGGER.debug("discarding event due to maximum retry age: " + queueItemToDebugString(event));
                     sendQueue.pollFirst();
                     noteDiscardedItem(event);
                 } else {
-                    final String item = event.getItem();
+                    localDB.put(leaseDB, String.valueOf(event.getItemID()), jsonEvent);
+                    sendQueue.pollFirst();
+                    inFlightCount.incrementAndGet();
+                    return event;
+                }
+            }
+        }
+    }
+
+    private void acknowledgeItem(final QueueEvent event) throws LocalDBException {
+        try {
+            localDB.remove(leaseDB, String.valueOf(event.getItemID()));
+        } finally {
+            inFlightCount.decrementAndGet();
+        }
+    }
 
-                    LOGGER.trace("preparing to send item in queue: " + queueItemToDebugString(
-                            event) + ", queue size: " + sendQueue.size());
+    private void returnItem(final QueueEvent event) throws LocalDBException {
+        try {
+            synchronized (leaseLock) {
+                sendQueue.addFirst(JsonUtil.serialize(event));
+                localDB.remove(leaseDB, String.valueOf(event.getItemID()));
+            }
+        } finally {
+            inFlightCount.decrementAndGet();
+        }
+    }
 
-                    // execute operation
-                    try {
-                        sendItem(item);
-                        sendQueue.pollFirst();
-                        LOGGER.trace("queued item processed and removed from queue: " + queueItemToDebugString(event) + ", queue size: " + sendQueue.size());
-                        lastFailure = null;
-                    } catch (PwmOperationalException e) {
-                        sendFailure = true;
-                        lastFailure = new FailureInfo(e.getErrorInformation(),event);
-                        LOGGER.debug("queued item was not successfully processed, will retry: " + queueItemToDebugString(event) + ", queue size: " + sendQueue.size());
-                    }
+    private long remainingRetryWait() {
+        final FailureInfo failureInfo = lastFailure;
+        if (failureInfo != null) {
+            return settings.getErrorRetryWaitTime().getTotalMilliseconds() - TimeDuration.fromCurrent(failureInfo.getTime()).getTotalMilliseconds();
+        }
+        return 0;
+    }
+
+    private void awaitWork(final long maxWaitMs) {
+        synchronized (workSignal) {
+            if (workersRunning) {
+                try {
+                    workSignal.wait(maxWaitMs);
+                } catch (InterruptedException e) {
+                    /* noop */
                 }
             }
         }
     }
 
+    /**
+     * @return false if the queue was empty.
+     */
+    private boolean processNextItem(final WorkerState workerState) throws LocalDBException {
+        final long retryWait = remainingRetryWait();
+        if (retryWait > 0) {
+            awaitWork(retryWait);
+            return true;
+        }
+
+        final QueueEvent event = leaseNextItem();
+        if (event == null) {
+            return false;
+        }
+
+        LOGGER.trace("preparing to send item in queue: " + queueItemToDebugString(event) + ", queue size: " + sendQueue.size());
+        try {
+            sendItem(event.getItem(), workerState);
+            acknowledgeItem(event);
+            LOGGER.trace("queued item processed and removed from queue: " + queueItemToDebugString(event) + ", queue size: " + sendQueue.size());
+            lastFailure = null;
+        } catch (PwmOperationalException e) {
+            lastFailure = new FailureInfo(e.getErrorInformation(),event);
+            returnItem(event);
+            LOGGER.debug("queued item was not successfully processed, will retry: " + queueItemToDebugString(event) + ", queue size: " + sendQueue.size());
+        }
+        return true;
+    }
+
 
-    abstract void sendItem(String item) throws PwmOperationalException;
+    /**
+     * Create the state used by a single worker thread, or null if sending items does not require any.
+     */
+    WorkerState makeWorkerState() throws PwmUnrecoverableException {
+        return null;
+    }
+
+    abstract void sendItem(String item, WorkerState workerState) throws PwmOperationalException;
 
     abstract List<HealthRecord> failureToHealthRecord(FailureInfo failureInfo);
 
 
     // -------------------------- INNER CLASSES --------------------------
 
-    protected class QueueProcessorTask extends TimerTask {
+    protected class QueueWorker implements Runnable {
         public void run() {
+            WorkerState workerState = null;
             try {
-                processQueue();
-            } catch (Exception e) {
-                LOGGER.error("unexpected exception while processing " + settings.getDebugName() + " queue: " + e.getMessage(), e);
+                workerState = makeWorkerState();
+                while (workersRunning) {
+                    try {
+                        if (!processNextItem(workerState)) {
+                            awaitWork(QUEUE_POLL_INTERVAL);
+                        }
+                    } catch (Exception e) {
+                        LOGGER.error("unexpected exception while processing " + settings.getDebugName() + " queue: " + e.getMessage(), e);
+                        awaitWork(settings.getErrorRetryWaitTime().getTotalMilliseconds());
+                    }
+                }
+            } catch (PwmUnrecoverableException e) {
+                LOGGER.error("unable to start " + settings.getDebugName() + " worker: " + e.getMessage());
+            } finally {
+                if (workerState != null) {
+                    workerState.close();
+                }
             }
         }
     }
@@ -339,12 +551,14 @@ public abstract class AbstractQueueManager implements PwmService {
         private TimeDuration maxQueueItemAge;
         private TimeDuration errorRetryWaitTime;
         private int maxQueueItemCount;
+        private int workerCount;
         private String debugName;
 
-        public Settings(TimeDuration maxQueueItemAge, TimeDuration errorRetryWaitTime, int maxQueueItemCount, String debugName) {
+        public Settings(TimeDuration maxQueueItemAge, TimeDuration errorRetryWaitTime, int maxQueueItemCount, int workerCount, String debugName) {
             this.maxQueueItemAge = maxQueueItemAge;
             this.errorRetryWaitTime = errorRetryWaitTime;
             this.maxQueueItemCount = maxQueueItemCount;
+            this.workerCount = workerCount;
             this.debugName = debugName;
         }
 
@@ -360,6 +574,10 @@ public abstract class AbstractQueueManager implements PwmService {
             return maxQueueItemCount;
         }
 
+        public int getWorkerCount() {
+            return workerCount;
+        }
+
         public String getDebugName() {
             return debugName;
         }
@@ -60,6 +60,7 @@ public class
 // ------------------------------ FIELDS ------------------------------
 
     private Properties javaMailProps = new Properties();
+    private javax.mail.Session mailSession;
 
 // --------------------------- CONSTRUCTORS ---------------------------
 
@@ -76,15 +77,18 @@ public class
     {
         LOGGER = PwmLogger.forClass(EmailQueueManager.class);
         javaMailProps = makeJavaMailProps(pwmApplication.getConfig());
+        mailSession = javax.mail.Session.getInstance(javaMailProps, null);
         final Settings settings = new Settings(
                 new TimeDuration(Long.parseLong(pwmApplication.getConfig().readAppProperty(AppProperty.QUEUE_EMAIL_MAX_AGE_MS))),
                 new TimeDuration(Long.parseLong(pwmApplication.getConfig().readAppProperty(AppProperty.QUEUE_EMAIL_RETRY_TIMEOUT_MS))),
                 Integer.parseInt(pwmApplication.getConfig().readAppProperty(AppProperty.QUEUE_EMAIL_MAX_COUNT)),
+                Integer.parseInt(pwmApplication.getConfig().readAppProperty(AppProperty.QUEUE_EMAIL_WORKER_THREADS)),
                 EmailQueueManager.class.getSimpleName()
         );
         super.init(
                 pwmApplication,
                 LocalDB.DB.EMAIL_QUEUE,
+                LocalDB.DB.EMAIL_QUEUE_LEASES,
                 settings,
                 PwmApplication.AppAttribute.EMAIL_ITEM_COUNTER,
                 EmailQueueManager.class.getSimpleName()
@@ -160,35 +164,29 @@ public class
         }
     }
 
-    void sendItem(final String item) throws PwmOperationalException {
+    @Override
+    WorkerState makeWorkerState() throws PwmUnrecoverableException {
+        final Configuration config = this.pwmApplication.getConfig();
+        final String mailuser = config.readSettingAsString(PwmSetting.EMAIL_USERNAME);
+        final PasswordData mailpassword = config.readSettingAsPassword(PwmSetting.EMAIL_PASSWORD);
+        final String mailhost = config.readSettingAsString(PwmSetting.EMAIL_SERVER_ADDRESS);
+        final int mailport = (int)config.readSettingAsLong(PwmSetting.EMAIL_SERVER_PORT);
+
+        // Login to SMTP server first if both username and password is given
+        if (mailuser == null || mailuser.length() < 1 || mailpassword == null) {
+            return new SmtpConnection(mailSession, mailhost, mailport, null, null);
+        }
+        return new SmtpConnection(mailSession, mailhost, mailport, mailuser, mailpassword.getStringValue());
+    }
+
+    void sendItem(final String item, final WorkerState workerState) throws PwmOperationalException {
         final EmailItemBean emailItemBean = JsonUtil.deserialize(item, EmailItemBean.class);
+        final SmtpConnection smtpConnection = (SmtpConnection)workerState;
 
-        // create a new MimeMessage object (using the Session created above)
         try {
             final Message message = convertEmailItemToMessage(emailItemBean, this.pwmApplication.getConfig());
-            final String mailuser = this.pwmApplication.getConfig().readSettingAsString(PwmSetting.EMAIL_USERNAME);
-            final PasswordData mailpassword = this.pwmApplication.getConfig().readSettingAsPassword(PwmSetting.EMAIL_PASSWORD);
-
-            // Login to SMTP server first if both username and password is given
-            final String logText;
-            if (mailuser == null || mailuser.length() < 1 || mailpassword == null) {
-
-                logText = "plaintext";
-                Transport.send(message);
-            } else {
-                // create a new Session object for the message
-                final javax.mail.Session session = javax.mail.Session.getInstance(javaMailProps, null);
-
-                final String mailhost = this.pwmApplication.getConfig().readSettingAsString(PwmSetting.EMAIL_SERVER_ADDRESS);
-                final int mailport = (int)this.pwmApplication.getConfig().readSettingAsLong(PwmSetting.EMAIL_SERVER_PORT);
-
-                final Transport tr = session.getTransport("smtp");
-                tr.connect(mailhost, mailport, mailuser, mailpassword.getStringValue());
-                message.saveChanges();
-                tr.sendMessage(message, message.getAllRecipients());
-                tr.close();
-                logText = "authenticated ";
-            }
+            smtpConnection.send(message);
+            final String logText = smtpConnection.isAuthenticated() ? "authenticated " : "plaintext";
 
             LOGGER.debug("successfully sent " + logText + "email: " + emailItemBean.toString());
             StatisticsManager.incrementStat(pwmApplication, Statistic.EMAIL_SEND_SUCCESSES);
@@ -218,11 +216,7 @@ public class
         final boolean hasPlainText = emailItemBean.getBodyPlain() != null && emailItemBean.getBodyPlain().length() > 0;
         final boolean hasHtml = emailItemBean.getBodyHtml() != null && emailItemBean.getBodyHtml().length() > 0;
 
-
-        // create a new Session object for the message
-        final javax.mail.Session session = javax.mail.Session.getInstance(javaMailProps, null);
-
-        final Message message = new MimeMessage(session);
+        final Message message = new MimeMessage(mailSession);
         message.setFrom();
         message.setFrom(makeInternetAddress(emailItemBean.getFrom()));
         message.setRecipients(Message.RecipientType.TO, new InternetAddress[]{makeInternetAddress(emailItemBean.getTo())});
@@ -324,6 +318,69 @@ public class
         return expandedEmailItem;
     }
 
+    /**
+     * SMTP connection owned by a single queue worker.  The connection is opened on the first send and reused for
+     * following messages; it is re-opened if the server has dropped it in the meantime.
+     */
+    static class SmtpConnection implements WorkerState {
+        private static final PwmLogger LOGGER = PwmLogger.forClass(SmtpConnection.class);
+        private final javax.mail.Session session;
+        private final String host;
+        private final int port;
+        private final String username;
+        private final String password;
+
+        private Transport transport;
+
+        SmtpConnection(
+                final javax.mail.Session session,
+                final String host,
+                final int port,
+                final String username,
+                final String password
+        )
+        {
+            this.session = session;
+            this.host = host;
+            this.port = port;
+            this.username = username;
+            this.password = password;
+        }
+
+        boolean isAuthenticated() {
+            return username != null;
+        }
+
+        void send(final Message message)
+                throws MessagingException
+        {
+            if (transport == null || !transport.isConnected()) {
+                close();
+                transport = session.getTransport("smtp");
+                transport.connect(host, port, username, password);
+            }
+
+            message.saveChanges();
+            try {
+                transport.sendMessage(message, message.getAllRecipients());
+            } catch (MessagingException e) {
+                close();
+                throw e;
+            }
+        }
+
+        public void close() {
+            if (transport != null) {
+                try {
+                    transport.close();
+                } catch (MessagingException e) {
+                    LOGGER.debug("error closing smtp connection: " + e.getMessage());
+                }
+                transport = null;
+            }
+        }
+    }
+
     public static EmailItemBean newEmailToAddress(final EmailItemBean emailItem, final String toAddress) {
         final EmailItemBean expandedEmailItem;
         expandedEmailItem = new EmailItemBean(
@@ -75,7 +75,6 @@ public class SmsQueueManager extends AbstractQueueManager {
         SQL
     }
 
-    private SmsSendEngine smsSendEngine;
 // --------------------------- CONSTRUCTORS ---------------------------
 
     public SmsQueueManager() {
@@ -94,16 +93,17 @@ public class SmsQueueManager extends AbstractQueueManager {
                 new TimeDuration(Long.parseLong(pwmApplication.getConfig().readAppProperty(AppProperty.QUEUE_SMS_MAX_AGE_MS))),
                 new TimeDuration(Long.parseLong(pwmApplication.getConfig().readAppProperty(AppProperty.QUEUE_SMS_RETRY_TIMEOUT_MS))),
                 Integer.parseInt(pwmApplication.getConfig().readAppProperty(AppProperty.QUEUE_SMS_MAX_COUNT)),
+                Integer.parseInt(pwmApplication.getConfig().readAppProperty(AppProperty.QUEUE_SMS_WORKER_THREADS)),
                 EmailQueueManager.class.getSimpleName()
         );
         super.init(
                 pwmApplication,
                 LocalDB.DB.SMS_QUEUE,
+                LocalDB.DB.SMS_QUEUE_LEASES,
                 settings,
                 PwmApplication.AppAttribute.SMS_ITEM_COUNTER,
                 SmsQueueManager.class.getSimpleName()
         );
-        smsSendEngine = new SmsSendEngine(pwmApplication.getConfig());
     }
 
 
@@ -168,8 +168,9 @@ public class SmsQueueManager extends AbstractQueueManager {
         return true;
     }
 
-    void sendItem(final String item) throws PwmOperationalException {
+    void sendItem(final String item, final WorkerState workerState) throws PwmOperationalException {
         final SmsItemBean smsItemBean = JsonUtil.deserialize(item, SmsItemBean.class);
+        final SmsSendEngine smsSendEngine = new SmsSendEngine(pwmApplication.getConfig());
         try {
             for (final String msgPart : splitMessage(smsItemBean.getMessage())) {
                 smsSendEngine.sendSms(smsItemBean.getTo(), msgPart);
@@ -35,6 +35,7 @@ import password.pwm.bean.UserInfoBean;
 import password.pwm.config.Configuration;
 import password.pwm.config.PwmSetting;
 import password.pwm.config.option.DataStorageMethod;
+import password.pwm.config.profile.LdapProfile;
 import password.pwm.error.*;
 import password.pwm.health.HealthRecord;
 import password.pwm.i18n.Display;
@@ -55,17 +56,22 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.MathContext;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ReportService implements PwmService {
     private static final PwmLogger LOGGER = PwmLogger.forClass(ReportService.class);
 
+    private static final int MAX_QUEUED_USERS_PER_WORKER = 100;
+    private static final String SEARCH_SLICE_CHARS = "abcdefghijklmnopqrstuvwxyz0123456789";
+
     private final AvgTracker avgTracker = new AvgTracker(100);
 
     private PwmApplication pwmApplication;
-    private STATUS status = STATUS.NEW;
-    private boolean cancelFlag = false;
-    private ReportStatusInfo reportStatus = new ReportStatusInfo("");
-    private ReportSummaryData summaryData = ReportSummaryData.newSummaryData(null);
+    private volatile STATUS status = STATUS.NEW;
+    private volatile boolean cancelFlag = false;
+    private volatile ReportStatusInfo reportStatus = new ReportStatusInfo("");
+    private volatile ReportSummaryData summaryData = ReportSummaryData.newSummaryData(null);
     private Timer timer;
 
     private UserCacheService userCacheService;
@@ -232,46 +238,206 @@ public class ReportService implements PwmService {
             return;
         }
         cancelFlag = false;
+        final int workerCount = Math.max(1, Integer.parseInt(pwmApplication.getConfig().readAppProperty(AppProperty.REPORTING_LDAP_WORKER_THREADS)));
         reportStatus = new ReportStatusInfo(settings.getSettingsHash());
         reportStatus.setInProgress(true);
         reportStatus.setStartDate(new Date());
         try {
-            final Queue<UserIdentity> allUsers = new LinkedList<>(getListOfUsers());
-            reportStatus.setTotal(allUsers.size());
-            while (status == STATUS.OPEN && !allUsers.isEmpty() && !cancelFlag) {
-                final long startUpdateTime = System.currentTimeMillis();
-                final UserIdentity userIdentity = allUsers.poll();
+            new DredgeJob(workerCount).run();
+            if (cancelFlag) {
+                reportStatus.setLastError(new ErrorInformation(PwmError.ERROR_SERVICE_NOT_AVAILABLE,"report cancelled by operator"));
+            }
+        } finally {
+            reportStatus.setFinishDate(new Date());
+            reportStatus.setInProgress(false);
+        }
+        LOGGER.debug(PwmConstants.REPORTING_SESSION_LABEL,"update user cache process completed: " + JsonUtil.serialize(reportStatus));
+    }
+
+    /**
+     * A single dredge run.  The calling thread searches ldap one profile, context and search slice at a time and
+     * feeds the discovered users into a bounded queue, while a pool of workers reads each user and updates the cache.  The
+     * workers share a {@link TokenBucket} so the configured pacing applies to the dredge as a whole.
+     */
+    private class DredgeJob {
+        private final int workerCount;
+        private final BlockingQueue<UserIdentity> workQueue;
+        private final TokenBucket rateLimiter;
+        private final AtomicBoolean searchComplete = new AtomicBoolean(false);
+        private final AtomicBoolean abortFlag = new AtomicBoolean(false);
+
+        private DredgeJob(final int workerCount) {
+            this.workerCount = workerCount;
+            this.workQueue = new ArrayBlockingQueue<>(workerCount * MAX_QUEUED_USERS_PER_WORKER);
+            final double initialRate;
+            if (settings.isAutoCalcRest()) {
+                initialRate = avgTracker.hasSamples() ? autoCalcRate(avgTracker.avgAsLong()) : workerCount;
+            } else {
+                final long restTimeMs = settings.getRestTime().getTotalMilliseconds();
+                initialRate = restTimeMs > 0 ? 1000.0 / restTimeMs : 0;
+            }
+            this.rateLimiter = new TokenBucket(initialRate, workerCount);
+        }
+
+        private void run()
+                throws ChaiUnavailableException, ChaiOperationException, PwmOperationalException, PwmUnrecoverableException
+        {
+            final String threadNamePrefix = Helper.makeThreadName(pwmApplication, ReportService.class) + "-dredge-worker-";
+            final ExecutorService workerPool = Executors.newFixedThreadPool(workerCount, new ThreadFactory() {
+                private int counter = 0;
+
+                public synchronized Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, threadNamePrefix + counter++);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+            LOGGER.debug(PwmConstants.REPORTING_SESSION_LABEL,"starting ldap dredge with " + workerCount + " workers, initial rate "
+                    + (rateLimiter.getRate() > 0 ? String.format("%.2f", rateLimiter.getRate()) + " users/second" : "unlimited"));
+
+            try {
+                for (final ReportStatusInfo.WorkerStatus workerStatus : reportStatus.initWorkers(workerCount)) {
+                    workerPool.execute(new DredgeWorker(workerStatus));
+                }
+                queueUsersFromLdap();
+            } catch (ChaiUnavailableException | ChaiOperationException | PwmOperationalException | PwmUnrecoverableException | RuntimeException e) {
+                abortFlag.set(true);
+                throw e;
+            } finally {
+                searchComplete.set(true);
+                workerPool.shutdown();
+                try {
+                    while (!workerPool.awaitTermination(1, TimeUnit.MINUTES)) {
+                        LOGGER.trace(PwmConstants.REPORTING_SESSION_LABEL,"waiting for dredge workers to complete, " + workQueue.size() + " users remain in queue");
+                    }
+                } catch (InterruptedException e) {
+                    abortFlag.set(true);
+                    workerPool.shutdownNow();
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private boolean isStopped() {
+            return status != STATUS.OPEN || cancelFlag || abortFlag.get();
+        }
+
+        private void queueUsersFromLdap()
+                throws ChaiUnavailableException, ChaiOperationException, PwmUnrecoverableException, PwmOperationalException
+        {
+            final Configuration config = pwmApplication.getConfig();
+            final Collection<LdapProfile> ldapProfiles = config.getLdapProfiles().values();
+            final boolean ignoreUnreachableProfiles = config.readSettingAsBoolean(PwmSetting.LDAP_IGNORE_UNREACHABLE_PROFILES);
+            int remainingResults = settings.getMaxSearchSize();
+
+            profileLoop:
+            for (final LdapProfile ldapProfile : ldapProfiles) {
+                final String baseFilter = settings.getSearchFilter() != null
+                        ? settings.getSearchFilter()
+                        : ldapProfile.readSettingAsString(PwmSetting.LDAP_USERNAME_SEARCH_FILTER).replace(PwmConstants.VALUE_REPLACEMENT_USERNAME, "*");
+                final List<String> searchFilters = makeSearchSliceFilters(baseFilter, ldapProfile.readSettingAsString(PwmSetting.LDAP_NAMING_ATTRIBUTE));
+
+                for (final String searchContext : ldapProfile.readSettingAsStringArray(PwmSetting.LDAP_CONTEXTLESS_ROOT)) {
+                    for (final String searchFilter : searchFilters) {
+                        if (remainingResults <= 0 || isStopped()) {
+                            return;
+                        }
+
+                        final List<UserIdentity> searchResults;
+                        try {
+                            searchResults = readUsersFromLdap(pwmApplication, searchFilter, ldapProfile, searchContext, remainingResults);
+                        } catch (PwmUnrecoverableException e) {
+                            if (e.getError() == PwmError.ERROR_DIRECTORY_UNAVAILABLE && ignoreUnreachableProfiles && ldapProfiles.size() > 1) {
+                                LOGGER.error(PwmConstants.REPORTING_SESSION_LABEL,"skipping unreachable ldap profile " + ldapProfile.getIdentifier()
+                                        + " during report dredge: " + e.getErrorInformation().toDebugStr());
+                                reportStatus.markError(e.getErrorInformation());
+                                continue profileLoop;
+                            }
+                            throw e;
+                        }
+
+                        for (final UserIdentity userIdentity : searchResults) {
+                            if (!enqueue(userIdentity)) {
+                                return;
+                            }
+                            reportStatus.incrementTotal();
+                            remainingResults--;
+                        }
+                    }
+                }
+            }
+        }
+
+        private boolean enqueue(final UserIdentity userIdentity) {
+            try {
+                while (!workQueue.offer(userIdentity, 1, TimeUnit.SECONDS)) {
+                    if (isStopped()) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abortFlag.set(true);
+                return false;
+            }
+        }
+
+        private double autoCalcRate(final long avgProcessingMs) {
+            // each worker rests about as long as it takes to read a user, as the sequential dredge did
+            return workerCount * 1000.0 / (2 * Math.max(1, avgProcessingMs));
+        }
+
+        private class DredgeWorker implements Runnable {
+            private final ReportStatusInfo.WorkerStatus workerStatus;
+
+            private DredgeWorker(final ReportStatusInfo.WorkerStatus workerStatus) {
+                this.workerStatus = workerStatus;
+            }
+
+            public void run() {
                 try {
-                    if (updateCache(userIdentity)) {
-                        reportStatus.setUpdated(reportStatus.getUpdated() + 1);
+                    while (!isStopped()) {
+                        final UserIdentity userIdentity = workQueue.poll(1, TimeUnit.SECONDS);
+                        if (userIdentity == null) {
+                            if (searchComplete.get()) {
+                                return;
+                            }
+                        } else {
+                            rateLimiter.acquire();
+                            processUser(userIdentity);
+                        }
                     }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            private void processUser(final UserIdentity userIdentity) {
+                final long startUpdateTime = System.currentTimeMillis();
+                workerStatus.beginRecord(userIdentity.toString());
+                boolean error = false;
+                boolean updated = false;
+                try {
+                    updated = updateCache(userIdentity);
                 } catch (Exception e) {
                     String errorMsg = "error while updating report cache for " + userIdentity.toString() + ", cause: ";
                     errorMsg += e instanceof PwmException ? ((PwmException) e).getErrorInformation().toDebugStr() : e.getMessage();
                     final ErrorInformation errorInformation;
                     errorInformation = new ErrorInformation(PwmError.ERROR_REPORTING_ERROR,errorMsg);
                     LOGGER.error(PwmConstants.REPORTING_SESSION_LABEL,errorInformation.toDebugStr());
-                    reportStatus.setLastError(errorInformation);
-                    reportStatus.setErrors(reportStatus.getErrors() + 1);
+                    reportStatus.markError(errorInformation);
+                    error = true;
                 }
-                reportStatus.setCount(reportStatus.getCount() + 1);
-                reportStatus.getEventRateMeter().markEvents(1);
-                final long totalUpdateTime = System.currentTimeMillis() - startUpdateTime;
+                reportStatus.markProcessed(updated);
+                workerStatus.endRecord(error);
                 if (settings.isAutoCalcRest()) {
-                    avgTracker.addSample(totalUpdateTime);
-                    Helper.pause(avgTracker.avgAsLong());
-                } else {
-                    Helper.pause(settings.getRestTime().getTotalMilliseconds());
+                    avgTracker.addSample(System.currentTimeMillis() - startUpdateTime);
+                    rateLimiter.setRate(autoCalcRate(avgTracker.avgAsLong()));
                 }
             }
-            if (cancelFlag) {
-                reportStatus.setLastError(new ErrorInformation(PwmError.ERROR_SERVICE_NOT_AVAILABLE,"report cancelled by operator"));
-            }
-        } finally {
-            reportStatus.setFinishDate(new Date());
-            reportStatus.setInProgress(false);
         }
-        LOGGER.debug(PwmConstants.REPORTING_SESSION_LABEL,"update user cache process completed: " + JsonUtil.serialize(reportStatus));
     }
 
     private void updateRestingCacheData() {
@@ -385,15 +551,34 @@ public class ReportService implements PwmService {
         return reportStatus;
     }
 
-    private List<UserIdentity> getListOfUsers()
-            throws ChaiUnavailableException, ChaiOperationException, PwmUnrecoverableException, PwmOperationalException
-    {
-        return readAllUsersFromLdap(pwmApplication, settings.getSearchFilter(), settings.getMaxSearchSize());
+    /**
+     * Split a search into slices by the first character of the naming attribute, plus a final slice for entries
+     * that match none of the others.  The slices partition the results of {@code baseFilter}, and since chai
+     * returns each search as a complete result map, searching them one at a time limits how many users are held
+     * in memory before they are handed to the dredge workers.
+     */
+    static List<String> makeSearchSliceFilters(final String baseFilter, final String namingAttribute) {
+        final String filter = baseFilter.startsWith("(") ? baseFilter : "(" + baseFilter + ")";
+        if (namingAttribute == null || namingAttribute.isEmpty()) {
+            return Collections.singletonList(filter);
+        }
+
+        final List<String> filters = new ArrayList<>();
+        final StringBuilder remainderFilter = new StringBuilder();
+        for (final char sliceChar : SEARCH_SLICE_CHARS.toCharArray()) {
+            final String sliceFilter = "(" + namingAttribute + "=" + sliceChar + "*)";
+            filters.add("(&" + filter + sliceFilter + ")");
+            remainderFilter.append(sliceFilter);
+        }
+        filters.add("(&" + filter + "(!(|" + remainderFilter + ")))");
+        return filters;
     }
 
-    private static List<UserIdentity> readAllUsersFromLdap(
+    private static List<UserIdentity> readUsersFromLdap(
             final PwmApplication pwmApplication,
             final String searchFilter,
+            final LdapProfile ldapProfile,
+            final String searchContext,
             final int maxResults
     )
             throws ChaiUnavailableException, ChaiOperationException, PwmUnrecoverableException, PwmOperationalException
@@ -402,45 +587,55 @@ public class ReportService implements PwmService {
         final UserSearchEngine.SearchConfiguration searchConfiguration = new UserSearchEngine.SearchConfiguration();
         searchConfiguration.setEnableValueEscaping(false);
         searchConfiguration.setSearchTimeout(Long.parseLong(pwmApplication.getConfig().readAppProperty(AppProperty.REPORTING_LDAP_SEARCH_TIMEOUT)));
+        searchConfiguration.setLdapProfile(ldapProfile.getIdentifier());
+        searchConfiguration.setContexts(Collections.singletonList(searchContext));
+        searchConfiguration.setEnableContextValidation(false);
+        searchConfiguration.setFilter(searchFilter);
 
-        if (searchFilter == null) {
-            searchConfiguration.setUsername("*");
-        } else {
-            searchConfiguration.setFilter(searchFilter);
-        }
-
-        LOGGER.debug(PwmConstants.REPORTING_SESSION_LABEL,"beginning UserReportService user search using parameters: " + (JsonUtil.serialize(searchConfiguration)));
+        LOGGER.trace(PwmConstants.REPORTING_SESSION_LABEL,"beginning UserReportService user search using parameters: " + (JsonUtil.serialize(searchConfiguration)));
 
         final Map<UserIdentity,Map<String,String>> searchResults = userSearchEngine.performMultiUserSearch(searchConfiguration, maxResults, Collections.<String>emptyList());
-        LOGGER.debug(PwmConstants.REPORTING_SESSION_LABEL,"user search found " + searchResults.size() + " users for reporting");
+        LOGGER.trace(PwmConstants.REPORTING_SESSION_LABEL,"user search found " + searchResults.size() + " users for reporting in profile "
+                + ldapProfile.getIdentifier() + " context " + searchContext + " filter " + searchFilter);
         final List<UserIdentity> returnList = new ArrayList<>(searchResults.keySet());
         Collections.shuffle(returnList);
         return returnList;
     }
 
-    public ClosableIterator<UserCacheRecord> iterator() {
+    public RecordIterator iterator() {
         return new RecordIterator(userCacheService.iterator());
     }
 
+    /**
+     * Iterate the cached records that follow {@code resumeKey}, a value previously returned by
+     * {@link RecordIterator#getLastKey()}.
+     */
+    public RecordIterator iterator(final String resumeKey) {
+        return new RecordIterator(userCacheService.iterator(resumeKey));
+    }
+
     public class RecordIterator implements ClosableIterator<UserCacheRecord> {
 
-        private ClosableIterator<UserCacheService.StorageKey> storageKeyIterator;
+        private ClosableIterator<UserCacheService.StoredRecord> storedRecordIterator;
+        private String lastKey;
 
-        public RecordIterator(ClosableIterator<UserCacheService.StorageKey> storageKeyIterator) {
-            this.storageKeyIterator = storageKeyIterator;
+        public RecordIterator(ClosableIterator<UserCacheService.StoredRecord> storedRecordIterator) {
+            this.storedRecordIterator = storedRecordIterator;
         }
 
         public boolean hasNext() {
-            return this.storageKeyIterator.hasNext();
+            return this.storedRecordIterator.hasNext();
         }
 
         public UserCacheRecord next()
         {
             try {
                 UserCacheRecord returnBean = null;
-                while (returnBean == null && this.storageKeyIterator.hasNext()) {
-                    UserCacheService.StorageKey key = this.storageKeyIterator.next();
-                    returnBean = userCacheService.readStorageKey(key);
+                while (returnBean == null && this.storedRecordIterator.hasNext()) {
+                    final UserCacheService.StoredRecord storedRecord = this.storedRecordIterator.next();
+                    final UserCacheService.StorageKey key = storedRecord.getStorageKey();
+                    lastKey = key.getKey();
+                    returnBean = storedRecord.getUserCacheRecord();
                     if (returnBean != null) {
                         if (returnBean.getCacheTimestamp() == null) {
                             LOGGER.debug(PwmConstants.REPORTING_SESSION_LABEL,"purging record due to missing cache timestamp: " + JsonUtil.serialize(returnBean));
@@ -465,8 +660,15 @@ public class ReportService implements PwmService {
 
         }
 
+        /**
+         * @return the storage key of the last record read, which may be used to resume iteration after it.
+         */
+        public String getLastKey() {
+            return lastKey;
+        }
+
         public void close() {
-            storageKeyIterator.close();
+            storedRecordIterator.close();
         }
     }
 
@@ -491,31 +693,8 @@ public class ReportService implements PwmService {
             throws IOException, ChaiUnavailableException, ChaiOperationException, PwmUnrecoverableException, PwmOperationalException
     {
         final CSVPrinter csvPrinter = Helper.makeCsvPrinter(outputStream);
-        final Configuration config = pwmApplication.getConfig();
-        final Class localeClass = password.pwm.i18n.Admin.class;
         if (includeHeader) {
-            final List<String> headerRow = new ArrayList<>();
-            headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_UserDN", config, localeClass));
-            headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_LDAP_Profile", config, localeClass));
-            headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_Username", config, localeClass));
-            headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_Email", config, localeClass));
-            headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_UserGuid", config, localeClass));
-            headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_LastLogin", config, localeClass));
-            headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_PwdExpireTime", config, localeClass));
-            headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_PwdChangeTime", config, localeClass));
-            headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_ResponseSaveTime", config, localeClass));
-            headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_HasResponses", config, localeClass));
-            headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_HasHelpdeskResponses", config, localeClass));
-            headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_ResponseStorageMethod", config, localeClass));
-            headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_PwdExpired", config, localeClass));
-            headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_PwdPreExpired", config, localeClass));
-            headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_PwdViolatesPolicy", config, localeClass));
-            headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_PwdWarnPeriod", config, localeClass));
-            headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_RequiresPasswordUpdate", config, localeClass));
-            headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_RequiresResponseUpdate", config, localeClass));
-            headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_RequiresProfileUpdate", config, localeClass));
-            headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_RecordCacheTime", config, localeClass));
-            csvPrinter.printRecord(headerRow);
+            csvPrinter.printRecord(makeCsvHeader(locale));
         }
 
         ClosableIterator<UserCacheRecord> cacheBeanIterator = null;
@@ -523,7 +702,7 @@ public class ReportService implements PwmService {
             cacheBeanIterator = this.iterator();
             while (cacheBeanIterator.hasNext()) {
                 final UserCacheRecord userCacheRecord = cacheBeanIterator.next();
-                outputRecordRow(config, locale, userCacheRecord, csvPrinter);
+                csvPrinter.printRecord(makeCsvRow(userCacheRecord, locale));
             }
         } finally {
             if (cacheBeanIterator != null) {
@@ -534,14 +713,35 @@ public class ReportService implements PwmService {
         csvPrinter.flush();
     }
 
-    private void outputRecordRow(
-            final Configuration config,
-            final Locale locale,
-            final UserCacheRecord userCacheRecord,
-            final CSVPrinter csvPrinter
-    )
-            throws IOException
-    {
+    public List<String> makeCsvHeader(final Locale locale) {
+        final Configuration config = pwmApplication.getConfig();
+        final Class localeClass = password.pwm.i18n.Admin.class;
+        final List<String> headerRow = new ArrayList<>();
+        headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_UserDN", config, localeClass));
+        headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_LDAP_Profile", config, localeClass));
+        headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_Username", config, localeClass));
+        headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_Email", config, localeClass));
+        headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_UserGuid", config, localeClass));
+        headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_LastLogin", config, localeClass));
+        headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_PwdExpireTime", config, localeClass));
+        headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_PwdChangeTime", config, localeClass));
+        headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_ResponseSaveTime", config, localeClass));
+        headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_HasResponses", config, localeClass));
+        headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_HasHelpdeskResponses", config, localeClass));
+        headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_ResponseStorageMethod", config, localeClass));
+        headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_PwdExpired", config, localeClass));
+        headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_PwdPreExpired", config, localeClass));
+        headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_PwdViolatesPolicy", config, localeClass));
+        headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_PwdWarnPeriod", config, localeClass));
+        headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_RequiresPasswordUpdate", config, localeClass));
+        headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_RequiresResponseUpdate", config, localeClass));
+        headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_RequiresProfileUpdate", config, localeClass));
+        headerRow.add(LocaleHelper.getLocalizedMessage(locale, "Field_Report_RecordCacheTime", config, localeClass));
+        return headerRow;
+    }
+
+    public List<String> makeCsvRow(final UserCacheRecord userCacheRecord, final Locale locale) {
+        final Configuration config = pwmApplication.getConfig();
         final String trueField = Display.getLocalizedMessage(locale, Display.Value_True, config);
         final String falseField = Display.getLocalizedMessage(locale, Display.Value_False, config);
         final String naField = Display.getLocalizedMessage(locale, Display.Value_NotApplicable, config);
@@ -571,8 +771,7 @@ public class ReportService implements PwmService {
         csvRow.add(userCacheRecord.isRequiresProfileUpdate() ? trueField : falseField);
         csvRow.add(userCacheRecord.getCacheTimestamp() == null ? naField : PwmConstants.DEFAULT_DATETIME_FORMAT.format(
                 userCacheRecord.getCacheTimestamp()));
-
-        csvPrinter.printRecord(csvRow);
+        return csvRow;
     }
 
     public ReportSummaryData getSummaryData() {
@@ -607,14 +806,18 @@ public class ReportService implements PwmService {
             this.maxSamples = maxSamples;
         }
 
-        public void addSample(final long input) {
+        public synchronized boolean hasSamples() {
+            return !samples.isEmpty();
+        }
+
+        public synchronized void addSample(final long input) {
             samples.add(new BigInteger(Long.toString(input)));
             while (samples.size() > maxSamples) {
                 samples.remove();
             }
         }
 
-        public BigDecimal avg() {
+        public synchronized BigDecimal avg() {
             if (samples.isEmpty()) {
                 throw new IllegalStateException("unable to compute avg without samples");
             }
@@ -623,8 +826,8 @@ public class ReportService implements PwmService {
             for (final BigInteger sample : samples) {
                 total = total.add(sample);
             }
-            final BigDecimal maxAsBD = new BigDecimal(Integer.toString(maxSamples));
-            return new BigDecimal(total).divide(maxAsBD, MathContext.DECIMAL32);
+            final BigDecimal sampleCount = new BigDecimal(Integer.toString(samples.size()));
+            return new BigDecimal(total).divide(sampleCount, MathContext.DECIMAL32);
         }
 
         public long avgAsLong() {
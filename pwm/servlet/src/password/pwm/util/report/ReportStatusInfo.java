@@ -27,19 +27,23 @@ import password.pwm.util.TimeDuration;
 import password.pwm.util.stats.EventRateMeter;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 public class ReportStatusInfo implements Serializable {
     private Date startDate;
     private Date finishDate;
-    private boolean inProgress;
-    private int count;
-    private int updated;
-    private int total;
+    private volatile boolean inProgress;
+    private volatile int count;
+    private volatile int updated;
+    private volatile int total;
     private EventRateMeter eventRateMeter = new EventRateMeter(TimeDuration.MINUTE);
-    private int errors;
-    private ErrorInformation lastError;
+    private volatile int errors;
+    private volatile ErrorInformation lastError;
     private String settingsHash;
+    private List<WorkerStatus> workers = Collections.emptyList();
 
     public ReportStatusInfo(String settingsHash) {
         this.settingsHash = settingsHash;
@@ -120,4 +124,83 @@ public class ReportStatusInfo implements Serializable {
     public void setLastError(ErrorInformation lastError) {
         this.lastError = lastError;
     }
+
+    public List<WorkerStatus> getWorkers() {
+        return workers == null ? Collections.<WorkerStatus>emptyList() : workers;
+    }
+
+    List<WorkerStatus> initWorkers(final int workerCount) {
+        final List<WorkerStatus> workerList = new ArrayList<>();
+        for (int i = 0; i < workerCount; i++) {
+            workerList.add(new WorkerStatus(i + 1));
+        }
+        workers = Collections.unmodifiableList(workerList);
+        return workers;
+    }
+
+    synchronized void incrementTotal() {
+        total++;
+    }
+
+    synchronized void markProcessed(final boolean recordUpdated) {
+        count++;
+        if (recordUpdated) {
+            updated++;
+        }
+        eventRateMeter.markEvents(1);
+    }
+
+    synchronized void markError(final ErrorInformation errorInformation) {
+        errors++;
+        lastError = errorInformation;
+    }
+
+    /**
+     * Progress of a single dredge worker thread.  Each instance is only updated by the worker it belongs to.
+     */
+    public static class WorkerStatus implements Serializable {
+        private int id;
+        private volatile String currentUser;
+        private volatile int count;
+        private volatile int errors;
+        private volatile Date lastActivity;
+
+        WorkerStatus(final int id) {
+            this.id = id;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getCurrentUser() {
+            return currentUser;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public int getErrors() {
+            return errors;
+        }
+
+        public Date getLastActivity() {
+            return lastActivity;
+        }
+
+        void beginRecord(final String userDescription) {
+            currentUser = userDescription;
+            lastActivity = new Date();
+        }
+
+        void endRecord(final boolean error) {
+            count++;
+            if (error) {
+                errors++;
+            }
+            currentUser = null;
+            lastActivity = new Date();
+        }
+    }
 }
@@ -34,7 +34,13 @@ import password.pwm.util.logging.PwmLogger;
 import java.math.BigInteger;
 import java.text.NumberFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
+/**
+ * Running totals over the cached user records.  Updates are serialized; the maps are concurrent so that the summary
+ * can be read or serialized while a dredge is updating it.
+ */
 public class ReportSummaryData {
     private static final PwmLogger LOGGER = PwmLogger.forClass(ReportSummaryData.class);
 
@@ -53,18 +59,18 @@ public class ReportSummaryData {
     private int hasChangePwTime;
     private int hasOtpSecret;
     private int hasOtpSecretSetTime;
-    private Map<DataStorageMethod, Integer> responseStorage = new HashMap<>();
-    private Map<Answer.FormatType, Integer> responseFormatType = new HashMap<>();
-    private Map<String, Integer> ldapProfile = new HashMap<>();
+    private Map<DataStorageMethod, Integer> responseStorage = new ConcurrentHashMap<>();
+    private Map<Answer.FormatType, Integer> responseFormatType = new ConcurrentHashMap<>();
+    private Map<String, Integer> ldapProfile = new ConcurrentHashMap<>();
     private int pwExpired;
     private int pwPreExpired;
     private int pwWarnPeriod;
-    private Map<Integer,Integer> pwExpireDays = new TreeMap<>();
-    private Map<Integer,Integer> accountExpireDays = new TreeMap<>();
-    private Map<Integer,Integer> changePwDays = new TreeMap<>();
-    private Map<Integer,Integer> responseSetDays = new TreeMap<>();
-    private Map<Integer,Integer> otpSetDays = new TreeMap<>();
-    private Map<Integer,Integer> loginDays = new TreeMap<>();
+    private Map<Integer,Integer> pwExpireDays = new ConcurrentSkipListMap<>();
+    private Map<Integer,Integer> accountExpireDays = new ConcurrentSkipListMap<>();
+    private Map<Integer,Integer> changePwDays = new ConcurrentSkipListMap<>();
+    private Map<Integer,Integer> responseSetDays = new ConcurrentSkipListMap<>();
+    private Map<Integer,Integer> otpSetDays = new ConcurrentSkipListMap<>();
+    private Map<Integer,Integer> loginDays = new ConcurrentSkipListMap<>();
 
     private ReportSummaryData() {
     }
@@ -92,17 +98,17 @@ public class ReportSummaryData {
         return reportSummaryData;
     }
 
-    public int getTotalUsers()
+    public synchronized int getTotalUsers()
     {
         return totalUsers;
     }
 
-    public int getHasResponses()
+    public synchronized int getHasResponses()
     {
         return hasResponses;
     }
 
-    public int getHasPasswordExpirationTime()
+    public synchronized int getHasPasswordExpirationTime()
     {
         return hasPasswordExpirationTime;
     }
@@ -114,10 +120,10 @@ public class ReportSummaryData {
 
     public Map<Answer.FormatType, Integer> getResponseFormatType()
     {
-        return responseFormatType;
+        return Collections.unmodifiableMap(responseFormatType);
     }
 
-    public Date getMeanCacheTime()
+    public synchronized Date getMeanCacheTime()
     {
         return meanCacheTime;
     }
@@ -241,7 +247,7 @@ public class ReportSummaryData {
             if (adding) {
                 responseFormatType.put(type, responseFormatType.get(type) + 1);
             } else {
-                responseFormatType.put(type, responseFormatType.get(type) + 1);
+                responseFormatType.put(type, responseFormatType.get(type) - 1);
             }
         }
 
@@ -294,7 +300,7 @@ public class ReportSummaryData {
     }
 
 
-    public List<PresentationRow> asPresentableCollection(final Configuration config, final Locale locale) {
+    public synchronized List<PresentationRow> asPresentableCollection(final Configuration config, final Locale locale) {
         final ArrayList<PresentationRow> returnCollection = new ArrayList<>();
         final PresentationRowBuilder builder = new PresentationRowBuilder(config,this.totalUsers,locale);
 
@@ -0,0 +1,81 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.report;
+
+/**
+ * Token bucket used to pace the report dredge.  Tokens accumulate at the configured rate up to the bucket capacity,
+ * and each processed record takes one token, so the overall rate stays the same regardless of how many workers are
+ * pulling from the bucket.  A rate of zero or less disables the limit.
+ */
+class TokenBucket {
+    private final int capacity;
+    private double permitsPerMs;
+    private double tokens;
+    private long lastRefill = System.currentTimeMillis();
+
+    TokenBucket(final double permitsPerSecond, final int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.tokens = 1;
+        setRate(permitsPerSecond);
+    }
+
+    synchronized void setRate(final double permitsPerSecond) {
+        refill();
+        permitsPerMs = permitsPerSecond / 1000;
+    }
+
+    synchronized double getRate() {
+        return permitsPerMs * 1000;
+    }
+
+    /**
+     * Block until a token is available.
+     */
+    void acquire()
+            throws InterruptedException
+    {
+        while (true) {
+            final long waitMs;
+            synchronized (this) {
+                if (permitsPerMs <= 0) {
+                    return;
+                }
+                refill();
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitMs = (long) Math.ceil((1 - tokens) / permitsPerMs);
+            }
+            Thread.sleep(Math.max(1, waitMs));
+        }
+    }
+
+    private void refill() {
+        final long now = System.currentTimeMillis();
+        if (permitsPerMs > 0 && now > lastRefill) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerMs);
+        }
+        lastRefill = now;
+    }
+}
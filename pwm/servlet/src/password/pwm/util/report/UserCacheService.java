@@ -42,6 +42,7 @@ import password.pwm.util.logging.PwmLogger;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class UserCacheService implements PwmService {
 
@@ -102,30 +103,53 @@ public class UserCacheService implements PwmService {
         cacheStore.clear();
     }
 
-    public ClosableIterator<StorageKey> iterator() {
+    public ClosableIterator<StoredRecord> iterator() {
+        return iterator(null);
+    }
+
+    /**
+     * Iterate the stored records in key order, starting after {@code afterKey} (or at the first record if null).
+     */
+    public ClosableIterator<StoredRecord> iterator(final String afterKey) {
         try {
-            return new UserStatusCacheBeanIterator();
+            return new UserStatusCacheBeanIterator(afterKey);
         } catch (LocalDBException e) {
             LOGGER.error("unexpected error generating user status iterator: " + e.getMessage());
             return null;
         }
     }
 
-    private class UserStatusCacheBeanIterator implements ClosableIterator {
+    private class UserStatusCacheBeanIterator implements ClosableIterator<StoredRecord> {
 
-        private LocalDB.LocalDBIterator<String> innerIterator;
+        private LocalDB.LocalDBEntryIterator innerIterator;
+        private Map.Entry<String, String> nextEntry;
 
-        private UserStatusCacheBeanIterator() throws LocalDBException {
-            innerIterator = cacheStore.localDB.iterator(CacheStoreWrapper.DB);
+        private UserStatusCacheBeanIterator(final String afterKey) throws LocalDBException {
+            // always iterate a key range, so every page is read in the same (ascending key) order
+            final LocalDB.KeyRange keyRange = LocalDB.KeyRange.between(afterKey == null ? "" : afterKey, null);
+            innerIterator = cacheStore.localDB.entryIterator(CacheStoreWrapper.DB, keyRange);
+            if (afterKey != null && innerIterator.hasNext()) {
+                final Map.Entry<String, String> firstEntry = innerIterator.next();
+                if (!afterKey.equals(firstEntry.getKey())) {
+                    nextEntry = firstEntry;
+                }
+            }
         }
 
         public boolean hasNext() {
-            return innerIterator.hasNext();
+            return nextEntry != null || innerIterator.hasNext();
         }
 
-        public StorageKey next() {
-            final String nextKey = innerIterator.next();
-            return new StorageKey(nextKey);
+        public StoredRecord next() {
+            final Map.Entry<String, String> entry;
+            if (nextEntry != null) {
+                entry = nextEntry;
+                nextEntry = null;
+            } else {
+                entry = innerIterator.next();
+            }
+            final StorageKey storageKey = new StorageKey(entry.getKey());
+            return new StoredRecord(storageKey, cacheStore.decode(storageKey, entry.getValue()));
         }
 
         public void remove() {
@@ -162,6 +186,27 @@ public class UserCacheService implements PwmService {
         return cacheStore.size();
     }
 
+    public static class StoredRecord {
+        private final StorageKey storageKey;
+        private final UserCacheRecord userCacheRecord;
+
+        private StoredRecord(final StorageKey storageKey, final UserCacheRecord userCacheRecord) {
+            this.storageKey = storageKey;
+            this.userCacheRecord = userCacheRecord;
+        }
+
+        public StorageKey getStorageKey() {
+            return storageKey;
+        }
+
+        /**
+         * @return the stored record, or null if the stored value was empty or unreadable.
+         */
+        public UserCacheRecord getUserCacheRecord() {
+            return userCacheRecord;
+        }
+    }
+
     public static class StorageKey {
         private String key;
 
@@ -220,12 +265,21 @@ public class UserCacheService implements PwmService {
                 throws LocalDBException
         {
             final String jsonValue = localDB.get(DB,key.getKey());
+            return decode(key, jsonValue);
+        }
+
+        private UserCacheRecord decode(StorageKey key, String jsonValue)
+        {
             if (jsonValue != null && !jsonValue.isEmpty()) {
                 try {
                     return JsonUtil.deserialize(jsonValue,UserCacheRecord.class);
                 } catch (JsonSyntaxException e) {
                     LOGGER.error("error reading record from cache store for key=" + key.getKey() + ", error: " + e.getMessage());
-                    localDB.remove(DB,key.getKey());
+                    try {
+                        localDB.remove(DB,key.getKey());
+                    } catch (LocalDBException e2) {
+                        LOGGER.error("error removing unreadable record from cache store for key=" + key.getKey() + ", error: " + e2.getMessage());
+                    }
                 }
             }
             return null;
@@ -65,6 +65,8 @@ public enum Statistic {
     CAPTCHA_FAILURES                    (Type.INCREMENTOR, "CaptchaFailures", null),
     CAPTCHA_PRESENTATIONS               (Type.INCREMENTOR, "CaptchaPresentations", null),
     LDAP_UNAVAILABLE_COUNT              (Type.INCREMENTOR, "LdapUnavailableCount", null),
+    LDAP_GUID_CACHE_HITS                (Type.INCREMENTOR, "LdapGuidCacheHits", null),
+    LDAP_GUID_CACHE_MISSES              (Type.INCREMENTOR, "LdapGuidCacheMisses", null),
     DB_UNAVAILABLE_COUNT                (Type.INCREMENTOR, "DatabaseUnavailableCount", null),
     SETUP_RESPONSES                     (Type.INCREMENTOR, "SetupResponses", null),
     SETUP_OTP_SECRET                    (Type.INCREMENTOR, "SetupOtpSecret", new ConfigSettingDetail(PwmSetting.OTP_ENABLED)),
@@ -100,6 +102,7 @@ public enum Statistic {
     AVG_AUTHENTICATION_TIME             (Type.AVERAGE, "AvgAuthenticationTime", null),
     AVG_PASSWORD_STRENGTH               (Type.AVERAGE, "AvgPasswordStrength", null),
     AVG_LDAP_SEARCH_TIME                (Type.AVERAGE, "AvgLdapSearchTime", null),
+    AVG_SYSLOG_SEND_TIME                (Type.AVERAGE, "AvgSyslogSendTime", null),
 
     ;
 
@@ -28,10 +28,17 @@ import password.pwm.util.logging.PwmLogger;
 import java.io.Serializable;
 import java.math.BigInteger;
 import java.text.SimpleDateFormat;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Holds one set of statistic values.  Values are kept in atomic accumulators so that updates from concurrent
+ * request threads do not contend on a shared monitor; the stored string form is only produced by {@link #output()}
+ * when the bundle is persisted.
+ */
 public class StatisticsBundle {
 
     private static final PwmLogger LOGGER = PwmLogger.forClass(StatisticsBundle.class);
@@ -43,12 +50,41 @@ public class StatisticsBundle {
     }
 
 
-    private final Map<Statistic, String> valueMap = new HashMap<>();
+    // maps are fully populated at construction and never modified afterwards, so reads need no locking.
+    private final Map<Statistic, AtomicLong> incrementerMap = new EnumMap<>(Statistic.class);
+    private final Map<Statistic, AverageAccumulator> averageMap = new EnumMap<>(Statistic.class);
 
     public StatisticsBundle() {
+        for (final Statistic statistic : Statistic.values()) {
+            switch (statistic.getType()) {
+                case INCREMENTOR:
+                    incrementerMap.put(statistic, new AtomicLong());
+                    break;
+
+                case AVERAGE:
+                    averageMap.put(statistic, new AverageAccumulator());
+                    break;
+
+                default:
+                    break;
+            }
+        }
     }
 
     public String output() {
+        final Map<Statistic, String> valueMap = new HashMap<>();
+        for (final Map.Entry<Statistic, AtomicLong> entry : incrementerMap.entrySet()) {
+            final long value = entry.getValue().get();
+            if (value != 0) {
+                valueMap.put(entry.getKey(), Long.toString(value));
+            }
+        }
+        for (final Map.Entry<Statistic, AverageAccumulator> entry : averageMap.entrySet()) {
+            final AverageBean averageBean = entry.getValue().toAverageBean();
+            if (!BigInteger.ZERO.equals(averageBean.count)) {
+                valueMap.put(entry.getKey(), JsonUtil.serialize(averageBean));
+            }
+        }
         return JsonUtil.serializeMap(valueMap);
     }
 
@@ -67,95 +103,101 @@ public class StatisticsBundle {
         for (final Statistic loopStat : Statistic.values()) {
             final String value = srcMap.get(loopStat);
             if (value != null && !value.equals("")) {
-                bundle.valueMap.put(loopStat, value);
+                switch (loopStat.getType()) {
+                    case INCREMENTOR:
+                        try {
+                            bundle.incrementerMap.get(loopStat).set(new BigInteger(value).longValue());
+                        } catch (NumberFormatException e) {
+                            LOGGER.error("error reading counter/incremental stat " + loopStat);
+                        }
+                        break;
+
+                    case AVERAGE:
+                        try {
+                            final AverageBean averageBean = JsonUtil.deserialize(value, AverageBean.class);
+                            bundle.averageMap.get(loopStat).load(averageBean);
+                        } catch (Exception e) {
+                            LOGGER.trace("unable to parse statistics value for stat " + loopStat.toString() + ", value=" + value);
+                        }
+                        break;
+
+                    default:
+                        break;
+                }
             }
         }
 
         return bundle;
     }
 
-    public synchronized void incrementValue(final Statistic statistic) {
+    public void incrementValue(final Statistic statistic) {
         if (Statistic.Type.INCREMENTOR != statistic.getType()) {
             LOGGER.error("attempt to increment non-counter/incremental stat " + statistic);
             return;
         }
 
-        BigInteger currentValue = BigInteger.ZERO;
-        try {
-            if (valueMap.containsKey(statistic)) {
-                currentValue = new BigInteger(valueMap.get(statistic));
-            } else {
-                currentValue = BigInteger.ZERO;
-            }
-        } catch (NumberFormatException e) {
-            LOGGER.error("error reading counter/incremental stat " + statistic);
-        }
-        final BigInteger newValue = currentValue.add(BigInteger.ONE);
-        valueMap.put(statistic, newValue.toString());
+        incrementerMap.get(statistic).incrementAndGet();
     }
 
-    public synchronized void updateAverageValue(final Statistic statistic, final long timeDuration) {
+    public void updateAverageValue(final Statistic statistic, final long timeDuration) {
         if (Statistic.Type.AVERAGE != statistic.getType()) {
             LOGGER.error("attempt to update average value of non-average stat " + statistic);
             return;
         }
 
-        final String avgStrValue = valueMap.get(statistic);
-
-        AverageBean avgBean = new AverageBean();
-        if (avgStrValue != null && avgStrValue.length() > 0) {
-            try {
-                avgBean = JsonUtil.deserialize(avgStrValue, AverageBean.class);
-            } catch (Exception e) {
-                LOGGER.trace("unable to parse statistics value for stat " + statistic.toString() + ", value=" + avgStrValue);
-            }
-        }
-
-        avgBean.appendValue(timeDuration);
-        valueMap.put(statistic, JsonUtil.serialize(avgBean));
+        averageMap.get(statistic).appendValue(timeDuration);
     }
 
     public String getStatistic(final Statistic statistic) {
         switch (statistic.getType()) {
             case INCREMENTOR:
-                return valueMap.containsKey(statistic) ? valueMap.get(statistic) : "0";
+                return Long.toString(incrementerMap.get(statistic).get());
 
             case AVERAGE:
-                final String avgStrValue = valueMap.get(statistic);
-
-                AverageBean avgBean = new AverageBean();
-                if (avgStrValue != null && avgStrValue.length() > 0) {
-                    try {
-                        avgBean = JsonUtil.deserialize(avgStrValue, AverageBean.class);
-                    } catch (Exception e) {
-                        LOGGER.trace("unable to parse statistics value for stat " + statistic.toString() + ", value=" + avgStrValue);
-                    }
-                }
-                return avgBean.getAverage().toString();
+                return Long.toString(averageMap.get(statistic).getAverage());
 
             default:
                 return "";
         }
     }
 
-    private static class AverageBean implements Serializable {
-        BigInteger total = BigInteger.ZERO;
-        BigInteger count = BigInteger.ZERO;
+    private static class AverageAccumulator {
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong count = new AtomicLong();
 
-        public AverageBean() {
+        void appendValue(final long value) {
+            total.addAndGet(value);
+            count.incrementAndGet();
+        }
+
+        long getAverage() {
+            final long currentCount = count.get();
+            return currentCount == 0 ? 0 : total.get() / currentCount;
         }
 
-        BigInteger getAverage() {
-            if (BigInteger.ZERO.equals(count)) {
-                return BigInteger.ZERO;
+        void load(final AverageBean averageBean) {
+            if (averageBean != null && averageBean.total != null && averageBean.count != null) {
+                total.set(averageBean.total.longValue());
+                count.set(averageBean.count.longValue());
             }
+        }
 
-            return total.divide(count);
+        AverageBean toAverageBean() {
+            final AverageBean averageBean = new AverageBean();
+            averageBean.count = BigInteger.valueOf(count.get());
+            averageBean.total = BigInteger.valueOf(total.get());
+            return averageBean;
         }
+    }
 
-        void appendValue(final long value) {
-            count = count.add(BigInteger.ONE);
-            total = total.add(BigInteger.valueOf(value));
+    /**
+     * Stored (json) form of an average statistic.
+     */
+    private static class AverageBean implements Serializable {
+        BigInteger total = BigInteger.ZERO;
+        BigInteger count = BigInteger.ZERO;
+
+        public AverageBean() {
         }
     }
 }
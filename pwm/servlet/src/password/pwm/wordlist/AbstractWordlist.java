@@ -22,6 +22,7 @@
 
 package password.pwm.wordlist;
 
+import password.pwm.AppProperty;
 import password.pwm.PwmApplication;
 import password.pwm.PwmService;
 import password.pwm.config.option.DataStorageMethod;
@@ -60,6 +61,16 @@ abstract class AbstractWordlist implements Wordlist, PwmService {
     protected int storedSize = 0;
     protected boolean debugTrace;
 
+    protected String bloomFilterFilename = null;
+    private boolean bloomFilterEnabled;
+    private double bloomFilterFalsePositiveRate;
+    private volatile WordlistBloomFilter bloomFilter;
+
+    protected String segmentFilename = null;
+    private boolean segmentEnabled;
+    private int segmentRunWords;
+    private volatile WordlistSegment segment;
+
     private ErrorInformation lastError;
 
 
@@ -73,6 +84,10 @@ abstract class AbstractWordlist implements Wordlist, PwmService {
         if (pwmApplication.getConfig().isDevDebugMode()) {
             debugTrace = true;
         }
+        bloomFilterEnabled = Boolean.parseBoolean(pwmApplication.getConfig().readAppProperty(AppProperty.WORDLIST_BLOOMFILTER_ENABLE));
+        bloomFilterFalsePositiveRate = Double.parseDouble(pwmApplication.getConfig().readAppProperty(AppProperty.WORDLIST_BLOOMFILTER_FALSE_POSITIVE_RATE));
+        segmentEnabled = Boolean.parseBoolean(pwmApplication.getConfig().readAppProperty(AppProperty.WORDLIST_SEGMENT_ENABLE));
+        segmentRunWords = Integer.parseInt(pwmApplication.getConfig().readAppProperty(AppProperty.WORDLIST_SEGMENT_RUN_WORDS));
     }
 
     protected final void startup(final LocalDB localDB, final WordlistConfiguration wordlistConfiguration) {
@@ -137,11 +152,28 @@ abstract class AbstractWordlist implements Wordlist, PwmService {
             return;
         }
 
+        final File segmentFile = segmentFile();
+        if (segmentFile != null) {
+            final WordlistSegment openedSegment = WordlistSegment.open(segmentFile);
+            if (openedSegment == null) {
+                final String errorMsg = DEBUG_LABEL + " segment file " + segmentFile.getAbsolutePath() + " is not readable, closing; wordlist will be re-populated on next startup";
+                LOGGER.warn(errorMsg);
+                WordlistSegment.delete(segmentFile);
+                lastError = new ErrorInformation(PwmError.ERROR_SERVICE_NOT_AVAILABLE,errorMsg);
+                close();
+                return;
+            }
+            segment = openedSegment;
+            LOGGER.debug(DEBUG_LABEL + " segment file open with " + openedSegment.getWordCount() + " words, "
+                    + Helper.formatDiskSize(openedSegment.getSizeInBytes()));
+        }
+
         if (wlStatus == STATUS.OPENING) {
             wlStatus = STATUS.OPEN;
             final int wordlistSize = size();
             final TimeDuration totalTime = TimeDuration.fromCurrent(startTime);
             LOGGER.debug(DEBUG_LABEL + " open with " + wordlistSize + " words in " + totalTime.asCompactString());
+            initBloomFilter();
         } else {
             final String errorMsg = DEBUG_LABEL + " status changed unexpectedly during startup, closing";
             LOGGER.warn(errorMsg);
@@ -150,6 +182,121 @@ abstract class AbstractWordlist implements Wordlist, PwmService {
         }
     }
 
+    /**
+     * @return the segment file location, or null if words are stored in the LocalDB.
+     */
+    File segmentFile() {
+        if (!segmentEnabled || segmentFilename == null || localDB == null || localDB.getFileLocation() == null) {
+            return null;
+        }
+        return new File(localDB.getFileLocation(), segmentFilename);
+    }
+
+    File segmentWorkDirectory() {
+        if (segmentFilename == null || localDB == null || localDB.getFileLocation() == null) {
+            return null;
+        }
+        return new File(localDB.getFileLocation(), segmentFilename + ".work");
+    }
+
+    int getSegmentRunWords() {
+        return segmentRunWords;
+    }
+
+    private File bloomFilterFile() {
+        if (!bloomFilterEnabled || bloomFilterFilename == null || localDB == null || localDB.getFileLocation() == null) {
+            return null;
+        }
+        return new File(localDB.getFileLocation(), bloomFilterFilename);
+    }
+
+    private long makeBloomFilterSignature()
+            throws LocalDBException
+    {
+        return WordlistBloomFilter.hash(localDB.get(META_DB, KEY_CHECKSUM) + "|" + makeVersionString() + "|" + storedSize);
+    }
+
+    private void initBloomFilter() {
+        final File filterFile = bloomFilterFile();
+        if (filterFile == null) {
+            return;
+        }
+
+        try {
+            final long signature = makeBloomFilterSignature();
+            WordlistBloomFilter filter = WordlistBloomFilter.open(filterFile, signature);
+            if (filter == null) {
+                filter = buildBloomFilter(filterFile, signature);
+            }
+
+            if (filter != null) {
+                if (wlStatus == STATUS.OPEN) {
+                    bloomFilter = filter;
+                    LOGGER.debug(DEBUG_LABEL + " bloom filter open with " + filter.getInsertCount() + " words, "
+                            + Helper.formatDiskSize(filter.getSizeInBytes()) + ", " + filter.getHashCount() + " hashes");
+                } else {
+                    filter.close();
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.warn(DEBUG_LABEL + " unable to open bloom filter, lookups will use LocalDB only: " + e.getMessage());
+            WordlistBloomFilter.delete(filterFile);
+        }
+    }
+
+    private WordlistBloomFilter buildBloomFilter(final File filterFile, final long signature)
+            throws IOException, LocalDBException
+    {
+        final long startTime = System.currentTimeMillis();
+        LOGGER.debug(DEBUG_LABEL + " building bloom filter for " + storedSize + " words at " + filterFile.getAbsolutePath());
+
+        final WordlistBloomFilter filter = WordlistBloomFilter.create(filterFile, storedSize, bloomFilterFalsePositiveRate);
+        final WordlistSegment wordSegment = segment;
+        LocalDB.LocalDBIterator<String> localDBIterator = null;
+        try {
+            final Iterator<String> iterator;
+            if (wordSegment != null) {
+                iterator = wordSegment.iterator();
+            } else {
+                localDBIterator = localDB.iterator(WORD_DB);
+                iterator = localDBIterator;
+            }
+            while (iterator.hasNext()) {
+                if (wlStatus != STATUS.OPEN) {
+                    LOGGER.debug(DEBUG_LABEL + " wordlist closed, aborting bloom filter build");
+                    filter.close();
+                    WordlistBloomFilter.delete(filterFile);
+                    return null;
+                }
+                filter.add(iterator.next());
+            }
+        } finally {
+            if (localDBIterator != null) {
+                localDBIterator.close();
+            }
+        }
+
+        filter.markComplete(signature);
+        LOGGER.debug(DEBUG_LABEL + " bloom filter build complete in " + TimeDuration.fromCurrent(startTime).asCompactString());
+        return filter;
+    }
+
+    private void closeSegment() {
+        final WordlistSegment wordSegment = segment;
+        segment = null;
+        if (wordSegment != null) {
+            wordSegment.close();
+        }
+    }
+
+    private void closeBloomFilter() {
+        final WordlistBloomFilter filter = bloomFilter;
+        bloomFilter = null;
+        if (filter != null) {
+            filter.close();
+        }
+    }
+
     String normalizeWord(final String input) {
         if (input == null) {
             return null;
@@ -181,14 +328,19 @@ abstract class AbstractWordlist implements Wordlist, PwmService {
 
         final boolean clearRequired = !checkDbStatus() || !checkDbVersion() || !checkChecksum(checksumString);
         final boolean isComplete = !clearRequired && VALUE_STATUS.COMPLETE.equals(VALUE_STATUS.forString(localDB.get(META_DB, KEY_STATUS)));
+        final boolean segmentMissing = isComplete && segmentFile() != null && !segmentFile().exists();
 
-        if (!clearRequired && isComplete) {
+        if (!clearRequired && isComplete && !segmentMissing) {
             return;
         }
 
-        LOGGER.debug(DEBUG_LABEL + " previous population incomplete, resuming");
+        if (segmentMissing) {
+            LOGGER.info(DEBUG_LABEL + " segment file " + segmentFile().getAbsolutePath() + " is missing, clearing db");
+        } else {
+            LOGGER.debug(DEBUG_LABEL + " previous population incomplete, resuming");
+        }
 
-        if (clearRequired) {
+        if (clearRequired || segmentMissing) {
             resetDB(checksumString);
         }
 
@@ -255,6 +407,14 @@ abstract class AbstractWordlist implements Wordlist, PwmService {
 
     private void resetDB(final String checksum)
             throws Exception {
+        closeBloomFilter();
+        WordlistBloomFilter.delete(bloomFilterFile());
+        closeSegment();
+        if (segmentFilename != null && localDB.getFileLocation() != null) {
+            WordlistSegment.delete(new File(localDB.getFileLocation(), segmentFilename));
+            new WordlistSegmentBuilder(null, segmentWorkDirectory()).clear();
+        }
+
         localDB.put(META_DB, KEY_VERSION, makeVersionString() + "_ClearInProgress");
 
         for (final LocalDB.DB db : new LocalDB.DB[]{META_DB, WORD_DB}) {
@@ -281,15 +441,25 @@ abstract class AbstractWordlist implements Wordlist, PwmService {
         final Set<String> testWords = chunkWord(testWord, this.wordlistConfiguration.getCheckSize());
 
         final Date startTime = new Date();
+        final WordlistBloomFilter filter = bloomFilter;
+        final WordlistSegment wordSegment = segment;
         try {
             boolean result = false;
+            final List<String> localDBCandidates = new ArrayList<>();
             for (final String t : testWords) {
-                if (!result) { // stop checking once found
-                    if (localDB.contains(WORD_DB, t)) {
-                        result = true;
-                    }
+                if (filter != null && !filter.mightContain(t)) {
+                    continue;
+                }
+                if (wordSegment == null) {
+                    localDBCandidates.add(t); // checked below as a single batch
+                } else if (wordSegment.contains(t)) {
+                    result = true;
+                    break; // stop checking once found
                 }
             }
+            if (!result && !localDBCandidates.isEmpty()) {
+                result = localDB.containsAny(WORD_DB, localDBCandidates);
+            }
             final TimeDuration timeDuration = TimeDuration.fromCurrent(startTime);
             if (timeDuration.isLongerThan(100)) {
                 LOGGER.debug("wordlist search time for " + testWords.size() + " wordlist permutations was greater then 100ms: " + timeDuration.asCompactString());
@@ -330,6 +500,8 @@ abstract class AbstractWordlist implements Wordlist, PwmService {
         }
 
         wlStatus = STATUS.CLOSED;
+        closeBloomFilter();
+        closeSegment();
         localDB = null;
     }
 
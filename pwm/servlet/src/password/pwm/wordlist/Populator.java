@@ -27,6 +27,7 @@ import password.pwm.error.ErrorInformation;
 import password.pwm.error.PwmError;
 import password.pwm.error.PwmUnrecoverableException;
 import password.pwm.util.Helper;
+import password.pwm.util.JsonUtil;
 import password.pwm.util.Sleeper;
 import password.pwm.util.TimeDuration;
 import password.pwm.util.TransactionSizeCalculator;
@@ -36,12 +37,25 @@ import password.pwm.util.logging.PwmLogger;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Serializable;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Populates a wordlist db from a ZIP file.  Population runs as a three stage pipeline: the calling thread reads
+ * batches of lines from the ZIP, a pool of worker threads normalizes and chunks each batch, and a single writer
+ * thread commits the resulting words to the LocalDB in transactions sized by a {@link TransactionSizeCalculator}.
+ * <p/>
+ * Batches are committed in read order, and each commit records the ZIP entry and byte position of the last line
+ * included, so a paused population can resume without re-reading the previously imported lines.
+ * <p/>
+ * When the wordlist uses a {@link WordlistSegment} file, the writer instead buffers words in code point order and
+ * writes them as sorted runs via a {@link WordlistSegmentBuilder}; the runs are merged into the segment file once
+ * the source ZIP is exhausted.  The checkpoint then also records the number of completed runs.
+ *
  * @author Jason D. Rivard
  */
 class Populator {
@@ -57,18 +71,22 @@ class Populator {
     private static final String COMMENT_PREFIX = "!#comment:"; // words tarting with this prefix are ignored.
     private static final NumberFormat PERCENT_FORMAT = DecimalFormat.getPercentInstance();
 
+    private static final int BATCH_LINES = 1000;
+    private static final int MAX_QUEUED_BATCHES_PER_WORKER = 4;
+    private static final int MAX_WORKER_COUNT = 8;
+
     private final ZipReader zipFileReader;
 
     private volatile boolean abortFlag;
     private volatile PwmService.STATUS status = PwmService.STATUS.NEW;
+    private volatile Exception pipelineError;
 
     private final PopulationStats overallStats = new PopulationStats();
-    private PopulationStats perReportStats = new PopulationStats();
-    private int totalLines;
-    private TransactionSizeCalculator transactionCalculator = new TransactionSizeCalculator(600, 10, 50 * 1000);
-    private int loopLines;
+    private volatile PopulationStats perReportStats = new PopulationStats();
+    private final TransactionSizeCalculator transactionCalculator = new TransactionSizeCalculator(600, 10, 50 * 1000);
+    private final int workerCount;
 
-    private final Map<String,String> bufferedWords = new TreeMap<>();
+    private BlockingQueue<Future<WordBatch>> pendingBatches;
 
     private final Sleeper sleeper;
 
@@ -80,6 +98,8 @@ class Populator {
 
     private final AbstractWordlist rootWordlist;
 
+    private final WordlistSegmentBuilder segmentBuilder;
+
 // -------------------------- STATIC METHODS --------------------------
 
     static {
@@ -102,6 +122,10 @@ class Populator {
         this.sleeper = sleeper;
         this.DEBUG_LABEL = rootWordlist.DEBUG_LABEL;
         this.rootWordlist = rootWordlist;
+        this.workerCount = Math.max(1, Math.min(MAX_WORKER_COUNT, Runtime.getRuntime().availableProcessors()));
+
+        final File segmentFile = rootWordlist.segmentFile();
+        this.segmentBuilder = segmentFile == null ? null : new WordlistSegmentBuilder(segmentFile, rootWordlist.segmentWorkDirectory());
 
         sleeper.reset();
     }
@@ -114,19 +138,30 @@ class Populator {
         LOGGER.info(
                 DEBUG_LABEL + " using source ZIP file of "
                         + zipFileReader.getSourceFile().getAbsolutePath()
-                        + " (" + zipFileReader.getSourceFile().length() + " bytes)"
+                        + " (" + zipFileReader.getSourceFile().length() + " bytes, "
+                        + zipFileReader.getTotalBytes() + " uncompressed bytes)"
         );
 
-        wordlistSize(zipFileReader.getSourceFile());
-
         if (abortFlag) return;
 
-        final Object lastLineValue = localDB.get(wordlistMetaDB, WordlistManager.KEY_LASTLINE);
-        if (lastLineValue != null) {
-            final int startLine = Integer.parseInt(lastLineValue.toString());
-            while (startLine > overallStats.getLines()) {
-                overallStats.incrementLines();
+        final String checkpointValue = localDB.get(wordlistMetaDB, WordlistManager.KEY_CHECKPOINT);
+        if (checkpointValue != null) {
+            final PopulationCheckpoint checkpoint = JsonUtil.deserialize(checkpointValue, PopulationCheckpoint.class);
+            try {
+                zipFileReader.seek(checkpoint.getEntryIndex(), checkpoint.getBytePosition());
+            } catch (IOException e) {
+                localDB.remove(wordlistMetaDB, WordlistManager.KEY_CHECKPOINT);
+                throw new IOException("unable to resume from stored checkpoint, population will restart from beginning: " + e.getMessage());
+            }
+            if (segmentBuilder != null) {
+                try {
+                    segmentBuilder.init(checkpoint.getRunCount());
+                } catch (IOException e) {
+                    localDB.remove(wordlistMetaDB, WordlistManager.KEY_CHECKPOINT);
+                    throw new IOException("unable to resume segment runs from stored checkpoint, population will restart from beginning: " + e.getMessage());
+                }
             }
+            overallStats.lines.set(checkpoint.getLines());
 
             final Object elapsedSecondsValue = localDB.get(wordlistMetaDB, WordlistManager.KEY_ELAPSEDSECONDS);
             if (elapsedSecondsValue != null) {
@@ -134,43 +169,26 @@ class Populator {
                 overallStats.incrementElapsedSeconds(elapsedSeconds);
             }
 
-            LOGGER.info(DEBUG_LABEL + " resuming from line " + startLine + " of " + totalLines + " lines (" + percentComplete() + ") elapsed time " + TimeDuration.asCompactString(overallStats.getElapsedSeconds() * 1000));
-        } else {
-            LOGGER.info(DEBUG_LABEL + " source ZIP has " + totalLines + " lines");
+            LOGGER.info(DEBUG_LABEL + " resuming from line " + checkpoint.getLines() + " of zipEntry " + zipFileReader.currentZipName()
+                    + " (" + percentComplete() + ") elapsed time " + TimeDuration.asCompactString(overallStats.getElapsedSeconds() * 1000));
+        } else if (segmentBuilder != null) {
+            segmentBuilder.init(0);
         }
 
+        overallStats.bytes.set(zipFileReader.getBytesRead());
         localDB.put(wordlistMetaDB, WordlistManager.KEY_STATUS, WordlistManager.VALUE_STATUS.DIRTY.toString());
 
-        if (overallStats.getLines() > 0) {
-            for (int i = 0; i < overallStats.getLines(); i++) {
-                zipFileReader.nextLine();
-            }
-        }
         status = PwmService.STATUS.OPEN;
     }
 
-    private void wordlistSize(final File wordlistFile)
-            throws Exception
-    {
-        LOGGER.trace(DEBUG_LABEL + " beginning to count total input ZIP file lines");
-        final ZipReader zipFileReader = new ZipReader(wordlistFile);
-        totalLines = 0;
-
-        while (zipFileReader.nextLine() != null) {
-            totalLines++;
-            if (abortFlag) return;
-        }
-
-        LOGGER.trace(DEBUG_LABEL + " input file line counting complete at " + totalLines + " lines");
-    }
-
     public String percentComplete()
     {
-        if (totalLines <= 0) {
+        final long totalBytes = zipFileReader.getTotalBytes();
+        if (totalBytes <= 0) {
             return "0%";
         }
 
-        final float percentComplete = ((float) overallStats.getLines() / (float) totalLines);
+        final float percentComplete = ((float) zipFileReader.getBytesRead() / (float) totalBytes);
         return PERCENT_FORMAT.format(percentComplete);
     }
 
@@ -204,12 +222,16 @@ class Populator {
     public String makeStatString()
     {
         if (status == PwmService.STATUS.NEW) {
-            return "initializing, examining wordlist, lines read=" + totalLines;
+            return "initializing, examining wordlist";
         }
 
-        final int lps = perReportStats.getElapsedSeconds() <= 0 ? 0 : perReportStats.getLines() / perReportStats.getElapsedSeconds();
-        final int linesRemaining = totalLines - overallStats.getLines();
-        final int msRemaining = lps <= 0 ? 0 : (linesRemaining / lps) * 1000;
+        final PopulationStats reportStats = perReportStats;
+        final int elapsedSeconds = reportStats.getElapsedSeconds();
+        final long lps = elapsedSeconds <= 0 ? 0 : reportStats.lines.get() / elapsedSeconds;
+        final long wps = elapsedSeconds <= 0 ? 0 : reportStats.words.get() / elapsedSeconds;
+        final long bps = elapsedSeconds <= 0 ? 0 : reportStats.bytes.get() / elapsedSeconds;
+        final long bytesRemaining = zipFileReader.getTotalBytes() - zipFileReader.getBytesRead();
+        final long msRemaining = bps <= 0 || bytesRemaining <= 0 ? 0 : (bytesRemaining / bps) * 1000;
 
         final StringBuilder sb = new StringBuilder();
 
@@ -223,8 +245,16 @@ class Populator {
         }
 
         sb.append(", lines/second=").append(lps);
-        sb.append(", line=").append(overallStats.getLines());
-        sb.append(")");
+        sb.append(", words/second=").append(wps);
+        sb.append(", bytes/second=").append(Helper.formatDiskSize(bps));
+        sb.append(", line=").append(overallStats.lines.get());
+        sb.append(", words=").append(overallStats.words.get());
+        sb.append(", workers=").append(workerCount);
+        final BlockingQueue<Future<WordBatch>> queue = pendingBatches;
+        if (queue != null) {
+            sb.append(", queued batches=").append(queue.size());
+        }
+        sb.append(", transaction size=").append(transactionCalculator.getTransactionSize());
         sb.append(" current zipEntry=").append(zipFileReader.currentZipName());
 
         perReportStats = new PopulationStats();
@@ -232,34 +262,41 @@ class Populator {
     }
 
     void populate() throws IOException, LocalDBException, PwmUnrecoverableException {
+        final ExecutorService workerPool = Executors.newFixedThreadPool(workerCount, new ThreadFactory() {
+            private int counter = 0;
 
-        try {
-            long lastReportTime = System.currentTimeMillis() - (long)(DEBUG_OUTPUT_FREQUENCY * 0.33);
-
-            sleeper.reset();
-            String line;
-            while (!abortFlag && (line = zipFileReader.nextLine()) != null) {
-                sleeper.sleep();
-
-                overallStats.incrementLines();
-                perReportStats.incrementLines();
-
-                addLine(line);
-                loopLines++;
-
-                if (TimeDuration.fromCurrent(lastReportTime).isLongerThan(DEBUG_OUTPUT_FREQUENCY)) {
-                    LOGGER.info(makeStatString());
-                    lastReportTime = System.currentTimeMillis();
-                }
-
-                if (bufferedWords.size() > transactionCalculator.getTransactionSize()) {
-                    flushBuffer();
-                }
+            public synchronized Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, DEBUG_LABEL + "-populator-worker-" + counter++);
+                thread.setDaemon(true);
+                return thread;
             }
+        });
+        pendingBatches = new ArrayBlockingQueue<>(workerCount * MAX_QUEUED_BATCHES_PER_WORKER);
+        final Thread writerThread = new Thread(new WriterTask(), DEBUG_LABEL + "-populator-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        try {
+            readLines(workerPool);
         } finally {
+            enqueue(new CompletedFuture(null)); // end of input marker
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                LOGGER.warn(DEBUG_LABEL + " interrupted while waiting for populator writer to complete");
+            }
+            workerPool.shutdownNow();
             zipFileReader.close();
         }
 
+        if (pipelineError != null) {
+            status = PwmService.STATUS.CLOSED;
+            if (pipelineError instanceof LocalDBException) {
+                throw (LocalDBException) pipelineError;
+            }
+            throw new PwmUnrecoverableException(new ErrorInformation(PwmError.ERROR_UNKNOWN, DEBUG_LABEL + " population error: " + pipelineError.getMessage()));
+        }
+
         if (abortFlag) {
             LOGGER.warn("pausing " + DEBUG_LABEL + " population");
         } else {
@@ -269,47 +306,96 @@ class Populator {
         status = PwmService.STATUS.CLOSED;
     }
 
-    private void addLine(String line)
+    private void readLines(final ExecutorService workerPool)
             throws IOException
     {
-        // check for word suitability
-        line = rootWordlist.normalizeWord(line);
+        long lastReportTime = System.currentTimeMillis() - (long)(DEBUG_OUTPUT_FREQUENCY * 0.33);
+
+        sleeper.reset();
+        List<String> lines = new ArrayList<>(BATCH_LINES);
+        String line;
+        while (!abortFlag && (line = zipFileReader.nextLine()) != null) {
+            lines.add(line);
+
+            if (lines.size() >= BATCH_LINES) {
+                submitBatch(workerPool, lines);
+                lines = new ArrayList<>(BATCH_LINES);
+                sleeper.sleep();
+
+                if (TimeDuration.fromCurrent(lastReportTime).isLongerThan(DEBUG_OUTPUT_FREQUENCY)) {
+                    LOGGER.info(makeStatString());
+                    lastReportTime = System.currentTimeMillis();
+                }
+            }
+        }
 
-        if (line == null || line.length() < 1 || line.startsWith(COMMENT_PREFIX)) {
-            return;
+        if (!lines.isEmpty() && !abortFlag) {
+            submitBatch(workerPool, lines);
         }
+    }
+
+    private void submitBatch(final ExecutorService workerPool, final List<String> lines) {
+        final PopulationCheckpoint checkpoint = new PopulationCheckpoint(
+                zipFileReader.getEntryIndex(),
+                zipFileReader.getEntryBytePosition(),
+                overallStats.lines.addAndGet(lines.size())
+        );
+        final long bytesRead = zipFileReader.getBytesRead();
+        final long previousBytesRead = overallStats.bytes.getAndSet(bytesRead);
+        perReportStats.lines.addAndGet(lines.size());
+        perReportStats.bytes.addAndGet(bytesRead - previousBytesRead);
+
+        enqueue(workerPool.submit(new ChunkTask(lines, checkpoint)));
+    }
 
-        if (line.length() > MAX_LINE_LENGTH) {
-            line = line.substring(0,MAX_LINE_LENGTH);
+    private void enqueue(final Future<WordBatch> future) {
+        try {
+            while (!pendingBatches.offer(future, 1, TimeUnit.SECONDS)) {
+                if (pipelineError != null) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            abortFlag = true;
         }
+    }
 
-        final Map<String,String> wordTxn = rootWordlist.getWriteTxnForValue(line);
-        bufferedWords.putAll(wordTxn);
+    private int flushThreshold() {
+        return segmentBuilder != null ? rootWordlist.getSegmentRunWords() : transactionCalculator.getTransactionSize();
     }
 
-    private void flushBuffer()
-            throws LocalDBException
+    private void flushBuffer(final Map<String,String> bufferedWords, final PopulationCheckpoint checkpoint)
+            throws LocalDBException, IOException
     {
         final long startTime = System.currentTimeMillis();
 
         //add the elements
-        localDB.putAll(wordlistDB, bufferedWords);
-
-        //update the src ZIP line counter in the localdb.
-        localDB.put(wordlistMetaDB, WordlistManager.KEY_LASTLINE, String.valueOf(overallStats.getLines()));
+        if (!bufferedWords.isEmpty()) {
+            if (segmentBuilder != null) {
+                segmentBuilder.writeRun(bufferedWords.keySet());
+            } else {
+                localDB.putAll(wordlistDB, bufferedWords);
+            }
+        }
 
-        if (abortFlag) {
-            return;
+        //update the src ZIP position checkpoint in the localdb.
+        if (checkpoint != null) {
+            if (segmentBuilder != null) {
+                checkpoint.setRunCount(segmentBuilder.getRunCount());
+            }
+            localDB.put(wordlistMetaDB, WordlistManager.KEY_CHECKPOINT, JsonUtil.serialize(checkpoint));
         }
 
         //mark how long the buffer close took
         final long commitTime = System.currentTimeMillis() - startTime;
         transactionCalculator.recordLastTransactionDuration(commitTime);
 
+        overallStats.words.addAndGet(bufferedWords.size());
+        perReportStats.words.addAndGet(bufferedWords.size());
+
         if (bufferedWords.size() > 0) {
             final StringBuilder sb = new StringBuilder();
             sb.append(DEBUG_LABEL).append(" ");
-            sb.append("read ").append(loopLines).append(", ");
             sb.append("saved ");
             sb.append(bufferedWords.size()).append(" words");
             sb.append(" (").append(new TimeDuration(commitTime).asCompactString()).append(")");
@@ -320,20 +406,25 @@ class Populator {
 
         //clear the buffers.
         bufferedWords.clear();
-        loopLines = 0;
     }
 
     private void populationComplete()
-            throws LocalDBException, PwmUnrecoverableException
+            throws LocalDBException, PwmUnrecoverableException, IOException
     {
-        flushBuffer();
         localDB.put(wordlistMetaDB, WordlistManager.KEY_STATUS, WordlistManager.VALUE_STATUS.IN_PROGRESS.toString());
         LOGGER.info(makeStatString());
-        LOGGER.trace("beginning wordlist size query");
-        final int wordlistSize = localDB.size(wordlistDB);
+        final int wordlistSize;
+        if (segmentBuilder != null) {
+            LOGGER.debug(DEBUG_LABEL + " merging " + segmentBuilder.getRunCount() + " sorted runs into segment file");
+            wordlistSize = (int) segmentBuilder.merge();
+        } else {
+            LOGGER.trace("beginning wordlist size query");
+            wordlistSize = localDB.size(wordlistDB);
+        }
         if (wordlistSize > 0) {
             localDB.put(wordlistMetaDB, WordlistManager.KEY_SIZE, String.valueOf(wordlistSize));
             localDB.put(wordlistMetaDB, WordlistManager.KEY_STATUS, WordlistManager.VALUE_STATUS.COMPLETE.toString());
+            localDB.remove(wordlistMetaDB, WordlistManager.KEY_CHECKPOINT);
         } else {
             throw new PwmUnrecoverableException(new ErrorInformation(PwmError.ERROR_UNKNOWN, DEBUG_LABEL + " population completed, but no words stored"));
         }
@@ -341,38 +432,175 @@ class Populator {
         final StringBuilder sb = new StringBuilder();
         sb.append(DEBUG_LABEL);
         sb.append(" population complete, added ").append(wordlistSize);
-        sb.append(" total words in ").append(new TimeDuration(overallStats.getElapsedSeconds() * 1000).asCompactString());
-        sb.append(", ignored ").append(totalLines - wordlistSize).append(" words");
+        sb.append(" total words from ").append(overallStats.lines.get()).append(" lines");
+        sb.append(" in ").append(new TimeDuration(overallStats.getElapsedSeconds() * 1000).asCompactString());
         LOGGER.info(sb.toString());
     }
 
-    private static class PopulationStats {
-        // ------------------------------ FIELDS ------------------------------
+    private Map<String,String> chunkLines(final List<String> lines) {
+        final Map<String,String> words = new HashMap<>();
+        for (String line : lines) {
+            // check for word suitability
+            line = rootWordlist.normalizeWord(line);
 
-        private long startTime = System.currentTimeMillis();
-        private int lines;
+            if (line == null || line.length() < 1 || line.startsWith(COMMENT_PREFIX)) {
+                continue;
+            }
 
-        // --------------------- GETTER / SETTER METHODS ---------------------
+            if (line.length() > MAX_LINE_LENGTH) {
+                line = line.substring(0,MAX_LINE_LENGTH);
+            }
 
-        public int getLines()
-        {
+            words.putAll(rootWordlist.getWriteTxnForValue(line));
+        }
+        return words;
+    }
+
+    private class ChunkTask implements Callable<WordBatch> {
+        private final List<String> lines;
+        private final PopulationCheckpoint checkpoint;
+
+        private ChunkTask(final List<String> lines, final PopulationCheckpoint checkpoint) {
+            this.lines = lines;
+            this.checkpoint = checkpoint;
+        }
+
+        public WordBatch call() throws Exception {
+            return new WordBatch(chunkLines(lines), checkpoint);
+        }
+    }
+
+    private class WriterTask implements Runnable {
+        public void run() {
+            final Map<String,String> bufferedWords = segmentBuilder != null
+                    ? new TreeMap<String,String>(WordlistSegment.CODE_POINT_ORDER)
+                    : new TreeMap<String,String>();
+            PopulationCheckpoint lastCheckpoint = null;
+            try {
+                while (true) {
+                    final WordBatch batch = pendingBatches.take().get();
+                    if (batch == null) {
+                        break;
+                    }
+
+                    bufferedWords.putAll(batch.getWords());
+                    lastCheckpoint = batch.getCheckpoint();
+
+                    if (bufferedWords.size() > flushThreshold()) {
+                        flushBuffer(bufferedWords, lastCheckpoint);
+                        lastCheckpoint = null;
+                    }
+                }
+                flushBuffer(bufferedWords, lastCheckpoint);
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause() == null ? e : e.getCause();
+                LOGGER.error(DEBUG_LABEL + " error processing wordlist lines: " + cause.getMessage());
+                pipelineError = cause instanceof Exception ? (Exception) cause : e;
+                abortFlag = true;
+            } catch (Exception e) {
+                LOGGER.error(DEBUG_LABEL + " error writing wordlist words: " + e.getMessage());
+                pipelineError = e;
+                abortFlag = true;
+            }
+        }
+    }
+
+    private static class WordBatch {
+        private final Map<String,String> words;
+        private final PopulationCheckpoint checkpoint;
+
+        private WordBatch(final Map<String, String> words, final PopulationCheckpoint checkpoint) {
+            this.words = words;
+            this.checkpoint = checkpoint;
+        }
+
+        public Map<String, String> getWords() {
+            return words;
+        }
+
+        public PopulationCheckpoint getCheckpoint() {
+            return checkpoint;
+        }
+    }
+
+    private static class CompletedFuture implements Future<WordBatch> {
+        private final WordBatch value;
+
+        private CompletedFuture(final WordBatch value) {
+            this.value = value;
+        }
+
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        public boolean isCancelled() {
+            return false;
+        }
+
+        public boolean isDone() {
+            return true;
+        }
+
+        public WordBatch get() {
+            return value;
+        }
+
+        public WordBatch get(final long timeout, final TimeUnit unit) {
+            return value;
+        }
+    }
+
+    static class PopulationCheckpoint implements Serializable {
+        private int entryIndex;
+        private long bytePosition;
+        private long lines;
+        private int runCount;
+
+        PopulationCheckpoint(final int entryIndex, final long bytePosition, final long lines) {
+            this.entryIndex = entryIndex;
+            this.bytePosition = bytePosition;
+            this.lines = lines;
+        }
+
+        public int getEntryIndex() {
+            return entryIndex;
+        }
+
+        public long getBytePosition() {
+            return bytePosition;
+        }
+
+        public long getLines() {
             return lines;
         }
 
-        // -------------------------- OTHER METHODS --------------------------
+        public int getRunCount() {
+            return runCount;
+        }
 
-        public void incrementLines()
-        {
-            lines++;
+        public void setRunCount(final int runCount) {
+            this.runCount = runCount;
         }
+    }
+
+    private static class PopulationStats {
+        // ------------------------------ FIELDS ------------------------------
+
+        private volatile long startTime = System.currentTimeMillis();
+        private final AtomicLong lines = new AtomicLong();
+        private final AtomicLong words = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+
+        // -------------------------- OTHER METHODS --------------------------
 
         public int getElapsedSeconds()
         {
-            return (int) (System.currentTimeMillis() - startTime) / 1000;
+            return (int) ((System.currentTimeMillis() - startTime) / 1000);
         }
 
         public void incrementElapsedSeconds(final int seconds) {
-            startTime = startTime - (seconds * 1000);
+            startTime = startTime - (seconds * 1000L);
         }
     }
 }
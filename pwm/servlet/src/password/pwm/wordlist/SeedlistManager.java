@@ -35,12 +35,13 @@ import password.pwm.util.logging.PwmLogger;
 import java.io.File;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SeedlistManager extends AbstractWordlist implements Wordlist {
 
     private static final PwmLogger LOGGER = PwmLogger.forClass(SeedlistManager.class);
 
-    private int initialPopulationCounter = 0;
+    private final AtomicInteger initialPopulationCounter = new AtomicInteger(0);
 
     public SeedlistManager() {
     }
@@ -71,9 +72,7 @@ public class SeedlistManager extends AbstractWordlist implements Wordlist {
     }
 
     protected Map<String, String> getWriteTxnForValue(final String value) {
-        final Map<String, String> txItem = Collections.singletonMap(String.valueOf(initialPopulationCounter), value);
-        initialPopulationCounter++;
-        return txItem;
+        return Collections.singletonMap(String.valueOf(initialPopulationCounter.getAndIncrement()), value);
     }
 
     @Override
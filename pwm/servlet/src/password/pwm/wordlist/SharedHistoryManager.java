@@ -53,6 +53,7 @@ public class SharedHistoryManager implements Wordlist {
 
     private static final int MIN_CLEANER_FREQUENCY = 1000 * 60 * 60; // 1 hour
     private static final int MAX_CLEANER_FREQUENCY = 1000 * 60 * 60 * 24; // 1 day
+    private static final int CLEANER_BATCH_SIZE = 100;
 
     private static final LocalDB.DB META_DB = LocalDB.DB.SHAREDHISTORY_META;
     private static final LocalDB.DB WORDS_DB = LocalDB.DB.SHAREDHISTORY_WORDS;
@@ -312,34 +313,48 @@ public class SharedHistoryManager implements Wordlist {
             final int initialSize = size();
             int removeCount = 0;
             long localOldestEntry = System.currentTimeMillis();
+            final List<String> removalKeys = new ArrayList<>(CLEANER_BATCH_SIZE);
 
             LOGGER.debug("beginning wordDB reduce operation, examining " + initialSize + " words for entries older than " + TimeDuration.asCompactString(settings.maxAgeMs));
 
-            LocalDB.LocalDBIterator<String> keyIterator = null;
+            LocalDB.LocalDBEntryIterator entryIterator = null;
             try {
-                keyIterator = localDB.iterator(WORDS_DB);
-                while (status == STATUS.OPEN && keyIterator.hasNext()) {
-                    final String key = keyIterator.next();
-                    final String value = localDB.get(WORDS_DB, key);
-                    final long timeStamp = Long.parseLong(value);
+                entryIterator = localDB.entryIterator(WORDS_DB, null);
+                int examinedCount = 0;
+                while (status == STATUS.OPEN && entryIterator.hasNext()) {
+                    final Map.Entry<String, String> entry = entryIterator.next();
+                    final long timeStamp = Long.parseLong(entry.getValue());
                     final long entryAge = System.currentTimeMillis() - timeStamp;
 
                     if (entryAge > settings.maxAgeMs) {
-                        localDB.remove(WORDS_DB, key);
-                        removeCount++;
+                        removalKeys.add(entry.getKey());
+                    } else {
+                        localOldestEntry = timeStamp < localOldestEntry ? timeStamp : localOldestEntry;
+                    }
+
+                    if (removalKeys.size() >= CLEANER_BATCH_SIZE) {
+                        localDB.removeAll(WORDS_DB, removalKeys);
+                        removeCount += removalKeys.size();
+                        removalKeys.clear();
 
                         if (removeCount % 1000 == 0) {
                             LOGGER.trace("wordDB reduce operation in progress, removed=" + removeCount + ", total=" + (initialSize - removeCount));
                         }
-                    } else {
-                        localOldestEntry = timeStamp < localOldestEntry ? timeStamp : localOldestEntry;
                     }
-                    sleeper.sleep();
+
+                    if (++examinedCount % CLEANER_BATCH_SIZE == 0) {
+                        sleeper.sleep();
+                    }
+                }
+
+                if (!removalKeys.isEmpty()) {
+                    localDB.removeAll(WORDS_DB, removalKeys);
+                    removeCount += removalKeys.size();
                 }
             } finally {
                 try {
-                    if (keyIterator != null) {
-                        keyIterator.close();
+                    if (entryIterator != null) {
+                        entryIterator.close();
                     }
                 } catch (Exception e) {
                     LOGGER.warn("error returning LocalDB iterator: " + e.getMessage());
@@ -28,7 +28,7 @@ import password.pwm.PwmService;
 public interface Wordlist extends PwmService {
 
     static final String KEY_STATUS = "STATUS";
-    static final String KEY_LASTLINE = "LASTLINE";
+    static final String KEY_CHECKPOINT = "CHECKPOINT";
     static final String KEY_VERSION = "VERSION";
     static final String KEY_CHECKSUM = "CHECKSUM";
     static final String KEY_ELAPSEDSECONDS = "RUNTIME";
@@ -0,0 +1,275 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.wordlist;
+
+import password.pwm.util.logging.PwmLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Memory-mapped bloom filter used as a negative lookup cache in front of the wordlist {@link password.pwm.util.localdb.LocalDB}
+ * storage.  The bit array lives in a file next to the LocalDB, so it is held off-heap and survives restarts.
+ * <p/>
+ * A filter is built once after the wordlist population completes, and is read-only afterwards.  A filter file
+ * is only considered usable if it was marked complete and its signature matches the current wordlist.
+ */
+class WordlistBloomFilter {
+
+    private static final PwmLogger LOGGER = PwmLogger.forClass(WordlistBloomFilter.class);
+
+    private static final int MAGIC = 0x50574d42; // "PWMB"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_LENGTH = 64;
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_BIT_COUNT = 8;
+    private static final int OFFSET_HASH_COUNT = 16;
+    private static final int OFFSET_COMPLETE = 20;
+    private static final int OFFSET_SIGNATURE = 24;
+    private static final int OFFSET_INSERT_COUNT = 32;
+
+    private static final long SEGMENT_BYTES = 1L << 30; // mapped buffers are limited to 2gb, use 1gb segments.
+    private static final int MAX_HASH_COUNT = 16;
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] segments;
+    private final long bitCount;
+    private final int hashCount;
+
+    private long insertCount;
+
+    private WordlistBloomFilter(
+            final File file,
+            final RandomAccessFile randomAccessFile,
+            final long bitCount,
+            final int hashCount,
+            final boolean readOnly
+    )
+            throws IOException
+    {
+        this.file = file;
+        this.randomAccessFile = randomAccessFile;
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+
+        final FileChannel.MapMode mapMode = readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+        final FileChannel channel = randomAccessFile.getChannel();
+        final long byteCount = byteCountForBits(bitCount);
+        final int segmentCount = (int) ((byteCount + SEGMENT_BYTES - 1) / SEGMENT_BYTES);
+
+        header = channel.map(mapMode, 0, HEADER_LENGTH);
+        segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            final long segmentStart = (long) i * SEGMENT_BYTES;
+            final long segmentLength = Math.min(SEGMENT_BYTES, byteCount - segmentStart);
+            segments[i] = channel.map(mapMode, HEADER_LENGTH + segmentStart, segmentLength);
+        }
+    }
+
+    /**
+     * Create a new, empty filter file sized for the expected number of words.  Any existing file is replaced.
+     */
+    static WordlistBloomFilter create(
+            final File file,
+            final long expectedInsertions,
+            final double falsePositiveRate
+    )
+            throws IOException
+    {
+        final long insertions = Math.max(1, expectedInsertions);
+        final double fpp = falsePositiveRate > 0 && falsePositiveRate < 1 ? falsePositiveRate : 0.01;
+
+        final long bitCount = Math.max(64, (long) (-insertions * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+        final int hashCount = Math.max(1, Math.min(MAX_HASH_COUNT, (int) Math.round((double) bitCount / insertions * Math.log(2))));
+
+        delete(file);
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.setLength(HEADER_LENGTH + byteCountForBits(bitCount));
+            final WordlistBloomFilter filter = new WordlistBloomFilter(file, randomAccessFile, bitCount, hashCount, false);
+            filter.header.putInt(OFFSET_MAGIC, MAGIC);
+            filter.header.putInt(OFFSET_VERSION, FORMAT_VERSION);
+            filter.header.putLong(OFFSET_BIT_COUNT, bitCount);
+            filter.header.putInt(OFFSET_HASH_COUNT, hashCount);
+            filter.header.put(OFFSET_COMPLETE, (byte) 0);
+            return filter;
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open an existing, completed filter file in read-only mode.
+     *
+     * @return the filter, or null if the file does not exist, is incomplete, or does not match the signature.
+     */
+    static WordlistBloomFilter open(final File file, final long expectedSignature) {
+        if (file == null || !file.exists() || file.length() < HEADER_LENGTH) {
+            return null;
+        }
+
+        RandomAccessFile randomAccessFile = null;
+        try {
+            randomAccessFile = new RandomAccessFile(file, "r");
+            final int magic = randomAccessFile.readInt();
+            final int version = randomAccessFile.readInt();
+            final long bitCount = randomAccessFile.readLong();
+            final int hashCount = randomAccessFile.readInt();
+            final boolean complete = randomAccessFile.readByte() == 1;
+            randomAccessFile.seek(OFFSET_SIGNATURE);
+            final long signature = randomAccessFile.readLong();
+
+            if (magic != MAGIC || version != FORMAT_VERSION || !complete || signature != expectedSignature) {
+                LOGGER.debug("existing bloom filter file " + file.getAbsolutePath() + " is stale or incomplete, it will be rebuilt");
+                randomAccessFile.close();
+                return null;
+            }
+
+            if (bitCount <= 0 || hashCount <= 0 || hashCount > MAX_HASH_COUNT || file.length() < HEADER_LENGTH + byteCountForBits(bitCount)) {
+                LOGGER.warn("existing bloom filter file " + file.getAbsolutePath() + " has an invalid header, it will be rebuilt");
+                randomAccessFile.close();
+                return null;
+            }
+
+            final WordlistBloomFilter filter = new WordlistBloomFilter(file, randomAccessFile, bitCount, hashCount, true);
+            filter.insertCount = filter.header.getLong(OFFSET_INSERT_COUNT);
+            return filter;
+        } catch (IOException e) {
+            LOGGER.warn("unable to open bloom filter file " + file.getAbsolutePath() + ": " + e.getMessage());
+            if (randomAccessFile != null) {
+                try {
+                    randomAccessFile.close();
+                } catch (IOException e2) { /* nothing to do */ }
+            }
+            return null;
+        }
+    }
+
+    static void delete(final File file) {
+        if (file != null && file.exists()) {
+            if (!file.delete()) {
+                LOGGER.warn("unable to delete bloom filter file " + file.getAbsolutePath());
+            }
+        }
+    }
+
+    void add(final CharSequence word) {
+        final long hash1 = hash(word);
+        final long hash2 = mix(hash1 + 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashCount; i++) {
+            final long bitIndex = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            final MappedByteBuffer segment = segments[(int) ((bitIndex >>> 3) / SEGMENT_BYTES)];
+            final int byteIndex = (int) ((bitIndex >>> 3) % SEGMENT_BYTES);
+            segment.put(byteIndex, (byte) (segment.get(byteIndex) | (1 << (bitIndex & 7))));
+        }
+        insertCount++;
+    }
+
+    /**
+     * @return false if the word is definitely not present, true if it may be present.
+     */
+    boolean mightContain(final CharSequence word) {
+        final long hash1 = hash(word);
+        final long hash2 = mix(hash1 + 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashCount; i++) {
+            final long bitIndex = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            final MappedByteBuffer segment = segments[(int) ((bitIndex >>> 3) / SEGMENT_BYTES)];
+            final int byteIndex = (int) ((bitIndex >>> 3) % SEGMENT_BYTES);
+            if ((segment.get(byteIndex) & (1 << (bitIndex & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Flush the bit array to disk and mark the filter as complete.  Until this is called a filter file will
+     * not be accepted by {@link #open(java.io.File, long)}.
+     */
+    void markComplete(final long signature) {
+        for (final MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        header.putLong(OFFSET_SIGNATURE, signature);
+        header.putLong(OFFSET_INSERT_COUNT, insertCount);
+        header.put(OFFSET_COMPLETE, (byte) 1);
+        header.force();
+    }
+
+    void close() {
+        try {
+            randomAccessFile.close();
+        } catch (IOException e) {
+            LOGGER.debug("error closing bloom filter file " + file.getAbsolutePath() + ": " + e.getMessage());
+        }
+    }
+
+    long getInsertCount() {
+        return insertCount;
+    }
+
+    long getSizeInBytes() {
+        return HEADER_LENGTH + byteCountForBits(bitCount);
+    }
+
+    int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * 64 bit FNV-1a over the UTF-16 chars of the input, finalized with the murmur3 mixer.  Operates directly on
+     * the {@link CharSequence} so that lookups do not allocate.
+     */
+    static long hash(final CharSequence input) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < input.length(); i++) {
+            final char c = input.charAt(i);
+            hash ^= (c & 0xff);
+            hash *= 0x100000001b3L;
+            hash ^= (c >>> 8);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long byteCountForBits(final long bitCount) {
+        return (bitCount + 7) / 8;
+    }
+}
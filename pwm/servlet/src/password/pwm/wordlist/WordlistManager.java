@@ -44,6 +44,9 @@ public class WordlistManager extends AbstractWordlist implements Wordlist {
 
     private static final PwmLogger LOGGER = PwmLogger.forClass(WordlistManager.class);
 
+    private static final String BLOOM_FILTER_FILENAME = "wordlist-bloomfilter.bin";
+    private static final String SEGMENT_FILENAME = "wordlist-segment.bin";
+
 // ------------------------------ FIELDS ------------------------------
 
     boolean backwards;
@@ -75,6 +78,8 @@ public class WordlistManager extends AbstractWordlist implements Wordlist {
         this.DEBUG_LABEL = PwmConstants.PWM_APP_NAME + "-Wordlist";
         this.META_DB = LocalDB.DB.WORDLIST_META;
         this.WORD_DB = LocalDB.DB.WORDLIST_WORDS;
+        this.bloomFilterFilename = BLOOM_FILTER_FILENAME;
+        this.segmentFilename = SEGMENT_FILENAME;
 
         final Thread t = new Thread(new Runnable() {
             public void run()
@@ -96,6 +101,7 @@ public class WordlistManager extends AbstractWordlist implements Wordlist {
     @Override
     protected String makeVersionString()
     {
-        return VALUE_VERSION + JsonUtil.serialize(wordlistConfiguration);
+        final String storageMarker = segmentFile() == null ? "" : "_segment";
+        return VALUE_VERSION + JsonUtil.serialize(wordlistConfiguration) + storageMarker;
     }
 }
@@ -0,0 +1,488 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.wordlist;
+
+import password.pwm.PwmConstants;
+import password.pwm.util.logging.PwmLogger;
+
+import java.io.*;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable, sorted wordlist segment file.  Words are stored as UTF-8 in blocks of {@link #BLOCK_WORDS} entries,
+ * each word prefix-compressed against the previous word in its block.  A sparse index holds the file offset of
+ * every block, and the complete first word of each block is used as the binary search key.
+ * <p/>
+ * The file is memory-mapped read-only; lookups encode the probe word and rebuild candidate words in per-thread
+ * scratch buffers so that {@link #contains(CharSequence)} does not allocate.
+ * <p/>
+ * File layout: 64 byte header, block data, then the block offset index as big-endian longs.
+ */
+class WordlistSegment {
+
+    private static final PwmLogger LOGGER = PwmLogger.forClass(WordlistSegment.class);
+
+    private static final int MAGIC = 0x50574d53; // "PWMS"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_LENGTH = 64;
+    private static final int BLOCK_WORDS = 64;
+    private static final long CHUNK_BYTES = 1L << 30; // mapped buffers are limited to 2gb, use 1gb chunks.
+
+    /**
+     * Orders strings by unicode code point, which matches the unsigned byte order of their UTF-8 encoding.
+     */
+    static final Comparator<String> CODE_POINT_ORDER = new Comparator<String>() {
+        public int compare(final String o1, final String o2) {
+            final int length = Math.min(o1.length(), o2.length());
+            for (int i = 0; i < length; i++) {
+                final char c1 = o1.charAt(i);
+                final char c2 = o2.charAt(i);
+                if (c1 != c2) {
+                    if (Character.isSurrogate(c1) != Character.isSurrogate(c2)) {
+                        // surrogates encode code points above every non-surrogate char
+                        return Character.isSurrogate(c1) ? 1 : -1;
+                    }
+                    return c1 - c2;
+                }
+            }
+            return o1.length() - o2.length();
+        }
+    };
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final MappedByteBuffer[] chunks;
+    private final LongBuffer index;
+    private final long indexOffset;
+    private final long wordCount;
+    private final int blockCount;
+
+    private final ThreadLocal<LookupBuffers> lookupBuffers = new ThreadLocal<LookupBuffers>() {
+        @Override
+        protected LookupBuffers initialValue() {
+            return new LookupBuffers();
+        }
+    };
+
+    private WordlistSegment(final File file, final RandomAccessFile randomAccessFile)
+            throws IOException
+    {
+        this.file = file;
+        this.randomAccessFile = randomAccessFile;
+
+        randomAccessFile.seek(0);
+        final int magic = randomAccessFile.readInt();
+        final int version = randomAccessFile.readInt();
+        wordCount = randomAccessFile.readLong();
+        blockCount = randomAccessFile.readInt();
+        indexOffset = randomAccessFile.readLong();
+
+        if (magic != MAGIC || version != FORMAT_VERSION) {
+            throw new IOException("unrecognized segment file format");
+        }
+        if (blockCount < 0 || indexOffset < HEADER_LENGTH || indexOffset + (long) blockCount * 8 != randomAccessFile.length()) {
+            throw new IOException("segment file header does not match file length");
+        }
+
+        final FileChannel channel = randomAccessFile.getChannel();
+        final int chunkCount = (int) ((indexOffset + CHUNK_BYTES - 1) / CHUNK_BYTES);
+        chunks = new MappedByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            final long chunkStart = (long) i * CHUNK_BYTES;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, Math.min(CHUNK_BYTES, indexOffset - chunkStart));
+        }
+        index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, (long) blockCount * 8).asLongBuffer();
+    }
+
+    /**
+     * @return the opened segment, or null if the file does not exist or is not a valid segment file.
+     */
+    static WordlistSegment open(final File file) {
+        if (file == null || !file.exists()) {
+            return null;
+        }
+
+        if (file.length() < HEADER_LENGTH) {
+            LOGGER.warn("wordlist segment file " + file.getAbsolutePath() + " is truncated");
+            return null;
+        }
+
+        RandomAccessFile randomAccessFile = null;
+        try {
+            randomAccessFile = new RandomAccessFile(file, "r");
+            return new WordlistSegment(file, randomAccessFile);
+        } catch (IOException e) {
+            LOGGER.warn("unable to open wordlist segment file " + file.getAbsolutePath() + ": " + e.getMessage());
+            if (randomAccessFile != null) {
+                try {
+                    randomAccessFile.close();
+                } catch (IOException e2) { /* nothing to do */ }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Write a new segment file.  The supplied words must be unique and sorted by {@link #CODE_POINT_ORDER}.  The file
+     * is written to a temporary name and renamed on completion, so a partially written segment is never opened.
+     *
+     * @return number of words written
+     */
+    static long write(final File file, final Iterator<String> sortedWords)
+            throws IOException
+    {
+        final File tempFile = new File(file.getAbsolutePath() + ".tmp");
+        long wordCount = 0;
+        long[] blockOffsets = new long[1024];
+        int blockCount = 0;
+
+        final CountingOutputStream countingStream = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 64 * 1024));
+        try {
+            final DataOutputStream output = new DataOutputStream(countingStream);
+            output.write(new byte[HEADER_LENGTH]);
+
+            byte[] previous = new byte[0];
+            int wordsInBlock = 0;
+            while (sortedWords.hasNext()) {
+                final byte[] word = sortedWords.next().getBytes(PwmConstants.DEFAULT_CHARSET);
+                if (wordsInBlock == BLOCK_WORDS) {
+                    wordsInBlock = 0;
+                }
+
+                final int prefixLength;
+                if (wordsInBlock == 0) {
+                    if (blockCount == blockOffsets.length) {
+                        final long[] newOffsets = new long[blockOffsets.length * 2];
+                        System.arraycopy(blockOffsets, 0, newOffsets, 0, blockCount);
+                        blockOffsets = newOffsets;
+                    }
+                    blockOffsets[blockCount++] = countingStream.count;
+                    prefixLength = 0;
+                } else {
+                    prefixLength = sharedPrefixLength(previous, word);
+                }
+
+                writeVarInt(output, prefixLength);
+                writeVarInt(output, word.length - prefixLength);
+                output.write(word, prefixLength, word.length - prefixLength);
+
+                previous = word;
+                wordsInBlock++;
+                wordCount++;
+            }
+
+            final long indexOffset = countingStream.count;
+            for (int i = 0; i < blockCount; i++) {
+                output.writeLong(blockOffsets[i]);
+            }
+            output.close();
+
+            final RandomAccessFile headerFile = new RandomAccessFile(tempFile, "rw");
+            try {
+                headerFile.writeInt(MAGIC);
+                headerFile.writeInt(FORMAT_VERSION);
+                headerFile.writeLong(wordCount);
+                headerFile.writeInt(blockCount);
+                headerFile.writeLong(indexOffset);
+                headerFile.getFD().sync();
+            } finally {
+                headerFile.close();
+            }
+        } finally {
+            countingStream.close();
+        }
+
+        delete(file);
+        if (!tempFile.renameTo(file)) {
+            throw new IOException("unable to rename " + tempFile.getAbsolutePath() + " to " + file.getAbsolutePath());
+        }
+        return wordCount;
+    }
+
+    static void delete(final File file) {
+        if (file != null && file.exists()) {
+            if (!file.delete()) {
+                LOGGER.warn("unable to delete wordlist segment file " + file.getAbsolutePath());
+            }
+        }
+    }
+
+    boolean contains(final CharSequence word) {
+        if (blockCount == 0) {
+            return false;
+        }
+
+        final LookupBuffers buffers = lookupBuffers.get();
+        final int probeLength = buffers.encodeProbe(word);
+        final byte[] probe = buffers.probe;
+
+        // binary search for the last block with a first word <= probe
+        int low = 0;
+        int high = blockCount - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            final int result = compareFirstWord(index.get(mid), probe, probeLength);
+            if (result == 0) {
+                return true;
+            } else if (result < 0) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        // linear scan within the block, rebuilding each word from the previous word's prefix
+        final long blockEnd = low + 1 < blockCount ? index.get(low + 1) : indexOffset;
+        long position = index.get(low);
+        int wordLength = 0;
+        while (position < blockEnd) {
+            final long prefixValue = readVarInt(position);
+            position += prefixValue >>> 32;
+            final long suffixValue = readVarInt(position);
+            position += suffixValue >>> 32;
+
+            final int prefixLength = (int) prefixValue;
+            final int suffixLength = (int) suffixValue;
+            wordLength = prefixLength + suffixLength;
+            buffers.ensureWordCapacity(wordLength);
+            for (int i = 0; i < suffixLength; i++) {
+                buffers.word[prefixLength + i] = byteAt(position + i);
+            }
+            position += suffixLength;
+
+            final int result = compareBytes(buffers.word, wordLength, probe, probeLength);
+            if (result == 0) {
+                return true;
+            } else if (result > 0) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Iterate all words in stored order.  Unlike {@link #contains(CharSequence)}, the iterator allocates a
+     * string per word and is intended for bulk operations.
+     */
+    Iterator<String> iterator() {
+        return new SegmentIterator();
+    }
+
+    long getWordCount() {
+        return wordCount;
+    }
+
+    long getSizeInBytes() {
+        return file.length();
+    }
+
+    void close() {
+        try {
+            randomAccessFile.close();
+        } catch (IOException e) {
+            LOGGER.debug("error closing wordlist segment file " + file.getAbsolutePath() + ": " + e.getMessage());
+        }
+    }
+
+    private int compareFirstWord(final long blockOffset, final byte[] probe, final int probeLength) {
+        long position = blockOffset;
+        position += readVarInt(position) >>> 32; // prefix length, always zero for the first word of a block
+        final long lengthValue = readVarInt(position);
+        position += lengthValue >>> 32;
+        final int length = (int) lengthValue;
+
+        final int compareLength = Math.min(length, probeLength);
+        for (int i = 0; i < compareLength; i++) {
+            final int stored = byteAt(position + i) & 0xff;
+            final int probed = probe[i] & 0xff;
+            if (stored != probed) {
+                return stored - probed;
+            }
+        }
+        return length - probeLength;
+    }
+
+    private byte byteAt(final long position) {
+        return chunks[(int) (position / CHUNK_BYTES)].get((int) (position % CHUNK_BYTES));
+    }
+
+    /**
+     * @return the decoded value in the low 32 bits, and the number of bytes read in the high 32 bits.
+     */
+    private long readVarInt(final long position) {
+        int value = 0;
+        int shift = 0;
+        int bytesRead = 0;
+        byte b;
+        do {
+            b = byteAt(position + bytesRead);
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+            bytesRead++;
+        } while ((b & 0x80) != 0);
+        return ((long) bytesRead << 32) | (value & 0xffffffffL);
+    }
+
+    private static void writeVarInt(final DataOutputStream output, int value)
+            throws IOException
+    {
+        while ((value & ~0x7f) != 0) {
+            output.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        output.write(value);
+    }
+
+    private static int sharedPrefixLength(final byte[] previous, final byte[] word) {
+        final int length = Math.min(previous.length, word.length);
+        int i = 0;
+        while (i < length && previous[i] == word[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int compareBytes(final byte[] a, final int aLength, final byte[] b, final int bLength) {
+        final int length = Math.min(aLength, bLength);
+        for (int i = 0; i < length; i++) {
+            final int diff = (a[i] & 0xff) - (b[i] & 0xff);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return aLength - bLength;
+    }
+
+    private static class LookupBuffers {
+        private byte[] probe = new byte[256];
+        private byte[] word = new byte[256];
+
+        private void ensureWordCapacity(final int length) {
+            if (length > word.length) {
+                final byte[] newWord = new byte[Math.max(length, word.length * 2)];
+                System.arraycopy(word, 0, newWord, 0, word.length);
+                word = newWord;
+            }
+        }
+
+        /**
+         * UTF-8 encode the probe into the reusable probe buffer.
+         *
+         * @return encoded length
+         */
+        private int encodeProbe(final CharSequence input) {
+            final int maxLength = input.length() * 3;
+            if (maxLength > probe.length) {
+                probe = new byte[maxLength];
+            }
+
+            int position = 0;
+            for (int i = 0; i < input.length(); i++) {
+                final char c = input.charAt(i);
+                if (c < 0x80) {
+                    probe[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    probe[position++] = (byte) (0xc0 | (c >> 6));
+                    probe[position++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < input.length() && Character.isLowSurrogate(input.charAt(i + 1))) {
+                    final int codePoint = Character.toCodePoint(c, input.charAt(++i));
+                    probe[position++] = (byte) (0xf0 | (codePoint >> 18));
+                    probe[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    probe[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    probe[position++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    probe[position++] = (byte) '?'; // unpaired surrogate, matches String.getBytes() replacement
+                } else {
+                    probe[position++] = (byte) (0xe0 | (c >> 12));
+                    probe[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    probe[position++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            return position;
+        }
+    }
+
+    private class SegmentIterator implements Iterator<String> {
+        private final long endPosition = indexOffset;
+        private long position = HEADER_LENGTH;
+        private byte[] word = new byte[256];
+
+        public boolean hasNext() {
+            return position < endPosition;
+        }
+
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final long prefixValue = readVarInt(position);
+            position += prefixValue >>> 32;
+            final long suffixValue = readVarInt(position);
+            position += suffixValue >>> 32;
+
+            final int prefixLength = (int) prefixValue;
+            final int suffixLength = (int) suffixValue;
+            if (prefixLength + suffixLength > word.length) {
+                final byte[] newWord = new byte[Math.max(prefixLength + suffixLength, word.length * 2)];
+                System.arraycopy(word, 0, newWord, 0, word.length);
+                word = newWord;
+            }
+            for (int i = 0; i < suffixLength; i++) {
+                word[prefixLength + i] = byteAt(position + i);
+            }
+            position += suffixLength;
+            return new String(word, 0, prefixLength + suffixLength, PwmConstants.DEFAULT_CHARSET);
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("wordlist segment is read-only");
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
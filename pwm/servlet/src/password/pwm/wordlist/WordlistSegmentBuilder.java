@@ -0,0 +1,341 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.wordlist;
+
+import password.pwm.util.logging.PwmLogger;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * External merge sort used by the {@link Populator} to build a {@link WordlistSegment}.  Sorted runs of words are
+ * written to numbered files in a work directory as population progresses; once the source is exhausted the runs are
+ * merged, de-duplicated and written as a single segment file.
+ * <p/>
+ * The number of completed runs is recorded in the population checkpoint, so on resume any run file beyond that
+ * count (a run that was being written when population paused) is discarded.
+ * <p/>
+ * At most {@link #MAX_MERGE_FAN_IN} runs are open at once.  When there are more runs, groups of runs are first merged
+ * into intermediate runs, in as many passes as needed, before the final merge into the segment.
+ */
+class WordlistSegmentBuilder {
+
+    private static final PwmLogger LOGGER = PwmLogger.forClass(WordlistSegmentBuilder.class);
+
+    private static final String RUN_FILE_PREFIX = "run-";
+    private static final String MERGE_FILE_PREFIX = "merge-";
+
+    static final int MAX_MERGE_FAN_IN = 64;
+
+    private final File segmentFile;
+    private final File workDirectory;
+    private final int maxFanIn;
+
+    private int runCount;
+
+    WordlistSegmentBuilder(final File segmentFile, final File workDirectory) {
+        this(segmentFile, workDirectory, MAX_MERGE_FAN_IN);
+    }
+
+    WordlistSegmentBuilder(final File segmentFile, final File workDirectory, final int maxFanIn) {
+        this.segmentFile = segmentFile;
+        this.workDirectory = workDirectory;
+        this.maxFanIn = Math.max(2, maxFanIn);
+    }
+
+    int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Prepare the work directory, keeping the first {@code completedRuns} run files from a previous population.
+     */
+    void init(final int completedRuns)
+            throws IOException
+    {
+        if (!workDirectory.exists() && !workDirectory.mkdirs()) {
+            throw new IOException("unable to create wordlist segment work directory " + workDirectory.getAbsolutePath());
+        }
+
+        for (final File file : listFiles(workDirectory)) {
+            if (runIndex(file) >= completedRuns) {
+                deleteFile(file);
+            }
+        }
+
+        for (int i = 0; i < completedRuns; i++) {
+            if (!runFile(i).exists()) {
+                throw new IOException("wordlist segment run file " + runFile(i).getAbsolutePath() + " is missing");
+            }
+        }
+
+        runCount = completedRuns;
+    }
+
+    /**
+     * Write a sorted run.  The words must be sorted by {@link WordlistSegment#CODE_POINT_ORDER}.
+     */
+    void writeRun(final Collection<String> sortedWords)
+            throws IOException
+    {
+        if (sortedWords.isEmpty()) {
+            return;
+        }
+
+        final File runFile = runFile(runCount);
+        final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(runFile), 64 * 1024));
+        try {
+            output.writeInt(sortedWords.size());
+            for (final String word : sortedWords) {
+                output.writeUTF(word);
+            }
+        } finally {
+            output.close();
+        }
+        runCount++;
+    }
+
+    /**
+     * Merge all runs into the segment file and remove the work directory.
+     *
+     * @return number of unique words in the segment
+     */
+    long merge()
+            throws IOException
+    {
+        final long startTime = System.currentTimeMillis();
+        try {
+            List<File> runFiles = new ArrayList<>();
+            for (int i = 0; i < runCount; i++) {
+                runFiles.add(runFile(i));
+            }
+
+            int pass = 0;
+            while (runFiles.size() > maxFanIn) {
+                final List<File> mergedFiles = new ArrayList<>();
+                for (int i = 0; i < runFiles.size(); i += maxFanIn) {
+                    final List<File> group = runFiles.subList(i, Math.min(runFiles.size(), i + maxFanIn));
+                    final File mergedFile = new File(workDirectory, MERGE_FILE_PREFIX + pass + "-" + mergedFiles.size());
+                    mergeRuns(group, mergedFile);
+                    for (final File file : group) {
+                        deleteFile(file);
+                    }
+                    mergedFiles.add(mergedFile);
+                }
+                LOGGER.trace("merge pass " + pass + " combined " + runFiles.size() + " runs into " + mergedFiles.size() + " runs");
+                runFiles = mergedFiles;
+                pass++;
+            }
+
+            final List<RunReader> readers = openReaders(runFiles);
+            final long wordCount;
+            try {
+                wordCount = WordlistSegment.write(segmentFile, new MergeIterator(readers));
+            } finally {
+                closeReaders(readers);
+            }
+            LOGGER.debug("merged " + runCount + " sorted runs in " + (pass + 1) + " passes into " + wordCount + " words in segment file "
+                    + segmentFile.getAbsolutePath() + " (" + (System.currentTimeMillis() - startTime) + "ms)");
+            return wordCount;
+        } finally {
+            clear();
+        }
+    }
+
+    /**
+     * Merge and de-duplicate a group of runs into a single run file.
+     */
+    private static void mergeRuns(final List<File> runFiles, final File mergedFile)
+            throws IOException
+    {
+        final List<RunReader> readers = openReaders(runFiles);
+        int wordCount = 0;
+        try {
+            final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(mergedFile), 64 * 1024));
+            try {
+                output.writeInt(0);
+                for (final Iterator<String> iterator = new MergeIterator(readers); iterator.hasNext(); ) {
+                    output.writeUTF(iterator.next());
+                    wordCount++;
+                }
+            } finally {
+                output.close();
+            }
+        } finally {
+            closeReaders(readers);
+        }
+
+        // the word count heads the run, so it is written once the merge is complete
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(mergedFile, "rw");
+        try {
+            randomAccessFile.writeInt(wordCount);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private static List<RunReader> openReaders(final List<File> runFiles)
+            throws IOException
+    {
+        final List<RunReader> readers = new ArrayList<>();
+        try {
+            for (final File runFile : runFiles) {
+                readers.add(new RunReader(runFile));
+            }
+        } catch (IOException e) {
+            closeReaders(readers);
+            throw e;
+        }
+        return readers;
+    }
+
+    private static void closeReaders(final List<RunReader> readers) {
+        for (final RunReader reader : readers) {
+            reader.close();
+        }
+    }
+
+    /**
+     * Remove the work directory and all run files.
+     */
+    void clear() {
+        if (workDirectory.exists()) {
+            for (final File file : listFiles(workDirectory)) {
+                deleteFile(file);
+            }
+            deleteFile(workDirectory);
+        }
+        runCount = 0;
+    }
+
+    private File runFile(final int index) {
+        return new File(workDirectory, RUN_FILE_PREFIX + String.format("%06d", index));
+    }
+
+    private static int runIndex(final File file) {
+        final String name = file.getName();
+        if (name.startsWith(RUN_FILE_PREFIX)) {
+            try {
+                return Integer.parseInt(name.substring(RUN_FILE_PREFIX.length()));
+            } catch (NumberFormatException e) { /* not a run file */ }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    private static File[] listFiles(final File directory) {
+        final File[] files = directory.listFiles();
+        return files == null ? new File[0] : files;
+    }
+
+    private static void deleteFile(final File file) {
+        if (!file.delete()) {
+            LOGGER.warn("unable to delete " + file.getAbsolutePath());
+        }
+    }
+
+    private static class RunReader {
+        private final DataInputStream input;
+        private int remaining;
+        private String current;
+
+        private RunReader(final File file)
+                throws IOException
+        {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+            remaining = input.readInt();
+            advance();
+        }
+
+        private void advance()
+                throws IOException
+        {
+            if (remaining > 0) {
+                current = input.readUTF();
+                remaining--;
+            } else {
+                current = null;
+            }
+        }
+
+        private void close() {
+            try {
+                input.close();
+            } catch (IOException e) { /* nothing to do */ }
+        }
+    }
+
+    private static class MergeIterator implements Iterator<String> {
+        private final PriorityQueue<RunReader> queue;
+        private String next;
+
+        private MergeIterator(final List<RunReader> readers) {
+            queue = new PriorityQueue<>(Math.max(1, readers.size()), new Comparator<RunReader>() {
+                public int compare(final RunReader o1, final RunReader o2) {
+                    return WordlistSegment.CODE_POINT_ORDER.compare(o1.current, o2.current);
+                }
+            });
+            for (final RunReader reader : readers) {
+                if (reader.current != null) {
+                    queue.add(reader);
+                }
+            }
+            next = pollNext(null);
+        }
+
+        private String pollNext(final String previous) {
+            try {
+                while (!queue.isEmpty()) {
+                    final RunReader reader = queue.poll();
+                    final String word = reader.current;
+                    reader.advance();
+                    if (reader.current != null) {
+                        queue.add(reader);
+                    }
+                    if (!word.equals(previous)) {
+                        return word;
+                    }
+                }
+                return null;
+            } catch (IOException e) {
+                throw new IllegalStateException("error reading wordlist segment run: " + e.getMessage(), e);
+            }
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public String next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            final String current = next;
+            next = pollNext(current);
+            return current;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -26,24 +26,39 @@ import password.pwm.PwmConstants;
 import password.pwm.util.logging.PwmLogger;
 
 import java.io.*;
+import java.util.Enumeration;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 /**
+ * Reads lines from each entry of a ZIP file.  Lines are split directly from the uncompressed byte stream
+ * so the reader can report an exact byte position for every line returned, which is used as a resume
+ * checkpoint by the {@link Populator}.
+ *
  * @author Jason D. Rivard
  */
 class ZipReader {
 
     private static final PwmLogger LOGGER = PwmLogger.forClass(ZipReader.class);
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+
 // ------------------------------ FIELDS ------------------------------
 
     private final ZipInputStream zipStream;
     private final File sourceFile;
+    private final long totalBytes;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferPosition;
+    private int bufferLimit;
+    private byte[] lineBuffer = new byte[256];
 
-    private BufferedReader reader;
     private ZipEntry zipEntry;
+    private int entryIndex = -1;
+    private long entryBytePosition;
+    private long bytesRead;
     private int lineCounter = 0;
 
 // --------------------------- CONSTRUCTORS ---------------------------
@@ -53,15 +68,37 @@ class ZipReader {
     {
         this.sourceFile = sourceFile;
         final ZipFile zipFile = new ZipFile(sourceFile);
-        if (zipFile.size() == 0) {
-            throw new Exception("zip file contains no entries");
+        try {
+            if (zipFile.size() == 0) {
+                throw new Exception("zip file contains no entries");
+            }
+            totalBytes = uncompressedSize(zipFile);
+        } finally {
+            zipFile.close();
         }
 
-
         zipStream = new ZipInputStream(new BufferedInputStream(new FileInputStream(sourceFile)));
         nextZipEntry();
     }
 
+    /**
+     * Sum of the uncompressed entry sizes as recorded in the zip central directory, or -1 if any entry size is unknown.
+     */
+    private static long uncompressedSize(final ZipFile zipFile) {
+        long total = 0;
+        final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            final ZipEntry entry = entries.nextElement();
+            if (!entry.isDirectory()) {
+                if (entry.getSize() < 0) {
+                    return -1;
+                }
+                total += entry.getSize();
+            }
+        }
+        return total;
+    }
+
     private void nextZipEntry()
             throws IOException
     {
@@ -75,9 +112,12 @@ class ZipReader {
             zipEntry = zipStream.getNextEntry();
         }
 
+        bufferPosition = 0;
+        bufferLimit = 0;
+        entryBytePosition = 0;
+        lineCounter = 0;
         if (zipEntry != null) {
-            lineCounter = 0;
-            reader = new BufferedReader(new InputStreamReader(zipStream, PwmConstants.DEFAULT_CHARSET));
+            entryIndex++;
         }
     }
 
@@ -88,6 +128,35 @@ class ZipReader {
         return sourceFile;
     }
 
+    /**
+     * @return total uncompressed bytes of all entries, or -1 if unknown.
+     */
+    long getTotalBytes()
+    {
+        return totalBytes;
+    }
+
+    long getBytesRead()
+    {
+        return bytesRead;
+    }
+
+    /**
+     * @return index of the current (non-directory) zip entry.
+     */
+    int getEntryIndex()
+    {
+        return entryIndex;
+    }
+
+    /**
+     * @return position within the current zip entry immediately following the last line returned by {@link #nextLine()}.
+     */
+    long getEntryBytePosition()
+    {
+        return entryBytePosition;
+    }
+
 // ------------------------ CANONICAL METHODS ------------------------
 
     protected void finalize()
@@ -102,9 +171,6 @@ class ZipReader {
         try {
             zipStream.close();
         } catch (Exception e) { /* do nothing */ }
-        try {
-            reader.close();
-        } catch (Exception e) { /* do nothing */ }
     }
 
 // -------------------------- OTHER METHODS --------------------------
@@ -114,20 +180,123 @@ class ZipReader {
         return zipEntry != null ? zipEntry.getName() : "--none--";
     }
 
-    String nextLine()
+    /**
+     * Position the reader at a previously recorded entry index and byte position.  Skipped entry data is
+     * still decompressed, but no line parsing or string decoding is done.
+     */
+    void seek(final int targetEntryIndex, final long targetBytePosition)
             throws IOException
     {
-        String line;
+        while (zipEntry != null && entryIndex < targetEntryIndex) {
+            bytesRead += drainEntry();
+            nextZipEntry();
+        }
 
-        while ((line = reader.readLine()) == null && zipEntry != null) {
+        if (zipEntry == null || entryIndex != targetEntryIndex) {
+            throw new IOException("zip file does not contain entry index " + targetEntryIndex);
+        }
+
+        long remaining = targetBytePosition - entryBytePosition;
+        while (remaining > 0) {
+            if (bufferPosition >= bufferLimit && !fillBuffer()) {
+                throw new IOException("zip entry " + currentZipName() + " is shorter than checkpoint position " + targetBytePosition);
+            }
+            final int skipped = (int) Math.min(remaining, bufferLimit - bufferPosition);
+            bufferPosition += skipped;
+            entryBytePosition += skipped;
+            bytesRead += skipped;
+            remaining -= skipped;
+        }
+    }
+
+    String nextLine()
+            throws IOException
+    {
+        while (zipEntry != null) {
+            final String line = readEntryLine();
+            if (line != null) {
+                lineCounter++;
+                return line;
+            }
             nextZipEntry();
         }
 
-        if (line != null) {
-            lineCounter++;
+        return null;
+    }
+
+    private String readEntryLine()
+            throws IOException
+    {
+        int lineLength = 0;
+        boolean found = false;
+        while (!found) {
+            if (bufferPosition >= bufferLimit && !fillBuffer()) {
+                if (lineLength == 0) {
+                    return null;
+                }
+                break;
+            }
+
+            final byte b = buffer[bufferPosition++];
+            entryBytePosition++;
+            bytesRead++;
+
+            if (b == '\n') {
+                found = true;
+            } else if (b == '\r') {
+                found = true;
+                skipLineFeed();
+            } else {
+                if (lineLength == lineBuffer.length) {
+                    final byte[] newBuffer = new byte[lineBuffer.length * 2];
+                    System.arraycopy(lineBuffer, 0, newBuffer, 0, lineLength);
+                    lineBuffer = newBuffer;
+                }
+                lineBuffer[lineLength++] = b;
+            }
         }
 
-        //crazy debug line: LOGGER.trace("read line " + fileStats.getLines() + " '" + line + "' from " +   currentZipName());
-        return line;
+        return new String(lineBuffer, 0, lineLength, PwmConstants.DEFAULT_CHARSET);
+    }
+
+    /**
+     * Consume the line feed of a \r\n pair, so a line may end with \n, \r or \r\n and the byte position
+     * always falls at the start of the next line.
+     */
+    private void skipLineFeed()
+            throws IOException
+    {
+        if (bufferPosition >= bufferLimit && !fillBuffer()) {
+            return;
+        }
+        if (buffer[bufferPosition] == '\n') {
+            bufferPosition++;
+            entryBytePosition++;
+            bytesRead++;
+        }
+    }
+
+    private boolean fillBuffer()
+            throws IOException
+    {
+        final int readCount = zipStream.read(buffer, 0, buffer.length);
+        if (readCount <= 0) {
+            return false;
+        }
+        bufferPosition = 0;
+        bufferLimit = readCount;
+        return true;
+    }
+
+    private long drainEntry()
+            throws IOException
+    {
+        long count = bufferLimit - bufferPosition;
+        bufferPosition = bufferLimit;
+        int readCount;
+        while ((readCount = zipStream.read(buffer, 0, buffer.length)) > 0) {
+            count += readCount;
+        }
+        return count;
     }
 }
@@ -38,6 +38,9 @@ import password.pwm.error.ErrorInformation;
 import password.pwm.error.PwmError;
 import password.pwm.error.PwmOperationalException;
 import password.pwm.error.PwmUnrecoverableException;
+import password.pwm.event.AuditEvent;
+import password.pwm.event.AuditManager;
+import password.pwm.event.AuditQuery;
 import password.pwm.event.AuditRecord;
 import password.pwm.event.HelpdeskAuditRecord;
 import password.pwm.event.SystemAuditRecord;
@@ -90,7 +93,12 @@ public class RestAppDataServer extends AbstractRestServer {
     @Path("/audit")
     @Produces(MediaType.APPLICATION_JSON + ";charset=UTF-8")
     public Response doGetAppAuditData(
-            @QueryParam("maximum") int maximum
+            @QueryParam("maximum") int maximum,
+            @QueryParam("startTime") long startTime,
+            @QueryParam("endTime") long endTime,
+            @QueryParam("perpetratorDN") String perpetratorDN,
+            @QueryParam("targetDN") String targetDN,
+            @QueryParam("event") List<String> events
     ) 
             throws ChaiUnavailableException, PwmUnrecoverableException 
     {
@@ -106,11 +114,23 @@ public class RestAppDataServer extends AbstractRestServer {
         } catch (PwmUnrecoverableException e) {
             return RestResultBean.fromError(e.getErrorInformation()).asJsonResponse();
         }
-        
+
+        final AuditQuery auditQuery = new AuditQuery();
+        auditQuery.setMaxResults(maximum + 1);
+        auditQuery.setStartTime(startTime > 0 ? new Date(startTime) : null);
+        auditQuery.setEndTime(endTime > 0 ? new Date(endTime) : null);
+        auditQuery.setPerpetratorDN(perpetratorDN);
+        auditQuery.setTargetDN(targetDN);
+        try {
+            auditQuery.setEvents(parseAuditEvents(events));
+        } catch (PwmOperationalException e) {
+            return RestResultBean.fromError(e.getErrorInformation(), restRequestBean).asJsonResponse();
+        }
+
         final ArrayList<UserAuditRecord> userRecords = new ArrayList<>();
         final ArrayList<HelpdeskAuditRecord> helpdeskRecords = new ArrayList<>();
         final ArrayList<SystemAuditRecord> systemRecords = new ArrayList<>();
-        final Iterator<AuditRecord> iterator = restRequestBean.getPwmApplication().getAuditManager().readVault();
+        final Iterator<AuditRecord> iterator = restRequestBean.getPwmApplication().getAuditManager().query(auditQuery);
         int counter = 0;
         while (iterator.hasNext() && counter <= maximum) {
             final AuditRecord loopRecord = iterator.next();
@@ -134,6 +154,151 @@ public class RestAppDataServer extends AbstractRestServer {
         return restResultBean.asJsonResponse();
     }
 
+    @GET
+    @Path("/audit/stream")
+    @Produces({MediaType.APPLICATION_JSON + ";charset=UTF-8", "text/csv;charset=UTF-8"})
+    public Response doGetAppAuditStream(
+            @QueryParam("format") String format,
+            @QueryParam("limit") int limit,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("since") long since,
+            @QueryParam("until") long until,
+            @QueryParam("perpetratorDN") String perpetratorDN,
+            @QueryParam("targetDN") String targetDN,
+            @QueryParam("event") List<String> events
+    )
+            throws ChaiUnavailableException, PwmUnrecoverableException
+    {
+        final RestRequestBean restRequestBean;
+        try {
+            final ServicePermissions servicePermissions = new ServicePermissions();
+            servicePermissions.setAdminOnly(true);
+            servicePermissions.setAuthRequired(true);
+            servicePermissions.setBlockExternal(true);
+            restRequestBean = RestServerHelper.initializeRestRequest(request, response, servicePermissions, null);
+        } catch (PwmUnrecoverableException e) {
+            return RestResultBean.fromError(e.getErrorInformation()).asJsonResponse();
+        }
+
+        final StreamingRecordOutput.Format outputFormat;
+        final AuditCursor auditCursor;
+        final AuditQuery auditQuery = new AuditQuery();
+        try {
+            outputFormat = StreamingRecordOutput.parseFormat(format);
+            auditCursor = AuditCursor.parse(StreamingRecordOutput.decodeCursor(cursor));
+            auditQuery.setEvents(parseAuditEvents(events));
+        } catch (PwmOperationalException e) {
+            return RestResultBean.fromError(e.getErrorInformation(), restRequestBean).asJsonResponse();
+        }
+
+        // resuming reads from the end of the cursor's second, then skips forward past the cursor's record
+        long endTime = until;
+        if (auditCursor != null && (endTime <= 0 || auditCursor.timestamp + 1000 < endTime)) {
+            endTime = auditCursor.timestamp + 1000;
+        }
+        auditQuery.setStartTime(since > 0 ? new Date(since) : null);
+        auditQuery.setEndTime(endTime > 0 ? new Date(endTime) : null);
+        auditQuery.setPerpetratorDN(perpetratorDN);
+        auditQuery.setTargetDN(targetDN);
+
+        final Iterator<AuditRecord> iterator = restRequestBean.getPwmApplication().getAuditManager().query(auditQuery);
+        final Locale locale = restRequestBean.getPwmSession().getSessionStateBean().getLocale();
+        LOGGER.debug(restRequestBean.getPwmSession(), "streaming audit records as " + outputFormat + (auditCursor == null ? "" : " from cursor"));
+        return new StreamingRecordOutput<AuditRecord>(outputFormat, limit) {
+            private AuditCursor skipCursor = auditCursor;
+            private AuditRecord lastRecord;
+
+            boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            AuditRecord next() {
+                final AuditRecord record = iterator.next();
+                if (record == null || record.getTimestamp() == null) {
+                    return null;
+                }
+                if (skipCursor != null) {
+                    if (record.getTimestamp().getTime() >= skipCursor.timestamp) {
+                        if (skipCursor.guid.equals(record.getGuid())) {
+                            skipCursor = null;
+                        }
+                        return null;
+                    }
+                    skipCursor = null;
+                }
+                lastRecord = record;
+                return record;
+            }
+
+            String currentCursor() {
+                return lastRecord == null ? auditCursor == null ? null : auditCursor.toString() : new AuditCursor(lastRecord).toString();
+            }
+
+            List<String> csvHeader() {
+                return AuditManager.makeCsvHeader(locale);
+            }
+
+            List<String> csvRow(final AuditRecord record) {
+                return AuditManager.makeCsvRow(record);
+            }
+
+            void close() {
+            }
+        }.asResponse();
+    }
+
+    private static Set<AuditEvent> parseAuditEvents(final List<String> events)
+            throws PwmOperationalException
+    {
+        final Set<AuditEvent> auditEvents = EnumSet.noneOf(AuditEvent.class);
+        if (events != null) {
+            for (final String event : events) {
+                try {
+                    auditEvents.add(AuditEvent.valueOf(event));
+                } catch (IllegalArgumentException e) {
+                    final String errorMsg = "unknown audit event '" + event + "'";
+                    throw new PwmOperationalException(new ErrorInformation(PwmError.ERROR_UNKNOWN, errorMsg));
+                }
+            }
+        }
+        return auditEvents;
+    }
+
+    /**
+     * Position in the newest-first audit record stream, identified by the timestamp and guid of the last record sent.
+     */
+    private static class AuditCursor {
+        private final long timestamp;
+        private final String guid;
+
+        private AuditCursor(final long timestamp, final String guid) {
+            this.timestamp = timestamp;
+            this.guid = guid;
+        }
+
+        private AuditCursor(final AuditRecord record) {
+            this(record.getTimestamp().getTime(), record.getGuid());
+        }
+
+        private static AuditCursor parse(final String value)
+                throws PwmOperationalException
+        {
+            if (value == null) {
+                return null;
+            }
+            final int separator = value.indexOf('|');
+            try {
+                return new AuditCursor(Long.parseLong(value.substring(0, separator)), value.substring(separator + 1));
+            } catch (IndexOutOfBoundsException | NumberFormatException e) {
+                throw new PwmOperationalException(new ErrorInformation(PwmError.ERROR_UNKNOWN, "invalid cursor value"));
+            }
+        }
+
+        public String toString() {
+            return timestamp + "|" + guid;
+        }
+    }
+
     @GET
     @Path("/session")
     @Produces(MediaType.APPLICATION_JSON + ";charset=UTF-8")
@@ -330,7 +495,7 @@ public class RestAppDataServer extends AbstractRestServer {
             final MacroMachine macroMachine = pwmSession.getSessionManager().getMacroMachine(pwmApplication);
             for (final String key : new TreeSet<>(Collections.list(bundle.getKeys()))) {
                 String displayValue = LocaleHelper.getLocalizedMessage(userLocale, key, config, displayClass);
-                displayValue = macroMachine.expandMacros(displayValue);
+                displayValue = macroMachine.expandMacros(displayValue, true);
                 displayStrings.put(key, displayValue);
             }
         } catch (Exception e) {
@@ -376,7 +541,7 @@ public class RestAppDataServer extends AbstractRestServer {
         {
             String passwordGuideText = pwmApplication.getConfig().readSettingAsLocalizedString(PwmSetting.DISPLAY_PASSWORD_GUIDE_TEXT,pwmSession.getSessionStateBean().getLocale());
             final MacroMachine macroMachine = pwmSession.getSessionManager().getMacroMachine(pwmApplication);
-            passwordGuideText = macroMachine.expandMacros(passwordGuideText);
+            passwordGuideText = macroMachine.expandMacros(passwordGuideText, true);
             settingMap.put("passwordGuideText",passwordGuideText);
         }
 
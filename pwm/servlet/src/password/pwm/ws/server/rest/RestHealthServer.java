@@ -41,6 +41,7 @@ import password.pwm.ws.server.RestRequestBean;
 import password.pwm.ws.server.RestResultBean;
 import password.pwm.ws.server.RestServerHelper;
 import password.pwm.ws.server.ServicePermissions;
+import password.pwm.ws.server.rest.bean.HealthCheckerData;
 import password.pwm.ws.server.rest.bean.HealthData;
 import password.pwm.ws.server.rest.bean.HealthRecord;
 
@@ -134,6 +135,16 @@ public class RestHealthServer extends AbstractRestServer {
         returnMap.timestamp = healthMonitor.getLastHealthCheckDate();
         returnMap.overall = healthMonitor.getMostSevereHealthStatus().toString();
         returnMap.records = healthRecordBeans;
+        returnMap.checkers = new ArrayList<>();
+        for (final HealthMonitor.CheckerStatus checkerStatus : healthMonitor.getCheckerStatus()) {
+            final HealthCheckerData checkerData = new HealthCheckerData();
+            checkerData.name = checkerStatus.getName();
+            checkerData.lastCompleted = checkerStatus.getLastCompleted();
+            checkerData.durationMs = checkerStatus.getLastDurationMs();
+            checkerData.ageMs = checkerStatus.getAgeMs();
+            checkerData.timedOut = checkerStatus.isTimedOut();
+            returnMap.checkers.add(checkerData);
+        }
         return returnMap;
     }
 
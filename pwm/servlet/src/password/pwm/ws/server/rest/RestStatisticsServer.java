@@ -29,6 +29,8 @@ import password.pwm.error.ErrorInformation;
 import password.pwm.error.PwmError;
 import password.pwm.error.PwmUnrecoverableException;
 import password.pwm.http.ContextManager;
+import password.pwm.util.cache.CacheService;
+import password.pwm.util.cache.CacheStoreInfo;
 import password.pwm.util.logging.PwmLogger;
 import password.pwm.util.stats.Statistic;
 import password.pwm.util.stats.StatisticsBundle;
@@ -49,6 +51,7 @@ import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -153,6 +156,39 @@ public class RestStatisticsServer extends AbstractRestServer {
         return outputMap;
     }
 
+    @GET
+    @Path("/cache")
+    @Produces(MediaType.APPLICATION_JSON + ";charset=UTF-8")
+    public Response doCacheStatisticsJsonGet() {
+        final ServicePermissions servicePermissions = figurePermissions();
+        final RestRequestBean restRequestBean;
+        try {
+            restRequestBean = RestServerHelper.initializeRestRequest(request, response, servicePermissions, null);
+        } catch (PwmUnrecoverableException e) {
+            return RestResultBean.fromError(e.getErrorInformation()).asJsonResponse();
+        }
+
+        try {
+            final CacheService cacheService = restRequestBean.getPwmApplication().getCacheService();
+            final LinkedHashMap<String, CacheStoreInfo> cacheStoreInfo = new LinkedHashMap<>();
+            if (cacheService != null) {
+                cacheStoreInfo.putAll(cacheService.getCacheStoreInfo());
+            }
+
+            if (restRequestBean.isExternal()) {
+                StatisticsManager.incrementStat(restRequestBean.getPwmApplication(), Statistic.REST_STATISTICS);
+            }
+
+            final RestResultBean resultBean = new RestResultBean();
+            resultBean.setData(cacheStoreInfo);
+            return resultBean.asJsonResponse();
+        } catch (Exception e) {
+            final String errorMsg = "unexpected error building json response: " + e.getMessage();
+            final ErrorInformation errorInformation = new ErrorInformation(PwmError.ERROR_UNKNOWN, errorMsg);
+            return RestResultBean.fromError(errorInformation,restRequestBean).asJsonResponse();
+        }
+    }
+
     private ServicePermissions figurePermissions() {
         ServicePermissions servicePermissions = ServicePermissions.ADMIN_OR_CONFIGMODE;
         try {
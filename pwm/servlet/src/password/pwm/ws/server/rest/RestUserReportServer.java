@@ -26,6 +26,7 @@ import com.novell.ldapchai.exception.ChaiUnavailableException;
 import password.pwm.Permission;
 import password.pwm.error.ErrorInformation;
 import password.pwm.error.PwmError;
+import password.pwm.error.PwmOperationalException;
 import password.pwm.error.PwmUnrecoverableException;
 import password.pwm.util.ClosableIterator;
 import password.pwm.util.TimeDuration;
@@ -103,6 +104,78 @@ public class RestUserReportServer extends AbstractRestServer {
     }
 
 
+    @GET
+    @Path("/stream")
+    @Produces({MediaType.APPLICATION_JSON + ";charset=UTF-8", "text/csv;charset=UTF-8"})
+    public Response doGetReportStream(
+            @QueryParam("format") String format,
+            @QueryParam("limit") int limit,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("since") final long since,
+            @QueryParam("until") final long until
+    )
+            throws ChaiUnavailableException, PwmUnrecoverableException, LocalDBException
+    {
+        final RestRequestBean restRequestBean;
+        try {
+            final ServicePermissions servicePermissions = ServicePermissions.ADMIN_LOCAL_OR_EXTERNAL;
+            restRequestBean = RestServerHelper.initializeRestRequest(request, response, servicePermissions, null);
+        } catch (PwmUnrecoverableException e) {
+            return RestResultBean.fromError(e.getErrorInformation()).asJsonResponse();
+        }
+
+        if (!restRequestBean.getPwmSession().getSessionManager().checkPermission(restRequestBean.getPwmApplication(), Permission.PWMADMIN)) {
+            final ErrorInformation errorInformation = PwmError.ERROR_UNAUTHORIZED.toInfo();
+            return RestResultBean.fromError(errorInformation, restRequestBean).asJsonResponse();
+        }
+
+        final StreamingRecordOutput.Format outputFormat;
+        final String resumeKey;
+        try {
+            outputFormat = StreamingRecordOutput.parseFormat(format);
+            resumeKey = StreamingRecordOutput.decodeCursor(cursor);
+        } catch (PwmOperationalException e) {
+            return RestResultBean.fromError(e.getErrorInformation(), restRequestBean).asJsonResponse();
+        }
+
+        final ReportService reportService = restRequestBean.getPwmApplication().getUserReportService();
+        final ReportService.RecordIterator iterator = resumeKey == null ? reportService.iterator() : reportService.iterator(resumeKey);
+        final Locale locale = restRequestBean.getPwmSession().getSessionStateBean().getLocale();
+        return new StreamingRecordOutput<UserCacheRecord>(outputFormat, limit) {
+            boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            UserCacheRecord next() {
+                final UserCacheRecord record = iterator.next();
+                if (record == null || record.getCacheTimestamp() == null) {
+                    return null;
+                }
+                final long cacheTime = record.getCacheTimestamp().getTime();
+                if ((since > 0 && cacheTime < since) || (until > 0 && cacheTime >= until)) {
+                    return null;
+                }
+                return record;
+            }
+
+            String currentCursor() {
+                return iterator.getLastKey() == null ? resumeKey : iterator.getLastKey();
+            }
+
+            List<String> csvHeader() {
+                return reportService.makeCsvHeader(locale);
+            }
+
+            List<String> csvRow(final UserCacheRecord record) {
+                return reportService.makeCsvRow(record, locale);
+            }
+
+            void close() {
+                iterator.close();
+            }
+        }.asResponse();
+    }
+
     @GET
     @Path("/status")
     @Produces(MediaType.APPLICATION_JSON + ";charset=UTF-8")
@@ -210,6 +283,19 @@ public class RestUserReportServer extends AbstractRestServer {
         if (reportInfo.getLastError() != null) {
             presentableMap.put("Last Error", reportInfo.getLastError().toDebugStr());
         }
+        if (reportInfo.isInProgress() && reportInfo.getWorkers().size() > 1) {
+            for (final ReportStatusInfo.WorkerStatus workerStatus : reportInfo.getWorkers()) {
+                final StringBuilder workerDescription = new StringBuilder();
+                workerDescription.append(numberFormat.format(workerStatus.getCount())).append(" processed");
+                if (workerStatus.getErrors() > 0) {
+                    workerDescription.append(", ").append(numberFormat.format(workerStatus.getErrors())).append(" errors");
+                }
+                if (workerStatus.getCurrentUser() != null) {
+                    workerDescription.append(", reading ").append(workerStatus.getCurrentUser());
+                }
+                presentableMap.put("Worker " + workerStatus.getId(), workerDescription.toString());
+            }
+        }
 
         int cachedRecords = reportService.recordsInCache();
         presentableMap.put("Records in Cache",numberFormat.format(cachedRecords));
@@ -0,0 +1,194 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.ws.server.rest;
+
+import com.google.gson.stream.JsonWriter;
+import org.apache.commons.csv.CSVPrinter;
+import password.pwm.PwmConstants;
+import password.pwm.error.ErrorInformation;
+import password.pwm.error.PwmError;
+import password.pwm.error.PwmOperationalException;
+import password.pwm.util.Base64Util;
+import password.pwm.util.JsonUtil;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes a page of records directly to the response as they are read, so that large result sets are sent in
+ * constant memory.  Json output has the same outer form as {@link password.pwm.ws.server.RestResultBean}, with the
+ * records in {@code data.records}, and csv output has one row per record.  If more records remain after the page
+ * limit, json output includes {@code data.cursor} and csv output ends with a {@code # cursor=} comment line; the
+ * cursor value may be passed back to read the next page.
+ */
+abstract class StreamingRecordOutput<T extends Serializable> implements StreamingOutput {
+    static final int DEFAULT_LIMIT = 1000;
+
+    private static final int FLUSH_INTERVAL = 100;
+    private static final String CSV_MEDIA_TYPE = "text/csv;charset=UTF-8";
+    private static final String JSON_MEDIA_TYPE = MediaType.APPLICATION_JSON + ";charset=UTF-8";
+
+    enum Format {
+        json,
+        csv,
+    }
+
+    private final Format format;
+    private final int limit;
+
+    StreamingRecordOutput(final Format format, final int limit) {
+        this.format = format;
+        this.limit = limit > 0 ? limit : DEFAULT_LIMIT;
+    }
+
+    /**
+     * @return true if more records may be available.
+     */
+    abstract boolean hasNext();
+
+    /**
+     * @return the next record, or null if the record read should not be output.
+     */
+    abstract T next();
+
+    /**
+     * @return an internal cursor value positioned after the last record read.
+     */
+    abstract String currentCursor();
+
+    abstract List<String> csvHeader();
+
+    abstract List<String> csvRow(T record);
+
+    abstract void close();
+
+    Response asResponse() {
+        return Response.ok(this).type(format == Format.csv ? CSV_MEDIA_TYPE : JSON_MEDIA_TYPE).build();
+    }
+
+    public void write(final OutputStream outputStream)
+            throws IOException
+    {
+        final Writer writer = new OutputStreamWriter(outputStream, PwmConstants.DEFAULT_CHARSET);
+        try {
+            if (format == Format.csv) {
+                writeCsv(writer);
+            } else {
+                writeJson(writer);
+            }
+        } finally {
+            close();
+        }
+    }
+
+    private void writeJson(final Writer writer)
+            throws IOException
+    {
+        final JsonWriter jsonWriter = new JsonWriter(writer);
+        jsonWriter.beginObject();
+        jsonWriter.name("error").value(false);
+        jsonWriter.name("errorCode").value(0);
+        jsonWriter.name("data").beginObject();
+        jsonWriter.name("records").beginArray();
+        int count = 0;
+        while (count < limit && hasNext()) {
+            final T record = next();
+            if (record != null) {
+                JsonUtil.serialize(record, jsonWriter);
+                if (++count % FLUSH_INTERVAL == 0) {
+                    jsonWriter.flush();
+                }
+            }
+        }
+        jsonWriter.endArray();
+        jsonWriter.name("count").value(count);
+        jsonWriter.name("cursor").value(hasNext() ? encodeCursor(currentCursor()) : null);
+        jsonWriter.endObject();
+        jsonWriter.endObject();
+        jsonWriter.flush();
+    }
+
+    private void writeCsv(final Writer writer)
+            throws IOException
+    {
+        final CSVPrinter csvPrinter = new CSVPrinter(writer, PwmConstants.DEFAULT_CSV_FORMAT.withCommentMarker('#'));
+        csvPrinter.printRecord(csvHeader());
+        int count = 0;
+        while (count < limit && hasNext()) {
+            final T record = next();
+            if (record != null) {
+                csvPrinter.printRecord(csvRow(record));
+                if (++count % FLUSH_INTERVAL == 0) {
+                    csvPrinter.flush();
+                }
+            }
+        }
+        if (hasNext()) {
+            csvPrinter.printComment("cursor=" + encodeCursor(currentCursor()));
+        }
+        csvPrinter.flush();
+    }
+
+    static Format parseFormat(final String value)
+            throws PwmOperationalException
+    {
+        if (value == null || value.isEmpty()) {
+            return Format.json;
+        }
+        try {
+            return Format.valueOf(value.toLowerCase());
+        } catch (IllegalArgumentException e) {
+            final String errorMsg = "unknown output format '" + value + "'";
+            throw new PwmOperationalException(new ErrorInformation(PwmError.ERROR_UNKNOWN, errorMsg));
+        }
+    }
+
+    static String encodeCursor(final String cursor)
+            throws IOException
+    {
+        return cursor == null ? null : Base64Util.encodeBytes(cursor.getBytes(PwmConstants.DEFAULT_CHARSET), Base64Util.URL_SAFE);
+    }
+
+    /**
+     * @return the internal cursor value of a cursor parameter, or null if no cursor was supplied.
+     */
+    static String decodeCursor(final String cursor)
+            throws PwmOperationalException
+    {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return new String(Base64Util.decode(cursor, Base64Util.URL_SAFE), PwmConstants.DEFAULT_CHARSET);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new PwmOperationalException(new ErrorInformation(PwmError.ERROR_UNKNOWN, "invalid cursor value"));
+        }
+    }
+}
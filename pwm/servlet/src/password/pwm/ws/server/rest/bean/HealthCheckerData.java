@@ -0,0 +1,84 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2014 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.ws.server.rest.bean;
+
+import java.io.Serializable;
+import java.util.Date;
+
+public class HealthCheckerData implements Serializable {
+    public String name;
+    public Date lastCompleted;
+    public long durationMs;
+    public long ageMs;
+    public boolean timedOut;
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public void setName(String name)
+    {
+        this.name = name;
+    }
+
+    public Date getLastCompleted()
+    {
+        return lastCompleted;
+    }
+
+    public void setLastCompleted(Date lastCompleted)
+    {
+        this.lastCompleted = lastCompleted;
+    }
+
+    public long getDurationMs()
+    {
+        return durationMs;
+    }
+
+    public void setDurationMs(long durationMs)
+    {
+        this.durationMs = durationMs;
+    }
+
+    public long getAgeMs()
+    {
+        return ageMs;
+    }
+
+    public void setAgeMs(long ageMs)
+    {
+        this.ageMs = ageMs;
+    }
+
+    public boolean isTimedOut()
+    {
+        return timedOut;
+    }
+
+    public void setTimedOut(boolean timedOut)
+    {
+        this.timedOut = timedOut;
+    }
+}
@@ -30,6 +30,7 @@ public class HealthData implements Serializable {
     public Date timestamp;
     public String overall;
     public List<HealthRecord> records;
+    public List<HealthCheckerData> checkers;
 
     public Date getTimestamp()
     {
@@ -60,4 +61,14 @@ public class HealthData implements Serializable {
     {
         this.records = records;
     }
+
+    public List<HealthCheckerData> getCheckers()
+    {
+        return checkers;
+    }
+
+    public void setCheckers(List<HealthCheckerData> checkers)
+    {
+        this.checkers = checkers;
+    }
 }
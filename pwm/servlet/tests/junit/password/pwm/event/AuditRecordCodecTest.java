@@ -0,0 +1,52 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.event;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import password.pwm.util.JsonUtil;
+
+import java.util.Date;
+
+public class AuditRecordCodecTest extends TestCase {
+
+    public void testHelpdeskRecord() throws Exception {
+        final HelpdeskAuditRecord record = (HelpdeskAuditRecord) HelpdeskAuditRecord.create(new Date(), AuditEvent.HELPDESK_SET_PASSWORD,
+                "helpdesk", "cn=helpdesk,o=test", "default", "reset by helpdesk", "user1", "cn=user1,o=test", "default",
+                "10.0.0.1", "host.example.com");
+
+        final HelpdeskAuditRecord decoded = (HelpdeskAuditRecord) AuditRecordCodec.decode(AuditRecordCodec.encode(record));
+        Assert.assertEquals(JsonUtil.serialize(record), JsonUtil.serialize(decoded));
+        Assert.assertEquals(record.getTimestamp(), decoded.getTimestamp());
+        Assert.assertEquals(record.getGuid(), decoded.getGuid());
+    }
+
+    public void testSystemRecord() throws Exception {
+        final SystemAuditRecord record = SystemAuditRecord.create(AuditEvent.STARTUP, null, "instance1");
+
+        final AuditRecord decoded = AuditRecordCodec.decode(AuditRecordCodec.encode(record));
+        Assert.assertTrue(decoded instanceof SystemAuditRecord);
+        Assert.assertEquals(JsonUtil.serialize(record), JsonUtil.serialize(decoded));
+        Assert.assertNull(decoded.getMessage());
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.event;
+
+import junit.framework.TestCase;
+import password.pwm.AppProperty;
+import password.pwm.config.Configuration;
+import password.pwm.config.PwmSetting;
+import password.pwm.config.StoredConfiguration;
+import password.pwm.config.value.StringArrayValue;
+import password.pwm.tests.TestHelper;
+import password.pwm.util.TimeDuration;
+import password.pwm.util.localdb.LocalDB;
+import password.pwm.util.localdb.LocalDBException;
+import password.pwm.util.localdb.LocalDBFactory;
+
+import java.io.File;
+import java.util.*;
+
+public class LocalDbAuditVaultTest extends TestCase {
+
+    private static final long HOUR = TimeDuration.HOUR.getTotalMilliseconds();
+
+    /**
+     * Implementations whose unranged iteration order is not key order.
+     */
+    private static final String[] UNSORTED_IMPLEMENTATIONS = new String[] {
+            "password.pwm.util.localdb.H2_LocalDB",
+            "password.pwm.util.localdb.Memory_LocalDB",
+    };
+
+    private LocalDB localDB;
+    private LocalDbAuditVault auditVault;
+    private long baseTime;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestHelper.setupLogging();
+        final File fileLocation = new File(TestHelper.getParameter("pwmDBlocation"));
+        openVault(LocalDBFactory.getInstance(fileLocation, false, null, null));
+    }
+
+    private void openVault(final LocalDB newLocalDB) throws Exception {
+        localDB = newLocalDB;
+        for (final LocalDB.DB db : new LocalDB.DB[] {
+                LocalDB.DB.AUDIT_EVENTS,
+                LocalDB.DB.AUDIT_INDEX_TIME,
+                LocalDB.DB.AUDIT_INDEX_PERPETRATOR,
+                LocalDB.DB.AUDIT_INDEX_TARGET,
+                LocalDB.DB.AUDIT_INDEX_EVENT,
+        }) {
+            localDB.truncate(db);
+        }
+        auditVault = new LocalDbAuditVault(null, localDB);
+        auditVault.init(new AuditVault.Settings(1000, TimeDuration.DAY.add(TimeDuration.DAY).add(TimeDuration.DAY), TimeDuration.HOUR));
+
+        baseTime = (System.currentTimeMillis() - 48 * HOUR) / 1000 * 1000;
+        for (int i = 0; i < 48; i++) {
+            final Date timestamp = new Date(baseTime + i * HOUR);
+            final String userDN = "cn=user" + (i % 3) + ",o=test";
+            if (i % 4 == 0) {
+                auditVault.add(HelpdeskAuditRecord.create(timestamp, AuditEvent.HELPDESK_SET_PASSWORD, "helpdesk", "cn=helpdesk,o=test",
+                        "default", "message " + i, "user" + (i % 3), userDN, "default", "127.0.0.1", "localhost"));
+            } else {
+                auditVault.add(UserAuditRecord.create(timestamp, i % 2 == 0 ? AuditEvent.CHANGE_PASSWORD : AuditEvent.AUTHENTICATE,
+                        "user" + (i % 3), userDN, "default", "message " + i, "127.0.0.1", "localhost"));
+            }
+        }
+    }
+
+    public void testTimeRangeQuery() {
+        final AuditQuery auditQuery = new AuditQuery();
+        auditQuery.setStartTime(new Date(baseTime + 10 * HOUR));
+        auditQuery.setEndTime(new Date(baseTime + 20 * HOUR));
+        final List<AuditRecord> results = readAll(auditVault.query(auditQuery));
+        assertEquals(10, results.size());
+        assertEquals(baseTime + 19 * HOUR, results.get(0).getTimestamp().getTime());
+        assertEquals(baseTime + 10 * HOUR, results.get(9).getTimestamp().getTime());
+    }
+
+    public void testActorQueries() {
+        final AuditQuery perpetratorQuery = new AuditQuery();
+        perpetratorQuery.setPerpetratorDN("CN=helpdesk,o=test");
+        assertEquals(12, readAll(auditVault.query(perpetratorQuery)).size());
+
+        final AuditQuery targetQuery = new AuditQuery();
+        targetQuery.setTargetDN("cn=user0,o=test");
+        targetQuery.setMaxResults(3);
+        final List<AuditRecord> results = readAll(auditVault.query(targetQuery));
+        assertEquals(3, results.size());
+        for (final AuditRecord record : results) {
+            assertEquals("cn=user0,o=test", ((HelpdeskAuditRecord) record).getTargetDN());
+        }
+        assertTrue(results.get(0).getTimestamp().after(results.get(1).getTimestamp()));
+    }
+
+    public void testEventQuery() {
+        final AuditQuery auditQuery = new AuditQuery();
+        auditQuery.setEvents(EnumSet.of(AuditEvent.CHANGE_PASSWORD, AuditEvent.HELPDESK_SET_PASSWORD));
+        final List<AuditRecord> results = readAll(auditVault.query(auditQuery));
+        assertEquals(24, results.size());
+
+        final AuditQuery filteredQuery = new AuditQuery();
+        filteredQuery.setEvents(EnumSet.of(AuditEvent.AUTHENTICATE));
+        filteredQuery.setPerpetratorDN("cn=user1,o=test");
+        for (final AuditRecord record : readAll(auditVault.query(filteredQuery))) {
+            assertEquals(AuditEvent.AUTHENTICATE, record.getEventCode());
+        }
+    }
+
+    public void testTrim() throws LocalDBException {
+        assertEquals(0, auditVault.trim());
+        assertEquals(48, auditVault.size());
+
+        auditVault.close();
+        auditVault.init(new AuditVault.Settings(10, TimeDuration.DAY, TimeDuration.HOUR));
+        assertEquals(38, auditVault.trim());
+        assertEquals(10, auditVault.size());
+        assertEquals(10, localDB.size(LocalDB.DB.AUDIT_INDEX_EVENT));
+
+        final List<AuditRecord> results = readAll(auditVault.query(new AuditQuery()));
+        assertEquals(10, results.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(baseTime + (47 - i) * HOUR, results.get(i).getTimestamp().getTime());
+        }
+
+        // a later trim must not mistake leftover index entries for expired records
+        assertEquals(0, auditVault.trim());
+        assertEquals(10, auditVault.size());
+        assertEquals(10, localDB.size(LocalDB.DB.AUDIT_INDEX_TIME));
+
+        final AuditQuery auditQuery = new AuditQuery();
+        auditQuery.setStartTime(new Date(baseTime));
+        assertEquals(10, readAll(auditVault.query(auditQuery)).size());
+        assertTrue(auditVault.healthCheck().isEmpty());
+    }
+
+    public void testQueriesOnUnsortedImplementations() throws Exception {
+        for (final String className : UNSORTED_IMPLEMENTATIONS) {
+            reopenVault(className);
+            testTimeRangeQuery();
+            testActorQueries();
+            testEventQuery();
+        }
+    }
+
+    public void testTrimOnUnsortedImplementations() throws Exception {
+        for (final String className : UNSORTED_IMPLEMENTATIONS) {
+            reopenVault(className);
+            testTrim();
+        }
+    }
+
+    private void reopenVault(final String className) throws Exception {
+        tearDown();
+        final StoredConfiguration storedConfiguration = StoredConfiguration.newStoredConfiguration();
+        storedConfiguration.writeSetting(PwmSetting.APP_PROPERTY_OVERRIDES, new StringArrayValue(Collections.singletonList(
+                AppProperty.LOCALDB_IMPLEMENTATION.getKey() + "=" + className)), null);
+        final File fileLocation = new File(TestHelper.getParameter("pwmDBlocation") + "-" + className.substring(className.lastIndexOf('.') + 1));
+        openVault(LocalDBFactory.getInstance(fileLocation, false, null, new Configuration(storedConfiguration)));
+    }
+
+    private static List<AuditRecord> readAll(final Iterator<AuditRecord> iterator) {
+        final List<AuditRecord> results = new ArrayList<>();
+        while (iterator.hasNext()) {
+            results.add(iterator.next());
+        }
+        return results;
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        if (auditVault != null) {
+            auditVault.close();
+        }
+        if (localDB != null) {
+            localDB.close();
+            localDB = null;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.event;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import password.pwm.PwmConstants;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SyslogTransportTest extends TestCase {
+
+    private ServerSocket serverSocket;
+    private final BlockingQueue<String> receivedMessages = new LinkedBlockingQueue<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final List<Socket> connections = new ArrayList<>();
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        serverSocket = new ServerSocket(0);
+        final Thread listenerThread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    while (!serverSocket.isClosed()) {
+                        final Socket socket = serverSocket.accept();
+                        connectionCount.incrementAndGet();
+                        synchronized (connections) {
+                            connections.add(socket);
+                        }
+                        try {
+                            readFrames(socket.getInputStream());
+                        } catch (IOException e) {
+                            /* connection closed */
+                        }
+                    }
+                } catch (IOException e) {
+                    /* listener closed */
+                }
+            }
+        });
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        serverSocket.close();
+    }
+
+    public void testFrame() {
+        Assert.assertEquals("5 hello", new String(SyslogTransport.frame("hello"), PwmConstants.DEFAULT_CHARSET));
+        Assert.assertEquals("2 é", new String(SyslogTransport.frame("é"), PwmConstants.DEFAULT_CHARSET));
+    }
+
+    public void testPersistentConnection() throws Exception {
+        final SyslogTransport transport = makeTransport();
+        transport.send(Arrays.asList("message 1", "message 2 with a space"));
+        transport.send(Arrays.asList("message 3"));
+
+        Assert.assertEquals("message 1", receivedMessages.poll(5, TimeUnit.SECONDS));
+        Assert.assertEquals("message 2 with a space", receivedMessages.poll(5, TimeUnit.SECONDS));
+        Assert.assertEquals("message 3", receivedMessages.poll(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, connectionCount.get());
+        transport.close();
+    }
+
+    public void testReconnectAfterServerClose() throws Exception {
+        final SyslogTransport transport = makeTransport();
+        transport.send(Arrays.asList("message 1"));
+        Assert.assertEquals("message 1", receivedMessages.poll(5, TimeUnit.SECONDS));
+
+        synchronized (connections) {
+            for (final Socket socket : connections) {
+                socket.close();
+            }
+        }
+        Thread.sleep(100);
+
+        transport.send(Arrays.asList("message 2"));
+        Assert.assertEquals("message 2", receivedMessages.poll(5, TimeUnit.SECONDS));
+        Assert.assertEquals(2, connectionCount.get());
+        transport.close();
+    }
+
+    private SyslogTransport makeTransport() {
+        final SyslogAuditService.SyslogConfig syslogConfig = new SyslogAuditService.SyslogConfig(
+                SyslogAuditService.SyslogConfig.Protocol.tcp, "localhost", serverSocket.getLocalPort());
+        return new SyslogTransport(syslogConfig, null, 3);
+    }
+
+    private void readFrames(final InputStream inputStream) throws IOException {
+        while (true) {
+            int length = 0;
+            int b;
+            while ((b = inputStream.read()) != ' ') {
+                if (b == -1) {
+                    return;
+                }
+                length = length * 10 + (b - '0');
+            }
+            final ByteArrayOutputStream message = new ByteArrayOutputStream();
+            for (int i = 0; i < length; i++) {
+                message.write(inputStream.read());
+            }
+            receivedMessages.add(new String(message.toByteArray(), PwmConstants.DEFAULT_CHARSET));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.health;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import password.pwm.PwmApplication;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class HealthMonitorTest extends TestCase {
+
+    private final HealthMonitor healthMonitor = new HealthMonitor();
+    private final CountDownLatch slowCheckRelease = new CountDownLatch(1);
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        slowCheckRelease.countDown();
+        healthMonitor.close();
+    }
+
+    public void testSlowCheckerReportedAsTimedOut() throws Exception {
+        final SlowChecker slowChecker = new SlowChecker();
+        healthMonitor.registerHealthCheck(new FastChecker(), 60, 1);
+        healthMonitor.registerHealthCheck(slowChecker, 60, 1);
+        healthMonitor.start(0, 100);
+        Assert.assertTrue(slowChecker.started.await(5, TimeUnit.SECONDS));
+
+        final long startTime = System.currentTimeMillis();
+        Set<HealthRecord> healthRecords = healthMonitor.getHealthRecords(false);
+        Assert.assertTrue(System.currentTimeMillis() - startTime < 500);
+
+        while (findTimeoutRecord(healthRecords) == null && System.currentTimeMillis() - startTime < 5000) {
+            Thread.sleep(50);
+            healthRecords = healthMonitor.getHealthRecords(false);
+        }
+
+        final HealthRecord timeoutRecord = findTimeoutRecord(healthRecords);
+        Assert.assertNotNull(timeoutRecord);
+        Assert.assertTrue(timeoutRecord.getDetail(null, null).contains(SlowChecker.class.getSimpleName()));
+        Assert.assertTrue(healthRecords.contains(FastChecker.RECORD));
+
+        for (final HealthMonitor.CheckerStatus checkerStatus : healthMonitor.getCheckerStatus()) {
+            final boolean isSlowChecker = SlowChecker.class.getSimpleName().equals(checkerStatus.getName());
+            Assert.assertEquals(isSlowChecker, checkerStatus.isTimedOut());
+        }
+    }
+
+    private static HealthRecord findTimeoutRecord(final Set<HealthRecord> healthRecords) {
+        for (final HealthRecord healthRecord : healthRecords) {
+            if (healthRecord.getDetail(null, null).contains(SlowChecker.class.getSimpleName())) {
+                return healthRecord;
+            }
+        }
+        return null;
+    }
+
+    private static class FastChecker implements HealthChecker {
+        private static final HealthRecord RECORD = new HealthRecord(HealthStatus.GOOD, HealthTopic.Application, "fast check ok");
+
+        public List<HealthRecord> doHealthCheck(final PwmApplication pwmApplication) {
+            return Collections.singletonList(RECORD);
+        }
+    }
+
+    private class SlowChecker implements HealthChecker {
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        public List<HealthRecord> doHealthCheck(final PwmApplication pwmApplication) {
+            started.countDown();
+            try {
+                slowCheckRelease.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Collections.emptyList();
+        }
+    }
+}
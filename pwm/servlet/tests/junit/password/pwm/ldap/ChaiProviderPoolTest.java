@@ -0,0 +1,216 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.ldap;
+
+import com.novell.ldapchai.exception.ChaiError;
+import com.novell.ldapchai.exception.ChaiUnavailableException;
+import com.novell.ldapchai.provider.ChaiProvider;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import password.pwm.error.PwmUnrecoverableException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ChaiProviderPoolTest extends TestCase {
+
+    private final List<StubProvider> openedProviders = new ArrayList<>();
+    private final CountDownLatch blockRelease = new CountDownLatch(1);
+    private volatile CountDownLatch blockedReads = new CountDownLatch(0);
+
+    public void testSingleConnectionWhenIdle() throws Exception {
+        final ChaiProviderPool pool = makePool(4, 1, 1000, 0);
+        pool.open();
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals("value", pool.getPooledProvider().readStringAttribute("cn=user", "cn"));
+        }
+        Assert.assertEquals(1, openedProviders.size());
+        Assert.assertEquals(10, openedProviders.get(0).operations.get());
+        Assert.assertEquals(10, pool.getStatistics().getOperationCount());
+    }
+
+    public void testConcurrentOperationsUseSeparateConnections() throws Exception {
+        final ChaiProviderPool pool = makePool(3, 1, 1000, 0);
+        pool.open();
+        startBlockingReads(pool, 3);
+
+        Assert.assertEquals(3, openedProviders.size());
+        for (final StubProvider provider : openedProviders) {
+            Assert.assertEquals(1, provider.inFlight.get());
+        }
+        Assert.assertEquals(3, pool.getStatistics().getOpenConnections());
+        Assert.assertEquals(3, pool.getStatistics().getPeakActiveOperations());
+        Assert.assertNull(pool.getStatistics().getLastWaitTimeout());
+
+        try {
+            pool.getPooledProvider().readStringAttribute("cn=user", "cn");
+            Assert.fail("operation should time out waiting for a connection");
+        } catch (ChaiUnavailableException e) {
+            Assert.assertEquals(1, pool.getStatistics().getWaitTimeouts());
+            Assert.assertNotNull(pool.getStatistics().getLastWaitTimeout());
+        }
+
+        blockRelease.countDown();
+        waitForActive(pool, 0);
+        Assert.assertEquals("value", pool.getPooledProvider().readStringAttribute("cn=user", "cn"));
+        Assert.assertEquals(3, openedProviders.size());
+    }
+
+    public void testMaxActivePerConnection() throws Exception {
+        final ChaiProviderPool pool = makePool(2, 2, 200, 0);
+        pool.open();
+        startBlockingReads(pool, 4);
+
+        Assert.assertEquals(2, openedProviders.size());
+        for (final StubProvider provider : openedProviders) {
+            Assert.assertEquals(2, provider.inFlight.get());
+        }
+        try {
+            pool.getPooledProvider().readStringAttribute("cn=user", "cn");
+            Assert.fail("operation should time out waiting for a connection");
+        } catch (ChaiUnavailableException e) {
+            Assert.assertEquals(1, pool.getStatistics().getWaitTimeouts());
+        }
+
+        blockRelease.countDown();
+        waitForActive(pool, 0);
+    }
+
+    public void testUnavailableConnectionIsReplaced() throws Exception {
+        final ChaiProviderPool pool = makePool(1, 1, 1000, 0);
+        pool.open();
+        openedProviders.get(0).unavailable = true;
+        try {
+            pool.getPooledProvider().readStringAttribute("cn=user", "cn");
+            Assert.fail("expected unavailable exception");
+        } catch (ChaiUnavailableException e) {
+            // expected
+        }
+        Assert.assertTrue(openedProviders.get(0).closed);
+        Assert.assertEquals(0, pool.getStatistics().getOpenConnections());
+
+        Assert.assertEquals("value", pool.getPooledProvider().readStringAttribute("cn=user", "cn"));
+        Assert.assertEquals(2, openedProviders.size());
+        Assert.assertEquals(1, pool.getStatistics().getConnectionFailures());
+        Assert.assertNotNull(pool.getStatistics().getLastConnectionFailure());
+    }
+
+    public void testIdleConnectionIsEvicted() throws Exception {
+        final ChaiProviderPool pool = makePool(1, 1, 1000, 1);
+        pool.open();
+        Thread.sleep(1100);
+        Assert.assertEquals("value", pool.getPooledProvider().readStringAttribute("cn=user", "cn"));
+        Assert.assertTrue(openedProviders.get(0).closed);
+        Assert.assertEquals(2, openedProviders.size());
+        Assert.assertEquals(1, pool.getStatistics().getIdleEvictions());
+    }
+
+    public void testCloseIsIgnoredByPooledProvider() throws Exception {
+        final ChaiProviderPool pool = makePool(1, 1, 1000, 0);
+        pool.open();
+        pool.getPooledProvider().close();
+        Assert.assertFalse(openedProviders.get(0).closed);
+        pool.close();
+        Assert.assertTrue(openedProviders.get(0).closed);
+    }
+
+    private ChaiProviderPool makePool(final int poolSize, final int maxActive, final long maxWaitMs, final long idleTimeoutMs) {
+        return new ChaiProviderPool("test", poolSize, maxActive, maxWaitMs, idleTimeoutMs, new ChaiProviderPool.ProviderFactory() {
+            public ChaiProvider openProvider(final int memberIndex) throws PwmUnrecoverableException {
+                final StubProvider stubProvider = new StubProvider();
+                synchronized (openedProviders) {
+                    openedProviders.add(stubProvider);
+                }
+                return (ChaiProvider)Proxy.newProxyInstance(ChaiProvider.class.getClassLoader(), new Class[]{ChaiProvider.class}, stubProvider);
+            }
+        });
+    }
+
+    /**
+     * Starts reads that block in the stub connection until released, and waits until all of them are in flight.
+     */
+    private void startBlockingReads(final ChaiProviderPool pool, final int count) throws InterruptedException {
+        blockedReads = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            final Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        pool.getPooledProvider().readStringAttribute("cn=block", "cn");
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+        Assert.assertTrue(blockedReads.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void waitForActive(final ChaiProviderPool pool, final int activeOperations) throws InterruptedException {
+        final long startTime = System.currentTimeMillis();
+        while (pool.getStatistics().getActiveOperations() != activeOperations && System.currentTimeMillis() - startTime < 5000) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(activeOperations, pool.getStatistics().getActiveOperations());
+    }
+
+    private class StubProvider implements InvocationHandler {
+        private final AtomicInteger operations = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile boolean unavailable;
+        private volatile boolean closed;
+
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final String methodName = method.getName();
+            if ("close".equals(methodName)) {
+                closed = true;
+                return null;
+            } else if ("isConnected".equals(methodName)) {
+                return !closed;
+            } else if ("getChaiConfiguration".equals(methodName)) {
+                return null;
+            }
+            operations.incrementAndGet();
+            if (unavailable) {
+                throw new ChaiUnavailableException("stub connection is down", ChaiError.COMMUNICATION);
+            }
+            if ("cn=block".equals(args[0])) {
+                inFlight.incrementAndGet();
+                blockedReads.countDown();
+                try {
+                    blockRelease.await(5, TimeUnit.SECONDS);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+            return "value";
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.ldap;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import password.pwm.AppProperty;
+import password.pwm.PwmApplication;
+import password.pwm.bean.UserIdentity;
+import password.pwm.config.Configuration;
+import password.pwm.config.PwmSetting;
+import password.pwm.config.StoredConfiguration;
+import password.pwm.config.profile.LdapProfile;
+import password.pwm.config.value.StringArrayValue;
+import password.pwm.config.value.StringValue;
+import password.pwm.util.stats.Statistic;
+import password.pwm.util.stats.StatisticsManager;
+
+import java.io.File;
+import java.util.Collections;
+
+public class LdapGuidCacheTest extends TestCase {
+
+    private static final long GUID_LIFETIME_MS = 1000;
+
+    private File applicationPath;
+    private PwmApplication pwmApplication;
+    private LdapProfile ldapProfile;
+    private UserIdentity userIdentity;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        applicationPath = File.createTempFile("pwm-guid-cache", "");
+        applicationPath.delete();
+        applicationPath.mkdirs();
+
+        final Configuration config = makeConfig("pwmGUID", "ldap://ldap1.example.com");
+        pwmApplication = new PwmApplication.PwmEnvironment()
+                .setConfig(config)
+                .setApplicationMode(PwmApplication.MODE.CONFIGURATION)
+                .setApplicationPath(applicationPath)
+                .setWebInfPath(applicationPath)
+                .createPwmApplication();
+        ldapProfile = config.getDefaultLdapProfile();
+        userIdentity = new UserIdentity("cn=user1,o=test", ldapProfile.getIdentifier());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        if (pwmApplication != null) {
+            pwmApplication.shutdown();
+        }
+        deleteDirectory(applicationPath);
+    }
+
+    public void testDnToGuidHit() throws Exception {
+        LdapOperationsHelper.GUIDHelper.writeCachedGuidValue(pwmApplication, ldapProfile, userIdentity, "guid-1");
+        Assert.assertEquals("guid-1", LdapOperationsHelper.readLdapGuidValue(pwmApplication, null, userIdentity, true));
+    }
+
+    public void testGuidToDnLookup() throws Exception {
+        LdapOperationsHelper.GUIDHelper.writeCachedGuidValue(pwmApplication, ldapProfile, userIdentity, "guid-1");
+        Assert.assertEquals(userIdentity, LdapOperationsHelper.readCachedGuidUserIdentity(pwmApplication, "guid-1"));
+        Assert.assertNull(LdapOperationsHelper.readCachedGuidUserIdentity(pwmApplication, "guid-2"));
+    }
+
+    public void testExpiry() throws Exception {
+        LdapOperationsHelper.GUIDHelper.writeCachedGuidValue(pwmApplication, ldapProfile, userIdentity, "guid-1");
+        Thread.sleep(GUID_LIFETIME_MS + 500);
+        Assert.assertNull(LdapOperationsHelper.GUIDHelper.readCachedGuidValue(pwmApplication, ldapProfile, userIdentity));
+        Assert.assertNull(LdapOperationsHelper.readCachedGuidUserIdentity(pwmApplication, "guid-1"));
+    }
+
+    public void testKeyChangesWithProfileSettings() throws Exception {
+        LdapOperationsHelper.GUIDHelper.writeCachedGuidValue(pwmApplication, ldapProfile, userIdentity, "guid-1");
+
+        final LdapProfile sameProfile = makeConfig("pwmGUID", "ldap://ldap1.example.com").getDefaultLdapProfile();
+        Assert.assertEquals("guid-1", LdapOperationsHelper.GUIDHelper.readCachedGuidValue(pwmApplication, sameProfile, userIdentity));
+
+        final LdapProfile newAttributeProfile = makeConfig("entryUUID", "ldap://ldap1.example.com").getDefaultLdapProfile();
+        Assert.assertNull(LdapOperationsHelper.GUIDHelper.readCachedGuidValue(pwmApplication, newAttributeProfile, userIdentity));
+        Assert.assertNull(LdapOperationsHelper.GUIDHelper.readCachedUserIdentity(pwmApplication, newAttributeProfile, "guid-1"));
+
+        final LdapProfile newUrlProfile = makeConfig("pwmGUID", "ldap://ldap2.example.com").getDefaultLdapProfile();
+        Assert.assertNull(LdapOperationsHelper.GUIDHelper.readCachedGuidValue(pwmApplication, newUrlProfile, userIdentity));
+        Assert.assertNull(LdapOperationsHelper.GUIDHelper.readCachedUserIdentity(pwmApplication, newUrlProfile, "guid-1"));
+    }
+
+    public void testHitAndMissStatistics() throws Exception {
+        final long startHits = readStatistic(Statistic.LDAP_GUID_CACHE_HITS);
+        final long startMisses = readStatistic(Statistic.LDAP_GUID_CACHE_MISSES);
+
+        Assert.assertNull(LdapOperationsHelper.GUIDHelper.readCachedGuidValue(pwmApplication, ldapProfile, userIdentity));
+        LdapOperationsHelper.GUIDHelper.writeCachedGuidValue(pwmApplication, ldapProfile, userIdentity, "guid-1");
+        LdapOperationsHelper.GUIDHelper.readCachedGuidValue(pwmApplication, ldapProfile, userIdentity);
+        LdapOperationsHelper.GUIDHelper.readCachedGuidValue(pwmApplication, ldapProfile, userIdentity);
+
+        Assert.assertEquals(startHits + 2, readStatistic(Statistic.LDAP_GUID_CACHE_HITS));
+        Assert.assertEquals(startMisses + 1, readStatistic(Statistic.LDAP_GUID_CACHE_MISSES));
+    }
+
+    private long readStatistic(final Statistic statistic) {
+        return Long.parseLong(pwmApplication.getStatisticsManager().getStatBundleForKey(StatisticsManager.KEY_CURRENT).getStatistic(statistic));
+    }
+
+    private static Configuration makeConfig(final String guidAttribute, final String serverUrl) throws Exception {
+        final StoredConfiguration storedConfiguration = StoredConfiguration.newStoredConfiguration();
+        storedConfiguration.writeSetting(PwmSetting.APP_PROPERTY_OVERRIDES, new StringArrayValue(Collections.singletonList(
+                AppProperty.CACHE_LDAP_GUID_LIFETIME_MS.getKey() + "=" + GUID_LIFETIME_MS)), null);
+        final String profileID = "default";
+        storedConfiguration.writeSetting(PwmSetting.LDAP_GUID_ATTRIBUTE, profileID, new StringValue(guidAttribute), null);
+        storedConfiguration.writeSetting(PwmSetting.LDAP_SERVER_URLS, profileID, new StringArrayValue(Collections.singletonList(serverUrl)), null);
+        return new Configuration(storedConfiguration);
+    }
+
+    private static void deleteDirectory(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                deleteDirectory(child);
+            }
+        }
+        file.delete();
+    }
+}
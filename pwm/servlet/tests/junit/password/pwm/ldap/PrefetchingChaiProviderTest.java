@@ -0,0 +1,115 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.ldap;
+
+import com.novell.ldapchai.provider.ChaiProvider;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+public class PrefetchingChaiProviderTest extends TestCase {
+
+    private static final String USER_DN = "cn=user,o=test";
+
+    private final Map<String,String> entryValues = new HashMap<>();
+    private final List<String> operations = new ArrayList<>();
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        entryValues.put("cn", "user");
+        entryValues.put("mail", "user@example.com");
+        entryValues.put("loginTime", "20150101000000Z");
+        entryValues.put("title", "tester");
+    }
+
+    public void testReadsServedFromPrefetch() throws Exception {
+        final PrefetchingChaiProvider prefetchingProvider = PrefetchingChaiProvider.prefetch(
+                makeStubProvider(), USER_DN, new HashSet<>(Arrays.asList("cn", "MAIL", "telephoneNumber", "loginTime")));
+        final ChaiProvider provider = prefetchingProvider.asChaiProvider();
+        Assert.assertEquals(1, operations.size());
+
+        Assert.assertEquals("user", provider.readStringAttribute(USER_DN, "cn"));
+        Assert.assertEquals("user@example.com", provider.readStringAttribute(USER_DN, "mail"));
+        Assert.assertNull(provider.readStringAttribute(USER_DN, "telephoneNumber"));
+        final Map<String,String> values = provider.readStringAttributes(USER_DN, new HashSet<>(Arrays.asList("cn", "loginTime", "telephoneNumber")));
+        Assert.assertEquals(2, values.size());
+        Assert.assertEquals("20150101000000Z", values.get("loginTime"));
+
+        Assert.assertEquals(1, operations.size());
+        Assert.assertEquals(4, prefetchingProvider.getPrefetchHits());
+        Assert.assertTrue(prefetchingProvider.getMissedAttributeNames().isEmpty());
+    }
+
+    public void testMissedAttributesPassedThrough() throws Exception {
+        final PrefetchingChaiProvider prefetchingProvider = PrefetchingChaiProvider.prefetch(
+                makeStubProvider(), USER_DN, Collections.singleton("cn"));
+        final ChaiProvider provider = prefetchingProvider.asChaiProvider();
+
+        Assert.assertEquals("tester", provider.readStringAttribute(USER_DN, "title"));
+        Assert.assertEquals(2, provider.readStringAttributes(USER_DN, new HashSet<>(Arrays.asList("cn", "mail"))).size());
+        Assert.assertEquals("user", provider.readStringAttribute("cn=other,o=test", "cn"));
+
+        Assert.assertEquals(4, operations.size());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("mail", "title")), new HashSet<>(prefetchingProvider.getMissedAttributeNames()));
+    }
+
+    public void testWriteDiscardsPrefetch() throws Exception {
+        final ChaiProvider provider = PrefetchingChaiProvider.prefetch(
+                makeStubProvider(), USER_DN, Collections.singleton("mail")).asChaiProvider();
+
+        provider.writeStringAttribute(USER_DN, "mail", Collections.singleton("new@example.com"), true);
+        Assert.assertEquals("new@example.com", provider.readStringAttribute(USER_DN, "mail"));
+        Assert.assertEquals(3, operations.size());
+    }
+
+    private ChaiProvider makeStubProvider() {
+        return (ChaiProvider)Proxy.newProxyInstance(ChaiProvider.class.getClassLoader(), new Class[]{ChaiProvider.class}, new InvocationHandler() {
+            public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+                final String methodName = method.getName();
+                operations.add(methodName);
+                if ("readStringAttribute".equals(methodName)) {
+                    return entryValues.get(args[1]);
+                } else if ("readStringAttributes".equals(methodName)) {
+                    final Map<String,String> returnMap = new HashMap<>();
+                    for (final Object attributeName : (Set<?>)args[1]) {
+                        for (final String key : entryValues.keySet()) {
+                            if (key.equalsIgnoreCase((String)attributeName)) {
+                                returnMap.put(key, entryValues.get(key));
+                            }
+                        }
+                    }
+                    return returnMap;
+                } else if ("writeStringAttribute".equals(methodName)) {
+                    entryValues.put((String)args[1], ((Set<?>)args[2]).iterator().next().toString());
+                    return null;
+                }
+                throw new UnsupportedOperationException(methodName);
+            }
+        });
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.ldap;
+
+import com.novell.ldapchai.exception.ChaiError;
+import com.novell.ldapchai.exception.ChaiException;
+import com.novell.ldapchai.exception.ChaiOperationException;
+import com.novell.ldapchai.provider.ChaiProvider;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import password.pwm.util.PasswordData;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SharedBindVerifierTest extends TestCase {
+
+    private static final int SESSION_COUNT = 200;
+    private static final int MAX_BIND_CONNECTIONS = 8;
+
+    private final AtomicInteger openSockets = new AtomicInteger();
+    private final List<String> boundDNs = Collections.synchronizedList(new ArrayList<String>());
+
+    public void testWrongPasswordReleasesConnection() throws Exception {
+        final SharedBindVerifier verifier = makeVerifier();
+        try {
+            verifier.verifyCredentials("cn=user", new PasswordData("wrong"));
+            Assert.fail("bind with wrong password should fail");
+        } catch (ChaiOperationException e) {
+            Assert.assertEquals(ChaiError.FAILED_AUTHENTICATION, e.getErrorCode());
+        }
+        Assert.assertEquals(0, verifier.getOpenConnections());
+        Assert.assertEquals(0, openSockets.get());
+    }
+
+    public void testLeasedProviderBindsAsUser() throws Exception {
+        final SharedBindVerifier verifier = makeVerifier();
+        final ChaiProvider leasedProvider = verifier.makeLeasedProvider("cn=user1", new PasswordData("password"));
+        Assert.assertTrue(SharedBindVerifier.isLeasedProvider(leasedProvider));
+        Assert.assertFalse(ChaiProviderPool.isPooledProvider(leasedProvider));
+
+        leasedProvider.writeStringAttribute("cn=user1", "description", Collections.singleton("value"), true);
+        Assert.assertEquals("top", leasedProvider.readStringAttribute("cn=user1", "objectClass"));
+        Assert.assertEquals(Arrays.asList("cn=user1", "cn=user1"), boundDNs);
+        Assert.assertEquals(0, openSockets.get());
+        Assert.assertEquals(0, verifier.getOpenConnections());
+        Assert.assertEquals(1, verifier.getPeakOpenConnections());
+
+        leasedProvider.close();
+        Assert.assertEquals(0, openSockets.get());
+    }
+
+    /**
+     * Compares the directory connections held after {@link #SESSION_COUNT} concurrent logins using a connection per
+     * session against the shared bind verifier.
+     */
+    public void testConnectionCountUnderLoad() throws Exception {
+        final List<ChaiProvider> sessionProviders = new ArrayList<>();
+        for (int i = 0; i < SESSION_COUNT; i++) {
+            final ChaiProvider userProvider = openStubProvider();
+            userProvider.readStringAttribute("cn=user" + i, "objectClass");
+            sessionProviders.add(userProvider);
+        }
+        final int perSessionConnections = openSockets.get();
+        for (final ChaiProvider provider : sessionProviders) {
+            provider.close();
+        }
+        Assert.assertEquals(0, openSockets.get());
+
+        final SharedBindVerifier verifier = makeVerifier();
+        final ExecutorService loginThreads = Executors.newFixedThreadPool(50);
+        final List<Future<?>> logins = new ArrayList<>();
+        for (int i = 0; i < SESSION_COUNT; i++) {
+            final String userDN = "cn=user" + i;
+            logins.add(loginThreads.submit(new Runnable() {
+                public void run() {
+                    try {
+                        verifier.verifyCredentials(userDN, new PasswordData("password"));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }));
+        }
+        for (final Future<?> login : logins) {
+            login.get();
+        }
+        loginThreads.shutdown();
+        final int sharedBindConnections = openSockets.get();
+
+        Assert.assertEquals(SESSION_COUNT, perSessionConnections);
+        Assert.assertEquals(0, sharedBindConnections);
+        Assert.assertEquals(SESSION_COUNT, verifier.getBindCount());
+        Assert.assertTrue(verifier.getPeakOpenConnections() <= MAX_BIND_CONNECTIONS);
+    }
+
+    private SharedBindVerifier makeVerifier() {
+        return new SharedBindVerifier("test", MAX_BIND_CONNECTIONS, 10 * 1000, new SharedBindVerifier.BindProviderFactory() {
+            public ChaiProvider openBindProvider(final String userDN, final PasswordData password) {
+                boundDNs.add(userDN);
+                return openStubProvider();
+            }
+        });
+    }
+
+    private ChaiProvider openStubProvider() {
+        openSockets.incrementAndGet();
+        return (ChaiProvider)Proxy.newProxyInstance(ChaiProvider.class.getClassLoader(), new Class[]{ChaiProvider.class}, new InvocationHandler() {
+            private boolean closed;
+
+            public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+                if ("close".equals(method.getName())) {
+                    if (!closed) {
+                        closed = true;
+                        openSockets.decrementAndGet();
+                    }
+                    return null;
+                }
+                if (args != null && args.length > 0 && "cn=user".equals(args[0])) {
+                    throw new ChaiOperationException("invalid credentials", ChaiError.FAILED_AUTHENTICATION);
+                }
+                Thread.sleep(2);
+                return "top";
+            }
+        });
+    }
+}
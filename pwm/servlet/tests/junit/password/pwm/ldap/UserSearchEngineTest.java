@@ -0,0 +1,141 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.ldap;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import password.pwm.bean.UserIdentity;
+import password.pwm.config.StoredConfiguration;
+import password.pwm.config.profile.LdapProfile;
+import password.pwm.error.ErrorInformation;
+import password.pwm.error.PwmError;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class UserSearchEngineTest extends TestCase {
+
+    private final UserSearchEngine userSearchEngine = new UserSearchEngine(null, null);
+    private final CountDownLatch blockRelease = new CountDownLatch(1);
+    private ExecutorService executor;
+    private LdapProfile profile1;
+    private LdapProfile profile2;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        executor = Executors.newFixedThreadPool(4);
+        final StoredConfiguration storedConfiguration = StoredConfiguration.newStoredConfiguration();
+        profile1 = LdapProfile.makeFromStoredConfiguration(storedConfiguration, "profile1");
+        profile2 = LdapProfile.makeFromStoredConfiguration(storedConfiguration, "profile2");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        blockRelease.countDown();
+        executor.shutdownNow();
+    }
+
+    public void testResultsMergedInJobOrder() throws Exception {
+        final List<UserSearchEngine.SearchJob> searchJobs = new ArrayList<>();
+        searchJobs.add(makeJob(profile1, 300, "cn=a1", "cn=a2"));
+        searchJobs.add(makeJob(profile1, 0, "cn=b1"));
+        searchJobs.add(makeJob(profile2, 100, "cn=c1"));
+
+        final Map<UserIdentity,Map<String,String>> results = userSearchEngine.executeParallelSearchJobs(
+                executor, searchJobs, 10, makeSearchErrors(false, new ArrayList<ErrorInformation>()), 5000);
+        Assert.assertEquals(Arrays.asList("cn=a1", "cn=a2", "cn=b1", "cn=c1"), userDNs(results));
+    }
+
+    public void testStopsAtMaxResults() throws Exception {
+        final List<UserSearchEngine.SearchJob> searchJobs = new ArrayList<>();
+        searchJobs.add(makeJob(profile1, 0, "cn=a1", "cn=a2"));
+        searchJobs.add(makeJob(profile1, 0, "cn=b1", "cn=b2"));
+        searchJobs.add(makeJob(profile2, -1, "cn=c1"));
+
+        final long startTime = System.currentTimeMillis();
+        final Map<UserIdentity,Map<String,String>> results = userSearchEngine.executeParallelSearchJobs(
+                executor, searchJobs, 3, makeSearchErrors(false, new ArrayList<ErrorInformation>()), 5000);
+        Assert.assertEquals(Arrays.asList("cn=a1", "cn=a2", "cn=b1"), userDNs(results));
+        Assert.assertTrue(System.currentTimeMillis() - startTime < 4000);
+    }
+
+    public void testSearchTimeout() throws Exception {
+        final List<UserSearchEngine.SearchJob> searchJobs = new ArrayList<>();
+        searchJobs.add(makeJob(profile1, -1, "cn=a1"));
+        searchJobs.add(makeJob(profile2, 0, "cn=b1"));
+
+        final List<ErrorInformation> recordedFailures = new ArrayList<>();
+        final Map<UserIdentity,Map<String,String>> results = userSearchEngine.executeParallelSearchJobs(
+                executor, searchJobs, 10, makeSearchErrors(true, recordedFailures), 200);
+        Assert.assertEquals(Collections.singletonList("cn=b1"), userDNs(results));
+        Assert.assertEquals(1, recordedFailures.size());
+        Assert.assertEquals(PwmError.ERROR_DIRECTORY_UNAVAILABLE, recordedFailures.get(0).getError());
+    }
+
+    private UserSearchEngine.SearchErrors makeSearchErrors(final boolean ignoreUnreachableProfiles, final List<ErrorInformation> recordedFailures) {
+        return userSearchEngine.new SearchErrors(2, ignoreUnreachableProfiles) {
+            @Override
+            void recordLdapFailure(final LdapProfile ldapProfile, final ErrorInformation errorInformation) {
+                recordedFailures.add(errorInformation);
+            }
+        };
+    }
+
+    /**
+     * @param delayMs how long the job waits before returning its results, or -1 to wait until the test ends.
+     */
+    private UserSearchEngine.SearchJob makeJob(final LdapProfile ldapProfile, final long delayMs, final String... userDNs) {
+        return userSearchEngine.new SearchJob(ldapProfile, "(cn=*)", "o=test", null, 10, null, 0) {
+            @Override
+            public Map<UserIdentity,Map<String,String>> call() {
+                try {
+                    if (delayMs < 0) {
+                        blockRelease.await(10, TimeUnit.SECONDS);
+                    } else {
+                        Thread.sleep(delayMs);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                final Map<UserIdentity,Map<String,String>> results = new LinkedHashMap<>();
+                for (final String userDN : userDNs) {
+                    results.put(new UserIdentity(userDN, ldapProfile.getIdentifier()), Collections.<String,String>emptyMap());
+                }
+                return results;
+            }
+        };
+    }
+
+    private static List<String> userDNs(final Map<UserIdentity,Map<String,String>> results) {
+        final List<String> userDNs = new ArrayList<>();
+        for (final UserIdentity userIdentity : results.keySet()) {
+            userDNs.add(userIdentity.getUserDN());
+        }
+        return userDNs;
+    }
+}
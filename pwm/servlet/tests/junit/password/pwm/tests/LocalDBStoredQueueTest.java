@@ -30,6 +30,7 @@ import password.pwm.util.localdb.LocalDBFactory;
 import password.pwm.util.localdb.LocalDBStoredQueue;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -216,6 +217,44 @@ public class LocalDBStoredQueueTest extends TestCase {
         assertEquals(initialSize, storedQueue.size());
     }
 
+    public void testBulkOperations() {
+        storedQueue.clear();
+        storedQueue.addLast(Arrays.asList("value2", "value3", "value4"));
+        storedQueue.addFirst(Arrays.asList("value1", "value0"));
+        assertEquals(5, storedQueue.size());
+        assertEquals("value0", storedQueue.peekFirst());
+        assertEquals("value4", storedQueue.peekLast());
+
+        assertEquals(Arrays.asList("value0", "value1", "value2"), storedQueue.removeFirst(3));
+        assertEquals(2, storedQueue.size());
+        storedQueue.removeLast(1);
+        assertEquals("value3", storedQueue.peekLast());
+        assertEquals(Arrays.asList("value3"), storedQueue.removeFirst(10));
+        assertTrue(storedQueue.isEmpty());
+    }
+
+    public void testLegacyMigration() throws Exception {
+        storedQueue.clear();
+        localDB.truncate(LocalDB.DB.TEMP);
+        localDB.put(LocalDB.DB.TEMP, "_KEY_VERSION", "7a");
+        localDB.put(LocalDB.DB.TEMP, "_TAIL_POSITION", "ZZZZZY");
+        localDB.put(LocalDB.DB.TEMP, "_HEAD_POSITION", "000001");
+        localDB.put(LocalDB.DB.TEMP, "ZZZZZY", "value3");
+        localDB.put(LocalDB.DB.TEMP, "ZZZZZZ", "value2");
+        localDB.put(LocalDB.DB.TEMP, "000000", "value1");
+        localDB.put(LocalDB.DB.TEMP, "000001", "value0");
+
+        storedQueue = LocalDBStoredQueue.createLocalDBStoredQueue(localDB, LocalDB.DB.TEMP, true);
+        assertEquals(4, storedQueue.size());
+        final Iterator<String> iter = storedQueue.iterator();
+        assertEquals("value0", iter.next());
+        assertEquals("value1", iter.next());
+        assertEquals("value2", iter.next());
+        assertEquals("value3", iter.next());
+        assertFalse(iter.hasNext());
+        assertNull(localDB.get(LocalDB.DB.TEMP, "ZZZZZY"));
+    }
+
     @Override
     protected void tearDown() throws Exception {
         System.out.println("tearing down");
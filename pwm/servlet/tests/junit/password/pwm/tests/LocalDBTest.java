@@ -30,6 +30,10 @@ import password.pwm.util.localdb.LocalDBException;
 import password.pwm.util.localdb.LocalDBFactory;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 public class LocalDBTest extends TestCase {
 
@@ -52,6 +56,56 @@ public class LocalDBTest extends TestCase {
         Assert.assertEquals(pwmDB.get(TEST_DB,"testKey1"),"testValue1");
     }
 
+    public void testGetAll() throws LocalDBException {
+        pwmDB.put(TEST_DB,"testKey1","testValue1");
+        pwmDB.put(TEST_DB,"testKey2","testValue2");
+
+        final Map<String,String> values = pwmDB.getAll(TEST_DB, Arrays.asList("testKey1","testKey2","testKey3"));
+        Assert.assertEquals(2, values.size());
+        Assert.assertEquals("testValue1", values.get("testKey1"));
+        Assert.assertEquals("testValue2", values.get("testKey2"));
+        Assert.assertFalse(values.containsKey("testKey3"));
+
+        Assert.assertTrue(pwmDB.containsAny(TEST_DB, Arrays.asList("testKey3","testKey2")));
+        Assert.assertFalse(pwmDB.containsAny(TEST_DB, Arrays.asList("testKey3","testKey4")));
+        Assert.assertFalse(pwmDB.containsAny(TEST_DB, Collections.<String>emptyList()));
+    }
+
+    public void testEntryIterator() throws LocalDBException {
+        pwmDB.put(TEST_DB,"a1","value-a1");
+        pwmDB.put(TEST_DB,"b1","value-b1");
+        pwmDB.put(TEST_DB,"b2","value-b2");
+        pwmDB.put(TEST_DB,"c1","value-c1");
+
+        final Map<String,String> all = readEntries(null);
+        Assert.assertEquals(4, all.size());
+        Assert.assertEquals("value-c1", all.get("c1"));
+
+        final Map<String,String> prefixed = readEntries(LocalDB.KeyRange.prefix("b"));
+        Assert.assertEquals(2, prefixed.size());
+        Assert.assertEquals("value-b1", prefixed.get("b1"));
+        Assert.assertEquals("value-b2", prefixed.get("b2"));
+
+        final Map<String,String> between = readEntries(LocalDB.KeyRange.between("a1","b2"));
+        Assert.assertEquals(2, between.size());
+        Assert.assertTrue(between.containsKey("a1"));
+        Assert.assertTrue(between.containsKey("b1"));
+    }
+
+    private Map<String,String> readEntries(final LocalDB.KeyRange keyRange) throws LocalDBException {
+        final Map<String,String> results = new HashMap<>();
+        final LocalDB.LocalDBEntryIterator iterator = pwmDB.entryIterator(TEST_DB, keyRange);
+        try {
+            while (iterator.hasNext()) {
+                final Map.Entry<String,String> entry = iterator.next();
+                results.put(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            iterator.close();
+        }
+        return results;
+    }
+
     public void testSize() throws LocalDBException {
         final long startTime = System.currentTimeMillis();
         for (final LocalDB.DB loopDB : LocalDB.DB.values()) {
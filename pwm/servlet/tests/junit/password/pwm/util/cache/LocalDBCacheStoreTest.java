@@ -0,0 +1,81 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.cache;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import password.pwm.tests.TestHelper;
+import password.pwm.util.localdb.LocalDB;
+import password.pwm.util.localdb.LocalDBFactory;
+
+import java.io.File;
+import java.util.Date;
+
+public class LocalDBCacheStoreTest extends TestCase {
+
+    private LocalDB localDB;
+    private LocalDBCacheStore cacheStore;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestHelper.setupLogging();
+        final File fileLocation = new File(TestHelper.getParameter("pwmDBlocation"));
+        localDB = LocalDBFactory.getInstance(fileLocation, false, null, null);
+        cacheStore = new LocalDBCacheStore(localDB, "LocalDBCacheStoreTest");
+    }
+
+    public void testWriteBehindAndPurge() throws Exception {
+        final CacheKey liveKey = CacheKey.makeCacheKey(LocalDBCacheStoreTest.class, null, "live");
+        final CacheKey expiredKey = CacheKey.makeCacheKey(LocalDBCacheStoreTest.class, null, "expired");
+
+        cacheStore.store(liveKey, new Date(System.currentTimeMillis() + 60 * 60 * 1000), "liveValue");
+        cacheStore.store(expiredKey, new Date(System.currentTimeMillis() + 50), "expiredValue");
+
+        // pending writes are readable before they are flushed
+        Assert.assertEquals("liveValue", cacheStore.read(liveKey).getPayload());
+        Assert.assertEquals(2, cacheStore.getCacheStoreInfo().getPendingWriteCount());
+
+        cacheStore.flushPendingWrites();
+        Assert.assertEquals(0, cacheStore.getCacheStoreInfo().getPendingWriteCount());
+        Assert.assertEquals(2, cacheStore.getCacheStoreInfo().getItemCount());
+
+        Thread.sleep(100);
+        cacheStore.purgeExpiredRecords();
+
+        Assert.assertEquals("liveValue", cacheStore.read(liveKey).getPayload());
+        Assert.assertNull(localDB.get(LocalDB.DB.CACHE, expiredKey.getHash()));
+        Assert.assertEquals(1, cacheStore.getCacheStoreInfo().getItemCount());
+        Assert.assertEquals(1, cacheStore.getCacheStoreInfo().getExpiredRemovalCount());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        cacheStore.close();
+        if (localDB != null) {
+            localDB.close();
+            localDB = null;
+        }
+    }
+}
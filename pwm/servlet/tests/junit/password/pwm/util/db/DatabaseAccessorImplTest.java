@@ -0,0 +1,135 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.db;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import password.pwm.util.ClosableIterator;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DatabaseAccessorImplTest extends TestCase {
+
+    private static final DatabaseTable TEST_TABLE = DatabaseTable.TOKENS;
+
+    public void testH2() throws Exception {
+        final DatabaseAccessorImpl accessor = open(new DatabaseAccessorImpl.DBConfiguration(
+                "org.h2.Driver", "jdbc:h2:mem:pwmtest;DB_CLOSE_DELAY=-1", null, null, "VARCHAR", "TEXT", null
+        ));
+        try {
+            exerciseAccessor(accessor);
+        } finally {
+            accessor.close();
+        }
+    }
+
+    public void testDerby() throws Exception {
+        // derby has no single statement upsert, so this covers the update-then-insert path
+        final DatabaseAccessorImpl accessor = open(new DatabaseAccessorImpl.DBConfiguration(
+                "org.apache.derby.jdbc.EmbeddedDriver", "jdbc:derby:memory:pwmtest;create=true", null, null, "VARCHAR", "CLOB", null
+        ));
+        try {
+            exerciseAccessor(accessor);
+        } finally {
+            accessor.close();
+        }
+    }
+
+    private static DatabaseAccessorImpl open(final DatabaseAccessorImpl.DBConfiguration dbConfiguration) {
+        final DatabaseAccessorImpl accessor = new DatabaseAccessorImpl();
+        accessor.init(dbConfiguration, "test", 4, 10, 5000);
+        return accessor;
+    }
+
+    private static void exerciseAccessor(final DatabaseAccessorImpl accessor) throws Exception {
+        for (final String key : readKeys(accessor)) {
+            accessor.remove(TEST_TABLE, key);
+        }
+
+        accessor.put(TEST_TABLE, "key1", "value1");
+        accessor.put(TEST_TABLE, "key1", "value1-updated");
+        Assert.assertEquals("value1-updated", accessor.get(TEST_TABLE, "key1"));
+        Assert.assertTrue(accessor.contains(TEST_TABLE, "key1"));
+        Assert.assertEquals(1, accessor.size(TEST_TABLE));
+
+        final Map<String,String> batch = new LinkedHashMap<>();
+        batch.put("key1", "value1-batch");
+        for (int i = 2; i <= 20; i++) {
+            batch.put("key" + i, "value" + i);
+        }
+        accessor.putAll(TEST_TABLE, batch);
+        Assert.assertEquals(20, accessor.size(TEST_TABLE));
+        Assert.assertEquals("value1-batch", accessor.get(TEST_TABLE, "key1"));
+        Assert.assertEquals("value20", accessor.get(TEST_TABLE, "key20"));
+        Assert.assertEquals(20, readKeys(accessor).size());
+
+        accessor.removeAll(TEST_TABLE, Arrays.asList("key2", "key3", "missing"));
+        Assert.assertEquals(18, accessor.size(TEST_TABLE));
+        Assert.assertNull(accessor.get(TEST_TABLE, "key2"));
+
+        Assert.assertTrue(accessor.remove(TEST_TABLE, "key4"));
+        Assert.assertFalse(accessor.remove(TEST_TABLE, "key4"));
+
+        // an abandoned iterator holds a pooled connection until it is closed
+        final ClosableIterator<Map.Entry<String,String>> iterator = accessor.entryIterator(TEST_TABLE);
+        Assert.assertTrue(iterator.hasNext());
+        iterator.close();
+
+        // more concurrent writers than pooled connections
+        final ExecutorService executorService = Executors.newFixedThreadPool(8);
+        final AtomicInteger counter = new AtomicInteger();
+        final List<Future<Object>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executorService.submit(new Callable<Object>() {
+                public Object call() throws Exception {
+                    for (int i = 0; i < 25; i++) {
+                        final String key = "concurrent" + counter.incrementAndGet();
+                        accessor.put(TEST_TABLE, key, key);
+                        Assert.assertEquals(key, accessor.get(TEST_TABLE, key));
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (final Future<Object> future : futures) {
+            future.get();
+        }
+        executorService.shutdown();
+        Assert.assertEquals(17 + 200, accessor.size(TEST_TABLE));
+    }
+
+    private static List<String> readKeys(final DatabaseAccessorImpl accessor) throws DatabaseException {
+        final List<String> keys = new ArrayList<>();
+        final ClosableIterator<String> iterator = accessor.iterator(TEST_TABLE);
+        try {
+            while (iterator.hasNext()) {
+                keys.add(iterator.next());
+            }
+        } finally {
+            iterator.close();
+        }
+        return keys;
+    }
+}
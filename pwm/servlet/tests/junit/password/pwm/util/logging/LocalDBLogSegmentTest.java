@@ -0,0 +1,72 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.logging;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Date;
+
+public class LocalDBLogSegmentTest extends TestCase {
+
+    public void testMayMatch() {
+        final LocalDBLogSegment segment = new LocalDBLogSegment();
+        segment.addEvents(Arrays.asList(
+                makeEvent("jsmith", PwmLogLevel.DEBUG, "password changed"),
+                makeEvent(null, PwmLogLevel.INFO, "system started")
+        ), 10);
+
+        Assert.assertEquals(2, segment.getCount());
+        Assert.assertEquals(10, segment.getNewestPosition());
+
+        Assert.assertTrue(segment.mayMatch(makeParams(PwmLogLevel.TRACE, null, LocalDBLogger.EventType.Both)));
+        Assert.assertTrue(segment.mayMatch(makeParams(PwmLogLevel.INFO, null, LocalDBLogger.EventType.Both)));
+        Assert.assertFalse(segment.mayMatch(makeParams(PwmLogLevel.ERROR, null, LocalDBLogger.EventType.Both)));
+
+        Assert.assertTrue(segment.mayMatch(makeParams(PwmLogLevel.TRACE, "jsmith", LocalDBLogger.EventType.User)));
+        Assert.assertTrue(segment.mayMatch(makeParams(PwmLogLevel.TRACE, "^js.*", LocalDBLogger.EventType.Both)));
+        Assert.assertFalse(segment.mayMatch(makeParams(PwmLogLevel.TRACE, "^bjones$", LocalDBLogger.EventType.Both)));
+    }
+
+    public void testMatches() {
+        final PwmLogEvent event = makeEvent("jsmith", PwmLogLevel.INFO, "password changed");
+
+        Assert.assertTrue(makeParams(PwmLogLevel.DEBUG, "smith", LocalDBLogger.EventType.User).matches(event));
+        Assert.assertFalse(makeParams(PwmLogLevel.WARN, null, LocalDBLogger.EventType.Both).matches(event));
+        Assert.assertFalse(makeParams(PwmLogLevel.DEBUG, null, LocalDBLogger.EventType.System).matches(event));
+        Assert.assertFalse(makeParams(PwmLogLevel.DEBUG, "[bjones", LocalDBLogger.EventType.Both).matches(event));
+    }
+
+    private static PwmLogEvent makeEvent(final String actor, final PwmLogLevel level, final String message) {
+        return PwmLogEvent.createPwmLogEvent(new Date(), "topic", message, "source", actor, null, null, level);
+    }
+
+    private static LocalDBLogger.SearchParameters makeParams(
+            final PwmLogLevel level,
+            final String username,
+            final LocalDBLogger.EventType eventType
+    ) {
+        return new LocalDBLogger.SearchParameters(level, 100, username, null, 1000, eventType);
+    }
+}
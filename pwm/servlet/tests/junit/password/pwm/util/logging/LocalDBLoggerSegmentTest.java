@@ -0,0 +1,97 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.logging;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import password.pwm.tests.TestHelper;
+import password.pwm.util.Helper;
+import password.pwm.util.localdb.LocalDB;
+import password.pwm.util.localdb.LocalDBFactory;
+
+import java.io.File;
+import java.util.Date;
+
+public class LocalDBLoggerSegmentTest extends TestCase {
+
+    private static final int MAX_EVENTS = 100;
+    private static final int WRITTEN_EVENTS = 3500;
+
+    private LocalDB localDB;
+    private LocalDBLogger localDBLogger;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        localDB = LocalDBFactory.getInstance(new File(TestHelper.getParameter("pwmDBlocation")), false, null, null);
+        localDB.truncate(LocalDB.DB.EVENTLOG_EVENTS);
+        localDB.truncate(LocalDB.DB.EVENTLOG_SEGMENTS);
+
+        final LocalDBLogger.Settings settings = new LocalDBLogger.Settings();
+        settings.setMaxEvents(MAX_EVENTS);
+        settings.setMaxDirtyQueueAgeMs(10);
+        localDBLogger = new LocalDBLogger(null, localDB, settings);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        localDBLogger.close();
+        localDB.truncate(LocalDB.DB.EVENTLOG_EVENTS);
+        localDB.truncate(LocalDB.DB.EVENTLOG_SEGMENTS);
+        localDB.close();
+    }
+
+    public void testTrimmedSegmentsArePurged() throws Exception {
+        for (int i = 0; i < WRITTEN_EVENTS; i++) {
+            localDBLogger.writeEvent(PwmLogEvent.createPwmLogEvent(new Date(), "topic", "event " + i, null, null, null, null, PwmLogLevel.INFO));
+        }
+
+        final long startTime = System.currentTimeMillis();
+        while ((localDBLogger.getPendingEventCount() > 0 || localDBLogger.getStoredEventCount() > MAX_EVENTS)
+                && System.currentTimeMillis() - startTime < 30 * 1000) {
+            Helper.pause(50);
+        }
+        Helper.pause(200);
+        Assert.assertEquals(MAX_EVENTS, localDBLogger.getStoredEventCount());
+
+        // the retained events span at most the newest two 1000 event segments
+        final int segmentCount = localDB.size(LocalDB.DB.EVENTLOG_SEGMENTS);
+        Assert.assertTrue("segment count " + segmentCount, segmentCount >= 1 && segmentCount <= 2);
+
+        final LocalDBLogger.SearchResults allResults = localDBLogger.readStoredEvents(
+                new LocalDBLogger.SearchParameters(PwmLogLevel.TRACE, 1000, null, null, 10 * 1000, LocalDBLogger.EventType.Both));
+        Assert.assertEquals("event " + (WRITTEN_EVENTS - 1), allResults.next().getMessage());
+        int resultCount = 1;
+        while (allResults.hasNext()) {
+            allResults.next();
+            resultCount++;
+        }
+        Assert.assertEquals(MAX_EVENTS, resultCount);
+
+        final LocalDBLogger.SearchResults textResults = localDBLogger.readStoredEvents(
+                new LocalDBLogger.SearchParameters(PwmLogLevel.TRACE, 1000, null, "event " + (WRITTEN_EVENTS - MAX_EVENTS), 10 * 1000, LocalDBLogger.EventType.Both));
+        Assert.assertTrue(textResults.hasNext());
+        Assert.assertEquals("event " + (WRITTEN_EVENTS - MAX_EVENTS), textResults.next().getMessage());
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.logging;
+
+import password.pwm.PwmConstants;
+import password.pwm.bean.SessionLabel;
+import password.pwm.util.TimeDuration;
+
+/**
+ * Standalone timing harness for the log event codec and disabled-level logging.  Not part of the JUnit run; execute
+ * {@link #main(String[])} directly to compare the binary codec against the previous json encoding and concatenated
+ * against supplied log messages.
+ */
+public class LoggingBenchmark {
+
+    private static final int CODEC_EVENT_COUNT = 20 * 1000;
+    private static final int DISABLED_CALL_COUNT = 1000 * 1000;
+
+    public static void main(final String[] args) throws Exception {
+        benchmarkCodec();
+        benchmarkDisabledLevel();
+    }
+
+    private static void benchmarkCodec() throws Exception {
+        final PwmLogEvent[] events = new PwmLogEvent[100];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = PwmLogEventCodecTest.makeEvent(i);
+        }
+
+        long jsonBytes = 0, binaryBytes = 0;
+        final String[] jsonValues = new String[events.length];
+        final String[] binaryValues = new String[events.length];
+
+        final long jsonEncodeStart = System.currentTimeMillis();
+        for (int i = 0; i < CODEC_EVENT_COUNT; i++) {
+            jsonValues[i % events.length] = PwmLogEventCodecTest.legacyEncode(events[i % events.length]);
+        }
+        final TimeDuration jsonEncodeTime = TimeDuration.fromCurrent(jsonEncodeStart);
+
+        final long binaryEncodeStart = System.currentTimeMillis();
+        for (int i = 0; i < CODEC_EVENT_COUNT; i++) {
+            binaryValues[i % events.length] = events[i % events.length].toEncodedString();
+        }
+        final TimeDuration binaryEncodeTime = TimeDuration.fromCurrent(binaryEncodeStart);
+
+        final long jsonDecodeStart = System.currentTimeMillis();
+        for (int i = 0; i < CODEC_EVENT_COUNT; i++) {
+            PwmLogEvent.fromEncodedString(jsonValues[i % events.length]);
+        }
+        final TimeDuration jsonDecodeTime = TimeDuration.fromCurrent(jsonDecodeStart);
+
+        final long binaryDecodeStart = System.currentTimeMillis();
+        for (int i = 0; i < CODEC_EVENT_COUNT; i++) {
+            PwmLogEvent.fromEncodedString(binaryValues[i % events.length]);
+        }
+        final TimeDuration binaryDecodeTime = TimeDuration.fromCurrent(binaryDecodeStart);
+
+        for (int i = 0; i < events.length; i++) {
+            jsonBytes += jsonValues[i].getBytes(PwmConstants.DEFAULT_CHARSET).length;
+            binaryBytes += binaryValues[i].getBytes(PwmConstants.DEFAULT_CHARSET).length;
+        }
+
+        System.out.println(CODEC_EVENT_COUNT + " events");
+        System.out.println("json   encode=" + jsonEncodeTime.asCompactString() + " decode=" + jsonDecodeTime.asCompactString()
+                + " bytes/event=" + (jsonBytes / events.length));
+        System.out.println("binary encode=" + binaryEncodeTime.asCompactString() + " decode=" + binaryDecodeTime.asCompactString()
+                + " bytes/event=" + (binaryBytes / events.length));
+    }
+
+    private static void benchmarkDisabledLevel() {
+        PwmLogger.markInitialized();
+        PwmLogger.setLocalDBLogger(null, null);
+        PwmLogger.setMinimumLog4jLevel(PwmLogLevel.INFO);
+
+        final PwmLogger pwmLogger = PwmLogger.forClass(LoggingBenchmark.class);
+        final SessionLabel sessionLabel = SessionLabel.SYSTEM_LABEL;
+        final Object value = new StringBuilder("cn=user,ou=benchmark,o=test");
+
+        final long concatStart = System.nanoTime();
+        for (int i = 0; i < DISABLED_CALL_COUNT; i++) {
+            pwmLogger.trace(sessionLabel, "read value for user " + value + " in iteration " + i);
+        }
+        final long concatNanos = System.nanoTime() - concatStart;
+
+        final long supplierStart = System.nanoTime();
+        for (int i = 0; i < DISABLED_CALL_COUNT; i++) {
+            final int iteration = i;
+            pwmLogger.trace(sessionLabel, new PwmLogger.MessageSupplier() {
+                public CharSequence get() {
+                    return "read value for user " + value + " in iteration " + iteration;
+                }
+            });
+        }
+        final long supplierNanos = System.nanoTime() - supplierStart;
+
+        System.out.println(DISABLED_CALL_COUNT + " disabled trace calls");
+        System.out.println("concatenated message: " + (concatNanos / DISABLED_CALL_COUNT) + "ns/call, "
+                + new TimeDuration(concatNanos / 1000 / 1000).asCompactString() + " total");
+        System.out.println("supplied message:     " + (supplierNanos / DISABLED_CALL_COUNT) + "ns/call, "
+                + new TimeDuration(supplierNanos / 1000 / 1000).asCompactString() + " total");
+    }
+}
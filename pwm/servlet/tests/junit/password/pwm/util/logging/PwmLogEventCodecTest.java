@@ -0,0 +1,112 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.logging;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import password.pwm.PwmConstants;
+import password.pwm.util.Base64Util;
+import password.pwm.util.JsonUtil;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+public class PwmLogEventCodecTest extends TestCase {
+
+    public void testRoundTrip() throws Exception {
+        final PwmLogEvent event = PwmLogEvent.createPwmLogEvent(new Date(), "password.pwm.http.servlet.LoginServlet",
+                "user authenticated é", "10.0.0.1/host.example.com", "jsmith", "sessionID-1234", null, PwmLogLevel.INFO);
+
+        final String encoded = event.toEncodedString();
+        Assert.assertTrue(encoded.startsWith("b!"));
+
+        final PwmLogEvent decoded = PwmLogEvent.fromEncodedString(encoded);
+        Assert.assertEquals(event.toLogString(), decoded.toLogString());
+        Assert.assertEquals(event.getDate(), decoded.getDate());
+        Assert.assertEquals(event.getLabel(), decoded.getLabel());
+        Assert.assertNull(decoded.getThrowable());
+    }
+
+    public void testThrowable() throws Exception {
+        final Exception cause = new IllegalStateException("inner failure");
+        final Exception throwable = new IOException("outer failure", cause);
+        final PwmLogEvent event = PwmLogEvent.createPwmLogEvent(new Date(), "topic", "message", null, null, null, throwable, PwmLogLevel.ERROR);
+
+        final Throwable decoded = PwmLogEvent.fromEncodedString(event.toEncodedString()).getThrowable();
+        Assert.assertEquals(throwable.toString(), decoded.toString());
+        Assert.assertEquals(cause.toString(), decoded.getCause().toString());
+        Assert.assertEquals(throwable.getStackTrace().length, decoded.getStackTrace().length);
+        Assert.assertEquals(throwable.getStackTrace()[0].getMethodName(), decoded.getStackTrace()[0].getMethodName());
+        Assert.assertEquals(throwable.getStackTrace()[0].getLineNumber(), decoded.getStackTrace()[0].getLineNumber());
+    }
+
+    public void testLegacyJsonEvent() throws Exception {
+        final PwmLogEvent event = makeEvent(0);
+        final PwmLogEvent decoded = PwmLogEvent.fromEncodedString(legacyEncode(event));
+        Assert.assertEquals(event.toLogString(), decoded.toLogString());
+        Assert.assertEquals(event.getThrowable().toString(), decoded.getThrowable().toString());
+    }
+
+    public void testBinaryEncodingIsSmaller() throws Exception {
+        long jsonBytes = 0, binaryBytes = 0;
+        for (int i = 0; i < 100; i++) {
+            final PwmLogEvent event = makeEvent(i);
+            final String jsonValue = legacyEncode(event);
+            final String binaryValue = event.toEncodedString();
+            Assert.assertEquals(event.toLogString(), PwmLogEvent.fromEncodedString(binaryValue).toLogString());
+            jsonBytes += jsonValue.getBytes(PwmConstants.DEFAULT_CHARSET).length;
+            binaryBytes += binaryValue.getBytes(PwmConstants.DEFAULT_CHARSET).length;
+        }
+        Assert.assertTrue(binaryBytes < jsonBytes);
+    }
+
+    static PwmLogEvent makeEvent(final int i) {
+        final Throwable throwable = i % 10 == 0 ? new IllegalStateException("failure " + i) : null;
+        return PwmLogEvent.createPwmLogEvent(new Date(), "password.pwm.ldap.UserSearchEngine", "search completed for user" + i
+                + ", 1 result returned in 12ms", "10.0.0." + (i % 255), "user" + i, "sessionID-" + i, throwable,
+                i % 2 == 0 ? PwmLogLevel.DEBUG : PwmLogLevel.TRACE);
+    }
+
+    /**
+     * The JSON encoding used prior to the binary codec.
+     */
+    static String legacyEncode(final PwmLogEvent event) throws IOException {
+        final Map<String, String> tempMap = new HashMap<>();
+        tempMap.put("v", "1");
+        tempMap.put("t", event.getTopic());
+        tempMap.put("m", event.getMessage());
+        tempMap.put("s", event.getSource());
+        tempMap.put("a", event.getActor());
+        tempMap.put("l", event.getLevel().toString());
+        tempMap.put("d", String.valueOf(event.getDate().getTime()));
+        if (event.getLabel() != null) {
+            tempMap.put("b", event.getLabel());
+        }
+        if (event.getThrowable() != null) {
+            tempMap.put("e", Base64Util.encodeObject(event.getThrowable(), Base64Util.NO_OPTIONS));
+        }
+        return JsonUtil.serializeMap(tempMap);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.logging;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import password.pwm.bean.SessionLabel;
+
+public class PwmLoggerTest extends TestCase {
+
+    private final PwmLogger pwmLogger = PwmLogger.forClass(PwmLoggerTest.class);
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        PwmLogger.markInitialized();
+        PwmLogger.setLocalDBLogger(null, null);
+        PwmLogger.setMinimumLog4jLevel(PwmLogLevel.INFO);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        PwmLogger.setMinimumLog4jLevel(PwmLogLevel.TRACE);
+    }
+
+    public void testIsEnabled() {
+        Assert.assertFalse(pwmLogger.isEnabled(PwmLogLevel.DEBUG));
+        Assert.assertTrue(pwmLogger.isEnabled(PwmLogLevel.INFO));
+
+        PwmLogger.setMinimumLog4jLevel(null);
+        Assert.assertFalse(pwmLogger.isEnabled(PwmLogLevel.ERROR));
+        Assert.assertTrue(pwmLogger.isEnabled(PwmLogLevel.FATAL));
+
+        PwmLogger.setMinimumLog4jLevel(PwmLogLevel.TRACE);
+        Assert.assertTrue(pwmLogger.isEnabled(PwmLogLevel.TRACE));
+    }
+
+    public void testSupplierNotCalledWhenDisabled() {
+        final int[] calls = new int[1];
+        final PwmLogger.MessageSupplier supplier = new PwmLogger.MessageSupplier() {
+            public CharSequence get() {
+                calls[0]++;
+                return "message";
+            }
+        };
+        pwmLogger.debug(SessionLabel.SYSTEM_LABEL, supplier);
+        Assert.assertEquals(0, calls[0]);
+    }
+}
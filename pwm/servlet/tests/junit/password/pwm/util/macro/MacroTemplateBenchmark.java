@@ -0,0 +1,73 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.macro;
+
+import password.pwm.util.TimeDuration;
+
+import java.util.Collections;
+
+/**
+ * Standalone timing harness comparing compiled macro templates against the previous regex expansion.  Not part of
+ * the JUnit run; execute {@link #main(String[])} directly.
+ */
+public class MacroTemplateBenchmark {
+
+    private static final int EXPANSION_COUNT = 20 * 1000;
+
+    public static void main(final String[] args) throws Exception {
+        final MacroRegistry macroRegistry = MacroRegistry.forExternalRestUrls(Collections.<String>emptyList());
+
+        final StringBuilder body = new StringBuilder();
+        body.append("Dear @User:ID@,\n\n");
+        for (int i = 0; i < 20; i++) {
+            body.append("This line of the notice is plain text without any macros, line number ").append(i).append(".\n");
+        }
+        body.append("Your password will expire on @User:PwExpireTime@, ");
+        body.append("a reset notice has been sent to @User:Email@.\nDays remaining: @User:DaysUntilPwExpire@\n");
+        final String input = body.toString();
+        final MacroImplementation.MacroRequestInfo requestInfo = MacroTemplateTest.makeRequestInfo("jdoe");
+
+        final long legacyStart = System.currentTimeMillis();
+        for (int i = 0; i < EXPANSION_COUNT; i++) {
+            MacroTemplateTest.legacyExpand(input, requestInfo);
+        }
+        final TimeDuration legacyTime = TimeDuration.fromCurrent(legacyStart);
+
+        final long compiledStart = System.currentTimeMillis();
+        for (int i = 0; i < EXPANSION_COUNT; i++) {
+            MacroTemplateTest.expand(macroRegistry.compileTemplate(input), requestInfo);
+        }
+        final TimeDuration compiledTime = TimeDuration.fromCurrent(compiledStart);
+
+        final long cachedStart = System.currentTimeMillis();
+        for (int i = 0; i < EXPANSION_COUNT; i++) {
+            MacroTemplateTest.expand(macroRegistry.getCachedTemplate(input), requestInfo);
+        }
+        final TimeDuration cachedTime = TimeDuration.fromCurrent(cachedStart);
+
+        System.out.println(EXPANSION_COUNT + " expansions of a " + input.length() + " character template");
+        System.out.println("regex             " + legacyTime.asCompactString());
+        System.out.println("compiled per call " + compiledTime.asCompactString());
+        System.out.println("cached template   " + cachedTime.asCompactString());
+    }
+}
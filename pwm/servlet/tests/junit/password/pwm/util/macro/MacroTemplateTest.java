@@ -0,0 +1,167 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.macro;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import password.pwm.PwmApplication;
+import password.pwm.PwmConstants;
+import password.pwm.bean.UserInfoBean;
+import password.pwm.http.bean.LoginInfoBean;
+import password.pwm.ldap.UserDataReader;
+import password.pwm.util.StringUtil;
+import password.pwm.util.TimeDuration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Matcher;
+
+public class MacroTemplateTest extends TestCase {
+
+    private final MacroRegistry macroRegistry = MacroRegistry.forExternalRestUrls(Collections.<String>emptyList());
+
+    public void testLiteralTemplate() {
+        final String input = "no macros here, mail admin@example.com @ any time";
+        final MacroTemplate template = macroRegistry.compileTemplate(input);
+        Assert.assertEquals(0, template.macroCount());
+        Assert.assertEquals(input, expand(template, makeRequestInfo("jdoe")));
+    }
+
+    public void testExpand() {
+        final MacroTemplate template = macroRegistry.compileTemplate("Hello @User:ID@, mail admin@example.com from @User:Email@ (@User:ID@)");
+        Assert.assertEquals(3, template.macroCount());
+        Assert.assertEquals("Hello jdoe, mail admin@example.com from jdoe@example.com (jdoe)", expand(template, makeRequestInfo("jdoe")));
+    }
+
+    public void testEncodeExpandsWrappedValue() {
+        final MacroTemplate template = macroRegistry.compileTemplate("id=@Encode:base64:[[@User:ID@]]@");
+        final String expected = "id=" + StringUtil.base64Encode("jdoe".getBytes(PwmConstants.DEFAULT_CHARSET));
+        Assert.assertEquals(expected, expand(template, makeRequestInfo("jdoe")));
+    }
+
+    public void testUnresolvedMacroLeftInPlace() {
+        final MacroTemplate template = macroRegistry.compileTemplate("otp set @OtpSetupTime@");
+        Assert.assertEquals(1, template.macroCount());
+        Assert.assertEquals("otp set @OtpSetupTime@", expand(template, makeRequestInfo("jdoe")));
+    }
+
+    public void testValueNotRescanned() {
+        final MacroTemplate template = macroRegistry.compileTemplate("user @User:ID@");
+        Assert.assertEquals("user @User:Email@", expand(template, makeRequestInfo("@User:Email@")));
+    }
+
+    public void testTemplateCache() {
+        final MacroRegistry registry = new MacroRegistry(Collections.<String>emptyList());
+        final String input = "cached @User:ID@";
+        Assert.assertSame(registry.getCachedTemplate(input), registry.getCachedTemplate(input));
+        Assert.assertEquals(1, registry.cachedTemplateCount());
+    }
+
+    public void testCompiledTemplateNotRetained() {
+        final MacroRegistry registry = new MacroRegistry(Collections.<String>emptyList());
+        final String input = "your new password is secret123 @User:ID@";
+        Assert.assertEquals("your new password is secret123 jdoe", expand(registry.compileTemplate(input), makeRequestInfo("jdoe")));
+        Assert.assertEquals(0, registry.cachedTemplateCount());
+    }
+
+    public void testMatchesRegexExpansion() throws Exception {
+        final StringBuilder body = new StringBuilder();
+        body.append("Dear @User:ID@,\n\n");
+        for (int i = 0; i < 20; i++) {
+            body.append("This line of the notice is plain text without any macros, line number ").append(i).append(".\n");
+        }
+        body.append("Your password will expire on @User:PwExpireTime@, ");
+        body.append("a reset notice has been sent to @User:Email@.\nDays remaining: @User:DaysUntilPwExpire@\n");
+        final String input = body.toString();
+        final MacroImplementation.MacroRequestInfo requestInfo = makeRequestInfo("jdoe");
+
+        final String legacyOutput = legacyExpand(input, requestInfo);
+        Assert.assertEquals(legacyOutput, expand(macroRegistry.compileTemplate(input), requestInfo));
+    }
+
+    static String expand(final MacroTemplate template, final MacroImplementation.MacroRequestInfo requestInfo) {
+        return template.expand(new MacroTemplate.MacroResolver() {
+            public String resolve(final MacroImplementation macroImplementation, final String macroText) {
+                try {
+                    return macroImplementation.replaceValue(macroText, requestInfo);
+                } catch (MacroParseException e) {
+                    return "[" + e.getMessage() + "]";
+                }
+            }
+        });
+    }
+
+    /**
+     * The expansion used prior to compiled templates: every macro implementation is instantiated for each machine,
+     * and each macro pattern rescans the working string, which is rebuilt for each replacement.
+     */
+    static String legacyExpand(final String input, final MacroImplementation.MacroRequestInfo requestInfo) throws Exception {
+        final List<MacroImplementation> implementations = new ArrayList<>();
+        for (final Class<? extends MacroImplementation> macroClass : StandardMacros.STANDARD_MACROS) {
+            implementations.add(macroClass.newInstance());
+        }
+        for (final Class<? extends MacroImplementation> macroClass : InternalMacros.INTERNAL_MACROS) {
+            implementations.add(macroClass.newInstance());
+        }
+
+        String workingString = input;
+        for (final MacroImplementation macroImplementation : implementations) {
+            Matcher matcher = macroImplementation.getRegExPattern().matcher(workingString);
+            while (matcher.find()) {
+                final String replaceStr = macroImplementation.replaceValue(matcher.group(), requestInfo);
+                if (replaceStr == null) {
+                    break;
+                }
+                workingString = new StringBuilder(workingString).replace(matcher.start(), matcher.end(), replaceStr).toString();
+                matcher = macroImplementation.getRegExPattern().matcher(workingString);
+            }
+        }
+        return workingString;
+    }
+
+    static MacroImplementation.MacroRequestInfo makeRequestInfo(final String username) {
+        final UserInfoBean userInfoBean = new UserInfoBean();
+        userInfoBean.setUsername(username);
+        userInfoBean.setUserEmailAddress("jdoe@example.com");
+        userInfoBean.setPasswordExpirationTime(new Date(System.currentTimeMillis() + TimeDuration.DAY.getTotalMilliseconds() * 10 + TimeDuration.HOUR.getTotalMilliseconds()));
+        return new MacroImplementation.MacroRequestInfo() {
+            public PwmApplication getPwmApplication() {
+                return null;
+            }
+
+            public UserInfoBean getUserInfoBean() {
+                return userInfoBean;
+            }
+
+            public LoginInfoBean getLoginInfoBean() {
+                return null;
+            }
+
+            public UserDataReader getUserDataReader() {
+                return null;
+            }
+        };
+    }
+}
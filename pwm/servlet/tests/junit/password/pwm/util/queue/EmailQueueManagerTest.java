@@ -0,0 +1,267 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.queue;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import password.pwm.AppProperty;
+import password.pwm.PwmApplication;
+import password.pwm.config.Configuration;
+import password.pwm.config.PwmSetting;
+import password.pwm.config.StoredConfiguration;
+import password.pwm.config.value.StringArrayValue;
+import password.pwm.error.ErrorInformation;
+import password.pwm.error.PwmError;
+import password.pwm.error.PwmOperationalException;
+import password.pwm.health.HealthRecord;
+import password.pwm.tests.TestHelper;
+import password.pwm.util.JsonUtil;
+import password.pwm.util.TimeDuration;
+import password.pwm.util.localdb.LocalDB;
+import password.pwm.util.localdb.LocalDBFactory;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class EmailQueueManagerTest extends TestCase {
+
+    private SmtpServerStub smtpServer;
+    private Session session;
+    private LocalDB localDB;
+    private Configuration config;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        smtpServer = new SmtpServerStub();
+        final Properties props = new Properties();
+        props.put("mail.smtp.host", "localhost");
+        props.put("mail.smtp.port", String.valueOf(smtpServer.getPort()));
+        session = Session.getInstance(props, null);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        smtpServer.close();
+        if (localDB != null) {
+            localDB.truncate(LocalDB.DB.EMAIL_QUEUE);
+            localDB.truncate(LocalDB.DB.EMAIL_QUEUE_LEASES);
+            localDB.close();
+        }
+    }
+
+    public void testConnectionReuse() throws Exception {
+        final EmailQueueManager.SmtpConnection smtpConnection = new EmailQueueManager.SmtpConnection(session, "localhost", smtpServer.getPort(), null, null);
+        try {
+            for (int i = 0; i < 5; i++) {
+                smtpConnection.send(makeMessage("message " + i));
+            }
+        } finally {
+            smtpConnection.close();
+        }
+
+        for (int i = 0; i < 5; i++) {
+            final String data = smtpServer.getReceivedMessages().poll(5, TimeUnit.SECONDS);
+            Assert.assertNotNull(data);
+            Assert.assertTrue(data.contains("Subject: message " + i));
+        }
+        Assert.assertEquals(1, smtpServer.getConnectionCount());
+        Assert.assertFalse(smtpConnection.isAuthenticated());
+    }
+
+    public void testReconnectAfterServerDrop() throws Exception {
+        final EmailQueueManager.SmtpConnection smtpConnection = new EmailQueueManager.SmtpConnection(session, "localhost", smtpServer.getPort(), null, null);
+        try {
+            smtpConnection.send(makeMessage("before drop"));
+            Assert.assertNotNull(smtpServer.getReceivedMessages().poll(5, TimeUnit.SECONDS));
+
+            smtpServer.dropConnections();
+            smtpConnection.send(makeMessage("after drop"));
+            final String data = smtpServer.getReceivedMessages().poll(5, TimeUnit.SECONDS);
+            Assert.assertNotNull(data);
+            Assert.assertTrue(data.contains("Subject: after drop"));
+        } finally {
+            smtpConnection.close();
+        }
+        Assert.assertEquals(2, smtpServer.getConnectionCount());
+    }
+
+    public void testLeasedItemsRestoredAfterRestart() throws Exception {
+        openLocalDB();
+        final StubQueueManager firstRun = new StubQueueManager(Arrays.asList("first", "second", "third"));
+        firstRun.open(localDB, config, LocalDB.DB.EMAIL_QUEUE, LocalDB.DB.EMAIL_QUEUE_LEASES, makeSettings(10 * 1000, 3));
+        firstRun.add("first");
+        firstRun.add("second");
+        firstRun.add("third");
+        Assert.assertTrue(firstRun.blockedSendStarted.await(5, TimeUnit.SECONDS));
+        firstRun.add("fourth");
+
+        // each worker is still sending its leased item when the queue shuts down
+        firstRun.close();
+        Assert.assertEquals(3, localDB.size(LocalDB.DB.EMAIL_QUEUE_LEASES));
+
+        final StubQueueManager secondRun = new StubQueueManager();
+        try {
+            secondRun.open(localDB, config, LocalDB.DB.EMAIL_QUEUE, LocalDB.DB.EMAIL_QUEUE_LEASES, makeSettings(10 * 1000, 1));
+            secondRun.waitForSentCount(4);
+            Assert.assertEquals(Arrays.asList("first", "second", "third", "fourth"), secondRun.sentItems);
+            Assert.assertEquals(0, localDB.size(LocalDB.DB.EMAIL_QUEUE_LEASES));
+        } finally {
+            firstRun.releaseBlockedSend.countDown();
+            firstRun.blockedSendFinished.await(5, TimeUnit.SECONDS);
+            secondRun.close();
+        }
+    }
+
+    public void testFailedSendReturnsItemToQueue() throws Exception {
+        openLocalDB();
+        final StubQueueManager queueManager = new StubQueueManager();
+        queueManager.failingItem = "first";
+        queueManager.open(localDB, config, LocalDB.DB.EMAIL_QUEUE, LocalDB.DB.EMAIL_QUEUE_LEASES, makeSettings(100, 1));
+        try {
+            queueManager.add("first");
+            queueManager.add("second");
+            queueManager.waitForSentCount(2);
+            Assert.assertEquals(Arrays.asList("first", "first", "second"), queueManager.attemptedItems);
+            Assert.assertEquals(Arrays.asList("first", "second"), queueManager.sentItems);
+            Assert.assertEquals(0, queueManager.queueSize());
+            Assert.assertEquals(0, localDB.size(LocalDB.DB.EMAIL_QUEUE_LEASES));
+        } finally {
+            queueManager.close();
+        }
+    }
+
+    private void openLocalDB() throws Exception {
+        final StoredConfiguration storedConfiguration = StoredConfiguration.newStoredConfiguration();
+        storedConfiguration.writeSetting(PwmSetting.APP_PROPERTY_OVERRIDES, new StringArrayValue(Collections.singletonList(
+                AppProperty.QUEUE_MAX_CLOSE_TIMEOUT_MS.getKey() + "=200")), null);
+        config = new Configuration(storedConfiguration);
+        localDB = LocalDBFactory.getInstance(new File(TestHelper.getParameter("pwmDBlocation")), false, null, config);
+        localDB.truncate(LocalDB.DB.EMAIL_QUEUE);
+        localDB.truncate(LocalDB.DB.EMAIL_QUEUE_LEASES);
+    }
+
+    private static AbstractQueueManager.Settings makeSettings(final long retryWaitMs, final int workerCount) {
+        return new AbstractQueueManager.Settings(new TimeDuration(60 * 1000), new TimeDuration(retryWaitMs), 100, workerCount, "test queue");
+    }
+
+    /**
+     * Queue that records sent items; it can block on the sends of given items or fail the first send of an item.
+     */
+    private static class StubQueueManager extends AbstractQueueManager {
+        private final List<String> attemptedItems = Collections.synchronizedList(new ArrayList<String>());
+        private final List<String> sentItems = Collections.synchronizedList(new ArrayList<String>());
+        private final Set<String> blockedItems;
+        private final CountDownLatch blockedSendStarted;
+        private final CountDownLatch releaseBlockedSend = new CountDownLatch(1);
+        private final CountDownLatch blockedSendFinished;
+        private volatile String failingItem;
+        private int itemCounter;
+
+        StubQueueManager() {
+            this(Collections.<String>emptyList());
+        }
+
+        StubQueueManager(final Collection<String> blockedItems) {
+            this.blockedItems = Collections.synchronizedSet(new HashSet<>(blockedItems));
+            this.blockedSendStarted = new CountDownLatch(blockedItems.size());
+            this.blockedSendFinished = new CountDownLatch(blockedItems.size());
+        }
+
+        public void init(final PwmApplication pwmApplication) {
+            throw new UnsupportedOperationException();
+        }
+
+        void sendItem(final String item, final WorkerState workerState) throws PwmOperationalException {
+            final String value = JsonUtil.deserialize(item, String.class);
+            attemptedItems.add(value);
+            if (blockedItems.remove(value)) {
+                blockedSendStarted.countDown();
+                try {
+                    releaseBlockedSend.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    blockedSendFinished.countDown();
+                }
+                return;
+            }
+            if (value.equals(failingItem)) {
+                failingItem = null;
+                throw new PwmOperationalException(new ErrorInformation(PwmError.ERROR_UNKNOWN, "stub send failure"));
+            }
+            sentItems.add(value);
+        }
+
+        /**
+         * Wait until {@code count} items are sent and acknowledged.
+         */
+        void waitForSentCount(final int count) throws InterruptedException {
+            final long startTime = System.currentTimeMillis();
+            while ((sentItems.size() < count || queueSize() > 0) && System.currentTimeMillis() - startTime < 5000) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(count, sentItems.size());
+        }
+
+        List<HealthRecord> failureToHealthRecord(final FailureInfo failureInfo) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        protected int readItemIDCounter() {
+            return itemCounter;
+        }
+
+        @Override
+        protected void storeItemCounter(final int value) {
+            itemCounter = value;
+        }
+
+        @Override
+        protected String queueItemToDebugString(final QueueEvent queueEvent) {
+            return queueEvent.getItem();
+        }
+
+        @Override
+        protected void noteDiscardedItem(final QueueEvent queueEvent) {
+        }
+    }
+
+    private Message makeMessage(final String subject) throws MessagingException {
+        final Message message = new MimeMessage(session);
+        message.setFrom(new InternetAddress("from@example.com"));
+        message.setRecipients(Message.RecipientType.TO, new InternetAddress[]{new InternetAddress("to@example.com")});
+        message.setSubject(subject);
+        message.setContent("body of " + subject, "text/plain");
+        return message;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.queue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal in-process SMTP server that accepts every message and records the message data.
+ */
+class SmtpServerStub {
+    private final ServerSocket serverSocket;
+    private final BlockingQueue<String> receivedMessages = new LinkedBlockingQueue<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final List<Socket> connections = new ArrayList<>();
+
+    SmtpServerStub() throws IOException {
+        serverSocket = new ServerSocket(0);
+        final Thread listenerThread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    while (!serverSocket.isClosed()) {
+                        final Socket socket = serverSocket.accept();
+                        connectionCount.incrementAndGet();
+                        synchronized (connections) {
+                            connections.add(socket);
+                        }
+                        final Thread connectionThread = new Thread(new Runnable() {
+                            public void run() {
+                                try {
+                                    handleConnection(socket);
+                                } catch (IOException e) {
+                                    /* connection closed */
+                                }
+                            }
+                        });
+                        connectionThread.setDaemon(true);
+                        connectionThread.start();
+                    }
+                } catch (IOException e) {
+                    /* listener closed */
+                }
+            }
+        });
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    BlockingQueue<String> getReceivedMessages() {
+        return receivedMessages;
+    }
+
+    /**
+     * Close all open client connections without an SMTP goodbye, as a server idle timeout would.
+     */
+    void dropConnections() throws IOException {
+        synchronized (connections) {
+            for (final Socket socket : connections) {
+                socket.close();
+            }
+            connections.clear();
+        }
+    }
+
+    void close() throws IOException {
+        dropConnections();
+        serverSocket.close();
+    }
+
+    private void handleConnection(final Socket socket) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        final OutputStream output = socket.getOutputStream();
+        reply(output, "220 localhost ESMTP stub");
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            final String command = line.length() < 4 ? line.toUpperCase() : line.substring(0, 4).toUpperCase();
+            if ("QUIT".equals(command)) {
+                reply(output, "221 bye");
+                socket.close();
+                return;
+            } else if ("DATA".equals(command)) {
+                reply(output, "354 end data with <CR><LF>.<CR><LF>");
+                final StringBuilder data = new StringBuilder();
+                while ((line = reader.readLine()) != null && !".".equals(line)) {
+                    data.append(line).append("\n");
+                }
+                receivedMessages.add(data.toString());
+                reply(output, "250 message accepted");
+            } else if ("EHLO".equals(command) || "HELO".equals(command)) {
+                reply(output, "250 localhost");
+            } else if ("MAIL".equals(command) || "RCPT".equals(command) || "RSET".equals(command) || "NOOP".equals(command)) {
+                reply(output, "250 OK");
+            } else {
+                reply(output, "502 command not implemented");
+            }
+        }
+    }
+
+    private static void reply(final OutputStream output, final String line) throws IOException {
+        output.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        output.flush();
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.report;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import java.util.List;
+
+public class ReportServiceTest extends TestCase {
+
+    public void testSearchSliceFilters() {
+        final List<String> filters = ReportService.makeSearchSliceFilters("(objectClass=person)", "cn");
+        Assert.assertEquals(37, filters.size());
+        Assert.assertEquals("(&(objectClass=person)(cn=a*))", filters.get(0));
+        Assert.assertEquals("(&(objectClass=person)(cn=9*))", filters.get(35));
+        Assert.assertTrue(filters.get(36).startsWith("(&(objectClass=person)(!(|(cn=a*)(cn=b*)"));
+        Assert.assertTrue(filters.get(36).endsWith("(cn=9*))))"));
+    }
+
+    public void testSearchSliceFiltersWithoutNamingAttribute() {
+        final List<String> filters = ReportService.makeSearchSliceFilters("objectClass=person", "");
+        Assert.assertEquals(1, filters.size());
+        Assert.assertEquals("(objectClass=person)", filters.get(0));
+    }
+}
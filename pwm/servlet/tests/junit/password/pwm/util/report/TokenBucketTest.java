@@ -0,0 +1,48 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.util.report;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class TokenBucketTest extends TestCase {
+
+    public void testRateLimit() throws InterruptedException {
+        final TokenBucket tokenBucket = new TokenBucket(100, 1);
+        final long startTime = System.currentTimeMillis();
+        for (int i = 0; i < 21; i++) {
+            tokenBucket.acquire();
+        }
+        // first token is available immediately, the remaining 20 arrive at 10ms intervals
+        Assert.assertTrue(System.currentTimeMillis() - startTime >= 190);
+    }
+
+    public void testUnlimited() throws InterruptedException {
+        final TokenBucket tokenBucket = new TokenBucket(0, 1);
+        final long startTime = System.currentTimeMillis();
+        for (int i = 0; i < 10000; i++) {
+            tokenBucket.acquire();
+        }
+        Assert.assertTrue(System.currentTimeMillis() - startTime < 1000);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package password.pwm.util.stats;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class StatisticsBundleTest extends TestCase {
+
+    public void testStoredFormatCompatibility() {
+        // value as written by the previous BigInteger/AverageBean implementation
+        final String storedValue = "{\"AUTHENTICATIONS\":\"41\",\"AVG_LDAP_SEARCH_TIME\":\"{\\\"total\\\":300,\\\"count\\\":3}\"}";
+        final StatisticsBundle bundle = StatisticsBundle.input(storedValue);
+        Assert.assertEquals("41", bundle.getStatistic(Statistic.AUTHENTICATIONS));
+        Assert.assertEquals("100", bundle.getStatistic(Statistic.AVG_LDAP_SEARCH_TIME));
+        Assert.assertEquals("0", bundle.getStatistic(Statistic.AUTHENTICATION_FAILURES));
+
+        bundle.incrementValue(Statistic.AUTHENTICATIONS);
+        bundle.updateAverageValue(Statistic.AVG_LDAP_SEARCH_TIME, 500);
+
+        final StatisticsBundle reloaded = StatisticsBundle.input(bundle.output());
+        Assert.assertEquals("42", reloaded.getStatistic(Statistic.AUTHENTICATIONS));
+        Assert.assertEquals("200", reloaded.getStatistic(Statistic.AVG_LDAP_SEARCH_TIME));
+    }
+
+    public void testConcurrentIncrement() throws Exception {
+        final StatisticsBundle bundle = new StatisticsBundle();
+        final int threadCount = 8;
+        final int incrementsPerThread = 10 * 1000;
+        final Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < incrementsPerThread; j++) {
+                        bundle.incrementValue(Statistic.AUTHENTICATIONS);
+                        bundle.updateAverageValue(Statistic.AVG_LDAP_SEARCH_TIME, 10);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(String.valueOf(threadCount * incrementsPerThread), bundle.getStatistic(Statistic.AUTHENTICATIONS));
+        Assert.assertEquals("10", bundle.getStatistic(Statistic.AVG_LDAP_SEARCH_TIME));
+    }
+}
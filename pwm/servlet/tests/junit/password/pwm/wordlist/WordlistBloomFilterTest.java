@@ -0,0 +1,81 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.wordlist;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+
+public class WordlistBloomFilterTest extends TestCase {
+
+    private static final int WORD_COUNT = 10000;
+
+    private File filterFile;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        filterFile = File.createTempFile("pwm-bloomfilter", ".bin");
+    }
+
+    public void testAddAndReopen() throws Exception {
+        final WordlistBloomFilter filter = WordlistBloomFilter.create(filterFile, WORD_COUNT, 0.01);
+        for (int i = 0; i < WORD_COUNT; i++) {
+            filter.add("word" + i);
+        }
+        filter.markComplete(42);
+        filter.close();
+
+        assertNull(WordlistBloomFilter.open(filterFile, 43));
+
+        final WordlistBloomFilter reopened = WordlistBloomFilter.open(filterFile, 42);
+        assertNotNull(reopened);
+        assertEquals(WORD_COUNT, reopened.getInsertCount());
+        for (int i = 0; i < WORD_COUNT; i++) {
+            assertTrue(reopened.mightContain("word" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < WORD_COUNT; i++) {
+            if (reopened.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue("false positive count " + falsePositives + " is too high", falsePositives < WORD_COUNT * 0.03);
+        reopened.close();
+    }
+
+    public void testIncompleteFilterIsRejected() throws Exception {
+        final WordlistBloomFilter filter = WordlistBloomFilter.create(filterFile, WORD_COUNT, 0.01);
+        filter.add("word");
+        filter.close();
+
+        assertNull(WordlistBloomFilter.open(filterFile, 0));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        WordlistBloomFilter.delete(filterFile);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.wordlist;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.*;
+
+public class WordlistSegmentTest extends TestCase {
+
+    private static final int WORD_COUNT = 10000;
+
+    private File segmentFile;
+    private File workDirectory;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        segmentFile = File.createTempFile("pwm-segment", ".bin");
+        workDirectory = new File(segmentFile.getAbsolutePath() + ".work");
+    }
+
+    public void testMergeAndLookup() throws Exception {
+        final List<String> words = new ArrayList<>();
+        for (int i = 0; i < WORD_COUNT; i++) {
+            words.add("word" + i);
+        }
+        words.add("café");
+        words.add("漢字");
+        words.add("😀smile");
+        words.add("￯high");
+
+        final WordlistSegmentBuilder builder = new WordlistSegmentBuilder(segmentFile, workDirectory);
+        builder.init(0);
+        final int runSize = 3000;
+        for (int i = 0; i < words.size(); i += runSize) {
+            final TreeSet<String> run = new TreeSet<>(WordlistSegment.CODE_POINT_ORDER);
+            run.addAll(words.subList(i, Math.min(words.size(), i + runSize)));
+            run.add("word1"); // duplicate across runs
+            builder.writeRun(run);
+        }
+        assertEquals(words.size(), builder.merge());
+        assertFalse(workDirectory.exists());
+
+        final WordlistSegment segment = WordlistSegment.open(segmentFile);
+        assertNotNull(segment);
+        assertEquals(words.size(), segment.getWordCount());
+        for (final String word : words) {
+            assertTrue(word, segment.contains(word));
+        }
+        assertFalse(segment.contains("word"));
+        assertFalse(segment.contains("word99999"));
+        assertFalse(segment.contains("aaa"));
+        assertFalse(segment.contains("zzz"));
+        assertFalse(segment.contains(""));
+
+        final List<String> expected = new ArrayList<>(words);
+        Collections.sort(expected, WordlistSegment.CODE_POINT_ORDER);
+        final List<String> stored = new ArrayList<>();
+        for (final Iterator<String> iterator = segment.iterator(); iterator.hasNext(); ) {
+            stored.add(iterator.next());
+        }
+        assertEquals(expected, stored);
+        segment.close();
+    }
+
+    public void testResumeDiscardsIncompleteRuns() throws Exception {
+        final WordlistSegmentBuilder builder = new WordlistSegmentBuilder(segmentFile, workDirectory);
+        builder.init(0);
+        builder.writeRun(Arrays.asList("a", "b"));
+        builder.writeRun(Arrays.asList("c", "d"));
+
+        final WordlistSegmentBuilder resumed = new WordlistSegmentBuilder(segmentFile, workDirectory);
+        resumed.init(1);
+        assertEquals(1, resumed.getRunCount());
+        resumed.writeRun(Arrays.asList("e"));
+        assertEquals(3, resumed.merge());
+
+        final WordlistSegment segment = WordlistSegment.open(segmentFile);
+        assertTrue(segment.contains("a"));
+        assertFalse(segment.contains("c"));
+        assertTrue(segment.contains("e"));
+        segment.close();
+    }
+
+    public void testMultiPassMerge() throws Exception {
+        final WordlistSegmentBuilder builder = new WordlistSegmentBuilder(segmentFile, workDirectory, 3);
+        builder.init(0);
+        final Set<String> words = new TreeSet<>(WordlistSegment.CODE_POINT_ORDER);
+        for (int run = 0; run < 20; run++) {
+            final TreeSet<String> runWords = new TreeSet<>(WordlistSegment.CODE_POINT_ORDER);
+            for (int i = 0; i < 50; i++) {
+                runWords.add("word" + (run * 37 + i * 11) % 600);
+            }
+            runWords.add("common");
+            words.addAll(runWords);
+            builder.writeRun(runWords);
+        }
+        assertEquals(words.size(), builder.merge());
+        assertFalse(workDirectory.exists());
+
+        final WordlistSegment segment = WordlistSegment.open(segmentFile);
+        final List<String> stored = new ArrayList<>();
+        for (final Iterator<String> iterator = segment.iterator(); iterator.hasNext(); ) {
+            stored.add(iterator.next());
+        }
+        assertEquals(new ArrayList<>(words), stored);
+        segment.close();
+    }
+
+    public void testInvalidFileIsRejected() throws Exception {
+        assertNull(WordlistSegment.open(segmentFile));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        WordlistSegment.delete(segmentFile);
+        new WordlistSegmentBuilder(segmentFile, workDirectory).clear();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.wordlist;
+
+import junit.framework.TestCase;
+import password.pwm.PwmConstants;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class ZipReaderTest extends TestCase {
+
+    private File zipFile;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        zipFile = File.createTempFile("pwm-wordlist", ".zip");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        zipFile.delete();
+    }
+
+    public void testLineTerminators() throws Exception {
+        final StringBuilder padding = new StringBuilder();
+        while (padding.length() < 64 * 1024 - 1) {
+            padding.append('x');
+        }
+        // the line in the last entry fills the read buffer, so its \r\n pair can span a buffer refill
+        writeZip("one\ntwo\rthree\r\nfour\r\rsix", padding + "\r\nseven");
+
+        final ZipReader zipReader = new ZipReader(zipFile);
+        try {
+            final List<String> lines = new ArrayList<>();
+            String line;
+            while ((line = zipReader.nextLine()) != null) {
+                lines.add(line);
+            }
+            assertEquals(Arrays.asList("one", "two", "three", "four", "", "six", padding.toString(), "seven"), lines);
+        } finally {
+            zipReader.close();
+        }
+    }
+
+    public void testSeekAfterCarriageReturn() throws Exception {
+        writeZip("one\r\ntwo\rthree");
+
+        final ZipReader zipReader = new ZipReader(zipFile);
+        final long position;
+        try {
+            assertEquals("one", zipReader.nextLine());
+            assertEquals("two", zipReader.nextLine());
+            position = zipReader.getEntryBytePosition();
+        } finally {
+            zipReader.close();
+        }
+
+        final ZipReader resumedReader = new ZipReader(zipFile);
+        try {
+            resumedReader.seek(0, position);
+            assertEquals("three", resumedReader.nextLine());
+            assertNull(resumedReader.nextLine());
+        } finally {
+            resumedReader.close();
+        }
+    }
+
+    private void writeZip(final String... entries) throws Exception {
+        final ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(zipFile));
+        try {
+            for (int i = 0; i < entries.length; i++) {
+                zipOutputStream.putNextEntry(new ZipEntry("words" + i + ".txt"));
+                zipOutputStream.write(entries[i].getBytes(PwmConstants.DEFAULT_CHARSET));
+                zipOutputStream.closeEntry();
+            }
+        } finally {
+            zipOutputStream.close();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Password Management Servlets (PWM)
+ * http://code.google.com/p/pwm/
+ *
+ * Copyright (c) 2006-2009 Novell, Inc.
+ * Copyright (c) 2009-2015 The PWM Project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package password.pwm.ws.server.rest;
+
+import junit.framework.TestCase;
+import password.pwm.PwmConstants;
+import password.pwm.util.JsonUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+public class StreamingRecordOutputTest extends TestCase {
+
+    public void testJsonPaging() throws Exception {
+        final Map<String, Object> firstPage = readJson(new TestOutput(StreamingRecordOutput.Format.json, 5, 12));
+        final Map<String, Object> data = (Map<String, Object>) firstPage.get("data");
+        assertEquals(Boolean.FALSE, firstPage.get("error"));
+        assertEquals(5, ((List) data.get("records")).size());
+        assertEquals("4", StreamingRecordOutput.decodeCursor((String) data.get("cursor")));
+
+        final Map<String, Object> lastPage = readJson(new TestOutput(StreamingRecordOutput.Format.json, 50, 12));
+        assertNull(((Map<String, Object>) lastPage.get("data")).get("cursor"));
+    }
+
+    public void testCsvPaging() throws Exception {
+        final String output = write(new TestOutput(StreamingRecordOutput.Format.csv, 5, 12));
+        final String[] lines = output.split("\r\n");
+        assertEquals(7, lines.length);
+        assertEquals("value", lines[0]);
+        assertEquals("value-0", lines[1]);
+        assertEquals("# cursor=" + StreamingRecordOutput.encodeCursor("4"), lines[6]);
+    }
+
+    private static Map<String, Object> readJson(final TestOutput testOutput) throws Exception {
+        return JsonUtil.deserialize(write(testOutput), Map.class);
+    }
+
+    private static String write(final TestOutput testOutput) throws Exception {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        testOutput.write(outputStream);
+        assertTrue(testOutput.closed);
+        return new String(outputStream.toByteArray(), PwmConstants.DEFAULT_CHARSET);
+    }
+
+    private static class TestOutput extends StreamingRecordOutput<String> {
+        private final int size;
+        private int position = -1;
+        private boolean closed;
+
+        private TestOutput(final Format format, final int limit, final int size) {
+            super(format, limit);
+            this.size = size;
+        }
+
+        boolean hasNext() {
+            return position + 1 < size;
+        }
+
+        String next() {
+            return "value-" + (++position);
+        }
+
+        String currentCursor() {
+            return String.valueOf(position);
+        }
+
+        List<String> csvHeader() {
+            return Collections.singletonList("value");
+        }
+
+        List<String> csvRow(final String record) {
+            return Collections.singletonList(record);
+        }
+
+        void close() {
+            closed = true;
+        }
+    }
+}
@@ -27,6 +27,7 @@
 <%@ page import="password.pwm.http.JspUtility" %>
 <%@ page import="password.pwm.http.servlet.ResourceFileServlet" %>
 <%@ page import="password.pwm.i18n.Display" %>
+<%@ page import="password.pwm.ldap.ChaiProviderPool" %>
 <%@ page import="password.pwm.util.Helper" %>
 <%@ page import="password.pwm.util.StringUtil" %>
 <%@ page import="password.pwm.util.localdb.LocalDB" %>
@@ -277,6 +278,34 @@
                                 <% } %>
                             </td>
                         </tr>
+                        <% final Map<String,ChaiProviderPool.PoolStatistics> poolStatistics = dashboard_pwmApplication.getLdapConnectionService().getProxyPoolStatistics(); %>
+                        <% if (!poolStatistics.isEmpty()) { %>
+                        <tr>
+                            <td class="key">
+                                LDAP Proxy Connection Pool
+                            </td>
+                            <td>
+                                <table class="nomargin">
+                                    <% for (final ChaiProviderPool.PoolStatistics loopStatistics : poolStatistics.values()) { %>
+                                    <tr>
+                                        <td><%= StringUtil.escapeHtml(loopStatistics.getProfileID()) %></td>
+                                        <td>
+                                            connections <%= loopStatistics.getOpenConnections() %>/<%= loopStatistics.getPoolSize() %>,
+                                            active operations <%= loopStatistics.getActiveOperations() %>/<%= loopStatistics.getMaxOperations() %>
+                                            (peak <%= loopStatistics.getPeakActiveOperations() %>),
+                                            operations <%= numberFormat.format(loopStatistics.getOperationCount()) %>,
+                                            average wait <%= loopStatistics.getAverageWaitMs() %>ms
+                                            (peak <%= loopStatistics.getPeakWaitMs() %>ms),
+                                            wait timeouts <%= numberFormat.format(loopStatistics.getWaitTimeouts()) %>,
+                                            connection failures <%= numberFormat.format(loopStatistics.getConnectionFailures()) %>,
+                                            idle closes <%= numberFormat.format(loopStatistics.getIdleEvictions()) %>
+                                        </td>
+                                    </tr>
+                                    <% } %>
+                                </table>
+                            </td>
+                        </tr>
+                        <% } %>
                         <tr>
                             <td class="key">
                                 Chai API Version